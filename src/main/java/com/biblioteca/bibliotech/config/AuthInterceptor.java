@@ -2,9 +2,9 @@ package com.biblioteca.bibliotech.config;
 
 import com.biblioteca.bibliotech.dto.response.UsuarioSistemaResponse;
 import com.biblioteca.bibliotech.enums.Rol;
+import com.biblioteca.bibliotech.service.AuthService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.ModelAndView;
@@ -12,53 +12,49 @@ import org.springframework.web.servlet.ModelAndView;
 /**
  * Interceptor para control de acceso basado en sesión y roles.
  * Verifica que el usuario esté logueado y tenga los permisos necesarios.
+ * El usuario se obtiene de la sesión o del token firmado según el modo configurado.
+ *
+ * Los permisos y la sección del menú se obtienen del RegistroRutas (construido al
+ * iniciar a partir de los controladores) para el handler que atiende la petición,
+ * con una sola búsqueda por petición.
  */
 @Component
 public class AuthInterceptor implements HandlerInterceptor {
     
-    private static final String USUARIO_SESSION_KEY = "usuarioLogueado";
+    private static final String RUTA_ATTR = AuthInterceptor.class.getName() + ".ruta";
     
-    // Rutas que requieren rol ADMIN
-    private static final String[] RUTAS_ADMIN = {
-            "/usuarios",
-            "/reportes"
-    };
+    private final AuthService authService;
+    private final RegistroRutas registroRutas;
     
-    // Rutas públicas (no requieren autenticación)
-    private static final String[] RUTAS_PUBLICAS = {
-            "/login",
-            "/css",
-            "/js",
-            "/images",
-            "/error"
-    };
+    public AuthInterceptor(AuthService authService, RegistroRutas registroRutas) {
+        this.authService = authService;
+        this.registroRutas = registroRutas;
+    }
     
     @Override
-    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, 
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
                              Object handler) throws Exception {
         
-        String uri = request.getRequestURI();
         String contextPath = request.getContextPath();
-        String path = uri.substring(contextPath.length());
+        
+        RegistroRutas.InfoRuta ruta = registroRutas.buscar(request, handler);
+        request.setAttribute(RUTA_ATTR, ruta);
         
         // Permitir rutas públicas
-        if (esRutaPublica(path)) {
+        if (ruta.isPublica()) {
             return true;
         }
         
-        // Verificar sesión
-        HttpSession session = request.getSession(false);
-        if (session == null || session.getAttribute(USUARIO_SESSION_KEY) == null) {
+        // Verificar sesión (o token) y obtener usuario
+        UsuarioSistemaResponse usuario = authService.resolverUsuario(request);
+        if (usuario == null) {
             // Redirigir al login
             response.sendRedirect(contextPath + "/login");
             return false;
         }
         
-        // Obtener usuario de la sesión
-        UsuarioSistemaResponse usuario = (UsuarioSistemaResponse) session.getAttribute(USUARIO_SESSION_KEY);
-        
-        // Verificar permisos para rutas de ADMIN
-        if (requiereAdmin(path) && !Rol.ADMIN.equals(usuario.getRol())) {
+        // Verificar rol requerido por la ruta
+        if (!ruta.permite(usuario.getRol())) {
             // Redirigir a página de acceso denegado
             response.sendRedirect(contextPath + "/error/403");
             return false;
@@ -68,63 +64,20 @@ public class AuthInterceptor implements HandlerInterceptor {
     }
     
     @Override
-    public void postHandle(HttpServletRequest request, HttpServletResponse response, 
+    public void postHandle(HttpServletRequest request, HttpServletResponse response,
                            Object handler, ModelAndView modelAndView) throws Exception {
         
         // Agregar usuario al modelo para todas las vistas (si está logueado)
         if (modelAndView != null) {
-            HttpSession session = request.getSession(false);
-            if (session != null) {
-                UsuarioSistemaResponse usuario = (UsuarioSistemaResponse) session.getAttribute(USUARIO_SESSION_KEY);
-                if (usuario != null) {
-                    modelAndView.addObject("usuarioLogueado", usuario);
-                    modelAndView.addObject("esAdmin", Rol.ADMIN.equals(usuario.getRol()));
-                }
+            UsuarioSistemaResponse usuario = authService.resolverUsuario(request);
+            if (usuario != null) {
+                modelAndView.addObject("usuarioLogueado", usuario);
+                modelAndView.addObject("esAdmin", Rol.ADMIN.equals(usuario.getRol()));
             }
             
-            // Agregar currentPage basado en la URI
-            String uri = request.getRequestURI();
-            String currentPage = determinarPaginaActual(uri);
-            modelAndView.addObject("currentPage", currentPage);
-        }
-    }
-    
-    /**
-     * Determina la página actual basándose en la URI.
-     */
-    private String determinarPaginaActual(String uri) {
-        if (uri.contains("/dashboard")) return "dashboard";
-        if (uri.contains("/libros")) return "libros";
-        if (uri.contains("/autores")) return "autores";
-        if (uri.contains("/categorias")) return "categorias";
-        if (uri.contains("/prestamos")) return "prestamos";
-        if (uri.contains("/clientes")) return "clientes";
-        if (uri.contains("/usuarios")) return "usuarios";
-        if (uri.contains("/reportes")) return "reportes";
-        return "";
-    }
-    
-    /**
-     * Verifica si la ruta es pública.
-     */
-    private boolean esRutaPublica(String path) {
-        for (String rutaPublica : RUTAS_PUBLICAS) {
-            if (path.startsWith(rutaPublica) || path.equals("/")) {
-                return true;
-            }
-        }
-        return false;
-    }
-    
-    /**
-     * Verifica si la ruta requiere rol ADMIN.
-     */
-    private boolean requiereAdmin(String path) {
-        for (String rutaAdmin : RUTAS_ADMIN) {
-            if (path.startsWith(rutaAdmin)) {
-                return true;
-            }
+            // Agregar currentPage según la sección registrada para la ruta
+            RegistroRutas.InfoRuta ruta = (RegistroRutas.InfoRuta) request.getAttribute(RUTA_ATTR);
+            modelAndView.addObject("currentPage", ruta != null ? ruta.getSeccion() : "");
         }
-        return false;
     }
 }
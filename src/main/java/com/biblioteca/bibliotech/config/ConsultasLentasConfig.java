@@ -0,0 +1,33 @@
+package com.biblioteca.bibliotech.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Activa el registro de consultas lentas cuando se define bibliotech.sql.umbral-lento
+ * (por ejemplo en el perfil prod). Envuelve el DataSource de la aplicación.
+ */
+@Configuration
+@ConditionalOnProperty(name = "bibliotech.sql.umbral-lento")
+public class ConsultasLentasConfig {
+    
+    @Bean
+    public static BeanPostProcessor consultasLentasPostProcessor(
+            @Value("${bibliotech.sql.umbral-lento}") Duration umbral) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConsultasLentasDataSource)) {
+                    return new ConsultasLentasDataSource(dataSource, umbral.toMillis());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,152 @@
+package com.biblioteca.bibliotech.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * DataSource que registra solo las sentencias SQL que superan un umbral de tiempo,
+ * junto con sus valores de parámetros (bind values).
+ * Reemplaza el volcado de todo el SQL (show-sql / org.hibernate.SQL=DEBUG) en producción.
+ */
+public class ConsultasLentasDataSource extends DelegatingDataSource {
+    
+    private static final Logger log = LoggerFactory.getLogger("bibliotech.sql.lento");
+    private static final int MAX_LONGITUD_VALOR = 100;
+    
+    private final long umbralNanos;
+    
+    public ConsultasLentasDataSource(DataSource destino, long umbralMillis) {
+        super(destino);
+        this.umbralNanos = umbralMillis * 1_000_000L;
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        return envolverConexion(super.getConnection());
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return envolverConexion(super.getConnection(username, password));
+    }
+    
+    private Connection envolverConexion(Connection conexion) {
+        return (Connection) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object resultado = invocar(conexion, method, args);
+                    if (resultado instanceof Statement sentencia) {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                        return envolverSentencia(sentencia, sql);
+                    }
+                    return resultado;
+                });
+    }
+    
+    private Statement envolverSentencia(Statement sentencia, String sql) {
+        Class<?> tipo = sentencia instanceof CallableStatement ? CallableStatement.class
+                : sentencia instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        return (Statement) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[]{tipo},
+                new SentenciaMedida(sentencia, sql));
+    }
+    
+    private static Object invocar(Object destino, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+    
+    /**
+     * Intercepta los setXxx(indice, valor) para recordar los parámetros
+     * y mide el tiempo de los execute*.
+     */
+    private class SentenciaMedida implements InvocationHandler {
+        
+        private final Statement destino;
+        private final String sql;
+        private final Map<Integer, Object> parametros = new TreeMap<>();
+        
+        SentenciaMedida(Statement destino, String sql) {
+            this.destino = destino;
+            this.sql = sql;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String nombre = method.getName();
+            
+            if (nombre.startsWith("execute")) {
+                long inicio = System.nanoTime();
+                try {
+                    return invocar(destino, method, args);
+                } finally {
+                    long duracion = System.nanoTime() - inicio;
+                    if (duracion >= umbralNanos) {
+                        registrar(duracion, args);
+                    }
+                }
+            }
+            
+            if (nombre.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer indice) {
+                parametros.put(indice, "setNull".equals(nombre) ? null : args[1]);
+            } else if ("clearParameters".equals(nombre)) {
+                parametros.clear();
+            }
+            
+            return invocar(destino, method, args);
+        }
+        
+        private void registrar(long duracionNanos, Object[] args) {
+            String sentencia = sql;
+            if (sentencia == null && args != null && args.length > 0 && args[0] instanceof String s) {
+                sentencia = s;
+            }
+            
+            StringBuilder valores = new StringBuilder();
+            for (Map.Entry<Integer, Object> p : parametros.entrySet()) {
+                if (valores.length() > 0) {
+                    valores.append(", ");
+                }
+                valores.append(p.getKey()).append('=').append(formatear(p.getValue()));
+            }
+            
+            log.warn("Consulta lenta ({} ms): {} | parámetros: [{}]",
+                    duracionNanos / 1_000_000L, sentencia, valores);
+        }
+        
+        private String formatear(Object valor) {
+            if (valor == null) {
+                return "NULL";
+            }
+            if (valor instanceof byte[] bytes) {
+                return "byte[" + bytes.length + "]";
+            }
+            String texto = valor.toString();
+            if (valor instanceof CharSequence) {
+                texto = "'" + (texto.length() > MAX_LONGITUD_VALOR
+                        ? texto.substring(0, MAX_LONGITUD_VALOR) + "..." : texto) + "'";
+            }
+            return texto;
+        }
+    }
+}
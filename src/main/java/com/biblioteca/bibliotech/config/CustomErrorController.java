@@ -13,6 +13,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
  * Redirige a las páginas de error correspondientes.
  */
 @Controller
+@RutaPublica
 public class CustomErrorController implements ErrorController {
     
     @RequestMapping("/error")
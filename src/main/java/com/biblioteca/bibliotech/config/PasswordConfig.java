@@ -0,0 +1,19 @@
+package com.biblioteca.bibliotech.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Configuración del hash de contraseñas.
+ * El costo de BCrypt es ajustable con bibliotech.auth.password.costo (4 a 31).
+ */
+@Configuration
+public class PasswordConfig {
+    
+    @Bean
+    public BCryptPasswordEncoder passwordEncoder(@Value("${bibliotech.auth.password.costo:10}") int costo) {
+        return new BCryptPasswordEncoder(costo);
+    }
+}
@@ -0,0 +1,240 @@
+package com.biblioteca.bibliotech.config;
+
+import com.biblioteca.bibliotech.enums.Rol;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registro de metadatos de rutas construido al iniciar la aplicación
+ * a partir de los mapeos de los controladores.
+ * 
+ * Guarda por cada método de controlador el rol requerido, si la ruta es pública
+ * y la sección del menú lateral, de modo que el interceptor decide la autorización
+ * y la página actual con una sola búsqueda por petición. La autorización sale del
+ * método que Spring eligió para atender la petición, no del texto de la URL: así
+ * "/usuarios;x=1" o "/%75suarios" llevan al mismo control que "/usuarios".
+ *
+ * Las peticiones que no atiende un controlador (vistas fijas, redirecciones) se
+ * buscan en un trie de segmentos con la ruta ya normalizada (sin parámetros de
+ * matriz y decodificada); una ruta desconocida se deniega.
+ */
+@Component
+public class RegistroRutas implements ApplicationListener<ContextRefreshedEvent> {
+    
+    // Recursos estáticos (no pasan por los controladores)
+    private static final String[] PREFIJOS_ESTATICOS = {
+            "/css",
+            "/js",
+            "/images",
+            "/webjars",
+            "/error"
+    };
+    
+    private static final InfoRuta RUTA_RAIZ = new InfoRuta(true, null, "");
+    private static final InfoRuta RUTA_ESTATICA = new InfoRuta(true, null, "");
+    private static final InfoRuta RUTA_DESCONOCIDA = InfoRuta.denegada();
+    
+    private volatile Nodo raiz = new Nodo();
+    private volatile Map<Method, InfoRuta> porMetodo = Map.of();
+    
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        Map<RequestMappingInfo, HandlerMethod> metodos = new HashMap<>();
+        for (RequestMappingHandlerMapping mapeo : event.getApplicationContext()
+                .getBeansOfType(RequestMappingHandlerMapping.class).values()) {
+            metodos.putAll(mapeo.getHandlerMethods());
+        }
+        registrar(metodos);
+    }
+    
+    /**
+     * Reconstruye el registro con los métodos de controlador indicados.
+     */
+    void registrar(Map<RequestMappingInfo, HandlerMethod> metodos) {
+        Nodo nuevaRaiz = new Nodo();
+        Map<Method, InfoRuta> nuevosPorMetodo = new HashMap<>();
+        
+        for (String prefijo : PREFIJOS_ESTATICOS) {
+            insertar(nuevaRaiz, prefijo, RUTA_ESTATICA);
+        }
+        
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> entrada : metodos.entrySet()) {
+            HandlerMethod handler = entrada.getValue();
+            for (String patron : entrada.getKey().getPatternValues()) {
+                InfoRuta info = crearInfo(handler, patron);
+                insertar(nuevaRaiz, patron, info);
+                nuevosPorMetodo.putIfAbsent(handler.getMethod(), info);
+            }
+        }
+        
+        this.porMetodo = nuevosPorMetodo;
+        this.raiz = nuevaRaiz;
+    }
+    
+    /**
+     * Metadatos de la petición según el handler que la va a atender: para un
+     * método de controlador, sus anotaciones; para recursos estáticos, pública;
+     * para el resto, el trie con la ruta normalizada.
+     */
+    public InfoRuta buscar(HttpServletRequest request, Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            InfoRuta info = porMetodo.get(handlerMethod.getMethod());
+            return info != null ? info : crearInfo(handlerMethod, "");
+        }
+        if (handler instanceof ResourceHttpRequestHandler) {
+            return RUTA_ESTATICA;
+        }
+        return buscar(UrlPathHelper.defaultInstance.getLookupPathForRequest(request));
+    }
+    
+    /**
+     * Busca los metadatos de una ruta ya normalizada (sin context path, sin
+     * parámetros de matriz y decodificada). Devuelve los del prefijo registrado
+     * más largo; una ruta que no está registrada se deniega.
+     */
+    InfoRuta buscar(String path) {
+        if (path.isEmpty() || "/".equals(path)) {
+            return RUTA_RAIZ;
+        }
+        
+        Nodo nodo = raiz;
+        InfoRuta encontrada = RUTA_DESCONOCIDA;
+        int inicio = path.charAt(0) == '/' ? 1 : 0;
+        int longitud = path.length();
+        
+        while (inicio < longitud) {
+            int fin = path.indexOf('/', inicio);
+            if (fin < 0) {
+                fin = longitud;
+            }
+            if (fin > inicio) {
+                nodo = nodo.hijos.get(path.substring(inicio, fin));
+                if (nodo == null) {
+                    break;
+                }
+                if (nodo.info != null) {
+                    encontrada = nodo.info;
+                }
+            }
+            inicio = fin + 1;
+        }
+        
+        return encontrada;
+    }
+    
+    private static InfoRuta crearInfo(HandlerMethod handler, String patron) {
+        boolean publica = AnnotatedElementUtils.hasAnnotation(handler.getMethod(), RutaPublica.class)
+                || AnnotatedElementUtils.hasAnnotation(handler.getBeanType(), RutaPublica.class);
+        
+        RequiereRol requiereRol = AnnotatedElementUtils.findMergedAnnotation(handler.getMethod(), RequiereRol.class);
+        if (requiereRol == null) {
+            requiereRol = AnnotatedElementUtils.findMergedAnnotation(handler.getBeanType(), RequiereRol.class);
+        }
+        
+        return new InfoRuta(publica, requiereRol != null ? requiereRol.value() : null, primerSegmento(patron));
+    }
+    
+    /**
+     * Inserta la información en el nodo del prefijo literal del patrón
+     * (los segmentos hasta la primera variable o comodín).
+     */
+    private static void insertar(Nodo raiz, String patron, InfoRuta info) {
+        Nodo nodo = raiz;
+        for (String segmento : patron.split("/")) {
+            if (segmento.isEmpty()) {
+                continue;
+            }
+            if (segmento.indexOf('{') >= 0 || segmento.indexOf('*') >= 0) {
+                break;
+            }
+            nodo = nodo.hijos.computeIfAbsent(segmento, s -> new Nodo());
+        }
+        if (nodo != raiz) {
+            nodo.info = nodo.info == null ? info : nodo.info.combinar(info);
+        }
+    }
+    
+    private static String primerSegmento(String patron) {
+        int inicio = patron.startsWith("/") ? 1 : 0;
+        int fin = patron.indexOf('/', inicio);
+        String segmento = fin < 0 ? patron.substring(inicio) : patron.substring(inicio, fin);
+        return segmento.indexOf('{') >= 0 ? "" : segmento;
+    }
+    
+    private static final class Nodo {
+        private final Map<String, Nodo> hijos = new HashMap<>();
+        private InfoRuta info;
+    }
+    
+    /**
+     * Metadatos de una ruta: si es pública, el rol requerido (null = cualquier rol)
+     * y la sección del menú lateral que se marca como activa.
+     */
+    public static final class InfoRuta {
+        
+        private final boolean publica;
+        private final Rol rolRequerido;
+        private final String seccion;
+        private final boolean denegada;
+        
+        InfoRuta(boolean publica, Rol rolRequerido, String seccion) {
+            this(publica, rolRequerido, seccion, false);
+        }
+        
+        private InfoRuta(boolean publica, Rol rolRequerido, String seccion, boolean denegada) {
+            this.publica = publica;
+            this.rolRequerido = rolRequerido;
+            this.seccion = seccion;
+            this.denegada = denegada;
+        }
+        
+        /**
+         * Ruta que no atiende ningún controlador conocido: nadie tiene acceso.
+         */
+        static InfoRuta denegada() {
+            return new InfoRuta(false, null, "", true);
+        }
+        
+        public boolean isPublica() {
+            return publica;
+        }
+        
+        public Rol getRolRequerido() {
+            return rolRequerido;
+        }
+        
+        public String getSeccion() {
+            return seccion;
+        }
+        
+        /**
+         * Verifica si el rol del usuario puede acceder a la ruta.
+         */
+        public boolean permite(Rol rol) {
+            return !denegada && (rolRequerido == null || rolRequerido == rol);
+        }
+        
+        /**
+         * Combina dos rutas con el mismo prefijo quedándose con la más restrictiva.
+         */
+        InfoRuta combinar(InfoRuta otra) {
+            return new InfoRuta(
+                    publica && otra.publica,
+                    rolRequerido != null ? rolRequerido : otra.rolRequerido,
+                    seccion.isEmpty() ? otra.seccion : seccion,
+                    denegada || otra.denegada);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.biblioteca.bibliotech.config;
+
+import com.biblioteca.bibliotech.enums.Rol;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Indica el rol requerido para acceder a las rutas de un controlador (o de un método).
+ * Sin esta anotación basta con tener sesión activa (ADMIN o EMPLEADO).
+ */
+@Documented
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequiereRol {
+    
+    Rol value();
+}
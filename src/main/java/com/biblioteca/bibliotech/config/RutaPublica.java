@@ -0,0 +1,17 @@
+package com.biblioteca.bibliotech.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca las rutas de un controlador (o de un método) como públicas:
+ * no requieren sesión activa.
+ */
+@Documented
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RutaPublica {
+}
@@ -26,6 +26,8 @@ public class WebConfig implements WebMvcConfigurer {
                 .excludePathPatterns(
                         "/login",
                         "/logout",
+                        // Catálogo público: sin sesión ni consulta del usuario (ver CatalogoController)
+                        "/catalogo/**",
                         "/css/**",
                         "/js/**",
                         "/images/**",
@@ -3,10 +3,8 @@ package com.biblioteca.bibliotech.controller;
 import com.biblioteca.bibliotech.dto.request.AutorRequest;
 import com.biblioteca.bibliotech.dto.response.AutorResponse;
 import com.biblioteca.bibliotech.dto.response.LibroResponse;
-import com.biblioteca.bibliotech.service.AuthService;
 import com.biblioteca.bibliotech.service.AutorService;
 import com.biblioteca.bibliotech.service.LibroService;
-import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -26,14 +24,11 @@ public class AutorController {
     
     private final AutorService autorService;
     private final LibroService libroService;
-    private final AuthService authService;
     
     public AutorController(AutorService autorService, 
-                           LibroService libroService,
-                           AuthService authService) {
+                           LibroService libroService) {
         this.autorService = autorService;
         this.libroService = libroService;
-        this.authService = authService;
     }
     
     /**
@@ -42,11 +37,7 @@ public class AutorController {
     @GetMapping
     public String listar(@RequestParam(required = false) String busqueda,
                          @RequestParam(required = false) String nacionalidad,
-                         Model model, 
-                         HttpSession session) {
-        
-        authService.verificarSesionActiva(session);
-        
+                         Model model) {
         List<AutorResponse> autores;
         
         // Aplicar filtros
@@ -74,9 +65,7 @@ public class AutorController {
      * Muestra el formulario para crear un nuevo autor.
      */
     @GetMapping("/nuevo")
-    public String mostrarFormularioNuevo(Model model, HttpSession session) {
-        authService.verificarSesionActiva(session);
-        
+    public String mostrarFormularioNuevo(Model model) {
         model.addAttribute("autorRequest", new AutorRequest());
         model.addAttribute("titulo", "Nuevo Autor");
         model.addAttribute("esNuevo", true);
@@ -91,11 +80,7 @@ public class AutorController {
     public String crear(@Valid @ModelAttribute("autorRequest") AutorRequest request,
                         BindingResult result,
                         Model model,
-                        HttpSession session,
                         RedirectAttributes redirectAttributes) {
-        
-        authService.verificarSesionActiva(session);
-        
         if (result.hasErrors()) {
             model.addAttribute("titulo", "Nuevo Autor");
             model.addAttribute("esNuevo", true);
@@ -120,10 +105,7 @@ public class AutorController {
      */
     @GetMapping("/editar/{id}")
     public String mostrarFormularioEditar(@PathVariable Long id, 
-                                           Model model, 
-                                           HttpSession session) {
-        authService.verificarSesionActiva(session);
-        
+                                           Model model) {
         AutorResponse autor = autorService.buscarPorId(id);
         
         // Convertir Response a Request para el formulario
@@ -147,11 +129,7 @@ public class AutorController {
                              @Valid @ModelAttribute("autorRequest") AutorRequest request,
                              BindingResult result,
                              Model model,
-                             HttpSession session,
                              RedirectAttributes redirectAttributes) {
-        
-        authService.verificarSesionActiva(session);
-        
         if (result.hasErrors()) {
             model.addAttribute("autorId", id);
             model.addAttribute("titulo", "Editar Autor");
@@ -177,9 +155,7 @@ public class AutorController {
      * Ver detalles de un autor con sus libros.
      */
     @GetMapping("/ver/{id}")
-    public String ver(@PathVariable Long id, Model model, HttpSession session) {
-        authService.verificarSesionActiva(session);
-        
+    public String ver(@PathVariable Long id, Model model) {
         AutorResponse autor = autorService.buscarPorId(id);
         List<LibroResponse> libros = libroService.buscarPorAutor(id);
         
@@ -194,11 +170,7 @@ public class AutorController {
      */
     @PostMapping("/eliminar/{id}")
     public String eliminar(@PathVariable Long id,
-                           HttpSession session,
                            RedirectAttributes redirectAttributes) {
-        
-        authService.verificarSesionActiva(session);
-        
         try {
             AutorResponse autor = autorService.buscarPorId(id);
             autorService.eliminar(id);
@@ -0,0 +1,132 @@
+package com.biblioteca.bibliotech.controller;
+
+import com.biblioteca.bibliotech.config.RutaPublica;
+import com.biblioteca.bibliotech.dto.response.CategoriaCatalogoResponse;
+import com.biblioteca.bibliotech.dto.response.ResultadoCatalogoResponse;
+import com.biblioteca.bibliotech.service.CatalogoPublicoService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Catálogo público (OPAC): página y API de búsqueda para los lectores, sin sesión.
+ *
+ * Se excluye del interceptor de autenticación (ver WebConfig) y responde desde la
+ * instantánea en memoria de CatalogoPublicoService, sin consultas a la base. Las
+ * respuestas llevan ETag y Last-Modified de la instantánea: si no cambió, una
+ * revalidación se responde con 304 antes de buscar.
+ */
+@Controller
+@RutaPublica
+@RequestMapping("/catalogo")
+public class CatalogoController {
+
+    private final CatalogoPublicoService catalogoPublicoService;
+    private final CacheControl cacheControl;
+
+    public CatalogoController(CatalogoPublicoService catalogoPublicoService,
+                              @Value("${bibliotech.catalogo.max-age-segundos:60}") long maxAgeSegundos) {
+        this.catalogoPublicoService = catalogoPublicoService;
+        this.cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSegundos)).cachePublic();
+    }
+
+    /**
+     * Página de búsqueda del catálogo.
+     */
+    @GetMapping
+    public String buscar(@RequestParam(required = false) String q,
+                         @RequestParam(required = false) Long categoriaId,
+                         @RequestParam(required = false) Long autorId,
+                         @RequestParam(defaultValue = "false") boolean disponibles,
+                         @RequestParam(defaultValue = "0") int page,
+                         WebRequest webRequest,
+                         HttpServletResponse response,
+                         Model model) {
+        CatalogoPublicoService.Instantanea catalogo = catalogoPublicoService.obtener();
+        if (catalogo == null) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            model.addAttribute("sinCatalogo", true);
+            return "catalogo/index";
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        if (webRequest.checkNotModified(catalogo.getEtag(), catalogo.getUltimaModificacion())) {
+            return null;
+        }
+
+        ResultadoCatalogoResponse resultado = catalogo.buscar(q, categoriaId, autorId, disponibles, page);
+        model.addAttribute("resultado", resultado);
+        model.addAttribute("categorias", catalogo.getCategorias());
+        model.addAttribute("q", q);
+        model.addAttribute("categoriaId", categoriaId);
+        model.addAttribute("autorId", autorId);
+        model.addAttribute("disponibles", disponibles);
+        // URL de la búsqueda actual sin la página, para los enlaces de paginación
+        model.addAttribute("urlBusqueda", UriComponentsBuilder.fromPath("/catalogo")
+                .queryParamIfPresent("q", Optional.ofNullable(q))
+                .queryParamIfPresent("categoriaId", Optional.ofNullable(categoriaId))
+                .queryParamIfPresent("autorId", Optional.ofNullable(autorId))
+                .queryParam("disponibles", disponibles)
+                .encode().build().toUriString());
+        return "catalogo/index";
+    }
+
+    /**
+     * API de búsqueda: mismos parámetros que la página, resultado en JSON.
+     */
+    @GetMapping("/api/libros")
+    @ResponseBody
+    public ResponseEntity<ResultadoCatalogoResponse> buscarApi(@RequestParam(required = false) String q,
+                                                               @RequestParam(required = false) Long categoriaId,
+                                                               @RequestParam(required = false) Long autorId,
+                                                               @RequestParam(defaultValue = "false") boolean disponibles,
+                                                               @RequestParam(defaultValue = "0") int page,
+                                                               WebRequest webRequest) {
+        CatalogoPublicoService.Instantanea catalogo = catalogoPublicoService.obtener();
+        if (catalogo == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        if (webRequest.checkNotModified(catalogo.getEtag(), catalogo.getUltimaModificacion())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(cacheControl)
+                .eTag(catalogo.getEtag())
+                .lastModified(catalogo.getUltimaModificacion())
+                .body(catalogo.buscar(q, categoriaId, autorId, disponibles, page));
+    }
+
+    /**
+     * API de categorías con la cantidad de libros de cada una.
+     */
+    @GetMapping("/api/categorias")
+    @ResponseBody
+    public ResponseEntity<List<CategoriaCatalogoResponse>> categoriasApi(WebRequest webRequest) {
+        CatalogoPublicoService.Instantanea catalogo = catalogoPublicoService.obtener();
+        if (catalogo == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        if (webRequest.checkNotModified(catalogo.getEtag(), catalogo.getUltimaModificacion())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(cacheControl)
+                .eTag(catalogo.getEtag())
+                .lastModified(catalogo.getUltimaModificacion())
+                .body(catalogo.getCategorias());
+    }
+}
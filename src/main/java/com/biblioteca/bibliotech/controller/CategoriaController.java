@@ -3,10 +3,8 @@ package com.biblioteca.bibliotech.controller;
 import com.biblioteca.bibliotech.dto.request.CategoriaRequest;
 import com.biblioteca.bibliotech.dto.response.CategoriaResponse;
 import com.biblioteca.bibliotech.dto.response.LibroResponse;
-import com.biblioteca.bibliotech.service.AuthService;
 import com.biblioteca.bibliotech.service.CategoriaService;
 import com.biblioteca.bibliotech.service.LibroService;
-import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -26,14 +24,11 @@ public class CategoriaController {
     
     private final CategoriaService categoriaService;
     private final LibroService libroService;
-    private final AuthService authService;
     
     public CategoriaController(CategoriaService categoriaService,
-                               LibroService libroService,
-                               AuthService authService) {
+                               LibroService libroService) {
         this.categoriaService = categoriaService;
         this.libroService = libroService;
-        this.authService = authService;
     }
     
     /**
@@ -41,11 +36,7 @@ public class CategoriaController {
      */
     @GetMapping
     public String listar(@RequestParam(required = false) String busqueda,
-                         Model model, 
-                         HttpSession session) {
-        
-        authService.verificarSesionActiva(session);
-        
+                         Model model) {
         List<CategoriaResponse> categorias;
         
         // Aplicar búsqueda
@@ -66,9 +57,7 @@ public class CategoriaController {
      * Muestra el formulario para crear una nueva categoría.
      */
     @GetMapping("/nuevo")
-    public String mostrarFormularioNuevo(Model model, HttpSession session) {
-        authService.verificarSesionActiva(session);
-        
+    public String mostrarFormularioNuevo(Model model) {
         model.addAttribute("categoriaRequest", new CategoriaRequest());
         model.addAttribute("titulo", "Nueva Categoría");
         model.addAttribute("esNuevo", true);
@@ -83,11 +72,7 @@ public class CategoriaController {
     public String crear(@Valid @ModelAttribute("categoriaRequest") CategoriaRequest request,
                         BindingResult result,
                         Model model,
-                        HttpSession session,
                         RedirectAttributes redirectAttributes) {
-        
-        authService.verificarSesionActiva(session);
-        
         if (result.hasErrors()) {
             model.addAttribute("titulo", "Nueva Categoría");
             model.addAttribute("esNuevo", true);
@@ -112,16 +97,15 @@ public class CategoriaController {
      */
     @GetMapping("/editar/{id}")
     public String mostrarFormularioEditar(@PathVariable Long id, 
-                                           Model model, 
-                                           HttpSession session) {
-        authService.verificarSesionActiva(session);
-        
+                                           Model model) {
         CategoriaResponse categoria = categoriaService.buscarPorId(id);
         
         // Convertir Response a Request para el formulario
         CategoriaRequest request = new CategoriaRequest();
         request.setNombre(categoria.getNombre());
         request.setDescripcion(categoria.getDescripcion());
+        request.setMultaDiaria(categoria.getMultaDiaria());
+        request.setMultaTope(categoria.getMultaTope());
         
         model.addAttribute("categoriaRequest", request);
         model.addAttribute("categoriaId", id);
@@ -139,11 +123,7 @@ public class CategoriaController {
                              @Valid @ModelAttribute("categoriaRequest") CategoriaRequest request,
                              BindingResult result,
                              Model model,
-                             HttpSession session,
                              RedirectAttributes redirectAttributes) {
-        
-        authService.verificarSesionActiva(session);
-        
         if (result.hasErrors()) {
             model.addAttribute("categoriaId", id);
             model.addAttribute("titulo", "Editar Categoría");
@@ -169,9 +149,7 @@ public class CategoriaController {
      * Ver detalles de una categoría con sus libros.
      */
     @GetMapping("/ver/{id}")
-    public String ver(@PathVariable Long id, Model model, HttpSession session) {
-        authService.verificarSesionActiva(session);
-        
+    public String ver(@PathVariable Long id, Model model) {
         CategoriaResponse categoria = categoriaService.buscarPorId(id);
         List<LibroResponse> libros = libroService.buscarPorCategoria(id);
         
@@ -186,11 +164,7 @@ public class CategoriaController {
      */
     @PostMapping("/eliminar/{id}")
     public String eliminar(@PathVariable Long id,
-                           HttpSession session,
                            RedirectAttributes redirectAttributes) {
-        
-        authService.verificarSesionActiva(session);
-        
         try {
             CategoriaResponse categoria = categoriaService.buscarPorId(id);
             categoriaService.eliminar(id);
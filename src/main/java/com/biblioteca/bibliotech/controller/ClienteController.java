@@ -2,18 +2,26 @@ package com.biblioteca.bibliotech.controller;
 
 import com.biblioteca.bibliotech.dto.request.ClienteRequest;
 import com.biblioteca.bibliotech.dto.response.ClienteResponse;
+import com.biblioteca.bibliotech.dto.response.ImportacionResponse;
 import com.biblioteca.bibliotech.dto.response.PrestamoResponse;
-import com.biblioteca.bibliotech.service.AuthService;
 import com.biblioteca.bibliotech.service.ClienteService;
+import com.biblioteca.bibliotech.service.ImportacionClienteService;
 import com.biblioteca.bibliotech.service.PrestamoService;
-import jakarta.servlet.http.HttpSession;
+import com.biblioteca.bibliotech.service.ReporteImportacion;
 import jakarta.validation.Valid;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -26,14 +34,14 @@ public class ClienteController {
     
     private final ClienteService clienteService;
     private final PrestamoService prestamoService;
-    private final AuthService authService;
+    private final ImportacionClienteService importacionClienteService;
     
     public ClienteController(ClienteService clienteService, 
                              PrestamoService prestamoService,
-                             AuthService authService) {
+                             ImportacionClienteService importacionClienteService) {
         this.clienteService = clienteService;
         this.prestamoService = prestamoService;
-        this.authService = authService;
+        this.importacionClienteService = importacionClienteService;
     }
     
     /**
@@ -42,11 +50,7 @@ public class ClienteController {
     @GetMapping
     public String listar(@RequestParam(required = false) String filtro,
                          @RequestParam(required = false) String busqueda,
-                         Model model, 
-                         HttpSession session) {
-        
-        authService.verificarSesionActiva(session);
-        
+                         Model model) {
         List<ClienteResponse> clientes;
         
         // Aplicar filtros
@@ -76,9 +80,7 @@ public class ClienteController {
      * Muestra el formulario para crear un nuevo cliente.
      */
     @GetMapping("/nuevo")
-    public String mostrarFormularioNuevo(Model model, HttpSession session) {
-        authService.verificarSesionActiva(session);
-        
+    public String mostrarFormularioNuevo(Model model) {
         model.addAttribute("clienteRequest", new ClienteRequest());
         model.addAttribute("titulo", "Nuevo Cliente");
         model.addAttribute("esNuevo", true);
@@ -93,11 +95,7 @@ public class ClienteController {
     public String crear(@Valid @ModelAttribute("clienteRequest") ClienteRequest request,
                         BindingResult result,
                         Model model,
-                        HttpSession session,
                         RedirectAttributes redirectAttributes) {
-        
-        authService.verificarSesionActiva(session);
-        
         if (result.hasErrors()) {
             model.addAttribute("titulo", "Nuevo Cliente");
             model.addAttribute("esNuevo", true);
@@ -117,15 +115,56 @@ public class ClienteController {
         }
     }
     
+    /**
+     * Muestra el formulario de importación masiva de clientes.
+     */
+    @GetMapping("/importar")
+    public String mostrarImportacion() {
+        return "clientes/importar";
+    }
+    
+    /**
+     * Procesa la importación masiva de clientes (CSV o Excel).
+     * Con simulacion=true solo se informan los conflictos, sin registrar nada.
+     */
+    @PostMapping("/importar")
+    public String importar(@RequestParam("archivo") MultipartFile archivo,
+                           @RequestParam(defaultValue = "false") boolean simulacion,
+                           Model model) {
+        try {
+            ImportacionResponse resultado = importacionClienteService.importar(archivo, simulacion);
+            model.addAttribute("resultado", resultado);
+            if (resultado.getErrores() == 0 && !simulacion) {
+                model.addAttribute("successMessage", 
+                        "Importación completada: " + resultado.getInsertados() + " clientes registrados");
+            }
+        } catch (Exception e) {
+            model.addAttribute("errorMessage", e.getMessage());
+        }
+        
+        return "clientes/importar";
+    }
+    
+    /**
+     * Descarga el reporte de errores de una importación.
+     */
+    @GetMapping("/importar/reporte/{id}")
+    public ResponseEntity<Resource> descargarReporteImportacion(@PathVariable String id) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(new MediaType("text", "csv", StandardCharsets.UTF_8));
+        headers.setContentDispositionFormData("attachment", "errores_importacion_clientes.csv");
+        
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(new FileSystemResource(ReporteImportacion.buscar(id)));
+    }
+    
     /**
      * Muestra el formulario para editar un cliente existente.
      */
     @GetMapping("/editar/{id}")
     public String mostrarFormularioEditar(@PathVariable Long id, 
-                                           Model model, 
-                                           HttpSession session) {
-        authService.verificarSesionActiva(session);
-        
+                                           Model model) {
         ClienteResponse cliente = clienteService.buscarPorId(id);
         
         // Convertir Response a Request para el formulario
@@ -154,11 +193,7 @@ public class ClienteController {
                              @Valid @ModelAttribute("clienteRequest") ClienteRequest request,
                              BindingResult result,
                              Model model,
-                             HttpSession session,
                              RedirectAttributes redirectAttributes) {
-        
-        authService.verificarSesionActiva(session);
-        
         if (result.hasErrors()) {
             model.addAttribute("clienteId", id);
             model.addAttribute("titulo", "Editar Cliente");
@@ -184,9 +219,7 @@ public class ClienteController {
      * Ver detalles de un cliente con su historial de préstamos.
      */
     @GetMapping("/ver/{id}")
-    public String ver(@PathVariable Long id, Model model, HttpSession session) {
-        authService.verificarSesionActiva(session);
-        
+    public String ver(@PathVariable Long id, Model model) {
         ClienteResponse cliente = clienteService.buscarPorId(id);
         List<PrestamoResponse> historialPrestamos = prestamoService.obtenerHistorialCliente(id);
         List<PrestamoResponse> prestamosActivos = prestamoService.buscarActivosPorCliente(id);
@@ -203,11 +236,7 @@ public class ClienteController {
      */
     @PostMapping("/activar/{id}")
     public String activar(@PathVariable Long id,
-                          HttpSession session,
                           RedirectAttributes redirectAttributes) {
-        
-        authService.verificarSesionActiva(session);
-        
         try {
             ClienteResponse cliente = clienteService.activar(id);
             redirectAttributes.addFlashAttribute("successMessage", 
@@ -224,11 +253,7 @@ public class ClienteController {
      */
     @PostMapping("/desactivar/{id}")
     public String desactivar(@PathVariable Long id,
-                             HttpSession session,
                              RedirectAttributes redirectAttributes) {
-        
-        authService.verificarSesionActiva(session);
-        
         try {
             ClienteResponse cliente = clienteService.desactivar(id);
             redirectAttributes.addFlashAttribute("successMessage", 
@@ -245,11 +270,7 @@ public class ClienteController {
      */
     @PostMapping("/eliminar/{id}")
     public String eliminar(@PathVariable Long id,
-                           HttpSession session,
                            RedirectAttributes redirectAttributes) {
-        
-        authService.verificarSesionActiva(session);
-        
         try {
             ClienteResponse cliente = clienteService.buscarPorId(id);
             clienteService.eliminar(id);
@@ -1,11 +1,15 @@
 package com.biblioteca.bibliotech.controller;
 
 import com.biblioteca.bibliotech.dto.response.PrestamoResponse;
+import com.biblioteca.bibliotech.enums.VentanaPopularidad;
 import com.biblioteca.bibliotech.service.*;
-import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -16,52 +20,55 @@ import java.util.List;
 @Controller
 public class DashboardController {
     
-    private final AuthService authService;
     private final LibroService libroService;
     private final ClienteService clienteService;
     private final PrestamoService prestamoService;
     private final AutorService autorService;
     private final CategoriaService categoriaService;
+    private final PopularidadService popularidadService;
+    private final TableroService tableroService;
     
-    public DashboardController(AuthService authService,
-                                LibroService libroService,
+    public DashboardController(LibroService libroService,
                                 ClienteService clienteService,
                                 PrestamoService prestamoService,
                                 AutorService autorService,
-                                CategoriaService categoriaService) {
-        this.authService = authService;
+                                CategoriaService categoriaService,
+                                PopularidadService popularidadService,
+                                TableroService tableroService) {
         this.libroService = libroService;
         this.clienteService = clienteService;
         this.prestamoService = prestamoService;
         this.autorService = autorService;
         this.categoriaService = categoriaService;
+        this.popularidadService = popularidadService;
+        this.tableroService = tableroService;
     }
     
     /**
      * Muestra el dashboard con estadísticas generales.
      */
     @GetMapping("/dashboard")
-    public String mostrarDashboard(Model model, HttpSession session) {
-        // Verificar sesión
-        authService.verificarSesionActiva(session);
-        
+    public String mostrarDashboard(Model model) {
         // Actualizar préstamos vencidos
         prestamoService.actualizarPrestamosVencidos();
         
+        // Indicadores en vivo (en memoria; la página los actualiza por /dashboard/eventos)
+        TableroService.Indicadores indicadores = tableroService.obtener();
+        
         // Estadísticas de libros
         model.addAttribute("totalLibros", libroService.contarTodos());
         model.addAttribute("totalEjemplares", libroService.contarTotalEjemplares());
-        model.addAttribute("ejemplaresDisponibles", libroService.contarEjemplaresDisponibles());
+        model.addAttribute("ejemplaresDisponibles", indicadores.ejemplaresDisponibles());
         
         // Estadísticas de clientes
         model.addAttribute("totalClientes", clienteService.contarTodos());
         model.addAttribute("clientesActivos", clienteService.contarActivos());
         
         // Estadísticas de préstamos
-        model.addAttribute("prestamosActivos", prestamoService.contarActivos());
-        model.addAttribute("prestamosVencidos", prestamoService.contarVencidos());
-        model.addAttribute("prestamosHoy", prestamoService.contarPrestamosHoy());
-        model.addAttribute("devolucionesHoy", prestamoService.contarDevolucionesHoy());
+        model.addAttribute("prestamosActivos", indicadores.prestamosActivos());
+        model.addAttribute("prestamosVencidos", indicadores.prestamosVencidos());
+        model.addAttribute("prestamosHoy", indicadores.prestamosHoy());
+        model.addAttribute("devolucionesHoy", indicadores.devolucionesHoy());
         
         // Estadísticas adicionales
         model.addAttribute("totalAutores", autorService.contarTodos());
@@ -75,6 +82,22 @@ public class DashboardController {
         List<PrestamoResponse> prestamosVencidosList = prestamoService.listarVencidos();
         model.addAttribute("prestamosVencidosList", prestamosVencidosList);
         
+        // Libros más prestados del último mes (ranking en memoria, no consulta préstamos)
+        model.addAttribute("librosPopulares", popularidadService.obtenerRanking(VentanaPopularidad.MES, null));
+        
         return "dashboard";
     }
+    
+    /**
+     * Flujo SSE con los cambios de los indicadores del dashboard.
+     * Responde 503 si se alcanzó el máximo de conexiones (el navegador reintenta).
+     */
+    @GetMapping(value = "/dashboard/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> eventosDashboard() {
+        SseEmitter emitter = tableroService.suscribir();
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
 }
@@ -0,0 +1,93 @@
+package com.biblioteca.bibliotech.controller;
+
+import com.biblioteca.bibliotech.dto.response.EjemplarResponse;
+import com.biblioteca.bibliotech.service.EjemplarService;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+/**
+ * Controlador para gestión de ejemplares (copias físicas de cada libro).
+ * Maneja la búsqueda por código de barras, altas, bajas y ubicación.
+ * Accesible por ADMIN y EMPLEADO.
+ */
+@Controller
+@RequestMapping("/ejemplares")
+public class EjemplarController {
+
+    private final EjemplarService ejemplarService;
+
+    public EjemplarController(EjemplarService ejemplarService) {
+        this.ejemplarService = ejemplarService;
+    }
+
+    /**
+     * Busca un ejemplar por código de barras y muestra su libro.
+     */
+    @GetMapping("/buscar")
+    public String buscar(@RequestParam String codigo,
+                         RedirectAttributes redirectAttributes) {
+        try {
+            EjemplarResponse ejemplar = ejemplarService.buscarPorCodigo(codigo);
+            redirectAttributes.addFlashAttribute("ejemplarSeleccionado", ejemplar.getId());
+            return "redirect:/libros/ver/" + ejemplar.getIdLibro();
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+            return "redirect:/libros";
+        }
+    }
+
+    /**
+     * Da de alta ejemplares nuevos de un libro.
+     */
+    @PostMapping("/libro/{libroId}/agregar")
+    public String agregar(@PathVariable Long libroId,
+                          @RequestParam int cantidad,
+                          @RequestParam(required = false) String ubicacion,
+                          RedirectAttributes redirectAttributes) {
+        try {
+            ejemplarService.agregar(libroId, cantidad,
+                    ubicacion != null && !ubicacion.isBlank() ? ubicacion.trim() : null);
+            redirectAttributes.addFlashAttribute("successMessage",
+                    cantidad + " ejemplar(es) agregado(s) exitosamente");
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+        }
+        return "redirect:/libros/ver/" + libroId;
+    }
+
+    /**
+     * Actualiza la ubicación de un ejemplar.
+     */
+    @PostMapping("/{id}/ubicacion")
+    public String actualizarUbicacion(@PathVariable Long id,
+                                      @RequestParam(required = false) String ubicacion,
+                                      RedirectAttributes redirectAttributes) {
+        try {
+            EjemplarResponse ejemplar = ejemplarService.actualizarUbicacion(id, ubicacion);
+            redirectAttributes.addFlashAttribute("successMessage",
+                    "Ubicación del ejemplar " + ejemplar.getCodigoBarras() + " actualizada");
+            return "redirect:/libros/ver/" + ejemplar.getIdLibro();
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+            return "redirect:/libros";
+        }
+    }
+
+    /**
+     * Da de baja un ejemplar disponible.
+     */
+    @PostMapping("/{id}/baja")
+    public String darDeBaja(@PathVariable Long id,
+                            @RequestParam Long libroId,
+                            RedirectAttributes redirectAttributes) {
+        try {
+            EjemplarResponse ejemplar = ejemplarService.darDeBaja(id);
+            redirectAttributes.addFlashAttribute("successMessage",
+                    "Ejemplar " + ejemplar.getCodigoBarras() + " dado de baja");
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+        }
+        return "redirect:/libros/ver/" + libroId;
+    }
+}
@@ -1,19 +1,28 @@
 package com.biblioteca.bibliotech.controller;
 
+import com.biblioteca.bibliotech.dto.request.FiltroLibrosRequest;
 import com.biblioteca.bibliotech.dto.request.LibroRequest;
 import com.biblioteca.bibliotech.dto.response.AutorResponse;
+import com.biblioteca.bibliotech.dto.response.BusquedaLibrosResponse;
 import com.biblioteca.bibliotech.dto.response.CategoriaResponse;
+import com.biblioteca.bibliotech.dto.response.ImportacionResponse;
 import com.biblioteca.bibliotech.dto.response.LibroResponse;
 import com.biblioteca.bibliotech.dto.response.PrestamoResponse;
 import com.biblioteca.bibliotech.service.*;
-import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -28,61 +37,67 @@ public class LibroController {
     private final AutorService autorService;
     private final CategoriaService categoriaService;
     private final PrestamoService prestamoService;
-    private final AuthService authService;
+    private final ImportacionCatalogoService importacionCatalogoService;
+    private final RecomendacionService recomendacionService;
+    private final ReservaService reservaService;
+    private final EjemplarService ejemplarService;
     
     public LibroController(LibroService libroService,
                            AutorService autorService,
                            CategoriaService categoriaService,
                            PrestamoService prestamoService,
-                           AuthService authService) {
+                           ImportacionCatalogoService importacionCatalogoService,
+                           RecomendacionService recomendacionService,
+                           ReservaService reservaService,
+                           EjemplarService ejemplarService) {
         this.libroService = libroService;
         this.autorService = autorService;
         this.categoriaService = categoriaService;
         this.prestamoService = prestamoService;
-        this.authService = authService;
+        this.importacionCatalogoService = importacionCatalogoService;
+        this.recomendacionService = recomendacionService;
+        this.reservaService = reservaService;
+        this.ejemplarService = ejemplarService;
     }
     
     /**
-     * Lista todos los libros.
+     * Lista los libros con filtros combinables (búsqueda, autor, categoría,
+     * nacionalidad del autor, rango de años y disponibilidad), paginado.
      */
     @GetMapping
     public String listar(@RequestParam(required = false) String filtro,
                          @RequestParam(required = false) String busqueda,
                          @RequestParam(required = false) Long autorId,
                          @RequestParam(required = false) Long categoriaId,
-                         Model model, 
-                         HttpSession session) {
-        
-        authService.verificarSesionActiva(session);
-        
-        List<LibroResponse> libros;
-        
-        // Aplicar filtros
-        if (busqueda != null && !busqueda.trim().isEmpty()) {
-            libros = libroService.buscarPorTermino(busqueda.trim());
-            model.addAttribute("busqueda", busqueda);
-        } else if (autorId != null) {
-            libros = libroService.buscarPorAutor(autorId);
-            model.addAttribute("autorIdSeleccionado", autorId);
-        } else if (categoriaId != null) {
-            libros = libroService.buscarPorCategoria(categoriaId);
-            model.addAttribute("categoriaIdSeleccionada", categoriaId);
-        } else if ("disponibles".equals(filtro)) {
-            libros = libroService.listarDisponibles();
-        } else if ("sinstock".equals(filtro)) {
-            libros = libroService.listarSinStock();
-        } else {
-            libros = libroService.listarTodos();
-        }
+                         @RequestParam(required = false) String nacionalidad,
+                         @RequestParam(required = false) Integer anioDesde,
+                         @RequestParam(required = false) Integer anioHasta,
+                         @RequestParam(defaultValue = "0") int page,
+                         Model model) {
+        FiltroLibrosRequest filtros = FiltroLibrosRequest.builder()
+                .busqueda(busqueda)
+                .autorId(autorId)
+                .categoriaId(categoriaId)
+                .nacionalidad(nacionalidad)
+                .anioDesde(anioDesde)
+                .anioHasta(anioHasta)
+                .filtro(FiltroLibrosRequest.DISPONIBLES.equals(filtro) || FiltroLibrosRequest.SIN_STOCK.equals(filtro)
+                        ? filtro : null)
+                .page(page)
+                .build();
+        BusquedaLibrosResponse resultado = libroService.buscarConFiltros(filtros);
         
         // Datos para filtros
         List<AutorResponse> autores = autorService.listarTodos();
         List<CategoriaResponse> categorias = categoriaService.listarTodas();
         
-        model.addAttribute("libros", libros);
+        model.addAttribute("resultado", resultado);
+        model.addAttribute("libros", resultado.getLibros());
+        model.addAttribute("filtros", filtros);
+        model.addAttribute("busqueda", busqueda);
         model.addAttribute("autores", autores);
         model.addAttribute("categorias", categorias);
-        model.addAttribute("filtroActual", filtro);
+        model.addAttribute("filtroActual", filtros.getFiltro());
         model.addAttribute("totalLibros", libroService.contarTodos());
         model.addAttribute("totalEjemplares", libroService.contarTotalEjemplares());
         model.addAttribute("ejemplaresDisponibles", libroService.contarEjemplaresDisponibles());
@@ -94,9 +109,7 @@ public class LibroController {
      * Muestra el formulario para crear un nuevo libro.
      */
     @GetMapping("/nuevo")
-    public String mostrarFormularioNuevo(Model model, HttpSession session) {
-        authService.verificarSesionActiva(session);
-        
+    public String mostrarFormularioNuevo(Model model) {
         List<AutorResponse> autores = autorService.listarTodos();
         List<CategoriaResponse> categorias = categoriaService.listarTodas();
         
@@ -116,11 +129,7 @@ public class LibroController {
     public String crear(@Valid @ModelAttribute("libroRequest") LibroRequest request,
                         BindingResult result,
                         Model model,
-                        HttpSession session,
                         RedirectAttributes redirectAttributes) {
-        
-        authService.verificarSesionActiva(session);
-        
         if (result.hasErrors()) {
             model.addAttribute("autores", autorService.listarTodos());
             model.addAttribute("categorias", categoriaService.listarTodas());
@@ -144,15 +153,54 @@ public class LibroController {
         }
     }
     
+    /**
+     * Muestra el formulario de importación masiva del catálogo.
+     */
+    @GetMapping("/importar")
+    public String mostrarImportacion() {
+        return "libros/importar";
+    }
+    
+    /**
+     * Procesa la importación masiva del catálogo (CSV o Excel).
+     */
+    @PostMapping("/importar")
+    public String importar(@RequestParam("archivo") MultipartFile archivo, Model model) {
+        try {
+            ImportacionResponse resultado = importacionCatalogoService.importar(archivo);
+            model.addAttribute("resultado", resultado);
+            if (resultado.getErrores() == 0) {
+                model.addAttribute("successMessage", 
+                        "Importación completada: " + resultado.getInsertados() + " libros nuevos y " 
+                        + resultado.getActualizados() + " actualizados");
+            }
+        } catch (Exception e) {
+            model.addAttribute("errorMessage", e.getMessage());
+        }
+        
+        return "libros/importar";
+    }
+    
+    /**
+     * Descarga el reporte de errores de una importación.
+     */
+    @GetMapping("/importar/reporte/{id}")
+    public ResponseEntity<Resource> descargarReporteImportacion(@PathVariable String id) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(new MediaType("text", "csv", StandardCharsets.UTF_8));
+        headers.setContentDispositionFormData("attachment", "errores_importacion_libros.csv");
+        
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(new FileSystemResource(ReporteImportacion.buscar(id)));
+    }
+    
     /**
      * Muestra el formulario para editar un libro existente.
      */
     @GetMapping("/editar/{id}")
     public String mostrarFormularioEditar(@PathVariable Long id, 
-                                           Model model, 
-                                           HttpSession session) {
-        authService.verificarSesionActiva(session);
-        
+                                           Model model) {
         LibroResponse libro = libroService.buscarPorId(id);
         
         // Convertir Response a Request para el formulario
@@ -186,11 +234,7 @@ public class LibroController {
                              @Valid @ModelAttribute("libroRequest") LibroRequest request,
                              BindingResult result,
                              Model model,
-                             HttpSession session,
                              RedirectAttributes redirectAttributes) {
-        
-        authService.verificarSesionActiva(session);
-        
         if (result.hasErrors()) {
             model.addAttribute("libroId", id);
             model.addAttribute("autores", autorService.listarTodos());
@@ -220,14 +264,15 @@ public class LibroController {
      * Ver detalles de un libro con su historial de préstamos.
      */
     @GetMapping("/ver/{id}")
-    public String ver(@PathVariable Long id, Model model, HttpSession session) {
-        authService.verificarSesionActiva(session);
-        
+    public String ver(@PathVariable Long id, Model model) {
         LibroResponse libro = libroService.buscarPorId(id);
         List<PrestamoResponse> historialPrestamos = prestamoService.buscarPorLibro(id);
         
         model.addAttribute("libro", libro);
         model.addAttribute("historialPrestamos", historialPrestamos);
+        model.addAttribute("recomendados", recomendacionService.recomendar(id));
+        model.addAttribute("reservasEnCola", reservaService.contarEnCola(id));
+        model.addAttribute("ejemplares", ejemplarService.listarPorLibro(id));
         
         return "libros/ver";
     }
@@ -237,11 +282,7 @@ public class LibroController {
      */
     @PostMapping("/eliminar/{id}")
     public String eliminar(@PathVariable Long id,
-                           HttpSession session,
                            RedirectAttributes redirectAttributes) {
-        
-        authService.verificarSesionActiva(session);
-        
         try {
             LibroResponse libro = libroService.buscarPorId(id);
             libroService.eliminar(id);
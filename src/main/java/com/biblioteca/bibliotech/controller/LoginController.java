@@ -1,10 +1,12 @@
 package com.biblioteca.bibliotech.controller;
 
+import com.biblioteca.bibliotech.config.RutaPublica;
 import com.biblioteca.bibliotech.dto.request.LoginRequest;
 import com.biblioteca.bibliotech.dto.response.UsuarioSistemaResponse;
 import com.biblioteca.bibliotech.exception.UnauthorizedException;
 import com.biblioteca.bibliotech.service.AuthService;
-import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -19,6 +21,7 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
  * Gestiona el login y logout de usuarios.
  */
 @Controller
+@RutaPublica
 public class LoginController {
     
     private final AuthService authService;
@@ -31,9 +34,9 @@ public class LoginController {
      * Muestra la página de login.
      */
     @GetMapping("/login")
-    public String mostrarLogin(Model model, HttpSession session) {
+    public String mostrarLogin(Model model, HttpServletRequest request) {
         // Si ya está logueado, redirigir al dashboard
-        if (authService.isLogueado(session)) {
+        if (authService.resolverUsuario(request) != null) {
             return "redirect:/dashboard";
         }
         
@@ -47,7 +50,8 @@ public class LoginController {
     @PostMapping("/login")
     public String procesarLogin(@Valid @ModelAttribute("loginRequest") LoginRequest loginRequest,
                                 BindingResult result,
-                                HttpSession session,
+                                HttpServletRequest request,
+                                HttpServletResponse response,
                                 Model model,
                                 RedirectAttributes redirectAttributes) {
         
@@ -58,7 +62,7 @@ public class LoginController {
         
         try {
             // Intentar login
-            UsuarioSistemaResponse usuario = authService.login(loginRequest, session);
+            UsuarioSistemaResponse usuario = authService.login(loginRequest, request, response);
             
             // Mensaje de bienvenida
             redirectAttributes.addFlashAttribute("successMessage", 
@@ -76,8 +80,9 @@ public class LoginController {
      * Cierra la sesión del usuario.
      */
     @GetMapping("/logout")
-    public String logout(HttpSession session, RedirectAttributes redirectAttributes) {
-        authService.logout(session);
+    public String logout(HttpServletRequest request, HttpServletResponse response,
+                         RedirectAttributes redirectAttributes) {
+        authService.logout(request, response);
         redirectAttributes.addFlashAttribute("successMessage", "Sesión cerrada correctamente");
         return "redirect:/login";
     }
@@ -0,0 +1,107 @@
+package com.biblioteca.bibliotech.controller;
+
+import com.biblioteca.bibliotech.config.RequiereRol;
+import com.biblioteca.bibliotech.dto.response.MultaResponse;
+import com.biblioteca.bibliotech.enums.EstadoMulta;
+import com.biblioteca.bibliotech.enums.Rol;
+import com.biblioteca.bibliotech.service.MultaService;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import java.util.List;
+
+/**
+ * Controlador para gestión de multas por devolución tardía.
+ * Maneja el listado y el cobro de multas; condonar y devengar bajo demanda
+ * son exclusivos de ADMIN.
+ * Accesible por ADMIN y EMPLEADO.
+ */
+@Controller
+@RequestMapping("/multas")
+public class MultaController {
+    
+    private final MultaService multaService;
+    
+    public MultaController(MultaService multaService) {
+        this.multaService = multaService;
+    }
+    
+    /**
+     * Lista las multas de un estado (por defecto, las pendientes) o las de un cliente.
+     */
+    @GetMapping
+    public String listar(@RequestParam(required = false) EstadoMulta estado,
+                         @RequestParam(required = false) Long clienteId,
+                         Model model) {
+        List<MultaResponse> multas;
+        if (clienteId != null) {
+            multas = multaService.listarPorCliente(clienteId);
+        } else {
+            estado = estado != null ? estado : EstadoMulta.PENDIENTE;
+            multas = multaService.listarPorEstado(estado);
+        }
+        
+        model.addAttribute("multas", multas);
+        model.addAttribute("estadoActual", estado);
+        model.addAttribute("clienteId", clienteId);
+        model.addAttribute("estados", EstadoMulta.values());
+        model.addAttribute("totalPendientes", multaService.contarPorEstado(EstadoMulta.PENDIENTE));
+        model.addAttribute("montoPendiente", multaService.totalPorEstado(EstadoMulta.PENDIENTE));
+        
+        return "multas/lista";
+    }
+    
+    /**
+     * Registra el pago de una multa.
+     */
+    @PostMapping("/pagar/{id}")
+    public String pagar(@PathVariable Long id,
+                        RedirectAttributes redirectAttributes) {
+        try {
+            MultaResponse multa = multaService.pagar(id);
+            redirectAttributes.addFlashAttribute("successMessage",
+                    "Pago de $" + multa.getMonto() + " registrado. Cliente: " + multa.getNombreCompletoCliente());
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+        }
+        
+        return "redirect:/multas";
+    }
+    
+    /**
+     * Condona una multa pendiente.
+     */
+    @PostMapping("/condonar/{id}")
+    @RequiereRol(Rol.ADMIN)
+    public String condonar(@PathVariable Long id,
+                           @RequestParam(required = false) String motivo,
+                           RedirectAttributes redirectAttributes) {
+        try {
+            MultaResponse multa = multaService.condonar(id, motivo);
+            redirectAttributes.addFlashAttribute("successMessage",
+                    "Multa #" + multa.getId() + " de " + multa.getNombreCompletoCliente() + " condonada");
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+        }
+        
+        return "redirect:/multas";
+    }
+    
+    /**
+     * Ejecuta el devengo de multas sin esperar al proceso nocturno.
+     */
+    @PostMapping("/devengar")
+    @RequiereRol(Rol.ADMIN)
+    public String devengar(RedirectAttributes redirectAttributes) {
+        try {
+            multaService.devengar();
+            redirectAttributes.addFlashAttribute("successMessage", "Multas recalculadas exitosamente");
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+        }
+        
+        return "redirect:/multas";
+    }
+}
@@ -5,11 +5,9 @@ import com.biblioteca.bibliotech.dto.response.ClienteResponse;
 import com.biblioteca.bibliotech.dto.response.LibroResponse;
 import com.biblioteca.bibliotech.dto.response.PrestamoResponse;
 import com.biblioteca.bibliotech.enums.EstadoPrestamo;
-import com.biblioteca.bibliotech.service.AuthService;
 import com.biblioteca.bibliotech.service.ClienteService;
 import com.biblioteca.bibliotech.service.LibroService;
 import com.biblioteca.bibliotech.service.PrestamoService;
-import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Controller;
@@ -33,16 +31,13 @@ public class PrestamoController {
     private final PrestamoService prestamoService;
     private final LibroService libroService;
     private final ClienteService clienteService;
-    private final AuthService authService;
     
     public PrestamoController(PrestamoService prestamoService,
                               LibroService libroService,
-                              ClienteService clienteService,
-                              AuthService authService) {
+                              ClienteService clienteService) {
         this.prestamoService = prestamoService;
         this.libroService = libroService;
         this.clienteService = clienteService;
-        this.authService = authService;
     }
     
     /**
@@ -52,11 +47,7 @@ public class PrestamoController {
     public String listar(@RequestParam(required = false) String filtro,
                          @RequestParam(required = false) Long clienteId,
                          @RequestParam(required = false) Long libroId,
-                         Model model, 
-                         HttpSession session) {
-        
-        authService.verificarSesionActiva(session);
-        
+                         Model model) {
         // Actualizar estados vencidos
         prestamoService.actualizarPrestamosVencidos();
         
@@ -98,10 +89,7 @@ public class PrestamoController {
     @GetMapping("/nuevo")
     public String mostrarFormularioNuevo(@RequestParam(required = false) Long clienteId,
                                           @RequestParam(required = false) Long libroId,
-                                          Model model, 
-                                          HttpSession session) {
-        authService.verificarSesionActiva(session);
-        
+                                          Model model) {
         // Listas para los selects
         List<ClienteResponse> clientes = clienteService.listarActivos();
         List<LibroResponse> libros = libroService.listarDisponibles();
@@ -134,11 +122,7 @@ public class PrestamoController {
     public String crear(@Valid @ModelAttribute("prestamoRequest") PrestamoRequest request,
                         BindingResult result,
                         Model model,
-                        HttpSession session,
                         RedirectAttributes redirectAttributes) {
-        
-        authService.verificarSesionActiva(session);
-        
         if (result.hasErrors()) {
             model.addAttribute("clientes", clienteService.listarActivos());
             model.addAttribute("libros", libroService.listarDisponibles());
@@ -163,15 +147,27 @@ public class PrestamoController {
         }
     }
     
+    /**
+     * Busca el préstamo del ejemplar leído con el lector y abre su devolución.
+     */
+    @GetMapping("/devolver/escanear")
+    public String escanearDevolucion(@RequestParam String codigo,
+                                     RedirectAttributes redirectAttributes) {
+        try {
+            PrestamoResponse prestamo = prestamoService.buscarActivoPorCodigo(codigo);
+            return "redirect:/prestamos/devolver/" + prestamo.getId();
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+            return "redirect:/prestamos";
+        }
+    }
+    
     /**
      * Muestra la pantalla de devolución de un préstamo.
      */
     @GetMapping("/devolver/{id}")
     public String mostrarDevolucion(@PathVariable Long id, 
-                                     Model model, 
-                                     HttpSession session) {
-        authService.verificarSesionActiva(session);
-        
+                                     Model model) {
         PrestamoResponse prestamo = prestamoService.buscarPorId(id);
         
         // Verificar que el préstamo esté activo o vencido
@@ -191,11 +187,7 @@ public class PrestamoController {
     @PostMapping("/devolver/{id}")
     public String devolver(@PathVariable Long id,
                            @RequestParam(required = false) String observaciones,
-                           HttpSession session,
                            RedirectAttributes redirectAttributes) {
-        
-        authService.verificarSesionActiva(session);
-        
         try {
             PrestamoResponse prestamo = prestamoService.devolver(id, observaciones);
             
@@ -216,9 +208,7 @@ public class PrestamoController {
      * Ver detalles de un préstamo.
      */
     @GetMapping("/ver/{id}")
-    public String ver(@PathVariable Long id, Model model, HttpSession session) {
-        authService.verificarSesionActiva(session);
-        
+    public String ver(@PathVariable Long id, Model model) {
         PrestamoResponse prestamo = prestamoService.buscarPorId(id);
         model.addAttribute("prestamo", prestamo);
         
@@ -230,10 +220,7 @@ public class PrestamoController {
      */
     @GetMapping("/extender/{id}")
     public String mostrarExtension(@PathVariable Long id, 
-                                    Model model, 
-                                    HttpSession session) {
-        authService.verificarSesionActiva(session);
-        
+                                    Model model) {
         PrestamoResponse prestamo = prestamoService.buscarPorId(id);
         
         // Verificar que el préstamo esté activo o vencido
@@ -254,11 +241,7 @@ public class PrestamoController {
     @PostMapping("/extender/{id}")
     public String extender(@PathVariable Long id,
                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate nuevaFecha,
-                           HttpSession session,
                            RedirectAttributes redirectAttributes) {
-        
-        authService.verificarSesionActiva(session);
-        
         try {
             PrestamoResponse prestamo = prestamoService.extenderPlazo(id, nuevaFecha);
             redirectAttributes.addFlashAttribute("successMessage", 
@@ -275,9 +258,7 @@ public class PrestamoController {
      * Lista préstamos vencidos (para reportes).
      */
     @GetMapping("/vencidos")
-    public String listarVencidos(Model model, HttpSession session) {
-        authService.verificarSesionActiva(session);
-        
+    public String listarVencidos(Model model) {
         // Actualizar estados
         prestamoService.actualizarPrestamosVencidos();
         
@@ -294,10 +275,7 @@ public class PrestamoController {
      */
     @GetMapping("/rapido")
     public String prestamoRapido(@RequestParam Long libroId,
-                                  Model model,
-                                  HttpSession session) {
-        authService.verificarSesionActiva(session);
-        
+                                  Model model) {
         LibroResponse libro = libroService.buscarPorId(libroId);
         List<ClienteResponse> clientes = clienteService.listarActivos();
         
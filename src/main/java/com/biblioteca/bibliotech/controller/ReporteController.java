@@ -1,10 +1,12 @@
 package com.biblioteca.bibliotech.controller;
 
+import com.biblioteca.bibliotech.config.RequiereRol;
 import com.biblioteca.bibliotech.dto.response.ClienteResponse;
 import com.biblioteca.bibliotech.dto.response.PrestamoResponse;
+import com.biblioteca.bibliotech.enums.Rol;
+import com.biblioteca.bibliotech.enums.VentanaPopularidad;
 import com.biblioteca.bibliotech.service.*;
 import com.itextpdf.text.DocumentException;
-import jakarta.servlet.http.HttpSession;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -14,7 +16,10 @@ import java.io.IOException;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.HashMap;
 import java.util.List;
@@ -25,10 +30,10 @@ import java.util.Map;
  * Solo accesible por usuarios con rol ADMIN.
  */
 @Controller
+@RequiereRol(Rol.ADMIN)
 @RequestMapping("/reportes")
 public class ReporteController {
     
-    private final AuthService authService;
     private final PrestamoService prestamoService;
     private final ClienteService clienteService;
     private final LibroService libroService;
@@ -36,16 +41,18 @@ public class ReporteController {
     private final CategoriaService categoriaService;
     private final PdfExportService pdfExportService;
     private final ExcelExportService excelExportService;
+    private final EstadisticasService estadisticasService;
+    private final PopularidadService popularidadService;
 
-    public ReporteController(AuthService authService,
-                             PrestamoService prestamoService,
+    public ReporteController(PrestamoService prestamoService,
                              ClienteService clienteService,
                              LibroService libroService,
                              AutorService autorService,
                              CategoriaService categoriaService,
                              PdfExportService pdfExportService,
-                             ExcelExportService excelExportService) {
-        this.authService = authService;
+                             ExcelExportService excelExportService,
+                             EstadisticasService estadisticasService,
+                             PopularidadService popularidadService) {
         this.prestamoService = prestamoService;
         this.clienteService = clienteService;
         this.libroService = libroService;
@@ -53,15 +60,15 @@ public class ReporteController {
         this.categoriaService = categoriaService;
         this.pdfExportService = pdfExportService;
         this.excelExportService = excelExportService;
+        this.estadisticasService = estadisticasService;
+        this.popularidadService = popularidadService;
     }
     
     /**
      * Página principal de reportes.
      */
     @GetMapping
-    public String index(Model model, HttpSession session) {
-        authService.verificarAccesoAdmin(session);
-        
+    public String index(Model model) {
         // Estadísticas generales
         model.addAttribute("totalLibros", libroService.contarTodos());
         model.addAttribute("totalEjemplares", libroService.contarTotalEjemplares());
@@ -80,9 +87,7 @@ public class ReporteController {
      * Reporte de préstamos vencidos.
      */
     @GetMapping("/prestamos-vencidos")
-    public String prestamosVencidos(Model model, HttpSession session) {
-        authService.verificarAccesoAdmin(session);
-        
+    public String prestamosVencidos(Model model) {
         // Actualizar estados
         prestamoService.actualizarPrestamosVencidos();
         
@@ -99,9 +104,7 @@ public class ReporteController {
      * Reporte de clientes con préstamos vencidos.
      */
     @GetMapping("/clientes-morosos")
-    public String clientesMorosos(Model model, HttpSession session) {
-        authService.verificarAccesoAdmin(session);
-        
+    public String clientesMorosos(Model model) {
         List<ClienteResponse> clientesMorosos = clienteService.listarConPrestamosVencidos();
         
         model.addAttribute("clientes", clientesMorosos);
@@ -115,9 +118,7 @@ public class ReporteController {
      * Reporte de estadísticas generales.
      */
     @GetMapping("/estadisticas")
-    public String estadisticas(Model model, HttpSession session) {
-        authService.verificarAccesoAdmin(session);
-        
+    public String estadisticas(Model model) {
         // Estadísticas de biblioteca
         model.addAttribute("totalLibros", libroService.contarTodos());
         model.addAttribute("totalEjemplares", libroService.contarTotalEjemplares());
@@ -144,13 +145,59 @@ public class ReporteController {
         
         return "reportes/estadisticas";
     }
+    
+    /**
+     * Tendencias diarias (lee solo las estadísticas precalculadas).
+     */
+    @GetMapping("/tendencias")
+    public String tendencias(@RequestParam(defaultValue = "30") int dias,
+                             @RequestParam(required = false) Long categoriaId,
+                             Model model) {
+        int diasValidos = Math.max(7, Math.min(dias, 365));
+        
+        model.addAttribute("tendencias", estadisticasService.obtenerTendencias(diasValidos, categoriaId));
+        model.addAttribute("categorias", categoriaService.listarTodas());
+        model.addAttribute("dias", diasValidos);
+        model.addAttribute("categoriaSeleccionada", categoriaId);
+        model.addAttribute("titulo", "Tendencias");
+        
+        return "reportes/tendencias";
+    }
+    
+    /**
+     * Ranking de libros más prestados por ventana de tiempo y categoría.
+     */
+    @GetMapping("/populares")
+    public String populares(@RequestParam(defaultValue = "MES") VentanaPopularidad ventana,
+                            @RequestParam(required = false) Long categoriaId,
+                            Model model) {
+        model.addAttribute("ranking", popularidadService.obtenerRanking(ventana, categoriaId));
+        model.addAttribute("ventanas", VentanaPopularidad.values());
+        model.addAttribute("ventanaSeleccionada", ventana);
+        model.addAttribute("categorias", categoriaService.listarTodas());
+        model.addAttribute("categoriaSeleccionada", categoriaId);
+        model.addAttribute("titulo", "Libros Más Prestados");
+        
+        return "reportes/populares";
+    }
+    
+    /**
+     * Calcula a pedido los días pendientes de las estadísticas diarias.
+     */
+    @PostMapping("/tendencias/actualizar")
+    public String actualizarTendencias(RedirectAttributes redirectAttributes) {
+        int dias = estadisticasService.actualizar();
+        redirectAttributes.addFlashAttribute("successMessage", dias > 0
+                ? "Estadísticas actualizadas: " + dias + " días calculados"
+                : "Las estadísticas ya están al día");
+        return "redirect:/reportes/tendencias";
+    }
 
     /**
      * Exportar reporte de prestamos vencidos en PDF.
      */
     @GetMapping("/prestamos-vencidos/pdf")
-    public ResponseEntity<byte[]> exportarPrestamosVencidosPdf(HttpSession session) throws DocumentException {
-        authService.verificarAccesoAdmin(session);
+    public ResponseEntity<byte[]> exportarPrestamosVencidosPdf() throws DocumentException {
 
         prestamoService.actualizarPrestamosVencidos();
         List<PrestamoResponse> prestamosVencidos = prestamoService.listarVencidosConDetalles();
@@ -168,8 +215,7 @@ public class ReporteController {
      * Exportar reporte de clientes morosos en PDF.
      */
     @GetMapping("/clientes-morosos/pdf")
-    public ResponseEntity<byte[]> exportarClientesMorososPdf(HttpSession session) throws DocumentException {
-        authService.verificarAccesoAdmin(session);
+    public ResponseEntity<byte[]> exportarClientesMorososPdf() throws DocumentException {
 
         List<ClienteResponse> clientesMorosos = clienteService.listarConPrestamosVencidos();
 
@@ -186,8 +232,7 @@ public class ReporteController {
      * Exportar reporte de estadisticas en PDF.
      */
     @GetMapping("/estadisticas/pdf")
-    public ResponseEntity<byte[]> exportarEstadisticasPdf(HttpSession session) throws DocumentException {
-        authService.verificarAccesoAdmin(session);
+    public ResponseEntity<byte[]> exportarEstadisticasPdf() throws DocumentException {
 
         Map<String, Object> datos = new HashMap<>();
         datos.put("totalLibros", libroService.contarTodos());
@@ -217,8 +262,7 @@ public class ReporteController {
      * Exportar reporte de prestamos vencidos en Excel.
      */
     @GetMapping("/prestamos-vencidos/excel")
-    public ResponseEntity<byte[]> exportarPrestamosVencidosExcel(HttpSession session) throws IOException {
-        authService.verificarAccesoAdmin(session);
+    public ResponseEntity<byte[]> exportarPrestamosVencidosExcel() throws IOException {
 
         prestamoService.actualizarPrestamosVencidos();
         List<PrestamoResponse> prestamosVencidos = prestamoService.listarVencidosConDetalles();
@@ -236,8 +280,7 @@ public class ReporteController {
      * Exportar reporte de clientes morosos en Excel.
      */
     @GetMapping("/clientes-morosos/excel")
-    public ResponseEntity<byte[]> exportarClientesMorososExcel(HttpSession session) throws IOException {
-        authService.verificarAccesoAdmin(session);
+    public ResponseEntity<byte[]> exportarClientesMorososExcel() throws IOException {
 
         List<ClienteResponse> clientesMorosos = clienteService.listarConPrestamosVencidos();
 
@@ -254,8 +297,7 @@ public class ReporteController {
      * Exportar reporte de estadisticas en Excel.
      */
     @GetMapping("/estadisticas/excel")
-    public ResponseEntity<byte[]> exportarEstadisticasExcel(HttpSession session) throws IOException {
-        authService.verificarAccesoAdmin(session);
+    public ResponseEntity<byte[]> exportarEstadisticasExcel() throws IOException {
 
         Map<String, Object> datos = new HashMap<>();
         datos.put("totalLibros", libroService.contarTodos());
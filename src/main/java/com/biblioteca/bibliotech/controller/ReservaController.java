@@ -0,0 +1,148 @@
+package com.biblioteca.bibliotech.controller;
+
+import com.biblioteca.bibliotech.dto.request.ReservaRequest;
+import com.biblioteca.bibliotech.dto.response.PrestamoResponse;
+import com.biblioteca.bibliotech.dto.response.ReservaResponse;
+import com.biblioteca.bibliotech.enums.EstadoReserva;
+import com.biblioteca.bibliotech.service.ClienteService;
+import com.biblioteca.bibliotech.service.LibroService;
+import com.biblioteca.bibliotech.service.PrestamoService;
+import com.biblioteca.bibliotech.service.ReservaService;
+import jakarta.validation.Valid;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import java.util.List;
+
+/**
+ * Controlador para gestión de reservas de libros sin stock.
+ * Maneja el alta y cancelación de reservas y el retiro de ejemplares apartados.
+ * Accesible por ADMIN y EMPLEADO.
+ */
+@Controller
+@RequestMapping("/reservas")
+public class ReservaController {
+    
+    private final ReservaService reservaService;
+    private final PrestamoService prestamoService;
+    private final LibroService libroService;
+    private final ClienteService clienteService;
+    
+    public ReservaController(ReservaService reservaService,
+                             PrestamoService prestamoService,
+                             LibroService libroService,
+                             ClienteService clienteService) {
+        this.reservaService = reservaService;
+        this.prestamoService = prestamoService;
+        this.libroService = libroService;
+        this.clienteService = clienteService;
+    }
+    
+    /**
+     * Lista las reservas vigentes o las de un estado.
+     */
+    @GetMapping
+    public String listar(@RequestParam(required = false) EstadoReserva estado,
+                         Model model) {
+        List<ReservaResponse> reservas = estado != null
+                ? reservaService.listarPorEstado(estado)
+                : reservaService.listarActivas();
+        
+        model.addAttribute("reservas", reservas);
+        model.addAttribute("estadoActual", estado);
+        model.addAttribute("estados", EstadoReserva.values());
+        model.addAttribute("totalPendientes", reservaService.contarPorEstado(EstadoReserva.PENDIENTE));
+        model.addAttribute("totalDisponibles", reservaService.contarPorEstado(EstadoReserva.DISPONIBLE));
+        
+        return "reservas/lista";
+    }
+    
+    /**
+     * Muestra el formulario para registrar una reserva.
+     */
+    @GetMapping("/nueva")
+    public String mostrarFormularioNueva(@RequestParam(required = false) Long clienteId,
+                                         @RequestParam(required = false) Long libroId,
+                                         Model model) {
+        ReservaRequest request = new ReservaRequest();
+        request.setIdCliente(clienteId);
+        request.setIdLibro(libroId);
+        
+        model.addAttribute("reservaRequest", request);
+        cargarListas(model);
+        
+        return "reservas/nueva";
+    }
+    
+    /**
+     * Procesa el alta de una reserva.
+     */
+    @PostMapping("/nueva")
+    public String crear(@Valid @ModelAttribute("reservaRequest") ReservaRequest request,
+                        BindingResult result,
+                        Model model,
+                        RedirectAttributes redirectAttributes) {
+        if (result.hasErrors()) {
+            cargarListas(model);
+            return "reservas/nueva";
+        }
+        
+        try {
+            ReservaResponse reserva = reservaService.crear(request);
+            redirectAttributes.addFlashAttribute("successMessage",
+                    "Reserva registrada. Libro: '" + reserva.getTituloLibro() +
+                    "' - Cliente: " + reserva.getNombreCompletoCliente() +
+                    " (posición " + reserva.getPosicion() + " en la cola)");
+            return "redirect:/reservas";
+        } catch (Exception e) {
+            model.addAttribute("errorMessage", e.getMessage());
+            cargarListas(model);
+            return "reservas/nueva";
+        }
+    }
+    
+    /**
+     * Cancela una reserva vigente.
+     */
+    @PostMapping("/cancelar/{id}")
+    public String cancelar(@PathVariable Long id,
+                           RedirectAttributes redirectAttributes) {
+        try {
+            ReservaResponse reserva = reservaService.cancelar(id);
+            redirectAttributes.addFlashAttribute("successMessage",
+                    "Reserva #" + reserva.getId() + " del libro '" + reserva.getTituloLibro() + "' cancelada");
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+        }
+        
+        return "redirect:/reservas";
+    }
+    
+    /**
+     * Registra el préstamo del ejemplar apartado para una reserva.
+     */
+    @PostMapping("/entregar/{id}")
+    public String entregar(@PathVariable Long id,
+                           RedirectAttributes redirectAttributes) {
+        try {
+            ReservaResponse reserva = reservaService.buscarPorId(id);
+            PrestamoResponse prestamo = prestamoService.crearConFechaDefault(
+                    reserva.getIdLibro(), reserva.getIdCliente(), "Retiro de reserva #" + id);
+            redirectAttributes.addFlashAttribute("successMessage",
+                    "Préstamo registrado exitosamente. Libro: '" + prestamo.getTituloLibro() +
+                    "' - Cliente: " + prestamo.getNombreCompletoCliente());
+            return "redirect:/prestamos";
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+            return "redirect:/reservas";
+        }
+    }
+    
+    private void cargarListas(Model model) {
+        model.addAttribute("clientes", clienteService.listarActivos());
+        model.addAttribute("libros", libroService.listarSinStock());
+    }
+}
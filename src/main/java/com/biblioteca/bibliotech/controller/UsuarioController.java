@@ -1,11 +1,10 @@
 package com.biblioteca.bibliotech.controller;
 
+import com.biblioteca.bibliotech.config.RequiereRol;
 import com.biblioteca.bibliotech.dto.request.UsuarioSistemaRequest;
 import com.biblioteca.bibliotech.dto.response.UsuarioSistemaResponse;
 import com.biblioteca.bibliotech.enums.Rol;
-import com.biblioteca.bibliotech.service.AuthService;
 import com.biblioteca.bibliotech.service.UsuarioSistemaService;
-import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -20,24 +19,21 @@ import java.util.List;
  * Solo accesible por usuarios con rol ADMIN.
  */
 @Controller
+@RequiereRol(Rol.ADMIN)
 @RequestMapping("/usuarios")
 public class UsuarioController {
     
     private final UsuarioSistemaService usuarioService;
-    private final AuthService authService;
     
-    public UsuarioController(UsuarioSistemaService usuarioService, AuthService authService) {
+    public UsuarioController(UsuarioSistemaService usuarioService) {
         this.usuarioService = usuarioService;
-        this.authService = authService;
     }
     
     /**
      * Lista todos los usuarios del sistema.
      */
     @GetMapping
-    public String listar(Model model, HttpSession session) {
-        authService.verificarAccesoAdmin(session);
-        
+    public String listar(Model model) {
         List<UsuarioSistemaResponse> usuarios = usuarioService.listarTodos();
         model.addAttribute("usuarios", usuarios);
         model.addAttribute("totalUsuarios", usuarios.size());
@@ -51,9 +47,7 @@ public class UsuarioController {
      * Muestra el formulario para crear un nuevo usuario.
      */
     @GetMapping("/nuevo")
-    public String mostrarFormularioNuevo(Model model, HttpSession session) {
-        authService.verificarAccesoAdmin(session);
-        
+    public String mostrarFormularioNuevo(Model model) {
         model.addAttribute("usuarioRequest", new UsuarioSistemaRequest());
         model.addAttribute("roles", Rol.values());
         model.addAttribute("titulo", "Nuevo Usuario");
@@ -69,11 +63,7 @@ public class UsuarioController {
     public String crear(@Valid @ModelAttribute("usuarioRequest") UsuarioSistemaRequest request,
                         BindingResult result,
                         Model model,
-                        HttpSession session,
                         RedirectAttributes redirectAttributes) {
-        
-        authService.verificarAccesoAdmin(session);
-        
         if (result.hasErrors()) {
             model.addAttribute("roles", Rol.values());
             model.addAttribute("titulo", "Nuevo Usuario");
@@ -100,10 +90,7 @@ public class UsuarioController {
      */
     @GetMapping("/editar/{id}")
     public String mostrarFormularioEditar(@PathVariable Long id, 
-                                           Model model, 
-                                           HttpSession session) {
-        authService.verificarAccesoAdmin(session);
-        
+                                           Model model) {
         UsuarioSistemaResponse usuario = usuarioService.buscarPorId(id);
         
         // Convertir Response a Request para el formulario
@@ -130,11 +117,7 @@ public class UsuarioController {
                              @Valid @ModelAttribute("usuarioRequest") UsuarioSistemaRequest request,
                              BindingResult result,
                              Model model,
-                             HttpSession session,
                              RedirectAttributes redirectAttributes) {
-        
-        authService.verificarAccesoAdmin(session);
-        
         if (result.hasErrors()) {
             model.addAttribute("usuarioId", id);
             model.addAttribute("roles", Rol.values());
@@ -163,11 +146,7 @@ public class UsuarioController {
      */
     @PostMapping("/eliminar/{id}")
     public String eliminar(@PathVariable Long id,
-                           HttpSession session,
                            RedirectAttributes redirectAttributes) {
-        
-        authService.verificarAccesoAdmin(session);
-        
         try {
             UsuarioSistemaResponse usuario = usuarioService.buscarPorId(id);
             usuarioService.eliminar(id);
@@ -184,9 +163,7 @@ public class UsuarioController {
      * Ver detalles de un usuario.
      */
     @GetMapping("/ver/{id}")
-    public String ver(@PathVariable Long id, Model model, HttpSession session) {
-        authService.verificarAccesoAdmin(session);
-        
+    public String ver(@PathVariable Long id, Model model) {
         UsuarioSistemaResponse usuario = usuarioService.buscarPorId(id);
         model.addAttribute("usuario", usuario);
         
@@ -1,5 +1,7 @@
 package com.biblioteca.bibliotech.dto.request;
 
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
@@ -7,6 +9,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
+
 /**
  * DTO para crear o actualizar categorías.
  * Usado por EMPLEADO para gestionar las categorías de libros.
@@ -23,4 +27,13 @@ public class CategoriaRequest {
     
     @Size(max = 500, message = "La descripción no puede exceder 500 caracteres")
     private String descripcion;
+    
+    // Multa por día de retraso y tope por préstamo; vacíos = valores por defecto
+    @DecimalMin(value = "0.00", message = "La multa diaria no puede ser negativa")
+    @Digits(integer = 6, fraction = 2, message = "La multa diaria admite hasta 2 decimales")
+    private BigDecimal multaDiaria;
+    
+    @DecimalMin(value = "0.00", message = "El tope de multa no puede ser negativo")
+    @Digits(integer = 8, fraction = 2, message = "El tope de multa admite hasta 2 decimales")
+    private BigDecimal multaTope;
 }
@@ -0,0 +1,119 @@
+package com.biblioteca.bibliotech.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * DTO con los filtros combinables del listado de libros. Todos son opcionales.
+ *
+ * Los métodos url arman el enlace del listado con un filtro cambiado, para que
+ * la vista no tenga que repetir los demás parámetros en cada enlace.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FiltroLibrosRequest {
+
+    public static final String DISPONIBLES = "disponibles";
+    public static final String SIN_STOCK = "sinstock";
+
+    // Título, ISBN o autor
+    private String busqueda;
+    private Long autorId;
+    private Long categoriaId;
+    private String nacionalidad;
+
+    // Rango de años de publicación, ambos inclusive
+    private Integer anioDesde;
+    private Integer anioHasta;
+
+    // DISPONIBLES, SIN_STOCK o null
+    private String filtro;
+
+    // Página desde 0
+    private int page;
+
+    public boolean soloDisponibles() {
+        return DISPONIBLES.equals(filtro);
+    }
+
+    public boolean soloSinStock() {
+        return SIN_STOCK.equals(filtro);
+    }
+
+    public boolean tieneBusqueda() {
+        return busqueda != null && !busqueda.isBlank();
+    }
+
+    /**
+     * Enlace al listado con un parámetro cambiado (o quitado, si el valor es
+     * null) y los demás filtros iguales, desde la primera página.
+     */
+    public String url(String parametro, Object valor) {
+        Map<String, Object> parametros = parametros();
+        if (valor == null) {
+            parametros.remove(parametro);
+        } else {
+            parametros.put(parametro, valor);
+        }
+        return construir(parametros);
+    }
+
+    /**
+     * Enlace al listado con otro rango de años (null en ambos lo quita).
+     */
+    public String urlAnios(Integer desde, Integer hasta) {
+        Map<String, Object> parametros = parametros();
+        parametros.remove("anioDesde");
+        parametros.remove("anioHasta");
+        if (desde != null) {
+            parametros.put("anioDesde", desde);
+        }
+        if (hasta != null) {
+            parametros.put("anioHasta", hasta);
+        }
+        return construir(parametros);
+    }
+
+    /**
+     * Enlace a otra página con los mismos filtros.
+     */
+    public String urlPagina(int pagina) {
+        Map<String, Object> parametros = parametros();
+        parametros.put("page", pagina);
+        return construir(parametros);
+    }
+
+    private Map<String, Object> parametros() {
+        Map<String, Object> parametros = new LinkedHashMap<>();
+        if (tieneBusqueda()) {
+            parametros.put("busqueda", busqueda.trim());
+        }
+        parametros.put("autorId", autorId);
+        parametros.put("categoriaId", categoriaId);
+        if (nacionalidad != null && !nacionalidad.isBlank()) {
+            parametros.put("nacionalidad", nacionalidad);
+        }
+        parametros.put("anioDesde", anioDesde);
+        parametros.put("anioHasta", anioHasta);
+        if (filtro != null && !filtro.isBlank()) {
+            parametros.put("filtro", filtro);
+        }
+        parametros.values().removeIf(Objects::isNull);
+        return parametros;
+    }
+
+    private static String construir(Map<String, Object> parametros) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromPath("/libros");
+        parametros.forEach((nombre, valor) -> builder.queryParam(nombre, valor));
+        return builder.encode().build().toUriString();
+    }
+}
@@ -32,4 +32,8 @@ public class PrestamoRequest {
     
     @Size(max = 500, message = "Las observaciones no pueden exceder 500 caracteres")
     private String observaciones;
+    
+    // Opcional: ejemplar leído con el lector; si falta se toma cualquiera disponible
+    @Size(max = 32, message = "El código de barras no puede exceder 32 caracteres")
+    private String codigoBarras;
 }
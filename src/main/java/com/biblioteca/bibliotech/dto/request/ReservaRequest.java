@@ -0,0 +1,27 @@
+package com.biblioteca.bibliotech.dto.request;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO para registrar la reserva de un libro sin ejemplares disponibles.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReservaRequest {
+    
+    @NotNull(message = "El libro es obligatorio")
+    private Long idLibro;
+    
+    @NotNull(message = "El cliente es obligatorio")
+    private Long idCliente;
+    
+    @Size(max = 500, message = "Las observaciones no pueden exceder 500 caracteres")
+    private String observaciones;
+}
@@ -0,0 +1,35 @@
+package com.biblioteca.bibliotech.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO de respuesta del listado filtrado de libros (una página de resultados y las facetas).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BusquedaLibrosResponse {
+
+    @Builder.Default
+    private List<LibroResponse> libros = new ArrayList<>();
+
+    // Total de libros que cumplen los filtros
+    private int total;
+
+    // Página actual (desde 0) y cantidad de páginas
+    private int pagina;
+    private int totalPaginas;
+
+    // Null si el índice de facetas todavía no está cargado
+    private FacetasLibrosResponse facetas;
+
+    // La búsqueda por texto no tuvo coincidencias exactas y se muestran las aproximadas
+    private boolean aproximada;
+}
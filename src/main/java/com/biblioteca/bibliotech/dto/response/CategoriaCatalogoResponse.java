@@ -0,0 +1,20 @@
+package com.biblioteca.bibliotech.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO de una categoría del catálogo público, con la cantidad de libros que tiene.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CategoriaCatalogoResponse {
+
+    private Long id;
+    private String nombre;
+    private int libros;
+}
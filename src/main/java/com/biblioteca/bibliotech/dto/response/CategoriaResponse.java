@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /**
@@ -20,6 +21,8 @@ public class CategoriaResponse {
     private Long id;
     private String nombre;
     private String descripcion;
+    private BigDecimal multaDiaria;
+    private BigDecimal multaTope;
     private LocalDateTime fechaRegistro;
     
     // Campo calculado: cantidad de libros en la categoría
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /**
@@ -34,6 +35,9 @@ public class ClienteResponse {
     private Long prestamosVencidos;
     private Long totalPrestamos;
     
+    // Suma de multas pendientes
+    private BigDecimal deudaMultas;
+    
     // Indica si puede realizar más préstamos (límite de 3)
     private Boolean puedePrestar;
 }
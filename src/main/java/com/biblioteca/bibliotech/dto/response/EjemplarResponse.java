@@ -0,0 +1,30 @@
+package com.biblioteca.bibliotech.dto.response;
+
+import com.biblioteca.bibliotech.enums.EstadoEjemplar;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO de respuesta para ejemplares.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EjemplarResponse {
+    
+    private Long id;
+    private String codigoBarras;
+    private EstadoEjemplar estado;
+    private String estadoDescripcion;
+    private String ubicacion;
+    private LocalDateTime fechaAlta;
+    
+    // Datos del libro (aplanados)
+    private Long idLibro;
+    private String tituloLibro;
+}
@@ -0,0 +1,23 @@
+package com.biblioteca.bibliotech.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO de un valor de faceta del listado de libros (un autor, una categoría,
+ * una nacionalidad o una década) con la cantidad de libros que quedarían al elegirlo.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FacetaResponse {
+
+    // Valor del parámetro del filtro (ID, nacionalidad o año inicial de la década)
+    private String valor;
+    private String etiqueta;
+    private int cantidad;
+    private boolean seleccionada;
+}
@@ -0,0 +1,38 @@
+package com.biblioteca.bibliotech.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO con los conteos de cada faceta para los filtros actuales. El conteo de
+ * una faceta aplica todos los filtros menos el de ella misma, para que muestre
+ * las alternativas y no solo el valor elegido.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FacetasLibrosResponse {
+
+    @Builder.Default
+    private List<FacetaResponse> categorias = new ArrayList<>();
+
+    // Solo los autores con más libros (y el elegido)
+    @Builder.Default
+    private List<FacetaResponse> autores = new ArrayList<>();
+
+    @Builder.Default
+    private List<FacetaResponse> nacionalidades = new ArrayList<>();
+
+    @Builder.Default
+    private List<FacetaResponse> decadas = new ArrayList<>();
+
+    // Libros con y sin ejemplares disponibles
+    private int disponibles;
+    private int sinStock;
+}
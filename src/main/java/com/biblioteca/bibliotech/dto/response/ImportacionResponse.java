@@ -0,0 +1,36 @@
+package com.biblioteca.bibliotech.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO de respuesta con el resultado de una importación masiva.
+ * Si hubo filas rechazadas, reporteId identifica el archivo de errores descargable.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportacionResponse {
+    
+    private int totalFilas;
+    private int insertados;
+    private int actualizados;
+    private int errores;
+    private long duracionMillis;
+    
+    // En simulación no se escribe nada: insertados indica las altas que se harían
+    private boolean simulacion;
+    
+    // Identificador del reporte de errores (null si no hubo errores)
+    private String reporteId;
+    
+    // Primeros errores para mostrar en pantalla (el detalle completo está en el reporte)
+    @Builder.Default
+    private List<String> primerosErrores = new ArrayList<>();
+}
@@ -0,0 +1,33 @@
+package com.biblioteca.bibliotech.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO de un libro del catálogo público (OPAC).
+ * Solo datos bibliográficos y disponibilidad: sin ubicación ni historial.
+ * Forma parte de la instantánea del catálogo y no se modifica una vez construida.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LibroCatalogoResponse {
+
+    private Long id;
+    private String titulo;
+    private String isbn;
+    private Integer anioPublicacion;
+
+    private Long idAutor;
+    private String nombreAutor;
+
+    private Long idCategoria;
+    private String nombreCategoria;
+
+    private Integer cantidadTotal;
+    private Integer cantidadDisponible;
+    private Boolean disponible;
+}
@@ -0,0 +1,25 @@
+package com.biblioteca.bibliotech.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO de respuesta para una posición del ranking de libros más prestados.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LibroPopularResponse {
+    
+    private int posicion;
+    private Long libroId;
+    private String titulo;
+    private String autor;
+    private String categoria;
+    
+    // Préstamos dentro de la ventana consultada
+    private int prestamos;
+}
@@ -0,0 +1,42 @@
+package com.biblioteca.bibliotech.dto.response;
+
+import com.biblioteca.bibliotech.enums.EstadoMulta;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO de respuesta para multas.
+ * Incluye información del libro y cliente de forma plana.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MultaResponse {
+    
+    private Long id;
+    private Long idPrestamo;
+    private Integer diasRetraso;
+    private BigDecimal monto;
+    private EstadoMulta estado;
+    private String estadoDescripcion;
+    private Boolean prestamoDevuelto;
+    private LocalDateTime fechaGeneracion;
+    private LocalDateTime fechaActualizacion;
+    private LocalDateTime fechaCierre;
+    private String observaciones;
+    
+    // Datos del libro (aplanados)
+    private Long idLibro;
+    private String tituloLibro;
+    
+    // Datos del cliente (aplanados)
+    private Long idCliente;
+    private String nombreCompletoCliente;
+    private String dniCliente;
+}
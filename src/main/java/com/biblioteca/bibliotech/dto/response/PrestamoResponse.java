@@ -32,6 +32,7 @@ public class PrestamoResponse {
     private Long idLibro;
     private String tituloLibro;
     private String isbnLibro;
+    private String codigoBarrasEjemplar;
     
     // Datos del cliente (aplanados)
     private Long idCliente;
@@ -0,0 +1,41 @@
+package com.biblioteca.bibliotech.dto.response;
+
+import com.biblioteca.bibliotech.enums.EstadoReserva;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO de respuesta para reservas.
+ * Incluye información del libro y cliente de forma plana.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReservaResponse {
+    
+    private Long id;
+    private LocalDateTime fechaReserva;
+    private EstadoReserva estado;
+    private String estadoDescripcion;
+    private LocalDateTime fechaAsignacion;
+    private LocalDateTime fechaExpiracion;
+    private String observaciones;
+    
+    // Datos del libro (aplanados)
+    private Long idLibro;
+    private String tituloLibro;
+    private String codigoBarrasEjemplar;
+    
+    // Datos del cliente (aplanados)
+    private Long idCliente;
+    private String nombreCompletoCliente;
+    private String dniCliente;
+    
+    // Campos calculados
+    private Integer posicion;        // Lugar en la cola del libro (solo PENDIENTE)
+}
@@ -0,0 +1,29 @@
+package com.biblioteca.bibliotech.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO de respuesta de una búsqueda en el catálogo público (una página de resultados).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ResultadoCatalogoResponse {
+
+    @Builder.Default
+    private List<LibroCatalogoResponse> libros = new ArrayList<>();
+
+    // Total de libros que cumplen los filtros
+    private int total;
+
+    // Página actual (desde 0) y cantidad de páginas
+    private int pagina;
+    private int totalPaginas;
+}
@@ -0,0 +1,51 @@
+package com.biblioteca.bibliotech.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO de respuesta con las series diarias para los gráficos de tendencias.
+ * Todas las listas de series están alineadas con fechas.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TendenciasResponse {
+
+    // Último día calculado por el proceso de estadísticas (null si nunca se ejecutó)
+    private LocalDate ultimaFecha;
+
+    @Builder.Default
+    private List<String> fechas = new ArrayList<>();
+
+    @Builder.Default
+    private List<Integer> prestamos = new ArrayList<>();
+
+    @Builder.Default
+    private List<Integer> devoluciones = new ArrayList<>();
+
+    @Builder.Default
+    private List<Integer> nuevosVencidos = new ArrayList<>();
+
+    @Builder.Default
+    private List<Integer> clientesActivos = new ArrayList<>();
+
+    // Préstamos del período por categoría (de mayor a menor)
+    @Builder.Default
+    private List<String> categorias = new ArrayList<>();
+
+    @Builder.Default
+    private List<Long> prestamosPorCategoria = new ArrayList<>();
+
+    // Totales del período
+    private long totalPrestamos;
+    private long totalDevoluciones;
+    private long totalNuevosVencidos;
+}
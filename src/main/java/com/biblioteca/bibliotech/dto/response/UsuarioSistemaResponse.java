@@ -6,17 +6,21 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.io.Serializable;
 import java.time.LocalDateTime;
 
 /**
  * DTO de respuesta para usuarios del sistema.
  * No incluye el password por seguridad.
+ * Serializable porque se guarda en la sesión (que puede persistirse en BD).
  */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-public class UsuarioSistemaResponse {
+public class UsuarioSistemaResponse implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
     
     private Long id;
     private String nombre;
@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -32,6 +33,13 @@ public class Categoria {
     @Column(name = "descripcion", columnDefinition = "TEXT")
     private String descripcion;
     
+    // Multa por día de retraso y tope por préstamo (null = valores por defecto)
+    @Column(name = "multa_diaria", precision = 8, scale = 2)
+    private BigDecimal multaDiaria;
+    
+    @Column(name = "multa_tope", precision = 10, scale = 2)
+    private BigDecimal multaTope;
+    
     @Column(name = "fecha_registro", updatable = false)
     private LocalDateTime fechaRegistro;
     
@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -23,8 +24,21 @@ import java.util.List;
 @Builder
 public class Cliente {
     
+    // IDs asignados por bloques desde la tabla secuencias (pooled-lo):
+    // permite que Hibernate agrupe los INSERT en lotes JDBC. La columna no es
+    // AUTO_INCREMENT (V18): los INSERT por fuera de Hibernate reservan sus IDs
+    // con SecuenciaService
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "clientes_gen")
+    @TableGenerator(
+            name = "clientes_gen",
+            table = "secuencias",
+            pkColumnName = "nombre",
+            valueColumnName = "siguiente_valor",
+            pkColumnValue = "clientes",
+            initialValue = 1,
+            allocationSize = 50
+    )
     @Column(name = "id_cliente")
     private Long id;
     
@@ -53,6 +67,27 @@ public class Cliente {
     @Column(name = "fecha_registro", updatable = false)
     private LocalDateTime fechaRegistro;
     
+    // Contadores desnormalizados de préstamos. Solo se modifican con UPDATE
+    // atómicos en la BD (ver ClienteRepository), nunca a través de la entidad,
+    // para que guardar un cliente no pise un valor actualizado en paralelo.
+    @Column(name = "prestamos_activos", nullable = false, insertable = false, updatable = false)
+    @Builder.Default
+    private Integer prestamosActivos = 0;
+    
+    @Column(name = "prestamos_vencidos", nullable = false, insertable = false, updatable = false)
+    @Builder.Default
+    private Integer prestamosVencidos = 0;
+    
+    @Column(name = "prestamos_total", nullable = false, insertable = false, updatable = false)
+    @Builder.Default
+    private Integer prestamosTotal = 0;
+    
+    // Suma de multas PENDIENTE, con el mismo criterio que los contadores (ver MultaService)
+    @Column(name = "deuda_multas", nullable = false, insertable = false, updatable = false,
+            precision = 10, scale = 2)
+    @Builder.Default
+    private BigDecimal deudaMultas = BigDecimal.ZERO;
+    
     // Relación con préstamos
     @OneToMany(mappedBy = "cliente", fetch = FetchType.LAZY)
     @Builder.Default
@@ -0,0 +1,66 @@
+package com.biblioteca.bibliotech.entity;
+
+import com.biblioteca.bibliotech.enums.EstadoEjemplar;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entidad que representa un ejemplar (copia física) de un libro.
+ * Se identifica por su código de barras; préstamos y reservas apuntan a un ejemplar concreto.
+ */
+@Entity
+@Table(name = "ejemplares")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Ejemplar {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_ejemplar")
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id_libro", nullable = false)
+    private Libro libro;
+    
+    @Column(name = "codigo_barras", nullable = false, unique = true, length = 32)
+    private String codigoBarras;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado", nullable = false)
+    @Builder.Default
+    private EstadoEjemplar estado = EstadoEjemplar.DISPONIBLE;
+    
+    @Column(name = "ubicacion", length = 100)
+    private String ubicacion;
+    
+    @Column(name = "fecha_alta", nullable = false, updatable = false)
+    private LocalDateTime fechaAlta;
+    
+    @Column(name = "ultima_actualizacion")
+    private LocalDateTime ultimaActualizacion;
+    
+    @PrePersist
+    protected void onCreate() {
+        this.fechaAlta = LocalDateTime.now();
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        this.ultimaActualizacion = LocalDateTime.now();
+    }
+    
+    /**
+     * Verifica si el ejemplar está en la estantería.
+     */
+    public boolean estaDisponible() {
+        return this.estado == EstadoEjemplar.DISPONIBLE;
+    }
+}
@@ -12,7 +12,8 @@ import java.util.List;
 
 /**
  * Entidad que representa los libros de la biblioteca.
- * Incluye control de stock con cantidad_total y cantidad_disponible.
+ * Incluye control de stock con cantidad_total y cantidad_disponible,
+ * derivados de los ejemplares (ver EjemplarService).
  */
 @Entity
 @Table(name = "libros")
@@ -22,8 +23,21 @@ import java.util.List;
 @Builder
 public class Libro {
     
+    // IDs asignados por bloques desde la tabla secuencias (pooled-lo):
+    // permite que Hibernate agrupe los INSERT en lotes JDBC. La columna no es
+    // AUTO_INCREMENT (V18): los INSERT por fuera de Hibernate reservan sus IDs
+    // con SecuenciaService
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "libros_gen")
+    @TableGenerator(
+            name = "libros_gen",
+            table = "secuencias",
+            pkColumnName = "nombre",
+            valueColumnName = "siguiente_valor",
+            pkColumnValue = "libros",
+            initialValue = 1,
+            allocationSize = 50
+    )
     @Column(name = "id_libro")
     private Long id;
     
@@ -36,11 +50,12 @@ public class Libro {
     @Column(name = "anio_publicacion")
     private Integer anioPublicacion;
     
-    @Column(name = "cantidad_total", nullable = false)
+    // Contadores derivados de los ejemplares: solo EjemplarService los actualiza
+    @Column(name = "cantidad_total", nullable = false, updatable = false)
     @Builder.Default
     private Integer cantidadTotal = 0;
     
-    @Column(name = "cantidad_disponible", nullable = false)
+    @Column(name = "cantidad_disponible", nullable = false, updatable = false)
     @Builder.Default
     private Integer cantidadDisponible = 0;
     
@@ -78,22 +93,4 @@ public class Libro {
     public boolean tieneDisponibilidad() {
         return this.cantidadDisponible > 0;
     }
-    
-    /**
-     * Reduce el stock disponible en 1 unidad (al realizar préstamo).
-     */
-    public void reducirStock() {
-        if (this.cantidadDisponible > 0) {
-            this.cantidadDisponible--;
-        }
-    }
-    
-    /**
-     * Aumenta el stock disponible en 1 unidad (al devolver).
-     */
-    public void aumentarStock() {
-        if (this.cantidadDisponible < this.cantidadTotal) {
-            this.cantidadDisponible++;
-        }
-    }
 }
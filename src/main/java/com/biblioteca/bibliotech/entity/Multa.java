@@ -0,0 +1,80 @@
+package com.biblioteca.bibliotech.entity;
+
+import com.biblioteca.bibliotech.enums.EstadoMulta;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Entidad que representa la multa por la devolución tardía de un préstamo.
+ * Las genera y actualiza el devengo nocturno de MultaService; desde la aplicación
+ * solo se pagan o condonan.
+ */
+@Entity
+@Table(name = "multas")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Multa {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_multa")
+    private Long id;
+    
+    // Sin relación: prestamos está particionada y el préstamo puede estar archivado
+    @Column(name = "id_prestamo", nullable = false, updatable = false)
+    private Long prestamoId;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id_cliente", nullable = false, updatable = false)
+    private Cliente cliente;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id_libro", nullable = false, updatable = false)
+    private Libro libro;
+    
+    @Column(name = "dias_retraso", nullable = false)
+    private Integer diasRetraso;
+    
+    @Column(name = "monto", nullable = false, precision = 10, scale = 2)
+    private BigDecimal monto;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado", nullable = false)
+    @Builder.Default
+    private EstadoMulta estado = EstadoMulta.PENDIENTE;
+    
+    @Column(name = "prestamo_devuelto", nullable = false)
+    @Builder.Default
+    private Boolean prestamoDevuelto = false;
+    
+    @Column(name = "fecha_generacion", nullable = false, insertable = false, updatable = false)
+    private LocalDateTime fechaGeneracion;
+    
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+    
+    @Column(name = "fecha_cierre")
+    private LocalDateTime fechaCierre;
+    
+    @Column(name = "observaciones", length = 255)
+    private String observaciones;
+    
+    /**
+     * Cierra la multa como pagada o condonada.
+     */
+    public void cerrar(EstadoMulta estado, String observaciones) {
+        this.estado = estado;
+        this.fechaCierre = LocalDateTime.now();
+        if (observaciones != null && !observaciones.isBlank()) {
+            this.observaciones = observaciones.trim();
+        }
+    }
+}
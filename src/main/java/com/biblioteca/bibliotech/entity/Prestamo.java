@@ -22,8 +22,21 @@ import java.time.LocalDateTime;
 @Builder
 public class Prestamo {
     
+    // IDs asignados por bloques desde la tabla secuencias (pooled-lo):
+    // permite que Hibernate agrupe los INSERT en lotes JDBC. La columna no es
+    // AUTO_INCREMENT (V18): los INSERT por fuera de Hibernate reservan sus IDs
+    // con SecuenciaService
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "prestamos_gen")
+    @TableGenerator(
+            name = "prestamos_gen",
+            table = "secuencias",
+            pkColumnName = "nombre",
+            valueColumnName = "siguiente_valor",
+            pkColumnValue = "prestamos",
+            initialValue = 1,
+            allocationSize = 50
+    )
     @Column(name = "id_prestamo")
     private Long id;
     
@@ -37,6 +50,11 @@ public class Prestamo {
     @JoinColumn(name = "id_cliente", nullable = false)
     private Cliente cliente;
     
+    // Ejemplar prestado (sin FK: prestamos está particionada)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id_ejemplar")
+    private Ejemplar ejemplar;
+    
     @Column(name = "fecha_prestamo", nullable = false)
     private LocalDate fechaPrestamo;
     
@@ -0,0 +1,81 @@
+package com.biblioteca.bibliotech.entity;
+
+import com.biblioteca.bibliotech.enums.EstadoPrestamo;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Entidad de solo lectura para los préstamos archivados (tabla prestamos_historico).
+ * Las filas las escribe ArchivoPrestamosService moviéndolas desde prestamos.
+ */
+@Entity
+@Table(name = "prestamos_historico")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PrestamoHistorico {
+    
+    // Mismo ID que tenía en la tabla prestamos
+    @Id
+    @Column(name = "id_prestamo")
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id_libro", nullable = false)
+    private Libro libro;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id_cliente", nullable = false)
+    private Cliente cliente;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id_ejemplar")
+    private Ejemplar ejemplar;
+    
+    @Column(name = "fecha_prestamo", nullable = false)
+    private LocalDate fechaPrestamo;
+    
+    @Column(name = "fecha_devolucion_esperada", nullable = false)
+    private LocalDate fechaDevolucionEsperada;
+    
+    @Column(name = "fecha_devolucion_real")
+    private LocalDate fechaDevolucionReal;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado")
+    private EstadoPrestamo estado;
+    
+    @Column(name = "observaciones", columnDefinition = "TEXT")
+    private String observaciones;
+    
+    @Column(name = "fecha_registro")
+    private LocalDateTime fechaRegistro;
+    
+    @Column(name = "fecha_archivado")
+    private LocalDateTime fechaArchivado;
+    
+    /**
+     * Convierte a un Prestamo (no persistido) para reutilizar el mapper y las vistas.
+     */
+    public Prestamo aPrestamo() {
+        return Prestamo.builder()
+                .id(id)
+                .libro(libro)
+                .cliente(cliente)
+                .ejemplar(ejemplar)
+                .fechaPrestamo(fechaPrestamo)
+                .fechaDevolucionEsperada(fechaDevolucionEsperada)
+                .fechaDevolucionReal(fechaDevolucionReal)
+                .estado(estado)
+                .observaciones(observaciones)
+                .fechaRegistro(fechaRegistro)
+                .build();
+    }
+}
@@ -0,0 +1,84 @@
+package com.biblioteca.bibliotech.entity;
+
+import com.biblioteca.bibliotech.enums.EstadoReserva;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entidad que representa la reserva de un libro sin ejemplares disponibles.
+ * Las reservas de un libro forman una cola por orden de llegada.
+ */
+@Entity
+@Table(name = "reservas")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Reserva {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_reserva")
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id_libro", nullable = false)
+    private Libro libro;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id_cliente", nullable = false)
+    private Cliente cliente;
+    
+    // Ejemplar apartado mientras la reserva está DISPONIBLE
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id_ejemplar")
+    private Ejemplar ejemplar;
+    
+    @Column(name = "fecha_reserva", nullable = false, updatable = false)
+    private LocalDateTime fechaReserva;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado", nullable = false)
+    @Builder.Default
+    private EstadoReserva estado = EstadoReserva.PENDIENTE;
+    
+    @Column(name = "fecha_asignacion")
+    private LocalDateTime fechaAsignacion;
+    
+    @Column(name = "fecha_expiracion")
+    private LocalDateTime fechaExpiracion;
+    
+    @Column(name = "observaciones", columnDefinition = "TEXT")
+    private String observaciones;
+    
+    @PrePersist
+    protected void onCreate() {
+        this.fechaReserva = LocalDateTime.now();
+        if (this.estado == null) {
+            this.estado = EstadoReserva.PENDIENTE;
+        }
+    }
+    
+    /**
+     * Aparta un ejemplar para el cliente hasta la fecha de expiración.
+     */
+    public void asignar(LocalDateTime expiracion) {
+        this.estado = EstadoReserva.DISPONIBLE;
+        this.fechaAsignacion = LocalDateTime.now();
+        this.fechaExpiracion = expiracion;
+    }
+    
+    /**
+     * Verifica si el plazo para retirar el ejemplar apartado ya pasó.
+     */
+    public boolean estaVencida(LocalDateTime ahora) {
+        return this.estado == EstadoReserva.DISPONIBLE
+               && this.fechaExpiracion != null
+               && !this.fechaExpiracion.isAfter(ahora);
+    }
+}
@@ -33,7 +33,7 @@ public class UsuarioSistema {
     private String username;
     
     @Column(name = "password", nullable = false, length = 255)
-    private String password; // Texto plano según requerimiento
+    private String password; // Hash BCrypt (los valores en texto plano se migran al hacer login)
     
     @Enumerated(EnumType.STRING)
     @Column(name = "rol", nullable = false)
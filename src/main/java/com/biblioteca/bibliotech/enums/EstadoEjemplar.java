@@ -0,0 +1,25 @@
+package com.biblioteca.bibliotech.enums;
+
+/**
+ * Estados posibles de un ejemplar (copia física de un libro).
+ * DISPONIBLE: En la estantería, se puede prestar.
+ * PRESTADO: Lo tiene un cliente.
+ * APARTADO: Reservado para un cliente que todavía no lo retiró.
+ * BAJA: Retirado del inventario (no cuenta en el total).
+ */
+public enum EstadoEjemplar {
+    DISPONIBLE("Disponible"),
+    PRESTADO("Prestado"),
+    APARTADO("Apartado"),
+    BAJA("Baja");
+    
+    private final String descripcion;
+    
+    EstadoEjemplar(String descripcion) {
+        this.descripcion = descripcion;
+    }
+    
+    public String getDescripcion() {
+        return descripcion;
+    }
+}
@@ -0,0 +1,23 @@
+package com.biblioteca.bibliotech.enums;
+
+/**
+ * Estados posibles de una multa.
+ * PENDIENTE: Adeudada; mientras el préstamo no se devuelva sigue acumulando días.
+ * PAGADA: El cliente la pagó.
+ * CONDONADA: Un administrador la anuló.
+ */
+public enum EstadoMulta {
+    PENDIENTE("Pendiente"),
+    PAGADA("Pagada"),
+    CONDONADA("Condonada");
+    
+    private final String descripcion;
+    
+    EstadoMulta(String descripcion) {
+        this.descripcion = descripcion;
+    }
+    
+    public String getDescripcion() {
+        return descripcion;
+    }
+}
@@ -0,0 +1,34 @@
+package com.biblioteca.bibliotech.enums;
+
+/**
+ * Estados posibles de una reserva.
+ * PENDIENTE: El cliente espera en la cola del libro.
+ * DISPONIBLE: Se le apartó un ejemplar devuelto y puede retirarlo hasta la fecha de expiración.
+ * CUMPLIDA: El cliente retiró el ejemplar (se registró el préstamo).
+ * CANCELADA: La reserva fue cancelada.
+ * EXPIRADA: El cliente no retiró el ejemplar a tiempo.
+ */
+public enum EstadoReserva {
+    PENDIENTE("Pendiente"),
+    DISPONIBLE("Lista para retirar"),
+    CUMPLIDA("Cumplida"),
+    CANCELADA("Cancelada"),
+    EXPIRADA("Expirada");
+    
+    private final String descripcion;
+    
+    EstadoReserva(String descripcion) {
+        this.descripcion = descripcion;
+    }
+    
+    public String getDescripcion() {
+        return descripcion;
+    }
+    
+    /**
+     * Indica si la reserva sigue vigente (en cola o esperando el retiro).
+     */
+    public boolean esActiva() {
+        return this == PENDIENTE || this == DISPONIBLE;
+    }
+}
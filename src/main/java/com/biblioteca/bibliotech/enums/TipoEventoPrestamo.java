@@ -0,0 +1,15 @@
+package com.biblioteca.bibliotech.enums;
+
+/**
+ * Tipos de eventos del ciclo de vida de un préstamo (tabla eventos_prestamos).
+ * PRESTAMO_CREADO: Se registró el préstamo.
+ * PRESTAMO_DEVUELTO: Se devolvió el ejemplar.
+ * PLAZO_EXTENDIDO: Cambió la fecha de devolución esperada.
+ * PRESTAMO_VENCIDO: El barrido nocturno lo marcó como vencido.
+ */
+public enum TipoEventoPrestamo {
+    PRESTAMO_CREADO,
+    PRESTAMO_DEVUELTO,
+    PLAZO_EXTENDIDO,
+    PRESTAMO_VENCIDO
+}
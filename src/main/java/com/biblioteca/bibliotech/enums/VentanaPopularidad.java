@@ -0,0 +1,29 @@
+package com.biblioteca.bibliotech.enums;
+
+/**
+ * Ventanas de tiempo del ranking de libros más prestados.
+ * SEMANA: Últimos 7 días (incluido hoy).
+ * MES: Últimos 30 días.
+ * ANIO: Últimos 365 días.
+ */
+public enum VentanaPopularidad {
+    SEMANA("Últimos 7 días", 7),
+    MES("Últimos 30 días", 30),
+    ANIO("Último año", 365);
+    
+    private final String descripcion;
+    private final int dias;
+    
+    VentanaPopularidad(String descripcion, int dias) {
+        this.descripcion = descripcion;
+        this.dias = dias;
+    }
+    
+    public String getDescripcion() {
+        return descripcion;
+    }
+    
+    public int getDias() {
+        return dias;
+    }
+}
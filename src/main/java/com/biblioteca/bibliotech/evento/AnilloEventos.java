@@ -0,0 +1,121 @@
+package com.biblioteca.bibliotech.evento;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buffer circular de eventos con un único escritor y un cursor por lector.
+ *
+ * El escritor (el hilo de BusEventos que lee la tabla) publica en orden; cada
+ * lector avanza a su ritmo con su propia secuencia y el escritor espera cuando
+ * el lector más lento tiene el buffer lleno. Un evento se descarta del buffer
+ * recién cuando todos los lectores lo confirmaron.
+ *
+ * Cada evento lleva una marca del escritor (en BusEventos, el ID hasta el que
+ * ya se publicaron todos los eventos); al confirmar, el lector recibe la marca
+ * del último evento confirmado.
+ *
+ * No es thread-safe para varios escritores.
+ */
+final class AnilloEventos {
+
+    private final EventoPrestamo[] ranuras;
+    private final long[] marcas;
+    private final int mascara;
+
+    // Secuencia del último evento publicado y del último confirmado por cada lector
+    private long publicado = -1;
+    private final long[] confirmado;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hayEventos = lock.newCondition();
+    private final Condition haySitio = lock.newCondition();
+
+    /**
+     * @param capacidad Potencia de 2
+     * @param lectores  Cantidad de lectores (índices 0..lectores-1)
+     */
+    AnilloEventos(int capacidad, int lectores) {
+        if (Integer.bitCount(capacidad) != 1) {
+            throw new IllegalArgumentException("La capacidad debe ser potencia de 2: " + capacidad);
+        }
+        this.ranuras = new EventoPrestamo[capacidad];
+        this.marcas = new long[capacidad];
+        this.mascara = capacidad - 1;
+        this.confirmado = new long[lectores];
+        Arrays.fill(confirmado, -1);
+    }
+
+    /**
+     * Publica un evento con su marca, esperando si el lector más lento no dejó lugar.
+     */
+    void publicar(EventoPrestamo evento, long marca) throws InterruptedException {
+        lock.lock();
+        try {
+            while (publicado - minimoConfirmado() >= ranuras.length) {
+                haySitio.await();
+            }
+            publicado++;
+            ranuras[(int) (publicado & mascara)] = evento;
+            marcas[(int) (publicado & mascara)] = marca;
+            hayEventos.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Devuelve hasta max eventos no confirmados del lector, esperando como mucho
+     * esperaMs si no hay ninguno. No avanza el cursor: ver {@link #confirmar}.
+     */
+    List<EventoPrestamo> tomar(int lector, int max, long esperaMs) throws InterruptedException {
+        lock.lock();
+        try {
+            long restanteNs = TimeUnit.MILLISECONDS.toNanos(esperaMs);
+            while (publicado == confirmado[lector]) {
+                if (restanteNs <= 0) {
+                    return List.of();
+                }
+                restanteNs = hayEventos.awaitNanos(restanteNs);
+            }
+            long hasta = Math.min(publicado, confirmado[lector] + max);
+            List<EventoPrestamo> lote = new ArrayList<>((int) (hasta - confirmado[lector]));
+            for (long s = confirmado[lector] + 1; s <= hasta; s++) {
+                lote.add(ranuras[(int) (s & mascara)]);
+            }
+            return lote;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marca como procesados los próximos cantidad eventos del lector.
+     *
+     * @return La marca del último evento confirmado (cantidad mayor que 0)
+     */
+    long confirmar(int lector, int cantidad) {
+        lock.lock();
+        try {
+            confirmado[lector] += cantidad;
+            // El escritor no puede pisar la ranura mientras se tiene el lock
+            long marca = marcas[(int) (confirmado[lector] & mascara)];
+            haySitio.signalAll();
+            return marca;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long minimoConfirmado() {
+        long minimo = publicado;
+        for (long c : confirmado) {
+            minimo = Math.min(minimo, c);
+        }
+        return minimo;
+    }
+}
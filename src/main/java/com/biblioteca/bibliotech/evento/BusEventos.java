@@ -0,0 +1,436 @@
+package com.biblioteca.bibliotech.evento;
+
+import com.biblioteca.bibliotech.entity.Prestamo;
+import com.biblioteca.bibliotech.enums.TipoEventoPrestamo;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ClassUtils;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bus de eventos de préstamos con outbox transaccional (tabla eventos_prestamos, ver V11).
+ *
+ * PrestamoService registra cada evento con {@link #publicar} en la misma transacción
+ * que el cambio: si la transacción se revierte, el evento no existe. Al confirmar
+ * se despierta al hilo lector, que lee la tabla en orden de id_evento desde su
+ * cursor y es el único que escribe en el buffer circular (AnilloEventos). Cada
+ * suscriptor consume del buffer en su propio hilo, por lotes, y un suscriptor
+ * lento solo frena al lector cuando el buffer se llena.
+ *
+ * Como el lector recorre la tabla y no solo los eventos propios, cada nodo recibe
+ * también los eventos confirmados por los demás. Los IDs se asignan al insertar y
+ * no al confirmar, así que un hueco puede ser una transacción que todavía no
+ * confirmó (o una revertida, que no aparece nunca). El lector no se detiene en los
+ * huecos: anota los IDs faltantes y en cada lectura vuelve a buscarlos durante
+ * bibliotech.eventos.espera-huecos-ms, publicándolos cuando aparecen. Esos eventos
+ * llegan después de otros con ID mayor, pero nunca después de uno que dependa de
+ * ellos: un cambio sobre el mismo préstamo espera el bloqueo de la fila y no
+ * puede confirmar antes.
+ *
+ * La entrega es al menos una vez. Cada suscriptor guarda en cursores_eventos (ver
+ * V16), por nodo, el ID hasta el que ya procesó todos los eventos: la marca que
+ * el lector pone en el buffer (el cursor, o el hueco pendiente más viejo menos
+ * uno). Al iniciar, el lector parte de la posición más atrasada y cada suscriptor
+ * saltea lo que ya tenía procesado, así que los eventos confirmados antes de un
+ * reinicio o una caída se entregan igual. Un suscriptor nuevo parte del último
+ * evento (carga su estado desde la base). Un lote que falla no se confirma: se
+ * reintenta con espera creciente hasta que se procese, y mientras tanto ese
+ * suscriptor no avanza (los demás siguen hasta que se llena el buffer). Los
+ * eventos purgados (retencion-dias) ya no se pueden entregar a un nodo que
+ * estuvo detenido más tiempo que eso.
+ */
+@Component
+public class BusEventos {
+
+    private static final Logger log = LoggerFactory.getLogger(BusEventos.class);
+
+    private static final String SQL_REGISTRAR =
+            "INSERT INTO eventos_prestamos " +
+            "(tipo, id_prestamo, id_cliente, id_libro, id_ejemplar, fecha_devolucion_esperada) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    // Préstamos que el barrido nocturno está por marcar como vencidos (ya bloqueados)
+    private static final String SQL_REGISTRAR_VENCIDOS =
+            "INSERT INTO eventos_prestamos " +
+            "(tipo, id_prestamo, id_cliente, id_libro, id_ejemplar, fecha_devolucion_esperada) " +
+            "SELECT 'PRESTAMO_VENCIDO', id_prestamo, id_cliente, id_libro, id_ejemplar, fecha_devolucion_esperada " +
+            "FROM prestamos WHERE estado = 'ACTIVO' AND fecha_devolucion_esperada < CURRENT_DATE";
+
+    private static final String SQL_ULTIMO = "SELECT COALESCE(MAX(id_evento), 0) FROM eventos_prestamos";
+
+    private static final String SQL_PRIMERO = "SELECT MIN(id_evento) FROM eventos_prestamos";
+
+    private static final String SQL_LEER_CURSOR =
+            "SELECT id_evento FROM cursores_eventos WHERE nodo = ? AND suscriptor = ?";
+
+    private static final String SQL_CREAR_CURSOR =
+            "INSERT INTO cursores_eventos (nodo, suscriptor, id_evento) VALUES (?, ?, ?)";
+
+    private static final String SQL_GUARDAR_CURSOR =
+            "UPDATE cursores_eventos SET id_evento = ? " +
+            "WHERE nodo = ? AND suscriptor = ? AND id_evento < ?";
+
+    private static final String SQL_LEER =
+            "SELECT id_evento, tipo, id_prestamo, id_cliente, id_libro, id_ejemplar, " +
+            "       fecha_devolucion_esperada, fecha_registro " +
+            "FROM eventos_prestamos WHERE id_evento > ? ORDER BY id_evento LIMIT ?";
+
+    private static final String SQL_LEER_HUECOS =
+            "SELECT id_evento, tipo, id_prestamo, id_cliente, id_libro, id_ejemplar, " +
+            "       fecha_devolucion_esperada, fecha_registro " +
+            "FROM eventos_prestamos WHERE id_evento IN (:ids) ORDER BY id_evento";
+
+    // IDs faltantes que se siguen buscando; pasado el máximo se abandonan los más viejos
+    private static final int MAXIMO_HUECOS = 10_000;
+    private static final int LOTE_HUECOS = 1000;
+
+    private static final String SQL_PURGAR =
+            "DELETE FROM eventos_prestamos WHERE fecha_registro < NOW() - INTERVAL ? DAY";
+
+    private static final RowMapper<EventoPrestamo> MAPEO = (rs, i) -> {
+        long idEjemplar = rs.getLong("id_ejemplar");
+        Long ejemplarId = rs.wasNull() ? null : idEjemplar;
+        return EventoPrestamo.de(TipoEventoPrestamo.valueOf(rs.getString("tipo")),
+                rs.getLong("id_evento"), rs.getLong("id_prestamo"), rs.getLong("id_cliente"),
+                rs.getLong("id_libro"), ejemplarId,
+                rs.getDate("fecha_devolucion_esperada").toLocalDate(),
+                rs.getTimestamp("fecha_registro").toLocalDateTime());
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final ObjectProvider<SuscriptorEventos> proveedorSuscriptores;
+    private final String nodo;
+    private final int capacidad;
+    private final int loteLectura;
+    private final int loteSuscriptor;
+    private final long intervaloMs;
+    private final long esperaHuecosMs;
+    private final int maximoIntentos;
+    private final int retencionDias;
+
+    // Despierta al lector cuando se confirma una transacción con eventos
+    private final Semaphore senal = new Semaphore(0);
+    private final List<Thread> hilos = new ArrayList<>();
+    private volatile boolean activo;
+
+    // Estado del lector (solo lo toca su hilo)
+    private AnilloEventos anillo;
+    private long cursor;
+    // ID faltante -> momento en que se detectó, en orden de detección
+    private final Map<Long, Long> huecos = new LinkedHashMap<>();
+
+    public BusEventos(JdbcTemplate jdbcTemplate,
+                      NamedParameterJdbcTemplate namedJdbcTemplate,
+                      ObjectProvider<SuscriptorEventos> proveedorSuscriptores,
+                      @Value("${bibliotech.eventos.nodo:${HOSTNAME:local}}") String nodo,
+                      @Value("${bibliotech.eventos.capacidad:1024}") int capacidad,
+                      @Value("${bibliotech.eventos.lote-lectura:256}") int loteLectura,
+                      @Value("${bibliotech.eventos.lote-suscriptor:64}") int loteSuscriptor,
+                      @Value("${bibliotech.eventos.intervalo-ms:1000}") long intervaloMs,
+                      @Value("${bibliotech.eventos.espera-huecos-ms:300000}") long esperaHuecosMs,
+                      @Value("${bibliotech.eventos.maximo-intentos:5}") int maximoIntentos,
+                      @Value("${bibliotech.eventos.retencion-dias:7}") int retencionDias) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.proveedorSuscriptores = proveedorSuscriptores;
+        this.nodo = nodo;
+        this.capacidad = capacidad;
+        this.loteLectura = loteLectura;
+        this.loteSuscriptor = loteSuscriptor;
+        this.intervaloMs = intervaloMs;
+        this.esperaHuecosMs = esperaHuecosMs;
+        this.maximoIntentos = Math.max(1, maximoIntentos);
+        this.retencionDias = retencionDias;
+    }
+
+    // ==================== REGISTRO (EN LA TRANSACCIÓN DEL CAMBIO) ====================
+
+    /**
+     * Registra un evento del préstamo en la transacción actual.
+     * El préstamo ya debe tener ID (persistido).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publicar(TipoEventoPrestamo tipo, Prestamo prestamo) {
+        jdbcTemplate.update(SQL_REGISTRAR, tipo.name(), prestamo.getId(), prestamo.getCliente().getId(),
+                prestamo.getLibro().getId(),
+                prestamo.getEjemplar() != null ? prestamo.getEjemplar().getId() : null,
+                Date.valueOf(prestamo.getFechaDevolucionEsperada()));
+        avisarAlConfirmar();
+    }
+
+    /**
+     * Registra PRESTAMO_VENCIDO para los préstamos ACTIVO ya vencidos, con una sola
+     * sentencia. Llamar antes de cambiarles el estado, con las filas bloqueadas.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int publicarVencidos() {
+        int registrados = jdbcTemplate.update(SQL_REGISTRAR_VENCIDOS);
+        if (registrados > 0) {
+            avisarAlConfirmar();
+        }
+        return registrados;
+    }
+
+    private void avisarAlConfirmar() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                senal.release();
+            }
+        });
+    }
+
+    // ==================== REPARTO ====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void iniciar() {
+        List<SuscriptorEventos> suscriptores = proveedorSuscriptores.orderedStream().toList();
+        if (suscriptores.isEmpty()) {
+            log.info("Bus de eventos sin suscriptores: no se inicia el lector");
+            return;
+        }
+
+        long ultimo = jdbcTemplate.queryForObject(SQL_ULTIMO, Long.class);
+        long[] inicios = new long[suscriptores.size()];
+        cursor = ultimo;
+        for (int i = 0; i < inicios.length; i++) {
+            inicios[i] = posicionGuardada(nombre(suscriptores.get(i)), ultimo);
+            cursor = Math.min(cursor, inicios[i]);
+        }
+        Long primero = jdbcTemplate.queryForObject(SQL_PRIMERO, Long.class);
+        if (primero != null && cursor < primero - 1) {
+            log.warn("Los eventos {} a {} ya se purgaron y no se entregarán", cursor + 1, primero - 1);
+            cursor = primero - 1;
+        }
+        anillo = new AnilloEventos(capacidad, suscriptores.size());
+        activo = true;
+
+        hilos.add(iniciarHilo("eventos-lector", this::leer));
+        for (int i = 0; i < suscriptores.size(); i++) {
+            SuscriptorEventos suscriptor = suscriptores.get(i);
+            int lector = i;
+            long inicio = inicios[i];
+            hilos.add(iniciarHilo("eventos-" + nombre(suscriptor), () -> consumir(lector, suscriptor, inicio)));
+        }
+        log.info("Bus de eventos del nodo {} iniciado desde el evento {} (último {}) con {} suscriptores",
+                nodo, cursor, ultimo, suscriptores.size());
+    }
+
+    /**
+     * Posición guardada del suscriptor en este nodo; uno nuevo parte del último evento.
+     */
+    private long posicionGuardada(String suscriptor, long ultimo) {
+        List<Long> guardada = jdbcTemplate.queryForList(SQL_LEER_CURSOR, Long.class, nodo, suscriptor);
+        if (!guardada.isEmpty()) {
+            return guardada.get(0);
+        }
+        jdbcTemplate.update(SQL_CREAR_CURSOR, nodo, suscriptor, ultimo);
+        return ultimo;
+    }
+
+    @PreDestroy
+    public synchronized void detener() {
+        activo = false;
+        hilos.forEach(Thread::interrupt);
+        hilos.clear();
+    }
+
+    private static Thread iniciarHilo(String nombre, Runnable tarea) {
+        Thread hilo = new Thread(tarea, nombre);
+        hilo.setDaemon(true);
+        hilo.start();
+        return hilo;
+    }
+
+    private static String nombre(SuscriptorEventos suscriptor) {
+        return ClassUtils.getUserClass(suscriptor).getSimpleName();
+    }
+
+    /**
+     * Hilo lector: único escritor del buffer.
+     */
+    private void leer() {
+        while (activo) {
+            try {
+                if (leerLote() < loteLectura) {
+                    senal.tryAcquire(intervaloMs, TimeUnit.MILLISECONDS);
+                    senal.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (DataAccessException e) {
+                log.warn("No se pudieron leer los eventos de préstamos", e);
+                try {
+                    Thread.sleep(intervaloMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Publica los eventos de huecos anteriores que ya se confirmaron y los
+     * siguientes al cursor, anotando los IDs que faltan entre ellos.
+     *
+     * @return Cantidad de eventos siguientes al cursor (si es el lote entero puede haber más)
+     */
+    private int leerLote() throws InterruptedException {
+        recuperarHuecos();
+        List<EventoPrestamo> eventos = jdbcTemplate.query(SQL_LEER, MAPEO, cursor, loteLectura);
+        long ahora = System.currentTimeMillis();
+        for (EventoPrestamo evento : eventos) {
+            for (long id = Math.max(cursor + 1, evento.id() - MAXIMO_HUECOS); id < evento.id(); id++) {
+                anotarHueco(id, ahora);
+            }
+            cursor = evento.id();
+            anillo.publicar(evento, marca());
+        }
+        return eventos.size();
+    }
+
+    /**
+     * ID hasta el que ya se publicaron todos los eventos: el cursor, o el hueco
+     * pendiente más viejo menos uno (se anotan en orden de ID).
+     */
+    private long marca() {
+        return huecos.isEmpty() ? cursor : Math.min(cursor, huecos.keySet().iterator().next() - 1);
+    }
+
+    private void anotarHueco(long id, long ahora) {
+        if (huecos.size() == MAXIMO_HUECOS) {
+            Iterator<Long> masViejo = huecos.keySet().iterator();
+            log.warn("Se deja de esperar el evento {}: demasiados huecos pendientes", masViejo.next());
+            masViejo.remove();
+        }
+        huecos.put(id, ahora);
+    }
+
+    /**
+     * Vuelve a buscar los IDs faltantes y publica los que ya se confirmaron.
+     * Los que siguen sin aparecer pasado espera-huecos-ms se abandonan: eran
+     * transacciones revertidas.
+     */
+    private void recuperarHuecos() throws InterruptedException {
+        if (huecos.isEmpty()) {
+            return;
+        }
+        long limite = System.currentTimeMillis() - esperaHuecosMs;
+        huecos.values().removeIf(desde -> desde <= limite);
+        List<Long> ids = new ArrayList<>(huecos.keySet());
+        for (int i = 0; i < ids.size(); i += LOTE_HUECOS) {
+            List<EventoPrestamo> tardios = namedJdbcTemplate.query(SQL_LEER_HUECOS,
+                    Map.of("ids", ids.subList(i, Math.min(ids.size(), i + LOTE_HUECOS))), MAPEO);
+            for (EventoPrestamo evento : tardios) {
+                huecos.remove(evento.id());
+                anillo.publicar(evento, marca());
+            }
+        }
+    }
+
+    /**
+     * Hilo de un suscriptor: toma lotes del buffer, los entrega y guarda su posición.
+     *
+     * @param inicio Posición guardada al iniciar: los eventos con ID hasta ahí ya se procesaron
+     */
+    private void consumir(int lector, SuscriptorEventos suscriptor, long inicio) {
+        String nombre = nombre(suscriptor);
+        long guardada = inicio;
+        while (activo) {
+            try {
+                List<EventoPrestamo> lote = anillo.tomar(lector, loteSuscriptor, intervaloMs);
+                if (lote.isEmpty()) {
+                    continue;
+                }
+                // El lector parte de la posición más atrasada: se saltea lo ya procesado
+                List<EventoPrestamo> pendientes = lote;
+                if (lote.stream().anyMatch(evento -> evento.id() <= inicio)) {
+                    pendientes = lote.stream().filter(evento -> evento.id() > inicio).toList();
+                }
+                if (!pendientes.isEmpty()) {
+                    entregar(nombre, suscriptor, pendientes);
+                }
+                long marca = anillo.confirmar(lector, lote.size());
+                if (marca > guardada && guardarPosicion(nombre, marca)) {
+                    guardada = marca;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Entrega el lote hasta que se procese. No se descarta nunca: con el lote
+     * detenido el suscriptor no avanza y los reintentos esperan cada vez más
+     * (hasta 64 intervalos). Cada maximo-intentos fallos se registra un error.
+     */
+    private void entregar(String nombre, SuscriptorEventos suscriptor, List<EventoPrestamo> lote)
+            throws InterruptedException {
+        for (int intento = 1; ; intento++) {
+            try {
+                suscriptor.procesar(lote);
+                return;
+            } catch (RuntimeException e) {
+                if (intento % maximoIntentos == 0) {
+                    log.error("{} no pudo procesar {} eventos ({} a {}) tras {} intentos: se sigue reintentando",
+                            nombre, lote.size(), lote.get(0).id(), lote.get(lote.size() - 1).id(), intento, e);
+                } else {
+                    log.warn("{} falló al procesar eventos (intento {})", nombre, intento, e);
+                }
+                Thread.sleep(intervaloMs << Math.min(intento - 1, 6));
+            }
+        }
+    }
+
+    /**
+     * @return false si no se pudo guardar (se vuelve a intentar con el próximo lote)
+     */
+    private boolean guardarPosicion(String suscriptor, long marca) {
+        try {
+            jdbcTemplate.update(SQL_GUARDAR_CURSOR, marca, nodo, suscriptor, marca);
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("No se pudo guardar la posición de {} en el evento {}", suscriptor, marca, e);
+            return false;
+        }
+    }
+
+    // ==================== MANTENIMIENTO ====================
+
+    /**
+     * Borra los eventos más viejos que la retención.
+     */
+    @Scheduled(cron = "${bibliotech.eventos.purga-cron:0 50 3 * * *}")
+    public void purgar() {
+        int borrados = jdbcTemplate.update(SQL_PURGAR, retencionDias);
+        log.info("Eventos de préstamos purgados: {}", borrados);
+    }
+}
@@ -0,0 +1,67 @@
+package com.biblioteca.bibliotech.evento;
+
+import com.biblioteca.bibliotech.enums.TipoEventoPrestamo;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Evento del ciclo de vida de un préstamo, leído de eventos_prestamos.
+ * Todos llevan los mismos datos del préstamo; fechaDevolucionEsperada es la
+ * vigente después del cambio (la nueva, en PlazoExtendido).
+ */
+public sealed interface EventoPrestamo
+        permits EventoPrestamo.PrestamoCreado, EventoPrestamo.PrestamoDevuelto,
+                EventoPrestamo.PlazoExtendido, EventoPrestamo.PrestamoVencido {
+
+    long id();
+
+    long prestamoId();
+
+    long clienteId();
+
+    long libroId();
+
+    Long ejemplarId();
+
+    LocalDate fechaDevolucionEsperada();
+
+    LocalDateTime fechaRegistro();
+
+    record PrestamoCreado(long id, long prestamoId, long clienteId, long libroId, Long ejemplarId,
+                          LocalDate fechaDevolucionEsperada, LocalDateTime fechaRegistro)
+            implements EventoPrestamo {
+    }
+
+    record PrestamoDevuelto(long id, long prestamoId, long clienteId, long libroId, Long ejemplarId,
+                            LocalDate fechaDevolucionEsperada, LocalDateTime fechaRegistro)
+            implements EventoPrestamo {
+    }
+
+    record PlazoExtendido(long id, long prestamoId, long clienteId, long libroId, Long ejemplarId,
+                          LocalDate fechaDevolucionEsperada, LocalDateTime fechaRegistro)
+            implements EventoPrestamo {
+    }
+
+    record PrestamoVencido(long id, long prestamoId, long clienteId, long libroId, Long ejemplarId,
+                           LocalDate fechaDevolucionEsperada, LocalDateTime fechaRegistro)
+            implements EventoPrestamo {
+    }
+
+    /**
+     * Crea el evento del tipo indicado.
+     */
+    static EventoPrestamo de(TipoEventoPrestamo tipo, long id, long prestamoId, long clienteId, long libroId,
+                             Long ejemplarId, LocalDate fechaDevolucionEsperada, LocalDateTime fechaRegistro) {
+        return switch (tipo) {
+            case PRESTAMO_CREADO -> new PrestamoCreado(id, prestamoId, clienteId, libroId, ejemplarId,
+                    fechaDevolucionEsperada, fechaRegistro);
+            case PRESTAMO_DEVUELTO -> new PrestamoDevuelto(id, prestamoId, clienteId, libroId, ejemplarId,
+                    fechaDevolucionEsperada, fechaRegistro);
+            case PLAZO_EXTENDIDO -> new PlazoExtendido(id, prestamoId, clienteId, libroId, ejemplarId,
+                    fechaDevolucionEsperada, fechaRegistro);
+            case PRESTAMO_VENCIDO -> new PrestamoVencido(id, prestamoId, clienteId, libroId, ejemplarId,
+                    fechaDevolucionEsperada, fechaRegistro);
+        };
+    }
+}
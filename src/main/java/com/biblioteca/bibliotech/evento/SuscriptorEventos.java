@@ -0,0 +1,22 @@
+package com.biblioteca.bibliotech.evento;
+
+import java.util.List;
+
+/**
+ * Componente que recibe los eventos de préstamos de BusEventos.
+ *
+ * Cada suscriptor recibe los eventos por lotes, en un hilo propio, en orden de ID
+ * salvo los de transacciones que confirmaron tarde (ver BusEventos): esos pueden
+ * llegar después de eventos con ID mayor de otros préstamos, pero los de un mismo
+ * préstamo llegan siempre en orden.
+ * La entrega es al menos una vez: si procesar lanza una excepción el mismo lote
+ * se reintenta hasta que pase, y al reiniciar se retoma desde la última posición
+ * guardada, así que un evento puede llegar repetido.
+ */
+public interface SuscriptorEventos {
+
+    /**
+     * Procesa un lote de eventos (nunca vacío).
+     */
+    void procesar(List<EventoPrestamo> eventos);
+}
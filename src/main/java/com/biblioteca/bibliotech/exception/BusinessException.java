@@ -30,4 +30,10 @@ public class BusinessException extends RuntimeException {
     public static final String PRESTAMO_NO_ACTIVO = "PRESTAMO_NO_ACTIVO";
     public static final String DUPLICADO = "DUPLICADO";
     public static final String OPERACION_NO_PERMITIDA = "OPERACION_NO_PERMITIDA";
+    public static final String ARCHIVO_INVALIDO = "ARCHIVO_INVALIDO";
+    public static final String LIMITE_RESERVAS = "LIMITE_RESERVAS";
+    public static final String RESERVA_NO_ACTIVA = "RESERVA_NO_ACTIVA";
+    public static final String EJEMPLAR_NO_DISPONIBLE = "EJEMPLAR_NO_DISPONIBLE";
+    public static final String MULTAS_PENDIENTES = "MULTAS_PENDIENTES";
+    public static final String MULTA_NO_PENDIENTE = "MULTA_NO_PENDIENTE";
 }
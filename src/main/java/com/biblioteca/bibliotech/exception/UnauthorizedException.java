@@ -27,4 +27,5 @@ public class UnauthorizedException extends RuntimeException {
     public static final String SESION_EXPIRADA = "SESION_EXPIRADA";
     public static final String ACCESO_DENEGADO = "ACCESO_DENEGADO";
     public static final String SIN_SESION = "SIN_SESION";
+    public static final String DEMASIADOS_INTENTOS = "DEMASIADOS_INTENTOS";
 }
@@ -23,6 +23,10 @@ public interface ClienteMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "fechaRegistro", ignore = true)
     @Mapping(target = "prestamos", ignore = true)
+    @Mapping(target = "prestamosActivos", ignore = true)
+    @Mapping(target = "prestamosVencidos", ignore = true)
+    @Mapping(target = "prestamosTotal", ignore = true)
+    @Mapping(target = "deudaMultas", ignore = true)
     Cliente toEntity(ClienteRequest request);
     
     /**
@@ -48,5 +52,9 @@ public interface ClienteMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "fechaRegistro", ignore = true)
     @Mapping(target = "prestamos", ignore = true)
+    @Mapping(target = "prestamosActivos", ignore = true)
+    @Mapping(target = "prestamosVencidos", ignore = true)
+    @Mapping(target = "prestamosTotal", ignore = true)
+    @Mapping(target = "deudaMultas", ignore = true)
     void updateEntityFromRequest(ClienteRequest request, @MappingTarget Cliente cliente);
 }
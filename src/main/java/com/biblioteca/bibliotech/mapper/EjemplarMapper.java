@@ -0,0 +1,22 @@
+package com.biblioteca.bibliotech.mapper;
+
+import com.biblioteca.bibliotech.dto.response.EjemplarResponse;
+import com.biblioteca.bibliotech.entity.Ejemplar;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+/**
+ * Mapper para conversión entre Ejemplar Entity y DTOs.
+ */
+@Mapper(componentModel = "spring")
+public interface EjemplarMapper {
+    
+    @Mapping(target = "idLibro", source = "libro.id")
+    @Mapping(target = "tituloLibro", source = "libro.titulo")
+    @Mapping(target = "estadoDescripcion", expression = "java(ejemplar.getEstado().getDescripcion())")
+    EjemplarResponse toResponse(Ejemplar ejemplar);
+    
+    List<EjemplarResponse> toResponseList(List<Ejemplar> ejemplares);
+}
@@ -0,0 +1,26 @@
+package com.biblioteca.bibliotech.mapper;
+
+import com.biblioteca.bibliotech.dto.response.MultaResponse;
+import com.biblioteca.bibliotech.entity.Multa;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+/**
+ * Mapper para conversión entre Multa Entity y DTOs.
+ */
+@Mapper(componentModel = "spring")
+public interface MultaMapper {
+    
+    @Mapping(target = "idPrestamo", source = "prestamoId")
+    @Mapping(target = "idLibro", source = "libro.id")
+    @Mapping(target = "tituloLibro", source = "libro.titulo")
+    @Mapping(target = "idCliente", source = "cliente.id")
+    @Mapping(target = "nombreCompletoCliente", expression = "java(multa.getCliente().getNombre() + \" \" + multa.getCliente().getApellido())")
+    @Mapping(target = "dniCliente", source = "cliente.dni")
+    @Mapping(target = "estadoDescripcion", expression = "java(multa.getEstado().getDescripcion())")
+    MultaResponse toResponse(Multa multa);
+    
+    List<MultaResponse> toResponseList(List<Multa> multas);
+}
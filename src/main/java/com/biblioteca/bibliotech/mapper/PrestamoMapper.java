@@ -26,6 +26,7 @@ public interface PrestamoMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "libro", ignore = true)
     @Mapping(target = "cliente", ignore = true)
+    @Mapping(target = "ejemplar", ignore = true)
     @Mapping(target = "fechaPrestamo", ignore = true)
     @Mapping(target = "fechaDevolucionReal", ignore = true)
     @Mapping(target = "estado", ignore = true)
@@ -38,6 +39,7 @@ public interface PrestamoMapper {
     @Mapping(target = "idLibro", source = "libro.id")
     @Mapping(target = "tituloLibro", source = "libro.titulo")
     @Mapping(target = "isbnLibro", source = "libro.isbn")
+    @Mapping(target = "codigoBarrasEjemplar", source = "ejemplar.codigoBarras")
     @Mapping(target = "idCliente", source = "cliente.id")
     @Mapping(target = "nombreCompletoCliente", expression = "java(prestamo.getCliente().getNombre() + \" \" + prestamo.getCliente().getApellido())")
     @Mapping(target = "dniCliente", source = "cliente.dni")
@@ -0,0 +1,28 @@
+package com.biblioteca.bibliotech.mapper;
+
+import com.biblioteca.bibliotech.dto.response.ReservaResponse;
+import com.biblioteca.bibliotech.entity.Reserva;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+/**
+ * Mapper para conversión entre Reserva Entity y DTOs.
+ * La posición en la cola la completa ReservaService.
+ */
+@Mapper(componentModel = "spring")
+public interface ReservaMapper {
+    
+    @Mapping(target = "idLibro", source = "libro.id")
+    @Mapping(target = "tituloLibro", source = "libro.titulo")
+    @Mapping(target = "codigoBarrasEjemplar", source = "ejemplar.codigoBarras")
+    @Mapping(target = "idCliente", source = "cliente.id")
+    @Mapping(target = "nombreCompletoCliente", expression = "java(reserva.getCliente().getNombre() + \" \" + reserva.getCliente().getApellido())")
+    @Mapping(target = "dniCliente", source = "cliente.dni")
+    @Mapping(target = "estadoDescripcion", expression = "java(reserva.getEstado().getDescripcion())")
+    @Mapping(target = "posicion", ignore = true)
+    ReservaResponse toResponse(Reserva reserva);
+    
+    List<ReservaResponse> toResponseList(List<Reserva> reservas);
+}
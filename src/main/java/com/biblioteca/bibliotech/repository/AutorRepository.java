@@ -40,6 +40,12 @@ public interface AutorRepository extends JpaRepository<Autor, Long> {
      */
     boolean existsByNombreIgnoreCase(String nombre);
     
+    /**
+     * Obtiene pares [id, nombre] de todos los autores (para importaciones masivas).
+     */
+    @Query("SELECT a.id, a.nombre FROM Autor a")
+    List<Object[]> findIdYNombre();
+    
     /**
      * Obtiene autores que tienen al menos un libro registrado.
      */
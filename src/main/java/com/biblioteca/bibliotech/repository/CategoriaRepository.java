@@ -35,6 +35,12 @@ public interface CategoriaRepository extends JpaRepository<Categoria, Long> {
      */
     boolean existsByNombreIgnoreCase(String nombre);
     
+    /**
+     * Obtiene pares [id, nombre] de todas las categorías (para importaciones masivas).
+     */
+    @Query("SELECT c.id, c.nombre FROM Categoria c")
+    List<Object[]> findIdYNombre();
+    
     /**
      * Obtiene categorías que tienen al menos un libro registrado.
      */
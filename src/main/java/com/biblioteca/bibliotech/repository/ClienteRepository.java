@@ -2,10 +2,12 @@ package com.biblioteca.bibliotech.repository;
 
 import com.biblioteca.bibliotech.entity.Cliente;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -36,6 +38,18 @@ public interface ClienteRepository extends JpaRepository<Cliente, Long> {
      */
     boolean existsByEmail(String email);
     
+    /**
+     * Obtiene todos los DNI registrados (para validar importaciones masivas).
+     */
+    @Query("SELECT c.dni FROM Cliente c")
+    List<String> findAllDni();
+    
+    /**
+     * De los emails dados, devuelve los que ya están registrados.
+     */
+    @Query("SELECT c.email FROM Cliente c WHERE c.email IN :emails")
+    List<String> findEmailsExistentes(@Param("emails") Collection<String> emails);
+    
     /**
      * Obtiene todos los clientes activos.
      */
@@ -95,4 +109,87 @@ public interface ClienteRepository extends JpaRepository<Cliente, Long> {
            "JOIN c.prestamos p " +
            "WHERE p.estado = 'VENCIDO'")
     List<Cliente> findClientesConPrestamosVencidos();
+    
+    // ==================== CONTADORES DE PRÉSTAMOS ====================
+    
+    /**
+     * Registra un préstamo nuevo en los contadores del cliente, solo si está activo
+     * y no alcanzó el límite. La condición y el incremento son una sola operación
+     * atómica: dos préstamos simultáneos no pueden superar el límite.
+     *
+     * @return 1 si se registró, 0 si el cliente alcanzó el límite o está inactivo
+     */
+    @Modifying
+    @Query(value = "UPDATE clientes " +
+                   "SET prestamos_activos = prestamos_activos + 1, prestamos_total = prestamos_total + 1 " +
+                   "WHERE id_cliente = :clienteId AND activo = TRUE AND prestamos_activos < :limite",
+           nativeQuery = true)
+    int registrarPrestamo(@Param("clienteId") Long clienteId, @Param("limite") int limite);
+    
+    /**
+     * Ajusta los contadores de préstamos activos y vencidos del cliente.
+     * Usado al devolver (-1), al vencer (activos -n, vencidos +n) y al extender un vencido.
+     */
+    @Modifying
+    @Query(value = "UPDATE clientes " +
+                   "SET prestamos_activos = prestamos_activos + :activos, " +
+                   "prestamos_vencidos = prestamos_vencidos + :vencidos " +
+                   "WHERE id_cliente = :clienteId",
+           nativeQuery = true)
+    int ajustarContadores(@Param("clienteId") Long clienteId,
+                          @Param("activos") int activos,
+                          @Param("vencidos") int vencidos);
+    
+    /**
+     * Recalcula los contadores desde las tablas de préstamos y corrige los que difieran.
+     * El total incluye los préstamos archivados en prestamos_historico.
+     *
+     * @return Cantidad de clientes cuyos contadores estaban desfasados
+     */
+    @Modifying
+    @Query(value = "UPDATE clientes c " +
+                   "LEFT JOIN (SELECT id_cliente, " +
+                   "                  SUM(estado = 'ACTIVO') AS activos, " +
+                   "                  SUM(estado = 'VENCIDO') AS vencidos, " +
+                   "                  COUNT(*) AS total " +
+                   "           FROM prestamos GROUP BY id_cliente) p ON p.id_cliente = c.id_cliente " +
+                   "LEFT JOIN (SELECT id_cliente, COUNT(*) AS total " +
+                   "           FROM prestamos_historico GROUP BY id_cliente) h ON h.id_cliente = c.id_cliente " +
+                   "SET c.prestamos_activos = COALESCE(p.activos, 0), " +
+                   "    c.prestamos_vencidos = COALESCE(p.vencidos, 0), " +
+                   "    c.prestamos_total = COALESCE(p.total, 0) + COALESCE(h.total, 0) " +
+                   "WHERE c.prestamos_activos <> COALESCE(p.activos, 0) " +
+                   "OR c.prestamos_vencidos <> COALESCE(p.vencidos, 0) " +
+                   "OR c.prestamos_total <> COALESCE(p.total, 0) + COALESCE(h.total, 0)",
+           nativeQuery = true)
+    int reconciliarContadores();
+    
+    // ==================== DEUDA POR MULTAS ====================
+    
+    /**
+     * Recalcula la deuda de un cliente sumando sus multas PENDIENTE
+     * (lectura cubierta por idx_multas_cliente_estado).
+     */
+    @Modifying
+    @Query(value = "UPDATE clientes " +
+                   "SET deuda_multas = (SELECT COALESCE(SUM(m.monto), 0) FROM multas m " +
+                   "                    WHERE m.id_cliente = :clienteId AND m.estado = 'PENDIENTE') " +
+                   "WHERE id_cliente = :clienteId",
+           nativeQuery = true)
+    int recalcularDeuda(@Param("clienteId") Long clienteId);
+    
+    /**
+     * Recalcula la deuda de todos los clientes y corrige las que difieran.
+     *
+     * @return Cantidad de clientes cuya deuda cambió
+     */
+    @Modifying
+    @Query(value = "UPDATE clientes c " +
+                   "LEFT JOIN (SELECT id_cliente, SUM(monto) AS total " +
+                   "           FROM multas WHERE estado = 'PENDIENTE' GROUP BY id_cliente) m " +
+                   "       ON m.id_cliente = c.id_cliente " +
+                   "SET c.deuda_multas = COALESCE(m.total, 0) " +
+                   "WHERE c.deuda_multas <> COALESCE(m.total, 0)",
+           nativeQuery = true)
+    int recalcularDeudas();
 }
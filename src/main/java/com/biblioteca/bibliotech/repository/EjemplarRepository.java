@@ -0,0 +1,77 @@
+package com.biblioteca.bibliotech.repository;
+
+import com.biblioteca.bibliotech.entity.Ejemplar;
+import com.biblioteca.bibliotech.enums.EstadoEjemplar;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repositorio para gestión de ejemplares.
+ * Las búsquedas por libro y estado usan el índice (id_libro, estado).
+ */
+@Repository
+public interface EjemplarRepository extends JpaRepository<Ejemplar, Long> {
+    
+    /**
+     * Busca un ejemplar por código de barras (índice único).
+     */
+    Optional<Ejemplar> findByCodigoBarras(String codigoBarras);
+    
+    /**
+     * Obtiene los ejemplares de un libro.
+     */
+    List<Ejemplar> findByLibroIdOrderByIdAsc(Long libroId);
+    
+    /**
+     * Verifica si el libro tiene algún ejemplar en el estado dado.
+     */
+    boolean existsByLibroIdAndEstado(Long libroId, EstadoEjemplar estado);
+    
+    /**
+     * Cuenta los ejemplares de un libro en el estado dado.
+     */
+    long countByLibroIdAndEstado(Long libroId, EstadoEjemplar estado);
+    
+    /**
+     * Cuenta todos los ejemplares de un libro (incluidos los dados de baja).
+     * Los números de ejemplar nunca se reutilizan.
+     */
+    long countByLibroId(Long libroId);
+    
+    /**
+     * Bloquea un ejemplar DISPONIBLE del libro. SKIP LOCKED: dos préstamos
+     * simultáneos del mismo título toman ejemplares distintos sin esperarse.
+     */
+    @Query(value = "SELECT * FROM ejemplares " +
+                   "WHERE id_libro = :libroId AND estado = 'DISPONIBLE' " +
+                   "ORDER BY id_ejemplar LIMIT 1 FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    Optional<Ejemplar> bloquearDisponible(@Param("libroId") Long libroId);
+    
+    /**
+     * Bloquea un ejemplar por ID.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Ejemplar e WHERE e.id = :id")
+    Optional<Ejemplar> bloquearPorId(@Param("id") Long id);
+    
+    /**
+     * Primer ejemplar PRESTADO del libro (para préstamos sin ejemplar asignado).
+     */
+    Optional<Ejemplar> findFirstByLibroIdAndEstadoOrderByIdAsc(Long libroId, EstadoEjemplar estado);
+    
+    /**
+     * Elimina los ejemplares de un libro (solo al eliminar un libro sin historial).
+     */
+    @Modifying
+    @Query("DELETE FROM Ejemplar e WHERE e.libro.id = :libroId")
+    int deleteByLibroId(@Param("libroId") Long libroId);
+}
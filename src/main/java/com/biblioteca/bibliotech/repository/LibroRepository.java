@@ -1,12 +1,14 @@
 package com.biblioteca.bibliotech.repository;
 
 import com.biblioteca.bibliotech.entity.Libro;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,6 +29,12 @@ public interface LibroRepository extends JpaRepository<Libro, Long> {
      */
     boolean existsByIsbn(String isbn);
     
+    /**
+     * Obtiene todos los ISBN registrados (para validar importaciones masivas).
+     */
+    @Query("SELECT l.isbn FROM Libro l")
+    List<String> findAllIsbn();
+    
     /**
      * Busca libros cuyo título contenga el texto dado.
      */
@@ -64,6 +72,12 @@ public interface LibroRepository extends JpaRepository<Libro, Long> {
     @Query("SELECT l FROM Libro l WHERE l.cantidadDisponible = 0 ORDER BY l.titulo")
     List<Libro> findLibrosSinStock();
     
+    /**
+     * Obtiene los libros indicados ordenados por título.
+     */
+    @Query("SELECT l FROM Libro l WHERE l.id IN :ids ORDER BY l.titulo")
+    List<Libro> findByIdInOrderByTitulo(@Param("ids") Collection<Long> ids);
+    
     /**
      * Búsqueda combinada por título, autor o ISBN.
      */
@@ -74,28 +88,22 @@ public interface LibroRepository extends JpaRepository<Libro, Long> {
     List<Libro> buscarPorTermino(@Param("termino") String termino);
     
     /**
-     * Reduce el stock disponible de un libro en 1 unidad.
+     * IDs de los libros que coinciden con la búsqueda combinada (mismo criterio que buscarPorTermino).
      */
-    @Modifying
-    @Query("UPDATE Libro l SET l.cantidadDisponible = l.cantidadDisponible - 1 " +
-           "WHERE l.id = :libroId AND l.cantidadDisponible > 0")
-    int reducirStock(@Param("libroId") Long libroId);
-    
-    /**
-     * Aumenta el stock disponible de un libro en 1 unidad.
-     */
-    @Modifying
-    @Query("UPDATE Libro l SET l.cantidadDisponible = l.cantidadDisponible + 1 " +
-           "WHERE l.id = :libroId AND l.cantidadDisponible < l.cantidadTotal")
-    int aumentarStock(@Param("libroId") Long libroId);
+    @Query("SELECT l.id FROM Libro l " +
+           "WHERE LOWER(l.titulo) LIKE LOWER(CONCAT('%', :termino, '%')) " +
+           "OR LOWER(l.isbn) LIKE LOWER(CONCAT('%', :termino, '%')) " +
+           "OR LOWER(l.autor.nombre) LIKE LOWER(CONCAT('%', :termino, '%'))")
+    List<Long> buscarIdsPorTermino(@Param("termino") String termino);
     
     /**
-     * Obtiene los libros más prestados (para estadísticas).
+     * Bloquea la fila del libro hasta el fin de la transacción.
+     * Serializa las altas de reservas con la asignación de ejemplares devueltos
+     * y la numeración de ejemplares nuevos.
      */
-    @Query("SELECT l FROM Libro l " +
-           "WHERE l.cantidadTotal > l.cantidadDisponible " +
-           "ORDER BY (l.cantidadTotal - l.cantidadDisponible) DESC")
-    List<Libro> findLibrosMasPrestados();
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM Libro l WHERE l.id = :id")
+    Optional<Libro> bloquearPorId(@Param("id") Long id);
     
     /**
      * Cuenta el total de ejemplares en la biblioteca.
@@ -0,0 +1,63 @@
+package com.biblioteca.bibliotech.repository;
+
+import com.biblioteca.bibliotech.entity.Multa;
+import com.biblioteca.bibliotech.enums.EstadoMulta;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repositorio para gestión de multas.
+ * Las altas y el recálculo de montos los hace MultaService con SQL por conjuntos.
+ */
+@Repository
+public interface MultaRepository extends JpaRepository<Multa, Long> {
+    
+    // ==================== CONSULTAS ====================
+    
+    /**
+     * Obtiene las multas de un estado con libro y cliente, de la más reciente a la más antigua.
+     */
+    @Query("SELECT m FROM Multa m JOIN FETCH m.libro JOIN FETCH m.cliente " +
+           "WHERE m.estado = :estado ORDER BY m.id DESC")
+    List<Multa> findByEstadoConDetalles(@Param("estado") EstadoMulta estado);
+    
+    /**
+     * Obtiene las multas de un cliente.
+     */
+    @Query("SELECT m FROM Multa m JOIN FETCH m.libro JOIN FETCH m.cliente " +
+           "WHERE m.cliente.id = :clienteId ORDER BY m.id DESC")
+    List<Multa> findByClienteId(@Param("clienteId") Long clienteId);
+    
+    /**
+     * Obtiene la multa de un préstamo, si existe.
+     */
+    Optional<Multa> findByPrestamoId(Long prestamoId);
+    
+    /**
+     * Cuenta multas por estado.
+     */
+    long countByEstado(EstadoMulta estado);
+    
+    /**
+     * Suma los montos de las multas de un estado.
+     */
+    @Query("SELECT COALESCE(SUM(m.monto), 0) FROM Multa m WHERE m.estado = :estado")
+    BigDecimal sumMontoByEstado(@Param("estado") EstadoMulta estado);
+    
+    // ==================== COBRO (CON BLOQUEO) ====================
+    
+    /**
+     * Bloquea una multa por ID (el devengo no puede cambiar el monto mientras se cobra).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM Multa m JOIN FETCH m.cliente JOIN FETCH m.libro WHERE m.id = :id")
+    Optional<Multa> bloquearPorId(@Param("id") Long id);
+}
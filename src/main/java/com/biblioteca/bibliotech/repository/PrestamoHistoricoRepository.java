@@ -0,0 +1,40 @@
+package com.biblioteca.bibliotech.repository;
+
+import com.biblioteca.bibliotech.entity.PrestamoHistorico;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repositorio para los préstamos archivados (tabla prestamos_historico).
+ * Solo consultas: las filas se mueven con JDBC desde ArchivoPrestamosService.
+ */
+@Repository
+public interface PrestamoHistoricoRepository extends JpaRepository<PrestamoHistorico, Long> {
+    
+    /**
+     * Obtiene los préstamos archivados de un cliente con el libro.
+     */
+    @Query("SELECT p FROM PrestamoHistorico p " +
+           "JOIN FETCH p.libro l " +
+           "WHERE p.cliente.id = :clienteId " +
+           "ORDER BY p.fechaPrestamo DESC")
+    List<PrestamoHistorico> findHistorialByClienteId(@Param("clienteId") Long clienteId);
+    
+    /**
+     * Obtiene los préstamos archivados de un libro con el cliente.
+     */
+    @Query("SELECT p FROM PrestamoHistorico p " +
+           "JOIN FETCH p.cliente c " +
+           "WHERE p.libro.id = :libroId " +
+           "ORDER BY p.fechaPrestamo DESC")
+    List<PrestamoHistorico> findHistorialByLibroId(@Param("libroId") Long libroId);
+    
+    /**
+     * Verifica si el libro tiene préstamos archivados.
+     */
+    boolean existsByLibroId(Long libroId);
+}
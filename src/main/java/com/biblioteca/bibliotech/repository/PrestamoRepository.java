@@ -2,7 +2,9 @@ package com.biblioteca.bibliotech.repository;
 
 import com.biblioteca.bibliotech.entity.Prestamo;
 import com.biblioteca.bibliotech.enums.EstadoPrestamo;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,6 +12,7 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repositorio para gestión de préstamos.
@@ -91,6 +94,7 @@ public interface PrestamoRepository extends JpaRepository<Prestamo, Long> {
     
     /**
      * Obtiene préstamos realizados en un rango de fechas.
+     * Al filtrar por fecha_prestamo solo se leen las particiones del rango.
      */
     @Query("SELECT p FROM Prestamo p " +
            "WHERE p.fechaPrestamo BETWEEN :fechaInicio AND :fechaFin " +
@@ -117,6 +121,29 @@ public interface PrestamoRepository extends JpaRepository<Prestamo, Long> {
     
     // ==================== ACTUALIZACIONES ====================
     
+    /**
+     * Bloquea un préstamo por ID hasta el fin de la transacción. La devolución y la
+     * extensión ajustan los contadores del cliente según el estado leído: con el
+     * bloqueo, dos devoluciones simultáneas o una devolución durante el barrido de
+     * vencidos no lo leen desactualizado.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Prestamo p WHERE p.id = :id")
+    Optional<Prestamo> bloquearPorId(@Param("id") Long id);
+    
+    /**
+     * Cuenta, por cliente, los préstamos activos que pasaron la fecha de devolución
+     * y los bloquea hasta el fin de la transacción (para descontarlos de los
+     * contadores del cliente antes de marcarlos como vencidos).
+     *
+     * @return Filas [id_cliente, cantidad]
+     */
+    @Query(value = "SELECT id_cliente, COUNT(*) FROM prestamos " +
+                   "WHERE estado = 'ACTIVO' AND fecha_devolucion_esperada < CURRENT_DATE " +
+                   "GROUP BY id_cliente FOR UPDATE",
+           nativeQuery = true)
+    List<Object[]> bloquearPorVencerPorCliente();
+    
     /**
      * Actualiza el estado de préstamos vencidos.
      * Cambia de ACTIVO a VENCIDO los que pasaron la fecha de devolución.
@@ -135,10 +162,12 @@ public interface PrestamoRepository extends JpaRepository<Prestamo, Long> {
     Long countByEstado(EstadoPrestamo estado);
     
     /**
-     * Cuenta préstamos realizados hoy.
+     * Cuenta préstamos realizados en una fecha.
+     * La fecha llega como parámetro (no CURRENT_DATE) para que MySQL pueda
+     * descartar las demás particiones al planificar la consulta.
      */
-    @Query("SELECT COUNT(p) FROM Prestamo p WHERE p.fechaPrestamo = CURRENT_DATE")
-    Long countPrestamosHoy();
+    @Query("SELECT COUNT(p) FROM Prestamo p WHERE p.fechaPrestamo = :fecha")
+    Long countPrestamosDelDia(@Param("fecha") LocalDate fecha);
     
     /**
      * Cuenta devoluciones realizadas hoy.
@@ -176,4 +205,12 @@ public interface PrestamoRepository extends JpaRepository<Prestamo, Long> {
            "WHERE p.cliente.id = :clienteId " +
            "ORDER BY p.fechaPrestamo DESC")
     List<Prestamo> findHistorialByClienteId(@Param("clienteId") Long clienteId);
+    
+    /**
+     * Busca el préstamo sin devolver de un ejemplar (índice por id_ejemplar).
+     */
+    @Query("SELECT p FROM Prestamo p " +
+           "WHERE p.ejemplar.id = :ejemplarId " +
+           "AND p.estado IN ('ACTIVO', 'VENCIDO')")
+    Optional<Prestamo> findPrestamoActivoByEjemplarId(@Param("ejemplarId") Long ejemplarId);
 }
@@ -0,0 +1,129 @@
+package com.biblioteca.bibliotech.repository;
+
+import com.biblioteca.bibliotech.entity.Reserva;
+import com.biblioteca.bibliotech.enums.EstadoReserva;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repositorio para gestión de reservas.
+ * La cola de cada libro se ordena por id_reserva (orden de llegada).
+ */
+@Repository
+public interface ReservaRepository extends JpaRepository<Reserva, Long> {
+    
+    // ==================== CONSULTAS ====================
+    
+    /**
+     * Obtiene las reservas vigentes (en cola o listas para retirar) con libro y cliente.
+     */
+    @Query("SELECT r FROM Reserva r JOIN FETCH r.libro JOIN FETCH r.cliente " +
+           "WHERE r.estado IN ('PENDIENTE', 'DISPONIBLE') " +
+           "ORDER BY r.libro.titulo ASC, r.id ASC")
+    List<Reserva> findReservasActivas();
+    
+    /**
+     * Obtiene las reservas de un estado, de la más reciente a la más antigua.
+     */
+    @Query("SELECT r FROM Reserva r JOIN FETCH r.libro JOIN FETCH r.cliente " +
+           "WHERE r.estado = :estado ORDER BY r.id DESC")
+    List<Reserva> findByEstadoConDetalles(@Param("estado") EstadoReserva estado);
+    
+    /**
+     * Obtiene las reservas de un cliente.
+     */
+    @Query("SELECT r FROM Reserva r JOIN FETCH r.libro " +
+           "WHERE r.cliente.id = :clienteId ORDER BY r.id DESC")
+    List<Reserva> findByClienteId(@Param("clienteId") Long clienteId);
+    
+    /**
+     * Verifica si el cliente ya tiene una reserva vigente del libro.
+     */
+    @Query("SELECT COUNT(r) > 0 FROM Reserva r " +
+           "WHERE r.cliente.id = :clienteId AND r.libro.id = :libroId " +
+           "AND r.estado IN ('PENDIENTE', 'DISPONIBLE')")
+    boolean existsReservaActiva(@Param("clienteId") Long clienteId,
+                                @Param("libroId") Long libroId);
+    
+    /**
+     * Cuenta las reservas vigentes de un cliente.
+     */
+    @Query("SELECT COUNT(r) FROM Reserva r " +
+           "WHERE r.cliente.id = :clienteId AND r.estado IN ('PENDIENTE', 'DISPONIBLE')")
+    long countReservasActivasByClienteId(@Param("clienteId") Long clienteId);
+    
+    /**
+     * Cuenta reservas por estado.
+     */
+    long countByEstado(EstadoReserva estado);
+    
+    boolean existsByLibroId(Long libroId);
+    
+    boolean existsByClienteId(Long clienteId);
+    
+    /**
+     * Obtiene el libro de una reserva sin cargar la entidad
+     * (para bloquear primero el libro y después la reserva).
+     */
+    @Query("SELECT r.libro.id FROM Reserva r WHERE r.id = :id")
+    Optional<Long> findLibroIdById(@Param("id") Long id);
+    
+    // ==================== ASIGNACIÓN (CON BLOQUEO) ====================
+    
+    /**
+     * Bloquea la primera reserva PENDIENTE del libro (usar con PageRequest.of(0, 1)).
+     * Quien llama debe tener bloqueada la fila del libro.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Reserva r " +
+           "WHERE r.libro.id = :libroId AND r.estado = 'PENDIENTE' " +
+           "ORDER BY r.id ASC")
+    List<Reserva> bloquearSiguientePendiente(@Param("libroId") Long libroId, Pageable pageable);
+    
+    /**
+     * Bloquea una reserva por ID.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Reserva r WHERE r.id = :id")
+    Optional<Reserva> bloquearPorId(@Param("id") Long id);
+    
+    /**
+     * Bloquea la reserva DISPONIBLE del cliente para el libro, si existe.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Reserva r " +
+           "WHERE r.cliente.id = :clienteId AND r.libro.id = :libroId AND r.estado = 'DISPONIBLE'")
+    Optional<Reserva> bloquearDisponible(@Param("clienteId") Long clienteId,
+                                         @Param("libroId") Long libroId);
+    
+    // ==================== CARGA Y BARRIDO ====================
+    
+    /**
+     * IDs de reserva y libro de las reservas PENDIENTE en orden de llegada
+     * (para reconstruir las colas en memoria).
+     */
+    @Query("SELECT r.id, r.libro.id FROM Reserva r WHERE r.estado = 'PENDIENTE' ORDER BY r.id ASC")
+    List<Object[]> findColasPendientes();
+    
+    /**
+     * IDs y fecha de expiración de las reservas DISPONIBLE (para la rueda de vencimientos).
+     */
+    @Query("SELECT r.id, r.fechaExpiracion FROM Reserva r WHERE r.estado = 'DISPONIBLE'")
+    List<Object[]> findExpiracionesDisponibles();
+    
+    /**
+     * IDs de las reservas DISPONIBLE cuyo plazo de retiro ya pasó.
+     */
+    @Query("SELECT r.id FROM Reserva r " +
+           "WHERE r.estado = 'DISPONIBLE' AND r.fechaExpiracion <= :ahora")
+    List<Long> findIdsDisponiblesVencidas(@Param("ahora") LocalDateTime ahora);
+}
@@ -21,12 +21,6 @@ public interface UsuarioSistemaRepository extends JpaRepository<UsuarioSistema,
      */
     Optional<UsuarioSistema> findByUsername(String username);
     
-    /**
-     * Busca un usuario por username y password.
-     * Método directo para validación de login.
-     */
-    Optional<UsuarioSistema> findByUsernameAndPassword(String username, String password);
-    
     /**
      * Verifica si existe un usuario con el username dado.
      * Útil para validar duplicados al crear usuarios.
@@ -0,0 +1,104 @@
+package com.biblioteca.bibliotech.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Servicio de archivo de préstamos devueltos.
+ *
+ * Mueve de prestamos a prestamos_historico los préstamos DEVUELTO cuya devolución
+ * es anterior a la antigüedad configurada. Trabaja en lotes, cada uno en su propia
+ * transacción (INSERT ... SELECT + DELETE): si el proceso se interrumpe, los lotes
+ * ya confirmados quedan archivados y la siguiente ejecución continúa con el resto.
+ *
+ * Un préstamo se devuelve después de prestarse, así que el filtro redundante
+ * fecha_prestamo < corte limita las sentencias a las particiones antiguas.
+ *
+ * Las consultas de historial (PrestamoService) unen ambas tablas.
+ */
+@Service
+public class ArchivoPrestamosService {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchivoPrestamosService.class);
+
+    private static final String SQL_SELECCIONAR =
+            "SELECT id_prestamo FROM prestamos " +
+            "WHERE estado = 'DEVUELTO' AND fecha_devolucion_real < :corte " +
+            "AND fecha_prestamo < :corte " +
+            "LIMIT :lote FOR UPDATE";
+
+    private static final String SQL_COPIAR =
+            "INSERT INTO prestamos_historico (id_prestamo, id_libro, id_cliente, id_ejemplar, fecha_prestamo, " +
+            "fecha_devolucion_esperada, fecha_devolucion_real, estado, observaciones, fecha_registro) " +
+            "SELECT id_prestamo, id_libro, id_cliente, id_ejemplar, fecha_prestamo, fecha_devolucion_esperada, " +
+            "fecha_devolucion_real, estado, observaciones, fecha_registro " +
+            "FROM prestamos WHERE id_prestamo IN (:ids) AND fecha_prestamo < :corte";
+
+    private static final String SQL_ELIMINAR =
+            "DELETE FROM prestamos WHERE id_prestamo IN (:ids) AND fecha_prestamo < :corte";
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int antiguedadDias;
+    private final int tamanoLote;
+
+    public ArchivoPrestamosService(NamedParameterJdbcTemplate namedJdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${bibliotech.prestamos.archivo.antiguedad-dias:180}") int antiguedadDias,
+                                   @Value("${bibliotech.prestamos.archivo.tamano-lote:1000}") int tamanoLote) {
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.antiguedadDias = antiguedadDias;
+        this.tamanoLote = tamanoLote;
+    }
+
+    /**
+     * Archiva los préstamos devueltos antiguos.
+     *
+     * @return Cantidad de préstamos archivados
+     */
+    @Scheduled(cron = "${bibliotech.prestamos.archivo.cron:0 0 4 * * *}")
+    public int archivar() {
+        LocalDate corte = LocalDate.now().minusDays(antiguedadDias);
+        int total = 0;
+
+        while (!Thread.currentThread().isInterrupted()) {
+            Integer archivados = transactionTemplate.execute(status -> archivarLote(corte));
+            total += archivados;
+            if (archivados < tamanoLote) {
+                break;
+            }
+        }
+
+        if (total > 0) {
+            log.info("Archivados {} préstamos devueltos antes de {}", total, corte);
+        }
+        return total;
+    }
+
+    /**
+     * Mueve un lote de préstamos a la tabla histórica (dentro de la transacción actual).
+     */
+    private int archivarLote(LocalDate corte) {
+        List<Long> ids = namedJdbcTemplate.queryForList(SQL_SELECCIONAR,
+                Map.of("corte", corte, "lote", tamanoLote), Long.class);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, Object> parametros = Map.of("ids", ids, "corte", corte);
+        namedJdbcTemplate.update(SQL_COPIAR, parametros);
+        namedJdbcTemplate.update(SQL_ELIMINAR, parametros);
+        return ids.size();
+    }
+}
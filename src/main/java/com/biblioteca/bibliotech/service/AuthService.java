@@ -7,58 +7,172 @@ import com.biblioteca.bibliotech.enums.Rol;
 import com.biblioteca.bibliotech.exception.UnauthorizedException;
 import com.biblioteca.bibliotech.mapper.UsuarioSistemaMapper;
 import com.biblioteca.bibliotech.repository.UsuarioSistemaRepository;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 /**
  * Servicio para autenticación y manejo de sesiones.
  * Gestiona el login, logout y verificación de permisos.
+ * 
+ * Soporta dos modos (propiedad bibliotech.auth.modo):
+ * - sesion: el usuario se guarda en la HttpSession (modo por defecto).
+ * - token: el usuario viaja en una cookie firmada (sin estado en el servidor),
+ *   lo que permite ejecutar varios nodos detrás de un balanceador sin sticky sessions.
  */
 @Service
 public class AuthService {
     
-    private static final String USUARIO_SESSION_KEY = "usuarioLogueado";
+    public static final String USUARIO_SESSION_KEY = "usuarioLogueado";
+    public static final String COOKIE_TOKEN = "BIBLIOTECH_TOKEN";
+    public static final String MODO_TOKEN = "token";
     
     private final UsuarioSistemaRepository usuarioRepository;
     private final UsuarioSistemaMapper usuarioMapper;
+    private final TokenService tokenService;
+    private final PasswordService passwordService;
+    private final IntentosLoginService intentosLoginService;
+    private final boolean modoToken;
     
     public AuthService(UsuarioSistemaRepository usuarioRepository, 
-                       UsuarioSistemaMapper usuarioMapper) {
+                       UsuarioSistemaMapper usuarioMapper,
+                       TokenService tokenService,
+                       PasswordService passwordService,
+                       IntentosLoginService intentosLoginService,
+                       @Value("${bibliotech.auth.modo:sesion}") String modo) {
         this.usuarioRepository = usuarioRepository;
         this.usuarioMapper = usuarioMapper;
+        this.tokenService = tokenService;
+        this.passwordService = passwordService;
+        this.intentosLoginService = intentosLoginService;
+        this.modoToken = MODO_TOKEN.equalsIgnoreCase(modo);
     }
     
     /**
      * Realiza el login del usuario.
-     * Valida credenciales y guarda el usuario en sesión.
+     * Valida credenciales y guarda el usuario en sesión (o emite la cookie firmada en modo token).
+     * Rechaza ráfagas de intentos fallidos antes de consultar la BD y migra
+     * a BCrypt las contraseñas en texto plano o con costo desactualizado.
      * 
      * @param loginRequest Credenciales del usuario
-     * @param session Sesión HTTP
+     * @param request Petición HTTP
+     * @param response Respuesta HTTP (para la cookie del token)
      * @return UsuarioSistemaResponse con datos del usuario logueado
-     * @throws UnauthorizedException si las credenciales son inválidas
+     * @throws UnauthorizedException si las credenciales son inválidas o hay demasiados intentos
      */
-    public UsuarioSistemaResponse login(LoginRequest loginRequest, HttpSession session) {
-        UsuarioSistema usuario = usuarioRepository
-                .findByUsernameAndPassword(loginRequest.getUsername(), loginRequest.getPassword())
-                .orElseThrow(() -> new UnauthorizedException(
-                        UnauthorizedException.CREDENCIALES_INVALIDAS,
-                        "Usuario o contraseña incorrectos"
-                ));
-        
-        // Guardar usuario en sesión
+    public UsuarioSistemaResponse login(LoginRequest loginRequest, 
+                                        HttpServletRequest request, 
+                                        HttpServletResponse response) {
+        String username = loginRequest.getUsername();
+        // IP del cliente: detrás del balanceador la toma de X-Forwarded-For (server.forward-headers-strategy)
+        String ip = request.getRemoteAddr();
+        
+        // Rechazar ráfagas abusivas sin tocar la BD ni calcular hashes
+        if (intentosLoginService.estaBloqueado(username, ip)) {
+            throw new UnauthorizedException(
+                    UnauthorizedException.DEMASIADOS_INTENTOS,
+                    "Demasiados intentos fallidos. Intente nuevamente en unos minutos"
+            );
+        }
+        
+        UsuarioSistema usuario = usuarioRepository.findByUsername(username).orElse(null);
+        
+        boolean valido;
+        if (usuario == null) {
+            passwordService.simularVerificacion(loginRequest.getPassword());
+            valido = false;
+        } else {
+            valido = passwordService.verificar(loginRequest.getPassword(), usuario.getPassword());
+        }
+        
+        if (!valido) {
+            intentosLoginService.registrarFallo(username, ip);
+            throw new UnauthorizedException(
+                    UnauthorizedException.CREDENCIALES_INVALIDAS,
+                    "Usuario o contraseña incorrectos"
+            );
+        }
+        
+        intentosLoginService.registrarExito(username);
+        
+        // Migración automática: texto plano o costo desactualizado
+        if (passwordService.requiereRehash(usuario.getPassword())) {
+            usuario.setPassword(passwordService.hashear(loginRequest.getPassword()));
+            usuarioRepository.save(usuario);
+        }
+        
         UsuarioSistemaResponse usuarioResponse = usuarioMapper.toResponse(usuario);
-        session.setAttribute(USUARIO_SESSION_KEY, usuarioResponse);
+        
+        if (modoToken) {
+            // Emitir cookie firmada (no se crea sesión en el servidor)
+            escribirCookieToken(request, response, tokenService.generar(usuarioResponse), 
+                    tokenService.getDuracionSegundos());
+        } else {
+            // Guardar usuario en sesión
+            request.getSession().setAttribute(USUARIO_SESSION_KEY, usuarioResponse);
+        }
         
         return usuarioResponse;
     }
     
     /**
      * Cierra la sesión del usuario.
+     * En modo token revoca el token y elimina la cookie.
+     * 
+     * @param request Petición HTTP
+     * @param response Respuesta HTTP
+     */
+    public void logout(HttpServletRequest request, HttpServletResponse response) {
+        if (modoToken) {
+            tokenService.revocar(leerCookieToken(request));
+            escribirCookieToken(request, response, "", 0);
+        }
+        
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            session.invalidate();
+        }
+    }
+    
+    /**
+     * Obtiene el usuario autenticado de la petición (cookie firmada o sesión)
+     * y lo deja como atributo de la petición para el resto del procesamiento.
      * 
-     * @param session Sesión HTTP a invalidar
+     * @param request Petición HTTP
+     * @return Usuario autenticado, o null si no hay
      */
-    public void logout(HttpSession session) {
-        session.invalidate();
+    public UsuarioSistemaResponse resolverUsuario(HttpServletRequest request) {
+        Object enPeticion = request.getAttribute(USUARIO_SESSION_KEY);
+        if (enPeticion != null) {
+            return (UsuarioSistemaResponse) enPeticion;
+        }
+        
+        UsuarioSistemaResponse usuario = null;
+        if (modoToken) {
+            usuario = tokenService.verificar(leerCookieToken(request));
+        } else {
+            HttpSession session = request.getSession(false);
+            if (session != null) {
+                usuario = (UsuarioSistemaResponse) session.getAttribute(USUARIO_SESSION_KEY);
+            }
+        }
+        
+        if (usuario != null) {
+            request.setAttribute(USUARIO_SESSION_KEY, usuario);
+        }
+        return usuario;
+    }
+    
+    /**
+     * Indica si la aplicación trabaja en modo token (sin sesión en el servidor).
+     */
+    public boolean isModoToken() {
+        return modoToken;
     }
     
     /**
@@ -69,7 +183,7 @@ public class AuthService {
      * @throws UnauthorizedException si no hay sesión activa
      */
     public UsuarioSistemaResponse getUsuarioLogueado(HttpSession session) {
-        UsuarioSistemaResponse usuario = (UsuarioSistemaResponse) session.getAttribute(USUARIO_SESSION_KEY);
+        UsuarioSistemaResponse usuario = buscarUsuario(session);
         
         if (usuario == null) {
             throw new UnauthorizedException(
@@ -88,7 +202,7 @@ public class AuthService {
      * @return true si hay usuario logueado
      */
     public boolean isLogueado(HttpSession session) {
-        return session.getAttribute(USUARIO_SESSION_KEY) != null;
+        return buscarUsuario(session) != null;
     }
     
     /**
@@ -156,4 +270,47 @@ public class AuthService {
             );
         }
     }
+    
+    /**
+     * Busca el usuario primero en la petición actual (resuelto por el interceptor)
+     * y, en modo sesión, en la HttpSession.
+     */
+    private UsuarioSistemaResponse buscarUsuario(HttpSession session) {
+        RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+        if (atributos != null) {
+            Object usuario = atributos.getAttribute(USUARIO_SESSION_KEY, RequestAttributes.SCOPE_REQUEST);
+            if (usuario != null) {
+                return (UsuarioSistemaResponse) usuario;
+            }
+        }
+        
+        if (modoToken || session == null) {
+            return null;
+        }
+        return (UsuarioSistemaResponse) session.getAttribute(USUARIO_SESSION_KEY);
+    }
+    
+    private String leerCookieToken(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_TOKEN.equals(cookie.getName())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+    
+    private void escribirCookieToken(HttpServletRequest request, HttpServletResponse response, 
+                                     String valor, int maxAge) {
+        Cookie cookie = new Cookie(COOKIE_TOKEN, valor);
+        cookie.setHttpOnly(true);
+        cookie.setSecure(request.isSecure());
+        cookie.setPath(request.getContextPath().isEmpty() ? "/" : request.getContextPath());
+        cookie.setMaxAge(maxAge);
+        cookie.setAttribute("SameSite", "Lax");
+        response.addCookie(cookie);
+    }
 }
@@ -11,6 +11,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -23,10 +26,13 @@ public class AutorService {
     
     private final AutorRepository autorRepository;
     private final AutorMapper autorMapper;
+    private final BusquedaDifusaService busquedaDifusaService;
     
-    public AutorService(AutorRepository autorRepository, AutorMapper autorMapper) {
+    public AutorService(AutorRepository autorRepository, AutorMapper autorMapper,
+                        BusquedaDifusaService busquedaDifusaService) {
         this.autorRepository = autorRepository;
         this.autorMapper = autorMapper;
+        this.busquedaDifusaService = busquedaDifusaService;
     }
     
     /**
@@ -72,16 +78,33 @@ public class AutorService {
     }
     
     /**
-     * Busca autores por nombre (búsqueda parcial).
+     * Busca autores por nombre (búsqueda parcial). Si no hay coincidencias exactas
+     * devuelve las aproximadas ("Garcia Marques"), de la más parecida a la menos.
      */
     @Transactional(readOnly = true)
     public List<AutorResponse> buscarPorNombreParcial(String nombre) {
         List<Autor> autores = autorRepository.findByNombreContainingIgnoreCase(nombre);
+        if (autores.isEmpty()) {
+            autores = buscarAproximados(nombre);
+        }
         return autores.stream()
                 .map(this::convertirConCantidadLibros)
                 .collect(Collectors.toList());
     }
     
+    private List<Autor> buscarAproximados(String nombre) {
+        List<Long> ids = busquedaDifusaService.buscarAutores(nombre);
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Autor> porId = autorRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Autor::getId, Function.identity()));
+        return ids.stream()
+                .map(porId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+    
     /**
      * Busca autores por nacionalidad.
      */
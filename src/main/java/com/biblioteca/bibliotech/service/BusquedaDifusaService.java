@@ -0,0 +1,141 @@
+package com.biblioteca.bibliotech.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Búsqueda aproximada de libros y autores, para cuando la búsqueda exacta no
+ * encuentra nada por un error de tipeo o un acento ("Garcia Marques").
+ *
+ * Mantiene dos IndiceDifuso en memoria: uno de autores por nombre y otro de
+ * libros por título y nombre del autor. Se reconstruyen enteros cuando cambian
+ * los textos indexados: cada bibliotech.busqueda-difusa.refresco-ms se compara
+ * una firma (cantidad y suma de CRC32 de ID y texto) calculada en la base (ver
+ * DetectorCambios). La firma no incluye ultima_actualizacion, que cambia con
+ * cada préstamo.
+ */
+@Service
+public class BusquedaDifusaService {
+
+    private static final Logger log = LoggerFactory.getLogger(BusquedaDifusaService.class);
+
+    public static final int MAXIMO_RESULTADOS = 50;
+
+    private static final String SQL_FIRMA =
+            "SELECT (SELECT COUNT(*) FROM libros) AS libros, " +
+            "       (SELECT COALESCE(SUM(CRC32(CONCAT_WS(':', id_libro, titulo, id_autor))), 0) FROM libros) AS suma_libros, " +
+            "       (SELECT COUNT(*) FROM autores) AS autores, " +
+            "       (SELECT COALESCE(SUM(CRC32(CONCAT_WS(':', id_autor, nombre))), 0) FROM autores) AS suma_autores";
+
+    private static final String SQL_LIBROS =
+            "SELECT l.id_libro, l.titulo, a.nombre AS autor " +
+            "FROM libros l LEFT JOIN autores a ON a.id_autor = l.id_autor";
+
+    private static final String SQL_AUTORES = "SELECT id_autor, nombre FROM autores";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DetectorCambios detectorCambios;
+
+    private volatile IndiceDifuso libros;
+    private volatile IndiceDifuso autores;
+
+    public BusquedaDifusaService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Sin plazo de reconstrucción: la firma cubre todo lo indexado
+        this.detectorCambios = new DetectorCambios(jdbcTemplate, SQL_FIRMA, Long.MAX_VALUE);
+    }
+
+    // ==================== CONSULTA ====================
+
+    /**
+     * IDs de los libros cuyo título o autor se parece al texto, del más parecido
+     * al menos parecido.
+     *
+     * @return Los IDs, o null si el índice todavía no está cargado
+     */
+    public List<Long> buscarLibros(String texto) {
+        return buscar(libros, texto);
+    }
+
+    /**
+     * IDs de los autores cuyo nombre se parece al texto, del más parecido al menos parecido.
+     *
+     * @return Los IDs, o null si el índice todavía no está cargado
+     */
+    public List<Long> buscarAutores(String texto) {
+        return buscar(autores, texto);
+    }
+
+    private static List<Long> buscar(IndiceDifuso indice, String texto) {
+        if (indice == null) {
+            return null;
+        }
+        long[] ids = indice.buscar(texto, MAXIMO_RESULTADOS);
+        List<Long> resultado = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            resultado.add(id);
+        }
+        return resultado;
+    }
+
+    // ==================== CONSTRUCCIÓN ====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        refrescar();
+    }
+
+    /**
+     * Reconstruye los índices si cambiaron títulos o nombres de autores.
+     */
+    @Scheduled(fixedDelayString = "${bibliotech.busqueda-difusa.refresco-ms:60000}",
+               initialDelayString = "${bibliotech.busqueda-difusa.refresco-ms:60000}")
+    public synchronized void refrescar() {
+        try {
+            DetectorCambios.Version version = detectorCambios.verificar();
+            if (version == null) {
+                return;
+            }
+            long inicio = System.currentTimeMillis();
+            List<Long> idsLibros = new ArrayList<>();
+            List<String> textosLibros = new ArrayList<>();
+            jdbcTemplate.query(SQL_LIBROS, rs -> {
+                idsLibros.add(rs.getLong("id_libro"));
+                String autor = rs.getString("autor");
+                textosLibros.add(autor != null ? rs.getString("titulo") + " " + autor : rs.getString("titulo"));
+            });
+            List<Long> idsAutores = new ArrayList<>();
+            List<String> nombresAutores = new ArrayList<>();
+            jdbcTemplate.query(SQL_AUTORES, rs -> {
+                idsAutores.add(rs.getLong("id_autor"));
+                nombresAutores.add(rs.getString("nombre"));
+            });
+
+            libros = IndiceDifuso.construir(aArreglo(idsLibros), textosLibros.toArray(new String[0]));
+            autores = IndiceDifuso.construir(aArreglo(idsAutores), nombresAutores.toArray(new String[0]));
+            detectorCambios.construida(version);
+            log.info("Índices de búsqueda aproximada construidos en {} ms: {} libros, {} autores",
+                    System.currentTimeMillis() - inicio, libros.tamano(), autores.tamano());
+        } catch (DataAccessException e) {
+            // Se siguen usando los índices anteriores; sin índices solo hay búsqueda exacta
+            log.warn("No se pudieron actualizar los índices de búsqueda aproximada", e);
+        }
+    }
+
+    private static long[] aArreglo(List<Long> ids) {
+        long[] arreglo = new long[ids.size()];
+        for (int i = 0; i < arreglo.length; i++) {
+            arreglo[i] = ids.get(i);
+        }
+        return arreglo;
+    }
+}
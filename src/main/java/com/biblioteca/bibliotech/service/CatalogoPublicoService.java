@@ -0,0 +1,278 @@
+package com.biblioteca.bibliotech.service;
+
+import com.biblioteca.bibliotech.dto.response.CategoriaCatalogoResponse;
+import com.biblioteca.bibliotech.dto.response.LibroCatalogoResponse;
+import com.biblioteca.bibliotech.dto.response.ResultadoCatalogoResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Catálogo público (OPAC): búsqueda de libros sin sesión, servida desde memoria.
+ *
+ * El catálogo completo se lee en una instantánea inmutable que se reemplaza
+ * entera (copy-on-write) cuando cambia: cada bibliotech.catalogo.refresco-ms se
+ * consulta solo la cantidad de libros y la última ultima_actualizacion, que la
+ * base actualiza también cuando cambian los contadores de stock (ver
+ * DetectorCambios). Las búsquedas no usan la base ni bloqueos: leen la
+ * instantánea vigente.
+ *
+ * La instantánea lleva un ETag (hash de su contenido) y una fecha de última
+ * modificación (la mayor ultima_actualizacion), para que navegadores y proxies
+ * revaliden con un 304 sin recibir de nuevo los resultados. Los cambios de
+ * nombre de autores o categorías no tocan los libros: se recogen al reconstruir
+ * cada bibliotech.catalogo.reconstruccion-ms.
+ */
+@Service
+public class CatalogoPublicoService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogoPublicoService.class);
+
+    public static final int TAMANO_PAGINA = 20;
+    private static final int LARGO_MAXIMO_BUSQUEDA = 100;
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    private static final String SQL_VERSION =
+            "SELECT COUNT(*) AS libros, MAX(ultima_actualizacion) AS ultima, NOW() AS ahora FROM libros";
+
+    private static final String SQL_CATALOGO =
+            "SELECT l.id_libro, l.titulo, l.isbn, l.anio_publicacion, l.cantidad_total, l.cantidad_disponible, " +
+            "       a.id_autor, a.nombre AS autor, c.id_categoria, c.nombre AS categoria " +
+            "FROM libros l " +
+            "LEFT JOIN autores a ON a.id_autor = l.id_autor " +
+            "LEFT JOIN categorias c ON c.id_categoria = l.id_categoria " +
+            "ORDER BY l.titulo, l.id_libro";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DetectorCambios detectorCambios;
+
+    private volatile Instantanea instantanea;
+
+    public CatalogoPublicoService(JdbcTemplate jdbcTemplate,
+                                  @Value("${bibliotech.catalogo.reconstruccion-ms:3600000}") long reconstruccionMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.detectorCambios = new DetectorCambios(jdbcTemplate, SQL_VERSION, reconstruccionMs);
+    }
+
+    // ==================== CONSULTA ====================
+
+    /**
+     * Instantánea vigente, o null si todavía no se pudo cargar.
+     */
+    public Instantanea obtener() {
+        return instantanea;
+    }
+
+    /**
+     * Catálogo en un momento dado. Inmutable: se comparte entre todas las peticiones.
+     */
+    public static final class Instantanea {
+
+        private final List<LibroCatalogoResponse> libros;
+        // Título, autor e ISBN normalizados de cada libro (mismo índice que libros)
+        private final String[] textos;
+        private final List<CategoriaCatalogoResponse> categorias;
+        private final String etag;
+        private final long ultimaModificacion;
+
+        private Instantanea(List<LibroCatalogoResponse> libros, String[] textos,
+                            List<CategoriaCatalogoResponse> categorias, String etag,
+                            long ultimaModificacion) {
+            this.libros = libros;
+            this.textos = textos;
+            this.categorias = categorias;
+            this.etag = etag;
+            this.ultimaModificacion = ultimaModificacion;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * Milisegundos epoch de la última modificación (para Last-Modified).
+         */
+        public long getUltimaModificacion() {
+            return ultimaModificacion;
+        }
+
+        public List<CategoriaCatalogoResponse> getCategorias() {
+            return categorias;
+        }
+
+        /**
+         * Busca por título, autor o ISBN (todas las palabras, sin distinguir
+         * mayúsculas ni acentos), con filtros opcionales.
+         *
+         * @param pagina Página desde 0
+         */
+        public ResultadoCatalogoResponse buscar(String texto, Long categoriaId, Long autorId,
+                                                boolean soloDisponibles, int pagina) {
+            String[] palabras = palabras(texto);
+            int desde = Math.max(0, pagina) * TAMANO_PAGINA;
+
+            List<LibroCatalogoResponse> encontrados = new ArrayList<>(TAMANO_PAGINA);
+            int total = 0;
+            for (int i = 0; i < libros.size(); i++) {
+                LibroCatalogoResponse libro = libros.get(i);
+                if ((categoriaId != null && !categoriaId.equals(libro.getIdCategoria()))
+                        || (autorId != null && !autorId.equals(libro.getIdAutor()))
+                        || (soloDisponibles && !libro.getDisponible())
+                        || !contieneTodas(textos[i], palabras)) {
+                    continue;
+                }
+                if (total >= desde && encontrados.size() < TAMANO_PAGINA) {
+                    encontrados.add(libro);
+                }
+                total++;
+            }
+
+            return ResultadoCatalogoResponse.builder()
+                    .libros(encontrados)
+                    .total(total)
+                    .pagina(Math.max(0, pagina))
+                    .totalPaginas((total + TAMANO_PAGINA - 1) / TAMANO_PAGINA)
+                    .build();
+        }
+
+        private static boolean contieneTodas(String texto, String[] palabras) {
+            for (String palabra : palabras) {
+                if (!texto.contains(palabra)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static String[] palabras(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return new String[0];
+        }
+        String recortado = texto.length() > LARGO_MAXIMO_BUSQUEDA ? texto.substring(0, LARGO_MAXIMO_BUSQUEDA) : texto;
+        String normalizado = normalizar(recortado).trim();
+        return normalizado.isEmpty() ? new String[0] : ESPACIOS.split(normalizado);
+    }
+
+    /**
+     * Minúsculas y sin acentos ("Gabriel García" -> "gabriel garcia").
+     */
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        return MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    // ==================== CONSTRUCCIÓN ====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        refrescar();
+    }
+
+    /**
+     * Reconstruye la instantánea si el catálogo cambió (o si pasó el plazo de reconstrucción).
+     */
+    @Scheduled(fixedDelayString = "${bibliotech.catalogo.refresco-ms:10000}",
+               initialDelayString = "${bibliotech.catalogo.refresco-ms:10000}")
+    public synchronized void refrescar() {
+        try {
+            DetectorCambios.Version version = detectorCambios.verificar();
+            if (version == null) {
+                return;
+            }
+            instantanea = construir(version.ultima(), instantanea);
+            detectorCambios.construida(version);
+        } catch (DataAccessException e) {
+            // Se sigue sirviendo la instantánea anterior
+            log.warn("No se pudo actualizar el catálogo público", e);
+        }
+    }
+
+    private Instantanea construir(LocalDateTime ultima, Instantanea anterior) {
+        long inicio = System.currentTimeMillis();
+        List<LibroCatalogoResponse> libros = new ArrayList<>();
+        List<String> textos = new ArrayList<>();
+        Map<Long, CategoriaCatalogoResponse> categorias = new HashMap<>();
+        long[] hash = {0xcbf29ce484222325L};
+
+        jdbcTemplate.query(SQL_CATALOGO, rs -> {
+            long autorId = rs.getLong("id_autor");
+            Long idAutor = rs.wasNull() ? null : autorId;
+            long categoriaId = rs.getLong("id_categoria");
+            Long idCategoria = rs.wasNull() ? null : categoriaId;
+            int anio = rs.getInt("anio_publicacion");
+            Integer anioPublicacion = rs.wasNull() ? null : anio;
+            int disponibles = rs.getInt("cantidad_disponible");
+
+            LibroCatalogoResponse libro = LibroCatalogoResponse.builder()
+                    .id(rs.getLong("id_libro"))
+                    .titulo(rs.getString("titulo"))
+                    .isbn(rs.getString("isbn"))
+                    .anioPublicacion(anioPublicacion)
+                    .idAutor(idAutor)
+                    .nombreAutor(rs.getString("autor"))
+                    .idCategoria(idCategoria)
+                    .nombreCategoria(rs.getString("categoria"))
+                    .cantidadTotal(rs.getInt("cantidad_total"))
+                    .cantidadDisponible(disponibles)
+                    .disponible(disponibles > 0)
+                    .build();
+            libros.add(libro);
+            textos.add(normalizar(libro.getTitulo() + " " + Objects.toString(libro.getNombreAutor(), "")
+                    + " " + libro.getIsbn()));
+
+            if (idCategoria != null) {
+                CategoriaCatalogoResponse categoria = categorias.computeIfAbsent(idCategoria, id ->
+                        CategoriaCatalogoResponse.builder().id(id).nombre(libro.getNombreCategoria()).build());
+                categoria.setLibros(categoria.getLibros() + 1);
+            }
+            hash[0] = mezclar(hash[0], libro.toString());
+        });
+
+        List<CategoriaCatalogoResponse> listaCategorias = new ArrayList<>(categorias.values());
+        listaCategorias.sort(Comparator.comparing(CategoriaCatalogoResponse::getNombre, String.CASE_INSENSITIVE_ORDER));
+
+        String etag = "\"" + Long.toHexString(hash[0]) + "\"";
+        long ultimaModificacion = ultima != null
+                ? ultima.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : inicio;
+        if (anterior != null && !anterior.etag.equals(etag) && ultimaModificacion <= anterior.ultimaModificacion) {
+            // Cambió sin tocar ultima_actualizacion (libro eliminado, autor renombrado)
+            ultimaModificacion = inicio;
+        } else if (anterior != null && anterior.etag.equals(etag)) {
+            ultimaModificacion = anterior.ultimaModificacion;
+        }
+
+        Instantanea nueva = new Instantanea(Collections.unmodifiableList(libros), textos.toArray(new String[0]),
+                Collections.unmodifiableList(listaCategorias), etag, ultimaModificacion);
+        log.info("Catálogo público construido en {} ms: {} libros", System.currentTimeMillis() - inicio, libros.size());
+        return nueva;
+    }
+
+    /**
+     * FNV-1a de 64 bits acumulado sobre los caracteres del texto.
+     */
+    private static long mezclar(long hash, String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            hash ^= texto.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -118,6 +118,9 @@ public class CategoriaService {
         }
         
         categoriaMapper.updateEntityFromRequest(request, categoria);
+        // El mapper ignora los nulos: vaciar las tarifas vuelve a los valores por defecto
+        categoria.setMultaDiaria(request.getMultaDiaria());
+        categoria.setMultaTope(request.getMultaTope());
         categoria = categoriaRepository.save(categoria);
         
         return convertirConCantidadLibros(categoria);
@@ -7,7 +7,10 @@ import com.biblioteca.bibliotech.exception.BusinessException;
 import com.biblioteca.bibliotech.exception.ResourceNotFoundException;
 import com.biblioteca.bibliotech.mapper.ClienteMapper;
 import com.biblioteca.bibliotech.repository.ClienteRepository;
-import com.biblioteca.bibliotech.repository.PrestamoRepository;
+import com.biblioteca.bibliotech.repository.ReservaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,17 +25,19 @@ import java.util.stream.Collectors;
 @Transactional
 public class ClienteService {
     
+    private static final Logger log = LoggerFactory.getLogger(ClienteService.class);
+    
     private static final int LIMITE_PRESTAMOS = 3;
     
     private final ClienteRepository clienteRepository;
-    private final PrestamoRepository prestamoRepository;
+    private final ReservaRepository reservaRepository;
     private final ClienteMapper clienteMapper;
     
     public ClienteService(ClienteRepository clienteRepository,
-                          PrestamoRepository prestamoRepository,
+                          ReservaRepository reservaRepository,
                           ClienteMapper clienteMapper) {
         this.clienteRepository = clienteRepository;
-        this.prestamoRepository = prestamoRepository;
+        this.reservaRepository = reservaRepository;
         this.clienteMapper = clienteMapper;
     }
     
@@ -191,7 +196,7 @@ public class ClienteService {
                 .orElseThrow(() -> new ResourceNotFoundException("Cliente", "id", id));
         
         // Verificar que no tenga préstamos activos
-        Long prestamosActivos = prestamoRepository.countPrestamosActivosByClienteId(id);
+        int prestamosActivos = cliente.getPrestamosActivos();
         if (prestamosActivos > 0) {
             throw new BusinessException(
                     BusinessException.OPERACION_NO_PERMITIDA,
@@ -212,11 +217,11 @@ public class ClienteService {
         Cliente cliente = clienteRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Cliente", "id", id));
         
-        // Verificar que no tenga préstamos (histórico)
-        if (!cliente.getPrestamos().isEmpty()) {
+        // Verificar que no tenga préstamos (histórico) ni reservas
+        if (cliente.getPrestamosTotal() > 0 || reservaRepository.existsByClienteId(id)) {
             throw new BusinessException(
                     BusinessException.OPERACION_NO_PERMITIDA,
-                    "No se puede eliminar el cliente porque tiene historial de préstamos. " +
+                    "No se puede eliminar el cliente porque tiene historial de préstamos o reservas. " +
                     "Considere desactivarlo en su lugar."
             );
         }
@@ -236,8 +241,7 @@ public class ClienteService {
             return false;
         }
         
-        Long prestamosActivos = prestamoRepository.countPrestamosActivosByClienteId(clienteId);
-        return prestamosActivos < LIMITE_PRESTAMOS;
+        return cliente.getPrestamosActivos() < LIMITE_PRESTAMOS;
     }
     
     /**
@@ -275,6 +279,22 @@ public class ClienteService {
         return clienteRepository.countByActivoFalse();
     }
     
+    /**
+     * Reconcilia los contadores de préstamos de todos los clientes con la tabla de préstamos.
+     * Se ejecuta cada noche; cualquier corrección indica una operación que no mantuvo
+     * los contadores (por ejemplo, cambios hechos directamente en la BD).
+     *
+     * @return Cantidad de clientes corregidos
+     */
+    @Scheduled(cron = "${bibliotech.clientes.reconciliacion-cron:0 30 3 * * *}")
+    public int reconciliarContadores() {
+        int corregidos = clienteRepository.reconciliarContadores();
+        if (corregidos > 0) {
+            log.warn("Contadores de préstamos corregidos en {} cliente(s)", corregidos);
+        }
+        return corregidos;
+    }
+    
     /**
      * Obtiene la entidad Cliente para uso interno.
      */
@@ -290,18 +310,12 @@ public class ClienteService {
     private ClienteResponse convertirConEstadisticas(Cliente cliente) {
         ClienteResponse response = clienteMapper.toResponse(cliente);
         
-        // Calcular estadísticas de préstamos
-        Long prestamosActivos = prestamoRepository.countPrestamosActivosByClienteId(cliente.getId());
-        Long totalPrestamos = (long) cliente.getPrestamos().size();
-        
-        // Contar préstamos vencidos
-        long prestamosVencidos = cliente.getPrestamos().stream()
-                .filter(p -> p.estaVencido())
-                .count();
+        // Estadísticas de préstamos desde los contadores del cliente (sin consultar préstamos)
+        long prestamosActivos = cliente.getPrestamosActivos();
         
         response.setPrestamosActivos(prestamosActivos);
-        response.setPrestamosVencidos(prestamosVencidos);
-        response.setTotalPrestamos(totalPrestamos);
+        response.setPrestamosVencidos((long) cliente.getPrestamosVencidos());
+        response.setTotalPrestamos((long) cliente.getPrestamosTotal());
         response.setPuedePrestar(cliente.getActivo() && prestamosActivos < LIMITE_PRESTAMOS);
         
         return response;
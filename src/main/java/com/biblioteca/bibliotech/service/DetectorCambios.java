@@ -0,0 +1,108 @@
+package com.biblioteca.bibliotech.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decide cuándo reconstruir una estructura en memoria cargada desde la base,
+ * sin releer las tablas en cada verificación.
+ *
+ * La consulta de versión devuelve una sola fila con valores baratos de calcular
+ * (cantidades, sumas de CRC32) y, si la tabla tiene fecha de modificación, su
+ * MAX en la columna "ultima" y NOW() de la base en la columna "ahora". Si algún
+ * valor cambió desde la última construcción, o pasó el plazo de reconstrucción,
+ * hay que reconstruir.
+ *
+ * ultima_actualizacion tiene resolución de segundos: un cambio confirmado en el
+ * mismo segundo que el MAX leído no lo mueve. Por eso, si "ultima" cae en el
+ * segundo de "ahora", la versión queda provisoria y la verificación siguiente
+ * reconstruye aunque no vea cambios.
+ *
+ * No es thread-safe: lo usa solo el refresco (synchronized) de cada servicio.
+ */
+final class DetectorCambios {
+
+    private static final String ULTIMA = "ultima";
+    private static final String AHORA = "ahora";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String sqlVersion;
+    private final long reconstruccionMs;
+
+    private Version vigente;
+    private long construida;
+
+    /**
+     * Valores de la consulta de versión (sin "ahora").
+     *
+     * @param ultima     Mayor fecha de modificación, o null si la consulta no la trae o la tabla está vacía
+     * @param provisoria Si puede haber cambios del mismo segundo que ultima sin reflejar
+     */
+    record Version(List<Object> valores, LocalDateTime ultima, boolean provisoria) {
+    }
+
+    /**
+     * @param reconstruccionMs Plazo tras el que se reconstruye aunque no haya cambios
+     *                         (recoge lo que la consulta de versión no ve)
+     */
+    DetectorCambios(JdbcTemplate jdbcTemplate, String sqlVersion, long reconstruccionMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sqlVersion = sqlVersion;
+        this.reconstruccionMs = reconstruccionMs;
+    }
+
+    /**
+     * Lee la versión actual.
+     *
+     * @return La versión con la que reconstruir, o null si lo construido sigue vigente
+     */
+    Version verificar() {
+        Version actual = jdbcTemplate.queryForObject(sqlVersion, (rs, i) -> leer(rs));
+        if (vigente != null && !vigente.provisoria() && vigente.valores().equals(actual.valores())
+                && System.currentTimeMillis() - construida < reconstruccionMs) {
+            return null;
+        }
+        return actual;
+    }
+
+    /**
+     * Registra que se reconstruyó con la versión devuelta por {@link #verificar}.
+     */
+    void construida(Version version) {
+        vigente = version;
+        construida = System.currentTimeMillis();
+    }
+
+    private static Version leer(ResultSet rs) throws SQLException {
+        ResultSetMetaData columnas = rs.getMetaData();
+        List<Object> valores = new ArrayList<>(columnas.getColumnCount());
+        LocalDateTime ultima = null;
+        LocalDateTime ahora = null;
+        for (int i = 1; i <= columnas.getColumnCount(); i++) {
+            String nombre = columnas.getColumnLabel(i);
+            if (AHORA.equalsIgnoreCase(nombre)) {
+                ahora = aFecha(rs.getTimestamp(i));
+            } else if (ULTIMA.equalsIgnoreCase(nombre)) {
+                ultima = aFecha(rs.getTimestamp(i));
+                valores.add(ultima);
+            } else {
+                valores.add(rs.getObject(i));
+            }
+        }
+        boolean provisoria = ultima != null && ahora != null
+                && !ultima.truncatedTo(ChronoUnit.SECONDS).isBefore(ahora.truncatedTo(ChronoUnit.SECONDS));
+        return new Version(valores, ultima, provisoria);
+    }
+
+    private static LocalDateTime aFecha(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -0,0 +1,265 @@
+package com.biblioteca.bibliotech.service;
+
+import com.biblioteca.bibliotech.dto.response.LibroResponse;
+import com.biblioteca.bibliotech.evento.EventoPrestamo;
+import com.biblioteca.bibliotech.evento.SuscriptorEventos;
+import com.biblioteca.bibliotech.repository.LibroRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Disponibilidad de cada libro en memoria (ver TablaDisponibilidad), para que
+ * los listados, la ficha y el formulario de préstamo no lean cantidad_disponible.
+ *
+ * Se carga al iniciar y se actualiza cuando cambia el stock: EjemplarService la
+ * avisa después de recalcular los contadores de un libro (préstamos, devoluciones,
+ * altas y bajas de ejemplares) y los préstamos y devoluciones de otros nodos
+ * llegan por BusEventos. Los valores se cuentan sobre los ejemplares, que ya
+ * están confirmados aunque el contador del libro todavía no se haya recalculado.
+ *
+ * Cada bibliotech.disponibilidad.verificacion-ms se compara una firma de la tabla
+ * con la misma firma calculada sobre libros; si difiere en dos verificaciones
+ * seguidas (una sola puede ser un recálculo en curso) se recarga completa.
+ */
+@Service
+public class DisponibilidadService implements SuscriptorEventos {
+
+    private static final Logger log = LoggerFactory.getLogger(DisponibilidadService.class);
+
+    private static final String SQL_CARGAR = "SELECT id_libro, cantidad_disponible FROM libros";
+
+    // Libros que ya no existen no devuelven fila
+    private static final String SQL_CONTAR =
+            "SELECT l.id_libro, COALESCE(SUM(e.estado = 'DISPONIBLE'), 0) AS disponibles " +
+            "FROM libros l LEFT JOIN ejemplares e ON e.id_libro = l.id_libro " +
+            "WHERE l.id_libro IN (:ids) GROUP BY l.id_libro";
+
+    private static final String SQL_FIRMA =
+            "SELECT COUNT(*) AS libros, COALESCE(SUM(cantidad_disponible), 0) AS disponibles, " +
+            "       COALESCE(SUM(CRC32(CONCAT(id_libro, ':', cantidad_disponible))), 0) AS suma " +
+            "FROM libros";
+
+    private final LibroRepository libroRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private TablaDisponibilidad tabla;
+    private volatile boolean cargada;
+    // Aumenta con cada cambio de la tabla (ver version())
+    private volatile long cambios;
+    private boolean diferenciaAnterior;
+
+    public DisponibilidadService(LibroRepository libroRepository,
+                                 JdbcTemplate jdbcTemplate,
+                                 NamedParameterJdbcTemplate namedJdbcTemplate) {
+        this.libroRepository = libroRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+    }
+
+    // ==================== CONSULTA ====================
+
+    /**
+     * Reemplaza los datos de disponibilidad de la respuesta por los de la tabla.
+     * Sin tabla (o sin el libro) deja los leídos de la base.
+     */
+    public LibroResponse aplicar(LibroResponse libro) {
+        if (!cargada || libro == null) {
+            return libro;
+        }
+        int disponibles;
+        lock.readLock().lock();
+        try {
+            disponibles = tabla.obtener(libro.getId());
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (disponibles != TablaDisponibilidad.AUSENTE) {
+            libro.setCantidadDisponible(disponibles);
+            libro.setDisponible(disponibles > 0);
+            libro.setCantidadPrestada(Math.max(0, libro.getCantidadTotal() - disponibles));
+        }
+        return libro;
+    }
+
+    public List<LibroResponse> aplicar(List<LibroResponse> libros) {
+        libros.forEach(this::aplicar);
+        return libros;
+    }
+
+    /**
+     * IDs de los libros con (o sin) ejemplares disponibles.
+     *
+     * @return Los IDs, o null si la tabla no está cargada (hay que consultar la base)
+     */
+    public List<Long> ids(boolean conDisponibles) {
+        if (!cargada) {
+            return null;
+        }
+        long[] ids;
+        lock.readLock().lock();
+        try {
+            ids = tabla.ids(conDisponibles);
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Long> resultado = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            resultado.add(id);
+        }
+        return resultado;
+    }
+
+    /**
+     * Número que cambia cada vez que cambia la tabla: quien arma datos derivados
+     * de {@link #ids} puede reutilizarlos mientras no cambie.
+     */
+    public long version() {
+        return cambios;
+    }
+
+    // ==================== ACTUALIZACIÓN ====================
+
+    /**
+     * Vuelve a contar los disponibles de los libros indicados. Se llama con el
+     * cambio ya confirmado; si falla, la verificación periódica corrige la tabla.
+     */
+    public void actualizar(Collection<Long> libroIds) {
+        if (!cargada || libroIds.isEmpty()) {
+            return;
+        }
+        try {
+            Map<Long, Integer> disponibles = new HashMap<>();
+            namedJdbcTemplate.query(SQL_CONTAR, Map.of("ids", libroIds), rs -> {
+                disponibles.put(rs.getLong("id_libro"), rs.getInt("disponibles"));
+            });
+
+            lock.writeLock().lock();
+            try {
+                for (Long libroId : libroIds) {
+                    tabla.registrar(libroId, disponibles.getOrDefault(libroId, TablaDisponibilidad.AUSENTE));
+                }
+                cambios++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (DataAccessException e) {
+            log.warn("No se pudo actualizar la disponibilidad de los libros {}", libroIds, e);
+        }
+    }
+
+    /**
+     * Actualiza el libro cuando la transacción actual se confirma (altas sin
+     * ejemplares y bajas de libros, que no pasan por EjemplarService).
+     */
+    public void actualizarAlConfirmar(Long libroId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    actualizar(List.of(libroId));
+                }
+            });
+        } else {
+            actualizar(List.of(libroId));
+        }
+    }
+
+    /**
+     * Préstamos y devoluciones (propios y de otros nodos).
+     */
+    @Override
+    public void procesar(List<EventoPrestamo> eventos) {
+        Set<Long> libroIds = new HashSet<>();
+        for (EventoPrestamo evento : eventos) {
+            if (evento instanceof EventoPrestamo.PrestamoCreado || evento instanceof EventoPrestamo.PrestamoDevuelto) {
+                libroIds.add(evento.libroId());
+            }
+        }
+        actualizar(libroIds);
+    }
+
+    // ==================== CARGA Y VERIFICACIÓN ====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        try {
+            cargar();
+        } catch (DataAccessException e) {
+            // Sin tabla se lee la disponibilidad de la base; la verificación reintenta la carga
+            log.error("No se pudo cargar la tabla de disponibilidad", e);
+        }
+    }
+
+    /**
+     * Los cambios confirmados durante la carga pueden perderse: los corrige la
+     * próxima verificación.
+     */
+    private void cargar() {
+        long inicio = System.currentTimeMillis();
+        TablaDisponibilidad nueva = new TablaDisponibilidad(Math.toIntExact(libroRepository.count()));
+        jdbcTemplate.query(SQL_CARGAR, rs -> {
+            nueva.registrar(rs.getLong("id_libro"), rs.getInt("cantidad_disponible"));
+        });
+
+        lock.writeLock().lock();
+        try {
+            tabla = nueva;
+            cambios++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        cargada = true;
+        log.info("Tabla de disponibilidad cargada en {} ms", System.currentTimeMillis() - inicio);
+    }
+
+    /**
+     * Compara la firma de la tabla con la de libros y la recarga si difieren.
+     */
+    @Scheduled(fixedDelayString = "${bibliotech.disponibilidad.verificacion-ms:60000}",
+               initialDelayString = "${bibliotech.disponibilidad.verificacion-ms:60000}")
+    public synchronized void verificar() {
+        try {
+            if (!cargada) {
+                cargar();
+                return;
+            }
+            TablaDisponibilidad.Firma enBase = jdbcTemplate.queryForObject(SQL_FIRMA, (rs, i) ->
+                    new TablaDisponibilidad.Firma(rs.getLong("libros"), rs.getLong("disponibles"), rs.getLong("suma")));
+            TablaDisponibilidad.Firma enMemoria;
+            lock.readLock().lock();
+            try {
+                enMemoria = tabla.firma();
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            if (enMemoria.equals(enBase)) {
+                diferenciaAnterior = false;
+            } else if (!diferenciaAnterior) {
+                diferenciaAnterior = true;
+            } else {
+                log.warn("La tabla de disponibilidad difiere de la base ({} contra {}): se recarga",
+                        enMemoria, enBase);
+                diferenciaAnterior = false;
+                cargar();
+            }
+        } catch (DataAccessException e) {
+            log.warn("No se pudo verificar la tabla de disponibilidad", e);
+        }
+    }
+}
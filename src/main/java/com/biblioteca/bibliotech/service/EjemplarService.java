@@ -0,0 +1,472 @@
+package com.biblioteca.bibliotech.service;
+
+import com.biblioteca.bibliotech.dto.response.EjemplarResponse;
+import com.biblioteca.bibliotech.entity.Ejemplar;
+import com.biblioteca.bibliotech.enums.EstadoEjemplar;
+import com.biblioteca.bibliotech.exception.BusinessException;
+import com.biblioteca.bibliotech.exception.ResourceNotFoundException;
+import com.biblioteca.bibliotech.mapper.EjemplarMapper;
+import com.biblioteca.bibliotech.repository.EjemplarRepository;
+import com.biblioteca.bibliotech.repository.LibroRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Servicio de ejemplares: cada copia física de un libro, con su código de barras.
+ *
+ * Los préstamos toman un ejemplar DISPONIBLE concreto (con SKIP LOCKED, así dos
+ * préstamos del mismo título no se esperan entre sí) y las devoluciones lo
+ * reingresan. cantidad_total y cantidad_disponible de libros pasan a ser datos
+ * derivados de los ejemplares: se recalculan después del commit, en una sentencia
+ * corta aparte, para no bloquear la fila del libro durante el préstamo, y cada
+ * noche se reconcilian por completo. Los ejemplares dados de alta se apartan
+ * primero para las reservas en cola, igual que los devueltos.
+ *
+ * Para el lector de códigos se mantiene en memoria un índice hash código -> ID
+ * (ver IndiceCodigosBarras), cargado al iniciar y completado con cada consulta
+ * que no lo encuentra.
+ */
+@Service
+public class EjemplarService {
+
+    private static final Logger log = LoggerFactory.getLogger(EjemplarService.class);
+
+    private static final String SQL_INSERTAR =
+            "INSERT INTO ejemplares (id_libro, codigo_barras, estado, ubicacion) VALUES (?, ?, 'DISPONIBLE', ?)";
+
+    // Se retiran primero los últimos ejemplares dados de alta
+    private static final String SQL_DAR_DE_BAJA =
+            "UPDATE ejemplares SET estado = 'BAJA', ultima_actualizacion = NOW() " +
+            "WHERE id_libro = ? AND estado = 'DISPONIBLE' ORDER BY id_ejemplar DESC LIMIT ?";
+
+    private static final String SQL_CONTEOS_POR_ISBN =
+            "SELECT l.id_libro, l.cantidad_total, COUNT(e.id_ejemplar) AS numerados, " +
+            "       COALESCE(SUM(e.estado <> 'BAJA'), 0) AS vigentes " +
+            "FROM libros l LEFT JOIN ejemplares e ON e.id_libro = l.id_libro " +
+            "WHERE l.isbn IN (:isbns) " +
+            "GROUP BY l.id_libro, l.cantidad_total";
+
+    private static final String SQL_RECALCULAR =
+            "UPDATE libros l SET " +
+            "cantidad_total = (SELECT COUNT(*) FROM ejemplares e " +
+            "                  WHERE e.id_libro = l.id_libro AND e.estado <> 'BAJA'), " +
+            "cantidad_disponible = (SELECT COUNT(*) FROM ejemplares e " +
+            "                       WHERE e.id_libro = l.id_libro AND e.estado = 'DISPONIBLE') " +
+            "WHERE l.id_libro IN (:ids)";
+
+    // Solo toca los libros cuyos contadores no coinciden con los ejemplares
+    private static final String SQL_RECONCILIAR =
+            "UPDATE libros l " +
+            "LEFT JOIN (SELECT id_libro, SUM(estado <> 'BAJA') AS total, " +
+            "                  SUM(estado = 'DISPONIBLE') AS disponibles " +
+            "           FROM ejemplares GROUP BY id_libro) e ON e.id_libro = l.id_libro " +
+            "SET l.cantidad_total = COALESCE(e.total, 0), " +
+            "    l.cantidad_disponible = COALESCE(e.disponibles, 0) " +
+            "WHERE l.cantidad_total <> COALESCE(e.total, 0) " +
+            "   OR l.cantidad_disponible <> COALESCE(e.disponibles, 0)";
+
+    private static final String SQL_CODIGOS =
+            "SELECT id_ejemplar, codigo_barras FROM ejemplares";
+
+    private final EjemplarRepository ejemplarRepository;
+    private final LibroRepository libroRepository;
+    private final EjemplarMapper ejemplarMapper;
+    private final DisponibilidadService disponibilidadService;
+    // ReservaService depende de este servicio: se resuelve al usarlo
+    private final ObjectProvider<ReservaService> reservaService;
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate jdbcTemplateStreaming;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private IndiceCodigosBarras indice = new IndiceCodigosBarras(0);
+
+    public EjemplarService(EjemplarRepository ejemplarRepository,
+                           LibroRepository libroRepository,
+                           EjemplarMapper ejemplarMapper,
+                           DisponibilidadService disponibilidadService,
+                           ObjectProvider<ReservaService> reservaService,
+                           JdbcTemplate jdbcTemplate,
+                           DataSource dataSource,
+                           NamedParameterJdbcTemplate namedJdbcTemplate,
+                           PlatformTransactionManager transactionManager) {
+        this.ejemplarRepository = ejemplarRepository;
+        this.libroRepository = libroRepository;
+        this.ejemplarMapper = ejemplarMapper;
+        this.disponibilidadService = disponibilidadService;
+        this.reservaService = reservaService;
+        this.jdbcTemplate = jdbcTemplate;
+        // MySQL entrega las filas en streaming solo con fetchSize = Integer.MIN_VALUE
+        this.jdbcTemplateStreaming = new JdbcTemplate(dataSource);
+        this.jdbcTemplateStreaming.setFetchSize(Integer.MIN_VALUE);
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        // Los recálculos corren después del commit, en su propia transacción.
+        // Con READ COMMITTED los COUNT sobre ejemplares no bloquean los préstamos en curso.
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+    }
+
+    // ==================== OPERACIONES DE CONSULTA ====================
+
+    /**
+     * Obtiene los ejemplares de un libro.
+     */
+    @Transactional(readOnly = true)
+    public List<EjemplarResponse> listarPorLibro(Long libroId) {
+        return ejemplarMapper.toResponseList(ejemplarRepository.findByLibroIdOrderByIdAsc(libroId));
+    }
+
+    /**
+     * Busca un ejemplar por código de barras.
+     */
+    @Transactional(readOnly = true)
+    public EjemplarResponse buscarPorCodigo(String codigo) {
+        return ejemplarMapper.toResponse(obtenerPorCodigo(codigo));
+    }
+
+    /**
+     * Resuelve el código con el índice en memoria y confirma contra el ejemplar
+     * leído por ID; si no está (o no coincide) consulta el índice único de la base.
+     */
+    private Ejemplar obtenerPorCodigo(String codigo) {
+        String normalizado = normalizar(codigo);
+
+        long id;
+        lock.readLock().lock();
+        try {
+            id = indice.buscar(normalizado);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (id != 0) {
+            Optional<Ejemplar> ejemplar = ejemplarRepository.findById(id);
+            if (ejemplar.isPresent() && ejemplar.get().getCodigoBarras().equals(normalizado)) {
+                return ejemplar.get();
+            }
+        }
+
+        Ejemplar ejemplar = ejemplarRepository.findByCodigoBarras(normalizado)
+                .orElseThrow(() -> new ResourceNotFoundException("Ejemplar", "código de barras", normalizado));
+        lock.writeLock().lock();
+        try {
+            indice.registrar(normalizado, ejemplar.getId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return ejemplar;
+    }
+
+    /**
+     * Los lectores suelen agregar espacios o un salto de línea al final.
+     */
+    private static String normalizar(String codigo) {
+        return codigo == null ? "" : codigo.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Código de barras del n-ésimo ejemplar de un libro (mismo formato que la migración V8).
+     */
+    static String generarCodigo(long libroId, long numero) {
+        return String.format("BT%08d-%03d", libroId, numero);
+    }
+
+    // ==================== PRÉSTAMOS Y DEVOLUCIONES ====================
+
+    /**
+     * Toma un ejemplar DISPONIBLE del libro y lo marca PRESTADO.
+     * Se ejecuta en la transacción del préstamo.
+     *
+     * @return El ejemplar prestado, o null si no queda ninguno
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Ejemplar prestarDisponible(Long libroId) {
+        Optional<Ejemplar> ejemplar = ejemplarRepository.bloquearDisponible(libroId);
+        if (ejemplar.isEmpty()) {
+            return null;
+        }
+        cambiarEstado(ejemplar.get(), EstadoEjemplar.PRESTADO);
+        return ejemplar.get();
+    }
+
+    /**
+     * Presta el ejemplar leído por el lector de códigos.
+     *
+     * @throws BusinessException si el ejemplar es de otro libro o no está disponible
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Ejemplar prestarPorCodigo(String codigo, Long libroId) {
+        Long id = obtenerPorCodigo(codigo).getId();
+        Ejemplar ejemplar = ejemplarRepository.bloquearPorId(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Ejemplar", "id", id));
+
+        if (!ejemplar.getLibro().getId().equals(libroId)) {
+            throw new BusinessException(
+                    BusinessException.OPERACION_NO_PERMITIDA,
+                    "El ejemplar " + ejemplar.getCodigoBarras() + " corresponde a otro libro"
+            );
+        }
+        if (!ejemplar.estaDisponible()) {
+            throw new BusinessException(
+                    BusinessException.EJEMPLAR_NO_DISPONIBLE,
+                    "El ejemplar " + ejemplar.getCodigoBarras() + " está " +
+                    ejemplar.getEstado().getDescripcion().toLowerCase()
+            );
+        }
+        cambiarEstado(ejemplar, EstadoEjemplar.PRESTADO);
+        return ejemplar;
+    }
+
+    /**
+     * Cambia el estado del ejemplar dentro de la transacción actual; los contadores
+     * del libro se recalculan cuando esa transacción se confirma.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void cambiarEstado(Ejemplar ejemplar, EstadoEjemplar estado) {
+        ejemplar.setEstado(estado);
+        ejemplarRepository.save(ejemplar);
+        recalcularAlConfirmar(ejemplar.getLibro().getId());
+    }
+
+    // ==================== ALTAS Y BAJAS ====================
+
+    /**
+     * Da de alta ejemplares nuevos de un libro, numerados a continuación de los
+     * existentes, y los aparta para las reservas en cola.
+     */
+    @Transactional
+    public void agregar(Long libroId, int cantidad, String ubicacion) {
+        if (cantidad <= 0) {
+            throw new BusinessException(
+                    BusinessException.OPERACION_NO_PERMITIDA,
+                    "La cantidad de ejemplares debe ser mayor a cero"
+            );
+        }
+        // El bloqueo del libro serializa la numeración de sus ejemplares
+        libroRepository.bloquearPorId(libroId)
+                .orElseThrow(() -> new ResourceNotFoundException("Libro", "id", libroId));
+
+        List<Object[]> filas = new ArrayList<>(cantidad);
+        agregarFilas(filas, libroId, ejemplarRepository.countByLibroId(libroId), cantidad, ubicacion);
+        jdbcTemplate.batchUpdate(SQL_INSERTAR, filas);
+        reservaService.getObject().asignarEjemplaresNuevos(libroId);
+        recalcularAlConfirmar(libroId);
+    }
+
+    /**
+     * Lleva la cantidad de ejemplares vigentes del libro al total indicado: da de
+     * alta los que faltan (apartándolos para las reservas en cola) o da de baja
+     * ejemplares DISPONIBLE si sobran.
+     *
+     * @throws BusinessException si para llegar al total habría que retirar ejemplares prestados o apartados
+     */
+    @Transactional
+    public void ajustarTotal(Long libroId, int total) {
+        libroRepository.bloquearPorId(libroId)
+                .orElseThrow(() -> new ResourceNotFoundException("Libro", "id", libroId));
+
+        long numerados = ejemplarRepository.countByLibroId(libroId);
+        long vigentes = numerados - ejemplarRepository.countByLibroIdAndEstado(libroId, EstadoEjemplar.BAJA);
+
+        if (total > vigentes) {
+            List<Object[]> filas = new ArrayList<>();
+            agregarFilas(filas, libroId, numerados, (int) (total - vigentes), null);
+            jdbcTemplate.batchUpdate(SQL_INSERTAR, filas);
+            reservaService.getObject().asignarEjemplaresNuevos(libroId);
+        } else if (total < vigentes) {
+            long sobrantes = vigentes - total;
+            long disponibles = ejemplarRepository.countByLibroIdAndEstado(libroId, EstadoEjemplar.DISPONIBLE);
+            if (sobrantes > disponibles) {
+                throw new BusinessException(
+                        BusinessException.OPERACION_NO_PERMITIDA,
+                        "No se puede reducir el stock total porque hay " + (vigentes - disponibles) +
+                        " ejemplar(es) prestado(s) o apartado(s)"
+                );
+            }
+            jdbcTemplate.update(SQL_DAR_DE_BAJA, libroId, sobrantes);
+        }
+        recalcularAlConfirmar(libroId);
+    }
+
+    /**
+     * Ajusta los ejemplares de los libros importados a la cantidad_total que dejó
+     * la importación; los dados de alta se apartan para las reservas en cola. Se
+     * ejecuta en la transacción del lote, que ya tiene bloqueadas las filas de esos libros.
+     */
+    @Transactional
+    public void sincronizarConTotales(Collection<String> isbns) {
+        if (isbns.isEmpty()) {
+            return;
+        }
+        List<Object[]> altas = new ArrayList<>();
+        List<Object[]> bajas = new ArrayList<>();
+        List<Long> libroIds = new ArrayList<>();
+        List<Long> conAltas = new ArrayList<>();
+
+        namedJdbcTemplate.query(SQL_CONTEOS_POR_ISBN, Map.of("isbns", isbns), rs -> {
+            long libroId = rs.getLong("id_libro");
+            long total = rs.getLong("cantidad_total");
+            long vigentes = rs.getLong("vigentes");
+            if (total > vigentes) {
+                agregarFilas(altas, libroId, rs.getLong("numerados"), (int) (total - vigentes), null);
+                conAltas.add(libroId);
+            } else if (total < vigentes) {
+                bajas.add(new Object[]{libroId, vigentes - total});
+            }
+            libroIds.add(libroId);
+        });
+
+        if (!altas.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_INSERTAR, altas);
+            conAltas.forEach(reservaService.getObject()::asignarEjemplaresNuevos);
+        }
+        if (!bajas.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_DAR_DE_BAJA, bajas);
+        }
+        if (!libroIds.isEmpty()) {
+            recalcularAlConfirmar(libroIds);
+        }
+    }
+
+    private static void agregarFilas(List<Object[]> filas, long libroId, long numerados,
+                                     int cantidad, String ubicacion) {
+        for (int i = 1; i <= cantidad; i++) {
+            filas.add(new Object[]{libroId, generarCodigo(libroId, numerados + i), ubicacion});
+        }
+    }
+
+    /**
+     * Da de baja un ejemplar (extraviado, dañado). Solo se permite si está en la estantería.
+     */
+    @Transactional
+    public EjemplarResponse darDeBaja(Long id) {
+        Ejemplar ejemplar = ejemplarRepository.bloquearPorId(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Ejemplar", "id", id));
+
+        if (!ejemplar.estaDisponible()) {
+            throw new BusinessException(
+                    BusinessException.EJEMPLAR_NO_DISPONIBLE,
+                    "Solo se pueden dar de baja ejemplares disponibles. El ejemplar " +
+                    ejemplar.getCodigoBarras() + " está " + ejemplar.getEstado().getDescripcion().toLowerCase()
+            );
+        }
+        cambiarEstado(ejemplar, EstadoEjemplar.BAJA);
+        return ejemplarMapper.toResponse(ejemplar);
+    }
+
+    /**
+     * Actualiza la ubicación de un ejemplar en la biblioteca.
+     */
+    @Transactional
+    public EjemplarResponse actualizarUbicacion(Long id, String ubicacion) {
+        Ejemplar ejemplar = ejemplarRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Ejemplar", "id", id));
+        ejemplar.setUbicacion(ubicacion != null && !ubicacion.isBlank() ? ubicacion.trim() : null);
+        return ejemplarMapper.toResponse(ejemplarRepository.save(ejemplar));
+    }
+
+    /**
+     * Elimina los ejemplares de un libro (al eliminar un libro sin historial).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void eliminarPorLibro(Long libroId) {
+        ejemplarRepository.deleteByLibroId(libroId);
+    }
+
+    // ==================== CONTADORES DEL LIBRO ====================
+
+    private void recalcularAlConfirmar(Long libroId) {
+        recalcularAlConfirmar(List.of(libroId));
+    }
+
+    /**
+     * Recalcula los contadores cuando la transacción actual se confirma (o en el acto, si no hay transacción).
+     */
+    private void recalcularAlConfirmar(List<Long> libroIds) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recalcular(libroIds);
+                }
+            });
+        } else {
+            recalcular(libroIds);
+        }
+    }
+
+    private void recalcular(List<Long> libroIds) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    namedJdbcTemplate.update(SQL_RECALCULAR, Map.of("ids", libroIds)));
+            disponibilidadService.actualizar(libroIds);
+        } catch (DataAccessException e) {
+            // Los ejemplares ya están confirmados: la reconciliación nocturna corrige los contadores
+            log.warn("No se pudieron recalcular los contadores de los libros {}", libroIds, e);
+        }
+    }
+
+    /**
+     * Recalcula desde los ejemplares los contadores de todos los libros que no coinciden.
+     *
+     * @return Cantidad de libros corregidos
+     */
+    @Scheduled(cron = "${bibliotech.ejemplares.reconciliacion-cron:0 40 3 * * *}")
+    public int reconciliarContadores() {
+        Integer corregidos = transactionTemplate.execute(status -> jdbcTemplate.update(SQL_RECONCILIAR));
+        if (corregidos != null && corregidos > 0) {
+            log.info("Contadores de stock corregidos en {} libros", corregidos);
+        }
+        return corregidos != null ? corregidos : 0;
+    }
+
+    // ==================== ÍNDICE DE CÓDIGOS ====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        try {
+            cargarIndice();
+        } catch (DataAccessException e) {
+            // Sin índice las búsquedas consultan la base y lo van completando
+            log.error("No se pudo cargar el índice de códigos de barras", e);
+        }
+    }
+
+    private void cargarIndice() {
+        long inicio = System.currentTimeMillis();
+        IndiceCodigosBarras nuevo = new IndiceCodigosBarras(Math.toIntExact(ejemplarRepository.count()));
+        jdbcTemplateStreaming.query(SQL_CODIGOS, rs -> {
+            nuevo.registrar(rs.getString("codigo_barras"), rs.getLong("id_ejemplar"));
+        });
+
+        lock.writeLock().lock();
+        try {
+            indice = nuevo;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Índice de códigos de barras cargado en {} ms: {} ejemplares",
+                System.currentTimeMillis() - inicio, nuevo.tamano());
+    }
+}
@@ -0,0 +1,22 @@
+package com.biblioteca.bibliotech.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Enviador por defecto: escribe las notificaciones en el log en lugar de enviarlas.
+ * Para desarrollo y para instalaciones sin servidor de correo.
+ */
+@Component
+@ConditionalOnProperty(name = "bibliotech.notificaciones.enviador", havingValue = "log", matchIfMissing = true)
+public class EnviadorLog implements EnviadorNotificaciones {
+
+    private static final Logger log = LoggerFactory.getLogger(EnviadorLog.class);
+
+    @Override
+    public void enviar(String destinatario, String asunto, String cuerpo) {
+        log.info("Notificación para {} - {}\n{}", destinatario, asunto, cuerpo);
+    }
+}
@@ -0,0 +1,15 @@
+package com.biblioteca.bibliotech.service;
+
+/**
+ * Canal de entrega de las notificaciones de la bandeja de salida.
+ * La implementación se elige con bibliotech.notificaciones.enviador (log o smtp).
+ */
+public interface EnviadorNotificaciones {
+
+    /**
+     * Entrega un mensaje de texto plano.
+     *
+     * @throws RuntimeException si no se pudo entregar (NotificacionService reintenta)
+     */
+    void enviar(String destinatario, String asunto, String cuerpo);
+}
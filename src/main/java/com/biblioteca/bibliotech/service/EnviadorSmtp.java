@@ -0,0 +1,34 @@
+package com.biblioteca.bibliotech.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+/**
+ * Enviador SMTP. El servidor se configura con spring.mail.* (host, puerto, usuario).
+ */
+@Component
+@ConditionalOnProperty(name = "bibliotech.notificaciones.enviador", havingValue = "smtp")
+public class EnviadorSmtp implements EnviadorNotificaciones {
+
+    private final JavaMailSender mailSender;
+    private final String remitente;
+
+    public EnviadorSmtp(JavaMailSender mailSender,
+                        @Value("${bibliotech.notificaciones.remitente:biblioteca@bibliotech.local}") String remitente) {
+        this.mailSender = mailSender;
+        this.remitente = remitente;
+    }
+
+    @Override
+    public void enviar(String destinatario, String asunto, String cuerpo) {
+        SimpleMailMessage mensaje = new SimpleMailMessage();
+        mensaje.setFrom(remitente);
+        mensaje.setTo(destinatario);
+        mensaje.setSubject(asunto);
+        mensaje.setText(cuerpo);
+        mailSender.send(mensaje);
+    }
+}
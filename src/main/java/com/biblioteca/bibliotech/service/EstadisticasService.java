@@ -0,0 +1,260 @@
+package com.biblioteca.bibliotech.service;
+
+import com.biblioteca.bibliotech.dto.response.TendenciasResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * Servicio de estadísticas diarias precalculadas (tabla estadisticas_diarias, ver V5).
+ *
+ * El cálculo es incremental: parte del día siguiente al último calculado (la
+ * fila de totales funciona como marca de avance) y llega hasta ayer, el último
+ * día completo. Los reportes de tendencias leen solo la tabla agregada.
+ */
+@Service
+public class EstadisticasService {
+
+    private static final Logger log = LoggerFactory.getLogger(EstadisticasService.class);
+
+    // Fila de totales del día (todas las categorías)
+    private static final long TOTAL = 0L;
+    private static final int DIAS_POR_LOTE = 31;
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM");
+
+    private static final String SQL_ULTIMA_FECHA =
+            "SELECT MAX(fecha) FROM estadisticas_diarias WHERE id_categoria = 0";
+
+    private static final String SQL_PRIMER_PRESTAMO = "SELECT MIN(fecha_prestamo) FROM prestamos";
+    private static final String SQL_PRIMER_PRESTAMO_HISTORICO = "SELECT MIN(fecha_prestamo) FROM prestamos_historico";
+
+    /*
+     * Eventos del rango (préstamo, devolución o paso a vencido) de ambas tablas
+     * de préstamos, agregados por día y categoría. WITH ROLLUP agrega la fila
+     * de totales de cada día (GROUPING = 1). Un préstamo pasa a vencido el día
+     * siguiente a su fecha esperada si no se devolvió hasta entonces.
+     */
+    private static final String SQL_AGREGAR =
+            "SELECT e.fecha, l.id_categoria, GROUPING(l.id_categoria) AS es_total, " +
+            "       SUM(e.prestamo) AS prestamos, SUM(e.devolucion) AS devoluciones, " +
+            "       SUM(e.vencido) AS nuevos_vencidos, COUNT(DISTINCT e.id_cliente) AS clientes_activos " +
+            "FROM (" +
+            "  SELECT fecha_prestamo AS fecha, id_libro, id_cliente, 1 AS prestamo, 0 AS devolucion, 0 AS vencido " +
+            "  FROM prestamos WHERE fecha_prestamo BETWEEN :desde AND :hasta " +
+            "  UNION ALL " +
+            "  SELECT fecha_prestamo, id_libro, id_cliente, 1, 0, 0 " +
+            "  FROM prestamos_historico WHERE fecha_prestamo BETWEEN :desde AND :hasta " +
+            "  UNION ALL " +
+            "  SELECT fecha_devolucion_real, id_libro, id_cliente, 0, 1, 0 " +
+            "  FROM prestamos WHERE fecha_devolucion_real BETWEEN :desde AND :hasta " +
+            "  UNION ALL " +
+            "  SELECT fecha_devolucion_real, id_libro, id_cliente, 0, 1, 0 " +
+            "  FROM prestamos_historico WHERE fecha_devolucion_real BETWEEN :desde AND :hasta " +
+            "  UNION ALL " +
+            "  SELECT fecha_devolucion_esperada + INTERVAL 1 DAY, id_libro, NULL, 0, 0, 1 " +
+            "  FROM prestamos WHERE fecha_devolucion_esperada BETWEEN :desdeVencimiento AND :hastaVencimiento " +
+            "  AND (fecha_devolucion_real IS NULL OR fecha_devolucion_real > fecha_devolucion_esperada) " +
+            "  UNION ALL " +
+            "  SELECT fecha_devolucion_esperada + INTERVAL 1 DAY, id_libro, NULL, 0, 0, 1 " +
+            "  FROM prestamos_historico WHERE fecha_devolucion_esperada BETWEEN :desdeVencimiento AND :hastaVencimiento " +
+            "  AND fecha_devolucion_real > fecha_devolucion_esperada" +
+            ") e " +
+            "JOIN libros l ON l.id_libro = e.id_libro " +
+            "GROUP BY e.fecha, l.id_categoria WITH ROLLUP " +
+            "HAVING e.fecha IS NOT NULL";
+
+    private static final String SQL_GUARDAR =
+            "INSERT INTO estadisticas_diarias " +
+            "(fecha, id_categoria, prestamos, devoluciones, nuevos_vencidos, clientes_activos) " +
+            "VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE prestamos = VALUES(prestamos), devoluciones = VALUES(devoluciones), " +
+            "nuevos_vencidos = VALUES(nuevos_vencidos), clientes_activos = VALUES(clientes_activos)";
+
+    private static final String SQL_SERIE =
+            "SELECT fecha, prestamos, devoluciones, nuevos_vencidos, clientes_activos " +
+            "FROM estadisticas_diarias WHERE id_categoria = ? AND fecha BETWEEN ? AND ? ORDER BY fecha";
+
+    private static final String SQL_POR_CATEGORIA =
+            "SELECT c.nombre, SUM(e.prestamos) AS prestamos " +
+            "FROM estadisticas_diarias e JOIN categorias c ON c.id_categoria = e.id_categoria " +
+            "WHERE e.fecha BETWEEN ? AND ? " +
+            "GROUP BY c.nombre HAVING SUM(e.prestamos) > 0 ORDER BY prestamos DESC";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public EstadisticasService(JdbcTemplate jdbcTemplate,
+                               NamedParameterJdbcTemplate namedJdbcTemplate,
+                               PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Valores agregados de un día para una categoría (o TOTAL).
+     */
+    private record Agregado(LocalDate fecha, long idCategoria, int prestamos, int devoluciones,
+                            int nuevosVencidos, int clientesActivos) {
+    }
+
+    // ==================== CÁLCULO ====================
+
+    /**
+     * Calcula los días pendientes desde la última fecha calculada hasta ayer.
+     * Se ejecuta cada noche y también a pedido desde /reportes/tendencias.
+     *
+     * @return Cantidad de días calculados
+     */
+    @Scheduled(cron = "${bibliotech.estadisticas.cron:0 15 0 * * *}")
+    public synchronized int actualizar() {
+        LocalDate hasta = LocalDate.now().minusDays(1);
+        LocalDate desde = obtenerDesde();
+        if (desde == null || desde.isAfter(hasta)) {
+            return 0;
+        }
+
+        int dias = 0;
+        while (!desde.isAfter(hasta)) {
+            LocalDate inicio = desde;
+            LocalDate fin = min(desde.plusDays(DIAS_POR_LOTE - 1), hasta);
+            transactionTemplate.executeWithoutResult(status -> calcularRango(inicio, fin));
+            dias += (int) (fin.toEpochDay() - inicio.toEpochDay()) + 1;
+            desde = fin.plusDays(1);
+        }
+
+        log.info("Estadísticas diarias calculadas: {} días hasta {}", dias, hasta);
+        return dias;
+    }
+
+    /**
+     * Primer día sin calcular: el siguiente a la marca o, la primera vez, el día
+     * del préstamo más antiguo. Null si todavía no hay préstamos.
+     */
+    private LocalDate obtenerDesde() {
+        LocalDate ultima = jdbcTemplate.queryForObject(SQL_ULTIMA_FECHA, LocalDate.class);
+        if (ultima != null) {
+            return ultima.plusDays(1);
+        }
+        LocalDate primerPrestamo = jdbcTemplate.queryForObject(SQL_PRIMER_PRESTAMO, LocalDate.class);
+        LocalDate primerArchivado = jdbcTemplate.queryForObject(SQL_PRIMER_PRESTAMO_HISTORICO, LocalDate.class);
+        if (primerPrestamo == null || primerArchivado == null) {
+            return primerPrestamo != null ? primerPrestamo : primerArchivado;
+        }
+        return min(primerPrestamo, primerArchivado);
+    }
+
+    /**
+     * Agrega y guarda un rango de días (dentro de la transacción actual).
+     * Cada día recibe su fila de totales aunque no haya tenido movimientos.
+     */
+    private void calcularRango(LocalDate desde, LocalDate hasta) {
+        Map<String, Object> parametros = new HashMap<>();
+        parametros.put("desde", desde);
+        parametros.put("hasta", hasta);
+        parametros.put("desdeVencimiento", desde.minusDays(1));
+        parametros.put("hastaVencimiento", hasta.minusDays(1));
+
+        Map<LocalDate, Agregado> totales = new HashMap<>();
+        List<Agregado> filas = new ArrayList<>();
+        namedJdbcTemplate.query(SQL_AGREGAR, parametros, rs -> {
+            boolean esTotal = rs.getInt("es_total") == 1;
+            long idCategoria = rs.getLong("id_categoria");
+            if (!esTotal && rs.wasNull()) {
+                // Libros sin categoría: solo cuentan en el total del día
+                return;
+            }
+            Agregado agregado = new Agregado(rs.getDate("fecha").toLocalDate(), esTotal ? TOTAL : idCategoria,
+                    rs.getInt("prestamos"), rs.getInt("devoluciones"),
+                    rs.getInt("nuevos_vencidos"), rs.getInt("clientes_activos"));
+            if (esTotal) {
+                totales.put(agregado.fecha(), agregado);
+            } else {
+                filas.add(agregado);
+            }
+        });
+
+        for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+            filas.add(totales.getOrDefault(dia, new Agregado(dia, TOTAL, 0, 0, 0, 0)));
+        }
+
+        jdbcTemplate.batchUpdate(SQL_GUARDAR, filas, filas.size(), (ps, fila) -> {
+            ps.setDate(1, Date.valueOf(fila.fecha()));
+            ps.setLong(2, fila.idCategoria());
+            ps.setInt(3, fila.prestamos());
+            ps.setInt(4, fila.devoluciones());
+            ps.setInt(5, fila.nuevosVencidos());
+            ps.setInt(6, fila.clientesActivos());
+        });
+    }
+
+    // ==================== CONSULTA ====================
+
+    /**
+     * Obtiene las series de los últimos días calculados.
+     *
+     * @param dias        Cantidad de días hacia atrás desde ayer
+     * @param categoriaId Categoría a graficar, o null para el total
+     */
+    public TendenciasResponse obtenerTendencias(int dias, Long categoriaId) {
+        LocalDate hasta = LocalDate.now().minusDays(1);
+        LocalDate desde = hasta.minusDays(dias - 1L);
+
+        TendenciasResponse response = TendenciasResponse.builder()
+                .ultimaFecha(jdbcTemplate.queryForObject(SQL_ULTIMA_FECHA, LocalDate.class))
+                .build();
+
+        // Las filas por categoría solo existen los días con movimientos:
+        // se alinean con los días de la serie total y el resto va en cero
+        Map<LocalDate, Agregado> serie = new HashMap<>();
+        if (categoriaId != null) {
+            for (Agregado agregado : leerSerie(categoriaId, desde, hasta)) {
+                serie.put(agregado.fecha(), agregado);
+            }
+        }
+
+        for (Agregado total : leerSerie(TOTAL, desde, hasta)) {
+            Agregado dia = categoriaId == null
+                    ? total
+                    : serie.getOrDefault(total.fecha(), new Agregado(total.fecha(), categoriaId, 0, 0, 0, 0));
+            response.getFechas().add(dia.fecha().format(FORMATO_FECHA));
+            response.getPrestamos().add(dia.prestamos());
+            response.getDevoluciones().add(dia.devoluciones());
+            response.getNuevosVencidos().add(dia.nuevosVencidos());
+            response.getClientesActivos().add(dia.clientesActivos());
+            response.setTotalPrestamos(response.getTotalPrestamos() + dia.prestamos());
+            response.setTotalDevoluciones(response.getTotalDevoluciones() + dia.devoluciones());
+            response.setTotalNuevosVencidos(response.getTotalNuevosVencidos() + dia.nuevosVencidos());
+        }
+
+        jdbcTemplate.query(SQL_POR_CATEGORIA, rs -> {
+            response.getCategorias().add(rs.getString("nombre"));
+            response.getPrestamosPorCategoria().add(rs.getLong("prestamos"));
+        }, Date.valueOf(desde), Date.valueOf(hasta));
+
+        return response;
+    }
+
+    private List<Agregado> leerSerie(long idCategoria, LocalDate desde, LocalDate hasta) {
+        return jdbcTemplate.query(SQL_SERIE, (rs, i) -> new Agregado(
+                rs.getDate("fecha").toLocalDate(), idCategoria,
+                rs.getInt("prestamos"), rs.getInt("devoluciones"),
+                rs.getInt("nuevos_vencidos"), rs.getInt("clientes_activos")),
+                idCategoria, Date.valueOf(desde), Date.valueOf(hasta));
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
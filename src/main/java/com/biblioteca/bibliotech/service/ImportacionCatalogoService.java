@@ -0,0 +1,472 @@
+package com.biblioteca.bibliotech.service;
+
+import com.biblioteca.bibliotech.dto.response.ImportacionResponse;
+import com.biblioteca.bibliotech.entity.Autor;
+import com.biblioteca.bibliotech.entity.Categoria;
+import com.biblioteca.bibliotech.exception.BusinessException;
+import com.biblioteca.bibliotech.repository.AutorRepository;
+import com.biblioteca.bibliotech.repository.CategoriaRepository;
+import com.biblioteca.bibliotech.repository.LibroRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servicio para la importación masiva del catálogo de libros desde CSV o Excel.
+ *
+ * El archivo se lee en streaming (ver LectorArchivoTabular) y cada fila se valida
+ * en memoria: autores y categorías se resuelven con mapas nombre -> id cargados
+ * una sola vez (los que faltan se crean al vuelo) y los ISBN se comparan contra un
+ * conjunto precargado. Las filas válidas se agrupan en lotes que se guardan en
+ * paralelo con JDBC batch: los ISBN nuevos se insertan y los existentes se actualizan.
+ * En la misma transacción se dan de alta (o de baja) los ejemplares necesarios para
+ * que coincidan con la cantidad importada.
+ * Las filas rechazadas quedan en un reporte CSV descargable.
+ *
+ * Columnas: titulo, isbn, anio, cantidad, autor, categoria.
+ */
+@Service
+public class ImportacionCatalogoService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportacionCatalogoService.class);
+
+    private static final Map<String, String> COLUMNAS = Map.ofEntries(
+            Map.entry("titulo", "titulo"),
+            Map.entry("isbn", "isbn"),
+            Map.entry("anio", "anio"),
+            Map.entry("ano", "anio"),
+            Map.entry("aniopublicacion", "anio"),
+            Map.entry("anodepublicacion", "anio"),
+            Map.entry("cantidad", "cantidad"),
+            Map.entry("cantidadtotal", "cantidad"),
+            Map.entry("ejemplares", "cantidad"),
+            Map.entry("autor", "autor"),
+            Map.entry("categoria", "categoria")
+    );
+    private static final Set<String> COLUMNAS_OBLIGATORIAS =
+            Set.of("titulo", "isbn", "cantidad", "autor", "categoria");
+
+    private static final String SQL_INSERTAR =
+            "INSERT INTO libros (id_libro, titulo, isbn, anio_publicacion, cantidad_total, " +
+            "cantidad_disponible, id_autor, id_categoria) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // cantidad_disponible se ajusta por la diferencia con el total anterior (MySQL evalúa
+    // las asignaciones en orden, por eso va antes que cantidad_total). La condición evita
+    // dejar disponibles negativos cuando hay más ejemplares prestados que el nuevo total.
+    private static final String SQL_ACTUALIZAR =
+            "UPDATE libros SET titulo = ?, anio_publicacion = ?, id_autor = ?, id_categoria = ?, " +
+            "cantidad_disponible = cantidad_disponible + (? - cantidad_total), cantidad_total = ? " +
+            "WHERE isbn = ? AND cantidad_disponible + (? - cantidad_total) >= 0";
+
+    private final LibroRepository libroRepository;
+    private final AutorRepository autorRepository;
+    private final CategoriaRepository categoriaRepository;
+    private final SecuenciaService secuenciaService;
+    private final EjemplarService ejemplarService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int hilos;
+    private final int tamanoLote;
+
+    public ImportacionCatalogoService(LibroRepository libroRepository,
+                                      AutorRepository autorRepository,
+                                      CategoriaRepository categoriaRepository,
+                                      SecuenciaService secuenciaService,
+                                      EjemplarService ejemplarService,
+                                      JdbcTemplate jdbcTemplate,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${bibliotech.importacion.hilos:4}") int hilos,
+                                      @Value("${bibliotech.importacion.tamano-lote:500}") int tamanoLote) {
+        this.libroRepository = libroRepository;
+        this.autorRepository = autorRepository;
+        this.categoriaRepository = categoriaRepository;
+        this.secuenciaService = secuenciaService;
+        this.ejemplarService = ejemplarService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.hilos = hilos;
+        this.tamanoLote = tamanoLote;
+    }
+
+    /**
+     * Importa el archivo de catálogo.
+     *
+     * @param archivo Archivo .csv o .xlsx con encabezado
+     * @return Resumen de la importación
+     */
+    public ImportacionResponse importar(MultipartFile archivo) throws IOException {
+        long inicio = System.currentTimeMillis();
+
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        try (ReporteImportacion reporte = ReporteImportacion.crear()) {
+            Importacion importacion = new Importacion(reporte, executor);
+            LectorArchivoTabular.leer(archivo, COLUMNAS, COLUMNAS_OBLIGATORIAS, importacion::procesar);
+            importacion.finalizar();
+
+            log.info("Importación de catálogo: {} filas, {} insertados, {} actualizados, {} errores en {} ms",
+                    importacion.totalFilas, importacion.insertados.get(), importacion.actualizados.get(),
+                    reporte.getErrores(), System.currentTimeMillis() - inicio);
+
+            return ImportacionResponse.builder()
+                    .totalFilas(importacion.totalFilas)
+                    .insertados(importacion.insertados.get())
+                    .actualizados(importacion.actualizados.get())
+                    .errores(reporte.getErrores())
+                    .duracionMillis(System.currentTimeMillis() - inicio)
+                    .reporteId(reporte.getId())
+                    .primerosErrores(reporte.getPrimerosErrores())
+                    .build();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Libro validado listo para guardar.
+     * El id de las inserciones se reserva recién al guardar el lote.
+     */
+    private record LibroImportado(int fila, String titulo, String isbn, Integer anio,
+                                  int cantidad, Long idAutor, Long idCategoria) {
+    }
+
+    /**
+     * Estado de una importación en curso. procesar() se invoca desde el hilo lector;
+     * los lotes se guardan en el pool, con a lo sumo 2 lotes por hilo en espera para
+     * que la lectura no se adelante sin límite a la escritura.
+     */
+    private final class Importacion {
+
+        private final ReporteImportacion reporte;
+        private final ExecutorService executor;
+        private final Semaphore lotesEnCurso = new Semaphore(hilos * 2);
+        private final List<Future<?>> pendientes = new ArrayList<>();
+
+        private final Map<String, Long> autores = cargarMapa(autorRepository.findIdYNombre());
+        private final Map<String, Long> categorias = cargarMapa(categoriaRepository.findIdYNombre());
+        private final Set<String> isbnExistentes = new HashSet<>(libroRepository.findAllIsbn());
+        private final Set<String> isbnEnArchivo = new HashSet<>();
+
+        private final AtomicInteger insertados = new AtomicInteger();
+        private final AtomicInteger actualizados = new AtomicInteger();
+        private int totalFilas;
+
+        private List<LibroImportado> nuevos = new ArrayList<>();
+        private List<LibroImportado> existentes = new ArrayList<>();
+
+        private Importacion(ReporteImportacion reporte, ExecutorService executor) {
+            this.reporte = reporte;
+            this.executor = executor;
+        }
+
+        void procesar(LectorArchivoTabular.Fila fila) {
+            totalFilas++;
+
+            LibroImportado libro = validar(fila);
+            if (libro == null) {
+                return;
+            }
+
+            if (isbnExistentes.contains(libro.isbn())) {
+                existentes.add(libro);
+            } else {
+                nuevos.add(libro);
+            }
+
+            if (nuevos.size() + existentes.size() >= tamanoLote) {
+                enviarLote();
+            }
+        }
+
+        void finalizar() {
+            if (!nuevos.isEmpty() || !existentes.isEmpty()) {
+                enviarLote();
+            }
+            for (Future<?> pendiente : pendientes) {
+                try {
+                    pendiente.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new BusinessException("La importación fue interrumpida");
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Error al guardar un lote de la importación", e.getCause());
+                }
+            }
+        }
+
+        private void enviarLote() {
+            List<LibroImportado> loteNuevos = nuevos;
+            List<LibroImportado> loteExistentes = existentes;
+            nuevos = new ArrayList<>();
+            existentes = new ArrayList<>();
+
+            try {
+                lotesEnCurso.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BusinessException("La importación fue interrumpida");
+            }
+
+            pendientes.add(executor.submit(() -> {
+                try {
+                    guardarLote(loteNuevos, loteExistentes, reporte, insertados, actualizados);
+                } finally {
+                    lotesEnCurso.release();
+                }
+            }));
+        }
+
+        /**
+         * Valida la fila y resuelve autor y categoría.
+         *
+         * @return Libro listo para guardar, o null si la fila se rechazó
+         */
+        private LibroImportado validar(LectorArchivoTabular.Fila fila) {
+            int numero = fila.getNumero();
+            String isbn = fila.get("isbn");
+            String titulo = fila.get("titulo");
+            String nombreAutor = fila.get("autor");
+            String nombreCategoria = fila.get("categoria");
+
+            if (isbn == null) {
+                reporte.registrar(numero, null, "El ISBN es obligatorio");
+                return null;
+            }
+            if (isbn.length() < 10 || isbn.length() > 20) {
+                reporte.registrar(numero, isbn, "El ISBN debe tener entre 10 y 20 caracteres");
+                return null;
+            }
+            if (!isbnEnArchivo.add(isbn)) {
+                reporte.registrar(numero, isbn, "ISBN repetido en el archivo");
+                return null;
+            }
+            if (titulo == null || titulo.length() > 200) {
+                reporte.registrar(numero, isbn, "El título es obligatorio y debe tener hasta 200 caracteres");
+                return null;
+            }
+            if (nombreAutor == null || nombreAutor.length() > 100) {
+                reporte.registrar(numero, isbn, "El autor es obligatorio y debe tener hasta 100 caracteres");
+                return null;
+            }
+            if (nombreCategoria == null || nombreCategoria.length() > 50) {
+                reporte.registrar(numero, isbn, "La categoría es obligatoria y debe tener hasta 50 caracteres");
+                return null;
+            }
+
+            Integer cantidad = leerEntero(fila.get("cantidad"));
+            if (cantidad == null || cantidad < 0) {
+                reporte.registrar(numero, isbn, "La cantidad debe ser un número entero no negativo");
+                return null;
+            }
+
+            Integer anio = null;
+            String anioTexto = fila.get("anio");
+            if (anioTexto != null) {
+                anio = leerEntero(anioTexto);
+                if (anio == null || anio < 1000 || anio > 2100) {
+                    reporte.registrar(numero, isbn, "El año de publicación debe estar entre 1000 y 2100");
+                    return null;
+                }
+            }
+
+            Long idAutor = autores.computeIfAbsent(clave(nombreAutor),
+                    k -> autorRepository.save(Autor.builder().nombre(nombreAutor).build()).getId());
+            Long idCategoria = categorias.computeIfAbsent(clave(nombreCategoria),
+                    k -> categoriaRepository.save(Categoria.builder().nombre(nombreCategoria).build()).getId());
+
+            return new LibroImportado(numero, titulo, isbn, anio, cantidad, idAutor, idCategoria);
+        }
+    }
+
+    /**
+     * Guarda un lote en una sola transacción con JDBC batch.
+     * Si el lote falla (por ejemplo, un ISBN que otro usuario registró durante la
+     * importación) se reintenta fila a fila para rechazar solo las filas con problemas.
+     */
+    private void guardarLote(List<LibroImportado> nuevos,
+                             List<LibroImportado> existentes,
+                             ReporteImportacion reporte,
+                             AtomicInteger insertados,
+                             AtomicInteger actualizados) {
+        long[] ids = reservarIds(nuevos.size());
+
+        int[] resultadosActualizacion;
+        try {
+            resultadosActualizacion = transactionTemplate.execute(status -> {
+                jdbcTemplate.batchUpdate(SQL_INSERTAR, new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        asignarInsercion(ps, nuevos.get(i), ids[i]);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return nuevos.size();
+                    }
+                });
+                int[] filasActualizadas = jdbcTemplate.batchUpdate(SQL_ACTUALIZAR, new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        asignarActualizacion(ps, existentes.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return existentes.size();
+                    }
+                });
+                ejemplarService.sincronizarConTotales(isbns(nuevos, existentes));
+                return filasActualizadas;
+            });
+        } catch (DataAccessException e) {
+            log.debug("Lote de importación rechazado, se reintenta fila a fila: {}", e.getMessage());
+            guardarFilaAFila(nuevos, existentes, ids, reporte, insertados, actualizados);
+            return;
+        }
+
+        insertados.addAndGet(nuevos.size());
+        for (int i = 0; i < existentes.size(); i++) {
+            // Con rewriteBatchedStatements el driver puede informar SUCCESS_NO_INFO (-2)
+            if (resultadosActualizacion[i] == 0) {
+                registrarStockInsuficiente(reporte, existentes.get(i));
+            } else {
+                actualizados.incrementAndGet();
+            }
+        }
+    }
+
+    private void guardarFilaAFila(List<LibroImportado> nuevos,
+                                  List<LibroImportado> existentes,
+                                  long[] ids,
+                                  ReporteImportacion reporte,
+                                  AtomicInteger insertados,
+                                  AtomicInteger actualizados) {
+        for (int i = 0; i < nuevos.size(); i++) {
+            LibroImportado libro = nuevos.get(i);
+            long id = ids[i];
+            try {
+                jdbcTemplate.update(SQL_INSERTAR, ps -> asignarInsercion(ps, libro, id));
+                ejemplarService.sincronizarConTotales(List.of(libro.isbn()));
+                insertados.incrementAndGet();
+            } catch (DataAccessException e) {
+                reporte.registrar(libro.fila(), libro.isbn(), "No se pudo insertar: " + causaRaiz(e));
+            }
+        }
+        for (LibroImportado libro : existentes) {
+            try {
+                if (jdbcTemplate.update(SQL_ACTUALIZAR, ps -> asignarActualizacion(ps, libro)) == 0) {
+                    registrarStockInsuficiente(reporte, libro);
+                } else {
+                    ejemplarService.sincronizarConTotales(List.of(libro.isbn()));
+                    actualizados.incrementAndGet();
+                }
+            } catch (DataAccessException e) {
+                reporte.registrar(libro.fila(), libro.isbn(), "No se pudo actualizar: " + causaRaiz(e));
+            }
+        }
+    }
+
+    private long[] reservarIds(int cantidad) {
+        long[] ids = new long[cantidad];
+        if (cantidad > 0) {
+            long primero = secuenciaService.reservar("libros", cantidad);
+            for (int i = 0; i < cantidad; i++) {
+                ids[i] = primero + i;
+            }
+        }
+        return ids;
+    }
+
+    private static List<String> isbns(List<LibroImportado> nuevos, List<LibroImportado> existentes) {
+        List<String> isbns = new ArrayList<>(nuevos.size() + existentes.size());
+        for (LibroImportado libro : nuevos) {
+            isbns.add(libro.isbn());
+        }
+        for (LibroImportado libro : existentes) {
+            isbns.add(libro.isbn());
+        }
+        return isbns;
+    }
+
+    private static void registrarStockInsuficiente(ReporteImportacion reporte, LibroImportado libro) {
+        reporte.registrar(libro.fila(), libro.isbn(),
+                "La nueva cantidad es menor que los ejemplares prestados (o el libro fue eliminado)");
+    }
+
+    private static void asignarInsercion(PreparedStatement ps, LibroImportado libro, long id)
+            throws SQLException {
+        ps.setLong(1, id);
+        ps.setString(2, libro.titulo());
+        ps.setString(3, libro.isbn());
+        if (libro.anio() != null) {
+            ps.setInt(4, libro.anio());
+        } else {
+            ps.setNull(4, Types.INTEGER);
+        }
+        ps.setInt(5, libro.cantidad());
+        ps.setInt(6, libro.cantidad());
+        ps.setLong(7, libro.idAutor());
+        ps.setLong(8, libro.idCategoria());
+    }
+
+    private static void asignarActualizacion(PreparedStatement ps, LibroImportado libro)
+            throws SQLException {
+        ps.setString(1, libro.titulo());
+        if (libro.anio() != null) {
+            ps.setInt(2, libro.anio());
+        } else {
+            ps.setNull(2, Types.INTEGER);
+        }
+        ps.setLong(3, libro.idAutor());
+        ps.setLong(4, libro.idCategoria());
+        ps.setInt(5, libro.cantidad());
+        ps.setInt(6, libro.cantidad());
+        ps.setString(7, libro.isbn());
+        ps.setInt(8, libro.cantidad());
+    }
+
+    private static Map<String, Long> cargarMapa(List<Object[]> idsYNombres) {
+        Map<String, Long> mapa = new HashMap<>(idsYNombres.size() * 2);
+        for (Object[] fila : idsYNombres) {
+            mapa.putIfAbsent(clave((String) fila[1]), (Long) fila[0]);
+        }
+        return mapa;
+    }
+
+    private static String clave(String nombre) {
+        return nombre.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Integer leerEntero(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        try {
+            // Excel puede entregar "3.0" en celdas numéricas con formato general
+            return texto.endsWith(".0")
+                    ? Integer.valueOf(texto.substring(0, texto.length() - 2))
+                    : Integer.valueOf(texto);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String causaRaiz(DataAccessException e) {
+        Throwable causa = e.getMostSpecificCause();
+        return causa.getMessage() != null ? causa.getMessage() : causa.getClass().getSimpleName();
+    }
+}
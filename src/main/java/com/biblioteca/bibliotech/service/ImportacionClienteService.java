@@ -0,0 +1,436 @@
+package com.biblioteca.bibliotech.service;
+
+import com.biblioteca.bibliotech.dto.response.ImportacionResponse;
+import com.biblioteca.bibliotech.repository.ClienteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Servicio para la importación masiva de clientes (altas de inicio de ciclo).
+ *
+ * En lugar de consultar existsByDni/existsByEmail por cada fila:
+ * - Los campos se normalizan y validan en un parallel stream.
+ * - Los DNI se comparan contra un conjunto de enteros precargado con todos los DNI registrados.
+ * - Los emails se verifican con consultas IN por lotes (solo los que trae el archivo).
+ * - Las altas se insertan con JDBC batch, con IDs reservados por bloques.
+ *
+ * En modo simulación se informan los conflictos sin escribir nada.
+ *
+ * Columnas: dni, nombre, apellido, email, telefono, direccion, activo.
+ */
+@Service
+public class ImportacionClienteService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportacionClienteService.class);
+
+    private static final Map<String, String> COLUMNAS = Map.ofEntries(
+            Map.entry("dni", "dni"),
+            Map.entry("documento", "dni"),
+            Map.entry("nombre", "nombre"),
+            Map.entry("nombres", "nombre"),
+            Map.entry("apellido", "apellido"),
+            Map.entry("apellidos", "apellido"),
+            Map.entry("email", "email"),
+            Map.entry("correo", "email"),
+            Map.entry("telefono", "telefono"),
+            Map.entry("celular", "telefono"),
+            Map.entry("direccion", "direccion"),
+            Map.entry("activo", "activo")
+    );
+    private static final Set<String> COLUMNAS_OBLIGATORIAS = Set.of("dni", "nombre", "apellido");
+
+    private static final Pattern PATRON_EMAIL = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    // Máximo de valores por consulta IN
+    private static final int TAMANO_CONSULTA_IN = 1000;
+
+    private static final String SQL_INSERTAR =
+            "INSERT INTO clientes (id_cliente, dni, nombre, apellido, email, telefono, direccion, activo) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final ClienteRepository clienteRepository;
+    private final SecuenciaService secuenciaService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanoLote;
+
+    public ImportacionClienteService(ClienteRepository clienteRepository,
+                                     SecuenciaService secuenciaService,
+                                     JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${bibliotech.importacion.tamano-lote:500}") int tamanoLote) {
+        this.clienteRepository = clienteRepository;
+        this.secuenciaService = secuenciaService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanoLote = tamanoLote;
+    }
+
+    /**
+     * Importa clientes desde un archivo.
+     *
+     * @param archivo    Archivo .csv o .xlsx con encabezado
+     * @param simulacion true para solo validar e informar conflictos, sin insertar
+     * @return Resumen de la importación (en simulación, insertados = altas que se harían)
+     */
+    public ImportacionResponse importar(MultipartFile archivo, boolean simulacion) throws IOException {
+        long inicio = System.currentTimeMillis();
+
+        List<LectorArchivoTabular.Fila> filas = new ArrayList<>();
+        LectorArchivoTabular.leer(archivo, COLUMNAS, COLUMNAS_OBLIGATORIAS, filas::add);
+
+        try (ReporteImportacion reporte = ReporteImportacion.crear()) {
+            // 1. Normalización y validación de formato en paralelo (sin acceso a BD)
+            List<ClienteImportado> normalizados = filas.parallelStream()
+                    .map(ImportacionClienteService::normalizar)
+                    .toList();
+
+            // 2. Unicidad en una sola pasada: dentro del archivo y contra la BD
+            List<ClienteImportado> validos = verificarUnicidad(normalizados, reporte);
+
+            // 3. Inserción por lotes
+            int insertados = simulacion ? validos.size() : insertar(validos, reporte);
+
+            log.info("Importación de clientes{}: {} filas, {} altas, {} errores en {} ms",
+                    simulacion ? " (simulación)" : "", filas.size(), insertados,
+                    reporte.getErrores(), System.currentTimeMillis() - inicio);
+
+            return ImportacionResponse.builder()
+                    .totalFilas(filas.size())
+                    .insertados(insertados)
+                    .errores(reporte.getErrores())
+                    .simulacion(simulacion)
+                    .duracionMillis(System.currentTimeMillis() - inicio)
+                    .reporteId(reporte.getId())
+                    .primerosErrores(reporte.getPrimerosErrores())
+                    .build();
+        }
+    }
+
+    /**
+     * Cliente normalizado. Si error no es null la fila se rechaza.
+     */
+    private record ClienteImportado(int fila, String dni, String nombre, String apellido, String email,
+                                    String telefono, String direccion, boolean activo, String error) {
+
+        static ClienteImportado rechazado(int fila, String dni, String error) {
+            return new ClienteImportado(fila, dni, null, null, null, null, null, false, error);
+        }
+    }
+
+    /**
+     * Normaliza y valida una fila (mismas reglas que ClienteRequest).
+     * No tiene estado compartido, por eso puede ejecutarse en paralelo.
+     */
+    private static ClienteImportado normalizar(LectorArchivoTabular.Fila fila) {
+        int numero = fila.getNumero();
+
+        String dni = normalizarDni(fila.get("dni"), fila.esNumerica("dni"));
+        if (dni == null) {
+            return ClienteImportado.rechazado(numero, fila.get("dni"),
+                    "El DNI debe tener exactamente 8 dígitos (se admiten espacios, puntos y guiones)");
+        }
+
+        String nombre = capitalizar(fila.get("nombre"));
+        if (nombre == null || nombre.length() < 2 || nombre.length() > 100) {
+            return ClienteImportado.rechazado(numero, dni, "El nombre debe tener entre 2 y 100 caracteres");
+        }
+        String apellido = capitalizar(fila.get("apellido"));
+        if (apellido == null || apellido.length() < 2 || apellido.length() > 100) {
+            return ClienteImportado.rechazado(numero, dni, "El apellido debe tener entre 2 y 100 caracteres");
+        }
+
+        String email = fila.get("email");
+        if (email != null) {
+            email = email.toLowerCase(Locale.ROOT);
+            if (email.length() > 100 || !PATRON_EMAIL.matcher(email).matches()) {
+                return ClienteImportado.rechazado(numero, dni, "El email debe tener un formato válido");
+            }
+        }
+
+        String telefono = fila.get("telefono");
+        if (telefono != null) {
+            telefono = ESPACIOS.matcher(telefono).replaceAll(" ");
+            if (telefono.length() > 20) {
+                return ClienteImportado.rechazado(numero, dni, "El teléfono no puede exceder 20 caracteres");
+            }
+        }
+
+        String direccion = fila.get("direccion");
+        if (direccion != null) {
+            direccion = ESPACIOS.matcher(direccion).replaceAll(" ");
+            if (direccion.length() > 255) {
+                return ClienteImportado.rechazado(numero, dni, "La dirección no puede exceder 255 caracteres");
+            }
+        }
+
+        String activo = fila.get("activo");
+        boolean esActivo = activo == null || !Set.of("no", "0", "false", "inactivo", "n")
+                .contains(activo.toLowerCase(Locale.ROOT));
+
+        return new ClienteImportado(numero, dni, nombre, apellido, email, telefono, direccion, esActivo, null);
+    }
+
+    /**
+     * Verifica DNI y email únicos dentro del archivo y contra la base de datos.
+     *
+     * @return Clientes sin conflictos, en el orden del archivo
+     */
+    private List<ClienteImportado> verificarUnicidad(List<ClienteImportado> normalizados,
+                                                     ReporteImportacion reporte) {
+        List<String> dniRegistrados = clienteRepository.findAllDni();
+        ConjuntoDni dniExistentes = new ConjuntoDni(dniRegistrados.size());
+        for (String dni : dniRegistrados) {
+            dniExistentes.agregar(dni);
+        }
+
+        ConjuntoDni dniEnArchivo = new ConjuntoDni(normalizados.size());
+        Set<String> emailsEnArchivo = new HashSet<>();
+        List<ClienteImportado> candidatos = new ArrayList<>(normalizados.size());
+
+        for (ClienteImportado cliente : normalizados) {
+            if (cliente.error() != null) {
+                reporte.registrar(cliente.fila(), cliente.dni(), cliente.error());
+            } else if (dniExistentes.contiene(cliente.dni())) {
+                reporte.registrar(cliente.fila(), cliente.dni(), "Ya existe un cliente con el DNI: " + cliente.dni());
+            } else if (!dniEnArchivo.agregar(cliente.dni())) {
+                reporte.registrar(cliente.fila(), cliente.dni(), "DNI repetido en el archivo");
+            } else if (cliente.email() != null && !emailsEnArchivo.add(cliente.email())) {
+                reporte.registrar(cliente.fila(), cliente.dni(), "Email repetido en el archivo: " + cliente.email());
+            } else {
+                candidatos.add(cliente);
+            }
+        }
+
+        // Emails ya registrados: consultas IN por lotes solo con los emails del archivo
+        Set<String> emailsExistentes = new HashSet<>();
+        List<String> emails = new ArrayList<>(emailsEnArchivo);
+        for (int i = 0; i < emails.size(); i += TAMANO_CONSULTA_IN) {
+            List<String> lote = emails.subList(i, Math.min(i + TAMANO_CONSULTA_IN, emails.size()));
+            for (String existente : clienteRepository.findEmailsExistentes(lote)) {
+                emailsExistentes.add(existente.toLowerCase(Locale.ROOT));
+            }
+        }
+
+        if (emailsExistentes.isEmpty()) {
+            return candidatos;
+        }
+
+        List<ClienteImportado> validos = new ArrayList<>(candidatos.size());
+        for (ClienteImportado cliente : candidatos) {
+            if (cliente.email() != null && emailsExistentes.contains(cliente.email())) {
+                reporte.registrar(cliente.fila(), cliente.dni(), "Ya existe un cliente con el email: " + cliente.email());
+            } else {
+                validos.add(cliente);
+            }
+        }
+        return validos;
+    }
+
+    /**
+     * Inserta los clientes en lotes JDBC, cada lote en su propia transacción.
+     * Si un lote falla (por ejemplo, un DNI dado de alta durante la importación)
+     * se reintenta fila a fila para rechazar solo las filas con conflicto.
+     *
+     * @return Cantidad de clientes insertados
+     */
+    private int insertar(List<ClienteImportado> clientes, ReporteImportacion reporte) {
+        int insertados = 0;
+        for (int desde = 0; desde < clientes.size(); desde += tamanoLote) {
+            List<ClienteImportado> lote = clientes.subList(desde, Math.min(desde + tamanoLote, clientes.size()));
+            long primerId = secuenciaService.reservar("clientes", lote.size());
+
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.batchUpdate(SQL_INSERTAR, new BatchPreparedStatementSetter() {
+                            @Override
+                            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                                asignarInsercion(ps, lote.get(i), primerId + i);
+                            }
+
+                            @Override
+                            public int getBatchSize() {
+                                return lote.size();
+                            }
+                        }));
+                insertados += lote.size();
+            } catch (DataAccessException e) {
+                log.debug("Lote de clientes rechazado, se reintenta fila a fila: {}", e.getMessage());
+                for (int i = 0; i < lote.size(); i++) {
+                    ClienteImportado cliente = lote.get(i);
+                    long id = primerId + i;
+                    try {
+                        jdbcTemplate.update(SQL_INSERTAR, ps -> asignarInsercion(ps, cliente, id));
+                        insertados++;
+                    } catch (DataAccessException ex) {
+                        Throwable causa = ex.getMostSpecificCause();
+                        reporte.registrar(cliente.fila(), cliente.dni(), "No se pudo insertar: " + causa.getMessage());
+                    }
+                }
+            }
+        }
+        return insertados;
+    }
+
+    private static void asignarInsercion(PreparedStatement ps, ClienteImportado cliente, long id)
+            throws SQLException {
+        ps.setLong(1, id);
+        ps.setString(2, cliente.dni());
+        ps.setString(3, cliente.nombre());
+        ps.setString(4, cliente.apellido());
+        ps.setString(5, cliente.email());
+        if (cliente.telefono() != null) {
+            ps.setString(6, cliente.telefono());
+        } else {
+            ps.setNull(6, Types.VARCHAR);
+        }
+        if (cliente.direccion() != null) {
+            ps.setString(7, cliente.direccion());
+        } else {
+            ps.setNull(7, Types.VARCHAR);
+        }
+        ps.setBoolean(8, cliente.activo());
+    }
+
+    /**
+     * DNI de 8 dígitos sin separadores, o null si no es válido.
+     * Solo se quitan espacios, puntos y guiones ("12.345.678", "12 345 678");
+     * cualquier otro carácter rechaza el valor. Los ceros a la izquierda se
+     * completan solo si la celda es numérica: Excel los pierde al guardar el
+     * DNI como número, pero en un texto un valor corto es un DNI incompleto.
+     */
+    static String normalizarDni(String texto, boolean numerico) {
+        if (texto == null) {
+            return null;
+        }
+        if (numerico) {
+            // Número con formato de Excel: "1234567", "1234567.0", "1,234,567"
+            if (texto.endsWith(".0")) {
+                texto = texto.substring(0, texto.length() - 2);
+            }
+            texto = texto.replace(",", "");
+        }
+        StringBuilder sb = new StringBuilder(8);
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c >= '0' && c <= '9') {
+                sb.append(c);
+            } else if (c != ' ' && c != '.' && c != '-') {
+                return null;
+            }
+        }
+        if (sb.isEmpty() || sb.length() > 8 || (sb.length() < 8 && !numerico)) {
+            return null;
+        }
+        return "0".repeat(8 - sb.length()) + sb;
+    }
+
+    /**
+     * Colapsa espacios y pone en mayúscula la inicial de cada palabra ("ana MARÍA" -> "Ana María").
+     */
+    private static String capitalizar(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        String[] palabras = ESPACIOS.split(texto.trim());
+        StringBuilder sb = new StringBuilder(texto.length());
+        for (String palabra : palabras) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(palabra.substring(0, 1).toUpperCase(Locale.ROOT))
+              .append(palabra.substring(1).toLowerCase(Locale.ROOT));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Conjunto de DNI guardados como int en un arreglo con direccionamiento abierto.
+     * Ocupa ~8 bytes por DNI frente a los ~80 de un HashSet&lt;String&gt;.
+     */
+    private static final class ConjuntoDni {
+
+        // 0 marca posición libre: se guarda dni + 1
+        private int[] tabla;
+        private int tamano;
+
+        ConjuntoDni(int capacidadEsperada) {
+            int capacidad = Integer.highestOneBit(Math.max(16, capacidadEsperada * 2 - 1)) << 1;
+            this.tabla = new int[capacidad];
+        }
+
+        boolean contiene(String dni) {
+            int valor = Integer.parseInt(dni) + 1;
+            int mascara = tabla.length - 1;
+            for (int i = mezclar(valor) & mascara; tabla[i] != 0; i = (i + 1) & mascara) {
+                if (tabla[i] == valor) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return true si el DNI no estaba en el conjunto
+         */
+        boolean agregar(String dni) {
+            int valor;
+            try {
+                valor = Integer.parseInt(dni) + 1;
+            } catch (NumberFormatException e) {
+                // DNI históricos con formato inválido: no pueden coincidir con uno normalizado
+                return true;
+            }
+            if ((tamano + 1) * 2 > tabla.length) {
+                redimensionar();
+            }
+            int mascara = tabla.length - 1;
+            int i = mezclar(valor) & mascara;
+            while (tabla[i] != 0) {
+                if (tabla[i] == valor) {
+                    return false;
+                }
+                i = (i + 1) & mascara;
+            }
+            tabla[i] = valor;
+            tamano++;
+            return true;
+        }
+
+        private void redimensionar() {
+            int[] anterior = tabla;
+            tabla = new int[anterior.length * 2];
+            int mascara = tabla.length - 1;
+            for (int valor : anterior) {
+                if (valor != 0) {
+                    int i = mezclar(valor) & mascara;
+                    while (tabla[i] != 0) {
+                        i = (i + 1) & mascara;
+                    }
+                    tabla[i] = valor;
+                }
+            }
+        }
+
+        private static int mezclar(int valor) {
+            int h = valor * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.biblioteca.bibliotech.service;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Índice hash código de barras -> ID de ejemplar, con direccionamiento abierto
+ * sobre arreglos primitivos (16 bytes por entrada, sin objetos por código).
+ *
+ * La clave es un hash de 64 bits del código y no el código en sí: quien consulta
+ * debe comparar el código del ejemplar obtenido y, si no coincide (colisión o
+ * entrada vieja), buscar en la base por el índice único. Por eso tampoco hacen
+ * falta bajas: una entrada desactualizada solo cuesta esa consulta.
+ *
+ * No es thread-safe; EjemplarService lo protege con un ReadWriteLock.
+ */
+final class IndiceCodigosBarras {
+
+    private long[] claves;
+    private long[] valores;
+    private int tamano;
+
+    IndiceCodigosBarras(int capacidadEsperada) {
+        int capacidad = Integer.highestOneBit(Math.max(4, capacidadEsperada * 2 - 1)) << 1;
+        claves = new long[capacidad];
+        valores = new long[capacidad];
+    }
+
+    int tamano() {
+        return tamano;
+    }
+
+    /**
+     * @return ID del ejemplar registrado con ese código, o 0 si no hay
+     */
+    long buscar(String codigo) {
+        long clave = hash(codigo);
+        int mascara = claves.length - 1;
+        for (int i = (int) clave & mascara; claves[i] != 0; i = (i + 1) & mascara) {
+            if (claves[i] == clave) {
+                return valores[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Registra (o reemplaza) el ejemplar de un código.
+     */
+    void registrar(String codigo, long ejemplarId) {
+        if ((tamano + 1) * 2 > claves.length) {
+            redimensionar(claves.length * 2);
+        }
+        if (insertar(claves, valores, hash(codigo), ejemplarId)) {
+            tamano++;
+        }
+    }
+
+    private static boolean insertar(long[] claves, long[] valores, long clave, long valor) {
+        int mascara = claves.length - 1;
+        int i = (int) clave & mascara;
+        while (claves[i] != 0) {
+            if (claves[i] == clave) {
+                valores[i] = valor;
+                return false;
+            }
+            i = (i + 1) & mascara;
+        }
+        claves[i] = clave;
+        valores[i] = valor;
+        return true;
+    }
+
+    private void redimensionar(int capacidad) {
+        long[] nuevasClaves = new long[capacidad];
+        long[] nuevosValores = new long[capacidad];
+        for (int i = 0; i < claves.length; i++) {
+            if (claves[i] != 0) {
+                insertar(nuevasClaves, nuevosValores, claves[i], valores[i]);
+            }
+        }
+        claves = nuevasClaves;
+        valores = nuevosValores;
+    }
+
+    /**
+     * FNV-1a de 64 bits sobre los bytes UTF-8 con mezcla final (fmix64 de MurmurHash3),
+     * para que los bits bajos que eligen la ranura dependan de todo el código.
+     * Nunca devuelve 0 (marca de ranura vacía).
+     */
+    static long hash(String codigo) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : codigo.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h != 0 ? h : 1;
+    }
+}
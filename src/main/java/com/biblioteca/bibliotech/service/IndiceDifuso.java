@@ -0,0 +1,291 @@
+package com.biblioteca.bibliotech.service;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * Índice inmutable para búsquedas tolerantes a errores de tipeo ("Garcia
+ * Marques" encuentra "Gabriel García Márquez") sobre textos cortos: nombres
+ * de autores y títulos.
+ *
+ * Los textos se guardan normalizados (minúsculas, sin acentos, solo letras y
+ * dígitos) y cada palabra se parte en trigramas con un espacio a cada lado
+ * (" ga", "gar", ..., "ia "). Cada trigrama se codifica en 18 bits (6 por
+ * carácter), así que las listas de textos por trigrama se guardan en dos
+ * arreglos planos indexados por el código, sin mapas ni objetos por entrada.
+ *
+ * Una búsqueda toma como candidatos los textos que comparten suficientes
+ * trigramas con la consulta (a distancia k se pierden a lo sumo 3k por
+ * palabra) y los puntúa con la distancia de Damerau-Levenshtein (alineación
+ * óptima) entre cada palabra de la consulta y la más parecida del texto,
+ * cortando el cálculo en cuanto supera la tolerancia de la palabra.
+ */
+final class IndiceDifuso {
+
+    private static final Pattern NO_ALFANUMERICOS = Pattern.compile("[^a-z0-9]+");
+    private static final int BITS_CARACTER = 6;
+    private static final int CANTIDAD_TRIGRAMAS = 1 << (3 * BITS_CARACTER);
+    private static final int MAXIMO_CANDIDATOS = 2000;
+    private static final int LARGO_MAXIMO_CONSULTA = 100;
+
+    private final long[] ids;
+    private final String[] textos;
+    // Textos de cada trigrama: entradas[inicio[t] .. inicio[t + 1])
+    private final int[] inicio;
+    private final int[] entradas;
+    // Trigramas presentes en más de esta cantidad de textos no discriminan y no se recorren
+    private final int maximoPorTrigrama;
+
+    private IndiceDifuso(long[] ids, String[] textos, int[] inicio, int[] entradas) {
+        this.ids = ids;
+        this.textos = textos;
+        this.inicio = inicio;
+        this.entradas = entradas;
+        this.maximoPorTrigrama = Math.max(1000, ids.length / 5);
+    }
+
+    /**
+     * Construye el índice. Los textos se normalizan aquí.
+     */
+    static IndiceDifuso construir(long[] ids, String[] textos) {
+        String[] normalizados = new String[textos.length];
+        int[][] trigramasPorTexto = new int[textos.length][];
+        int[] inicio = new int[CANTIDAD_TRIGRAMAS + 1];
+        for (int i = 0; i < textos.length; i++) {
+            normalizados[i] = normalizar(textos[i]);
+            trigramasPorTexto[i] = trigramas(normalizados[i].isEmpty() ? new String[0] : normalizados[i].split(" "));
+            for (int trigrama : trigramasPorTexto[i]) {
+                inicio[trigrama + 1]++;
+            }
+        }
+        for (int t = 0; t < CANTIDAD_TRIGRAMAS; t++) {
+            inicio[t + 1] += inicio[t];
+        }
+        int[] entradas = new int[inicio[CANTIDAD_TRIGRAMAS]];
+        int[] siguiente = Arrays.copyOf(inicio, CANTIDAD_TRIGRAMAS);
+        for (int i = 0; i < textos.length; i++) {
+            for (int trigrama : trigramasPorTexto[i]) {
+                entradas[siguiente[trigrama]++] = i;
+            }
+        }
+        return new IndiceDifuso(ids.clone(), normalizados, inicio, entradas);
+    }
+
+    int tamano() {
+        return ids.length;
+    }
+
+    /**
+     * IDs de los textos que contienen (con errores tolerables) todas las palabras
+     * de la consulta, del más parecido al menos parecido.
+     */
+    long[] buscar(String consulta, int limite) {
+        String recortada = consulta == null ? "" : consulta.length() > LARGO_MAXIMO_CONSULTA
+                ? consulta.substring(0, LARGO_MAXIMO_CONSULTA) : consulta;
+        String normalizada = normalizar(recortada);
+        if (normalizada.isEmpty() || ids.length == 0) {
+            return new long[0];
+        }
+        String[] palabras = normalizada.split(" ");
+
+        // Candidatos: textos que comparten trigramas con la consulta
+        int[] trigramas = trigramas(palabras);
+        // Cada error hace perder hasta 3 trigramas; una palabra incompleta pierde el final
+        int erroresPosibles = 0;
+        for (String palabra : palabras) {
+            erroresPosibles += 3 * tolerancia(palabra) + 1;
+        }
+        int[] coincidencias = new int[ids.length];
+        int[] tocados = new int[Math.min(ids.length, entradas.length)];
+        int cantidadTocados = 0;
+        int recorridos = 0;
+        for (int trigrama : trigramas) {
+            if (inicio[trigrama + 1] - inicio[trigrama] > maximoPorTrigrama) {
+                continue;
+            }
+            recorridos++;
+            for (int j = inicio[trigrama]; j < inicio[trigrama + 1]; j++) {
+                int texto = entradas[j];
+                if (coincidencias[texto]++ == 0) {
+                    tocados[cantidadTocados++] = texto;
+                }
+            }
+        }
+        int minimo = Math.max(1, recorridos - erroresPosibles);
+        int[] candidatos = mejoresCandidatos(tocados, cantidadTocados, coincidencias, minimo, recorridos);
+
+        // Puntuación: suma de las distancias de cada palabra a la más parecida del texto
+        int cantidad = 0;
+        long[] puntuados = new long[candidatos.length];
+        for (int texto : candidatos) {
+            int distancia = distancia(palabras, textos[texto]);
+            if (distancia >= 0) {
+                // Orden: menor distancia, más trigramas en común, texto más corto
+                puntuados[cantidad++] = ((long) distancia << 56)
+                        | ((long) (255 - Math.min(255, coincidencias[texto])) << 48)
+                        | ((long) Math.min(0xFFFF, textos[texto].length()) << 32)
+                        | texto;
+            }
+        }
+        Arrays.sort(puntuados, 0, cantidad);
+        long[] resultado = new long[Math.min(cantidad, limite)];
+        for (int i = 0; i < resultado.length; i++) {
+            resultado[i] = ids[(int) puntuados[i]];
+        }
+        return resultado;
+    }
+
+    /**
+     * Los textos con al menos {@code minimo} trigramas en común; si son demasiados,
+     * solo los que más comparten (orden por conteo, que va de 1 a maximo).
+     */
+    private static int[] mejoresCandidatos(int[] tocados, int cantidadTocados, int[] coincidencias,
+                                           int minimo, int maximo) {
+        int[] porConteo = new int[maximo + 2];
+        for (int i = 0; i < cantidadTocados; i++) {
+            int conteo = coincidencias[tocados[i]];
+            if (conteo >= minimo) {
+                porConteo[conteo]++;
+            }
+        }
+        int corte = maximo + 1;
+        int acumulados = 0;
+        while (corte > minimo && acumulados + porConteo[corte - 1] <= MAXIMO_CANDIDATOS) {
+            corte--;
+            acumulados += porConteo[corte];
+        }
+        if (corte == maximo + 1) {
+            // Ni siquiera el conteo más alto entra entero: se toman los primeros
+            corte = maximo;
+        }
+        int[] candidatos = new int[Math.min(MAXIMO_CANDIDATOS, cantidadTocados)];
+        int cantidad = 0;
+        for (int i = 0; i < cantidadTocados && cantidad < candidatos.length; i++) {
+            if (coincidencias[tocados[i]] >= corte) {
+                candidatos[cantidad++] = tocados[i];
+            }
+        }
+        return Arrays.copyOf(candidatos, cantidad);
+    }
+
+    /**
+     * Suma de distancias de cada palabra de la consulta a la palabra más parecida
+     * del texto, o -1 si alguna no tiene ninguna dentro de su tolerancia. Una
+     * palabra de 3 o más letras que es comienzo de una del texto cuenta como exacta.
+     */
+    private static int distancia(String[] palabras, String texto) {
+        String[] palabrasTexto = texto.split(" ");
+        int total = 0;
+        for (String palabra : palabras) {
+            int tolerancia = tolerancia(palabra);
+            int mejor = tolerancia + 1;
+            for (String candidata : palabrasTexto) {
+                if (palabra.length() >= 3 && candidata.startsWith(palabra)) {
+                    mejor = 0;
+                } else {
+                    mejor = Math.min(mejor, distancia(palabra, candidata, Math.min(tolerancia, mejor - 1)));
+                }
+                if (mejor == 0) {
+                    break;
+                }
+            }
+            if (mejor > tolerancia) {
+                return -1;
+            }
+            total += mejor;
+        }
+        return total;
+    }
+
+    /**
+     * Distancia de Damerau-Levenshtein (alineación óptima de cadenas) acotada:
+     * devuelve limite + 1 apenas se sabe que la supera.
+     */
+    static int distancia(String a, String b, int limite) {
+        if (Math.abs(a.length() - b.length()) > limite) {
+            return limite + 1;
+        }
+        int columnas = b.length() + 1;
+        int[] anterior2 = new int[columnas];
+        int[] anterior = new int[columnas];
+        int[] actual = new int[columnas];
+        for (int j = 0; j < columnas; j++) {
+            anterior[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            actual[0] = i;
+            int minimoFila = i;
+            for (int j = 1; j < columnas; j++) {
+                int costo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int valor = Math.min(Math.min(anterior[j] + 1, actual[j - 1] + 1), anterior[j - 1] + costo);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    valor = Math.min(valor, anterior2[j - 2] + 1);
+                }
+                actual[j] = valor;
+                minimoFila = Math.min(minimoFila, valor);
+            }
+            if (minimoFila > limite) {
+                return limite + 1;
+            }
+            int[] libre = anterior2;
+            anterior2 = anterior;
+            anterior = actual;
+            actual = libre;
+        }
+        return Math.min(anterior[columnas - 1], limite + 1);
+    }
+
+    /**
+     * Errores admitidos por palabra: ninguno en palabras de hasta 3 letras, uno
+     * hasta 5 y dos en las más largas.
+     */
+    private static int tolerancia(String palabra) {
+        return palabra.length() <= 3 ? 0 : palabra.length() <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Trigramas distintos de las palabras, ordenados.
+     */
+    static int[] trigramas(String[] palabras) {
+        int total = 0;
+        for (String palabra : palabras) {
+            total += palabra.length();
+        }
+        int[] trigramas = new int[total + palabras.length];
+        int cantidad = 0;
+        for (String palabra : palabras) {
+            int previo2 = 0;
+            int previo = 0;
+            for (int i = 0; i <= palabra.length(); i++) {
+                int codigo = i < palabra.length() ? codigo(palabra.charAt(i)) : 0;
+                if (i > 0) {
+                    trigramas[cantidad++] = (previo2 << (2 * BITS_CARACTER)) | (previo << BITS_CARACTER) | codigo;
+                }
+                previo2 = previo;
+                previo = codigo;
+            }
+        }
+        Arrays.sort(trigramas, 0, cantidad);
+        int distintos = 0;
+        for (int i = 0; i < cantidad; i++) {
+            if (i == 0 || trigramas[i] != trigramas[i - 1]) {
+                trigramas[distintos++] = trigramas[i];
+            }
+        }
+        return Arrays.copyOf(trigramas, distintos);
+    }
+
+    /**
+     * 0 para el espacio, 1-26 para las letras y 27-36 para los dígitos.
+     */
+    private static int codigo(char c) {
+        return c >= 'a' && c <= 'z' ? c - 'a' + 1 : c - '0' + 27;
+    }
+
+    /**
+     * Minúsculas, sin acentos y con un espacio entre palabras ("Márquez, G." -> "marquez g").
+     */
+    static String normalizar(String texto) {
+        return NO_ALFANUMERICOS.matcher(CatalogoPublicoService.normalizar(texto)).replaceAll(" ").trim();
+    }
+}
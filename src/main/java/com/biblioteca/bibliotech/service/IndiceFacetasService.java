@@ -0,0 +1,427 @@
+package com.biblioteca.bibliotech.service;
+
+import com.biblioteca.bibliotech.dto.request.FiltroLibrosRequest;
+import com.biblioteca.bibliotech.dto.response.FacetaResponse;
+import com.biblioteca.bibliotech.dto.response.FacetasLibrosResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Índice en memoria para el listado de libros con filtros combinables
+ * (autor, categoría, nacionalidad del autor, rango de años y disponibilidad).
+ *
+ * Cada libro tiene una posición (su orden por título) y cada valor de faceta un
+ * MapaBits con las posiciones de sus libros. Filtrar es intersecar los mapas de
+ * los filtros elegidos y contar una faceta es contar la intersección de cada uno
+ * de sus valores con el resultado de los demás filtros: ni el filtrado ni los
+ * conteos consultan la base. La búsqueda por texto sigue en SQL y llega como
+ * lista de IDs, que se convierte en un mapa más para intersecar.
+ *
+ * La disponibilidad no es parte del índice: cambia con cada préstamo y sale de
+ * DisponibilidadService, igual que las etiquetas del listado. Sus dos mapas se
+ * arman desde esa tabla y se reutilizan mientras no cambie.
+ *
+ * El índice es inmutable y se reemplaza entero (copy-on-write) cuando cambian
+ * los datos de las facetas: cada bibliotech.facetas.refresco-ms se compara la
+ * cantidad de libros y una suma de CRC32 de sus columnas indexadas (ver
+ * DetectorCambios), que no cambia con los préstamos. Los cambios de autores
+ * (nombre, nacionalidad) se recogen al reconstruir cada
+ * bibliotech.facetas.reconstruccion-ms.
+ */
+@Service
+public class IndiceFacetasService {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceFacetasService.class);
+
+    public static final int TAMANO_PAGINA = 25;
+    private static final int MAXIMO_AUTORES = 15;
+
+    // Posiciones de cada filtro en el arreglo de filtros de una búsqueda
+    private static final int TEXTO = 0;
+    private static final int AUTOR = 1;
+    private static final int CATEGORIA = 2;
+    private static final int NACIONALIDAD = 3;
+    private static final int ANIOS = 4;
+    private static final int DISPONIBILIDAD = 5;
+    private static final int CANTIDAD_FILTROS = 6;
+
+    private static final String SQL_VERSION =
+            "SELECT COUNT(*) AS libros, " +
+            "       COALESCE(SUM(CRC32(CONCAT_WS(':', id_libro, titulo, id_autor, id_categoria, anio_publicacion))), 0) " +
+            "       AS suma " +
+            "FROM libros";
+
+    private static final String SQL_INDICE =
+            "SELECT l.id_libro, l.anio_publicacion, " +
+            "       a.id_autor, a.nombre AS autor, a.nacionalidad, c.id_categoria, c.nombre AS categoria " +
+            "FROM libros l " +
+            "LEFT JOIN autores a ON a.id_autor = l.id_autor " +
+            "LEFT JOIN categorias c ON c.id_categoria = l.id_categoria " +
+            "ORDER BY l.titulo, l.id_libro";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DisponibilidadService disponibilidadService;
+    private final DetectorCambios detectorCambios;
+
+    private volatile Indice indice;
+    private volatile Disponibilidad disponibilidad;
+
+    public IndiceFacetasService(JdbcTemplate jdbcTemplate,
+                                DisponibilidadService disponibilidadService,
+                                @Value("${bibliotech.facetas.reconstruccion-ms:3600000}") long reconstruccionMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.disponibilidadService = disponibilidadService;
+        this.detectorCambios = new DetectorCambios(jdbcTemplate, SQL_VERSION, reconstruccionMs);
+    }
+
+    /**
+     * Libros con y sin ejemplares disponibles, armados para un índice con la
+     * versión indicada de la tabla de disponibilidad.
+     */
+    private record Disponibilidad(Indice indice, long version, MapaBits disponibles, MapaBits sinStock) {
+    }
+
+    /**
+     * Página de IDs (en orden de título) y facetas de una búsqueda.
+     */
+    public record Resultado(List<Long> ids, int total, int pagina, int totalPaginas, FacetasLibrosResponse facetas) {
+    }
+
+    /**
+     * Libros del índice con los datos de cada faceta. Inmutable.
+     */
+    private static final class Indice {
+
+        private final long[] ids;
+        private final Map<Long, Integer> posiciones;
+        private final MapaBits todos;
+        private final Map<Long, MapaBits> porAutor;
+        private final Map<Long, String> nombresAutores;
+        private final Map<Long, MapaBits> porCategoria;
+        private final Map<Long, String> nombresCategorias;
+        private final Map<String, MapaBits> porNacionalidad;
+        private final NavigableMap<Integer, MapaBits> porAnio;
+        private final NavigableMap<Integer, MapaBits> porDecada;
+
+        private Indice(long[] ids, Map<Long, Integer> posiciones,
+                       Map<Long, MapaBits> porAutor, Map<Long, String> nombresAutores,
+                       Map<Long, MapaBits> porCategoria, Map<Long, String> nombresCategorias,
+                       Map<String, MapaBits> porNacionalidad,
+                       NavigableMap<Integer, MapaBits> porAnio, NavigableMap<Integer, MapaBits> porDecada) {
+            this.ids = ids;
+            this.posiciones = posiciones;
+            this.todos = MapaBits.completo(ids.length);
+            this.porAutor = porAutor;
+            this.nombresAutores = nombresAutores;
+            this.porCategoria = porCategoria;
+            this.nombresCategorias = nombresCategorias;
+            this.porNacionalidad = porNacionalidad;
+            this.porAnio = porAnio;
+            this.porDecada = porDecada;
+        }
+    }
+
+    // ==================== CONSULTA ====================
+
+    public boolean estaCargado() {
+        return indice != null;
+    }
+
+    /**
+     * Aplica los filtros y cuenta las facetas.
+     *
+     * @param idsTexto       IDs que coinciden con la búsqueda por texto, o null si no hay búsqueda
+     * @param ordenRelevancia Si la página sigue el orden de idsTexto (del más al menos
+     *                       parecido) en lugar del orden por título
+     * @return El resultado, o null si el índice o la tabla de disponibilidad todavía no están cargados
+     */
+    public Resultado buscar(FiltroLibrosRequest filtro, List<Long> idsTexto, boolean ordenRelevancia) {
+        Indice actual = indice;
+        if (actual == null) {
+            return null;
+        }
+        Disponibilidad disponibilidad = disponibilidad(actual);
+        if (disponibilidad == null) {
+            return null;
+        }
+        int tamano = actual.ids.length;
+
+        MapaBits[] filtros = new MapaBits[CANTIDAD_FILTROS];
+        if (idsTexto != null) {
+            filtros[TEXTO] = mapa(actual, idsTexto);
+        }
+        if (filtro.getAutorId() != null) {
+            filtros[AUTOR] = actual.porAutor.getOrDefault(filtro.getAutorId(), MapaBits.vacio(tamano));
+        }
+        if (filtro.getCategoriaId() != null) {
+            filtros[CATEGORIA] = actual.porCategoria.getOrDefault(filtro.getCategoriaId(), MapaBits.vacio(tamano));
+        }
+        if (filtro.getNacionalidad() != null && !filtro.getNacionalidad().isBlank()) {
+            filtros[NACIONALIDAD] = actual.porNacionalidad.getOrDefault(filtro.getNacionalidad().trim(),
+                    MapaBits.vacio(tamano));
+        }
+        if (filtro.getAnioDesde() != null || filtro.getAnioHasta() != null) {
+            int desde = filtro.getAnioDesde() != null ? filtro.getAnioDesde() : Integer.MIN_VALUE;
+            int hasta = filtro.getAnioHasta() != null ? filtro.getAnioHasta() : Integer.MAX_VALUE;
+            MapaBits anios = MapaBits.vacio(tamano);
+            if (desde <= hasta) {
+                for (MapaBits anio : actual.porAnio.subMap(desde, true, hasta, true).values()) {
+                    anios = anios.union(anio);
+                }
+            }
+            filtros[ANIOS] = anios;
+        }
+        if (filtro.soloDisponibles()) {
+            filtros[DISPONIBILIDAD] = disponibilidad.disponibles();
+        } else if (filtro.soloSinStock()) {
+            filtros[DISPONIBILIDAD] = disponibilidad.sinStock();
+        }
+
+        MapaBits resultado = interseccion(actual, filtros, -1);
+        int total = resultado.cardinalidad();
+        int totalPaginas = (total + TAMANO_PAGINA - 1) / TAMANO_PAGINA;
+        int pagina = Math.max(0, Math.min(filtro.getPage(), totalPaginas - 1));
+        List<Long> ids = new ArrayList<>(TAMANO_PAGINA);
+        if (ordenRelevancia && idsTexto != null) {
+            // Pocos IDs (los de la búsqueda aproximada): se recorren en su orden
+            int saltar = pagina * TAMANO_PAGINA;
+            for (Long id : idsTexto) {
+                Integer posicion = actual.posiciones.get(id);
+                if (posicion == null || !resultado.contiene(posicion) || saltar-- > 0) {
+                    continue;
+                }
+                ids.add(id);
+                if (ids.size() == TAMANO_PAGINA) {
+                    break;
+                }
+            }
+        } else {
+            for (int posicion : resultado.posiciones(pagina * TAMANO_PAGINA, TAMANO_PAGINA)) {
+                ids.add(actual.ids[posicion]);
+            }
+        }
+
+        return new Resultado(ids, total, pagina, totalPaginas, facetas(actual, disponibilidad, filtros, filtro));
+    }
+
+    /**
+     * Mapas de disponibilidad del índice, rearmados solo cuando cambió la tabla
+     * de disponibilidad o el índice.
+     *
+     * @return Los mapas, o null si la tabla de disponibilidad no está cargada
+     */
+    private Disponibilidad disponibilidad(Indice actual) {
+        // La versión se lee antes que los IDs: un cambio en el medio solo fuerza rearmar otra vez
+        long version = disponibilidadService.version();
+        Disponibilidad vigente = disponibilidad;
+        if (vigente != null && vigente.indice() == actual && vigente.version() == version) {
+            return vigente;
+        }
+        List<Long> disponibles = disponibilidadService.ids(true);
+        List<Long> sinStock = disponibilidadService.ids(false);
+        if (disponibles == null || sinStock == null) {
+            return null;
+        }
+        Disponibilidad nueva = new Disponibilidad(actual, version, mapa(actual, disponibles), mapa(actual, sinStock));
+        disponibilidad = nueva;
+        return nueva;
+    }
+
+    /**
+     * Posiciones de los libros indicados; los que no están en el índice se omiten.
+     */
+    private static MapaBits mapa(Indice actual, Collection<Long> ids) {
+        int[] posiciones = new int[ids.size()];
+        int cantidad = 0;
+        for (Long id : ids) {
+            Integer posicion = actual.posiciones.get(id);
+            if (posicion != null) {
+                posiciones[cantidad++] = posicion;
+            }
+        }
+        return MapaBits.de(Arrays.copyOf(posiciones, cantidad), actual.ids.length);
+    }
+
+    private FacetasLibrosResponse facetas(Indice actual, Disponibilidad disponibilidad, MapaBits[] filtros,
+                                          FiltroLibrosRequest filtro) {
+        MapaBits sinAutor = interseccion(actual, filtros, AUTOR);
+        List<FacetaResponse> autores = contar(actual.porAutor, sinAutor, filtro.getAutorId(),
+                String::valueOf, actual.nombresAutores::get);
+        autores.sort(Comparator.comparingInt(FacetaResponse::getCantidad).reversed()
+                .thenComparing(FacetaResponse::getEtiqueta, String.CASE_INSENSITIVE_ORDER));
+        if (autores.size() > MAXIMO_AUTORES) {
+            List<FacetaResponse> primeros = new ArrayList<>(autores.subList(0, MAXIMO_AUTORES));
+            autores.stream().skip(MAXIMO_AUTORES).filter(FacetaResponse::isSeleccionada).forEach(primeros::add);
+            autores = primeros;
+        }
+
+        List<FacetaResponse> categorias = contar(actual.porCategoria, interseccion(actual, filtros, CATEGORIA),
+                filtro.getCategoriaId(), String::valueOf, actual.nombresCategorias::get);
+        categorias.sort(Comparator.comparing(FacetaResponse::getEtiqueta, String.CASE_INSENSITIVE_ORDER));
+
+        String nacionalidad = filtro.getNacionalidad() != null ? filtro.getNacionalidad().trim() : null;
+        List<FacetaResponse> nacionalidades = contar(actual.porNacionalidad, interseccion(actual, filtros, NACIONALIDAD),
+                nacionalidad, Function.identity(), Function.identity());
+        nacionalidades.sort(Comparator.comparingInt(FacetaResponse::getCantidad).reversed()
+                .thenComparing(FacetaResponse::getEtiqueta, String.CASE_INSENSITIVE_ORDER));
+
+        // Una década está elegida si el rango de años es exactamente el suyo
+        Integer decadaElegida = filtro.getAnioDesde() != null && filtro.getAnioHasta() != null
+                && Math.floorMod(filtro.getAnioDesde(), 10) == 0 && filtro.getAnioHasta() == filtro.getAnioDesde() + 9
+                ? filtro.getAnioDesde() : null;
+        List<FacetaResponse> decadas = contar(actual.porDecada, interseccion(actual, filtros, ANIOS),
+                decadaElegida, String::valueOf, decada -> decada + "s");
+
+        MapaBits sinDisponibilidad = interseccion(actual, filtros, DISPONIBILIDAD);
+        int disponibles = sinDisponibilidad.cardinalidadInterseccion(disponibilidad.disponibles());
+        int sinStock = sinDisponibilidad.cardinalidadInterseccion(disponibilidad.sinStock());
+
+        return FacetasLibrosResponse.builder()
+                .autores(autores)
+                .categorias(categorias)
+                .nacionalidades(nacionalidades)
+                .decadas(decadas)
+                .disponibles(disponibles)
+                .sinStock(sinStock)
+                .build();
+    }
+
+    /**
+     * Intersección de todos los filtros activos salvo el indicado (-1 para ninguno).
+     * Empieza por el más chico para que los pasos siguientes recorran menos posiciones.
+     */
+    private static MapaBits interseccion(Indice actual, MapaBits[] filtros, int excluido) {
+        List<MapaBits> activos = new ArrayList<>(CANTIDAD_FILTROS);
+        for (int i = 0; i < filtros.length; i++) {
+            if (i != excluido && filtros[i] != null) {
+                activos.add(filtros[i]);
+            }
+        }
+        activos.sort(Comparator.comparingInt(MapaBits::cardinalidad));
+        MapaBits resultado = actual.todos;
+        for (MapaBits filtro : activos) {
+            resultado = resultado.interseccion(filtro);
+        }
+        return resultado;
+    }
+
+    /**
+     * Cantidad de libros de cada valor dentro de la base; omite los que quedan
+     * en cero salvo el elegido, para poder quitarlo.
+     */
+    private static <K> List<FacetaResponse> contar(Map<K, MapaBits> porValor, MapaBits base, K elegido,
+                                                   Function<K, String> valor, Function<K, String> etiqueta) {
+        List<FacetaResponse> facetas = new ArrayList<>();
+        for (Map.Entry<K, MapaBits> entrada : porValor.entrySet()) {
+            int cantidad = base.cardinalidad() == 0 ? 0 : base.cardinalidadInterseccion(entrada.getValue());
+            boolean seleccionada = entrada.getKey().equals(elegido);
+            if (cantidad > 0 || seleccionada) {
+                facetas.add(FacetaResponse.builder()
+                        .valor(valor.apply(entrada.getKey()))
+                        .etiqueta(Objects.toString(etiqueta.apply(entrada.getKey()), ""))
+                        .cantidad(cantidad)
+                        .seleccionada(seleccionada)
+                        .build());
+            }
+        }
+        return facetas;
+    }
+
+    // ==================== CONSTRUCCIÓN ====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        refrescar();
+    }
+
+    /**
+     * Reconstruye el índice si cambiaron los datos de las facetas (o si pasó el plazo de reconstrucción).
+     */
+    @Scheduled(fixedDelayString = "${bibliotech.facetas.refresco-ms:5000}",
+               initialDelayString = "${bibliotech.facetas.refresco-ms:5000}")
+    public synchronized void refrescar() {
+        try {
+            DetectorCambios.Version version = detectorCambios.verificar();
+            if (version == null) {
+                return;
+            }
+            indice = construir();
+            detectorCambios.construida(version);
+        } catch (DataAccessException e) {
+            // Se sigue usando el índice anterior; sin índice el listado filtra con SQL
+            log.warn("No se pudo actualizar el índice de facetas de libros", e);
+        }
+    }
+
+    private Indice construir() {
+        long inicio = System.currentTimeMillis();
+        List<Long> ids = new ArrayList<>();
+        Map<Long, MapaBits.Constructor> porAutor = new HashMap<>();
+        Map<Long, String> nombresAutores = new HashMap<>();
+        Map<Long, MapaBits.Constructor> porCategoria = new HashMap<>();
+        Map<Long, String> nombresCategorias = new HashMap<>();
+        Map<String, MapaBits.Constructor> porNacionalidad = new HashMap<>();
+        Map<Integer, MapaBits.Constructor> porAnio = new HashMap<>();
+        Map<Integer, MapaBits.Constructor> porDecada = new HashMap<>();
+
+        jdbcTemplate.query(SQL_INDICE, rs -> {
+            int posicion = ids.size();
+            ids.add(rs.getLong("id_libro"));
+
+            long autorId = rs.getLong("id_autor");
+            if (!rs.wasNull()) {
+                porAutor.computeIfAbsent(autorId, id -> new MapaBits.Constructor()).agregar(posicion);
+                nombresAutores.putIfAbsent(autorId, rs.getString("autor"));
+                String nacionalidad = rs.getString("nacionalidad");
+                if (nacionalidad != null && !nacionalidad.isBlank()) {
+                    porNacionalidad.computeIfAbsent(nacionalidad.trim(), n -> new MapaBits.Constructor())
+                            .agregar(posicion);
+                }
+            }
+            long categoriaId = rs.getLong("id_categoria");
+            if (!rs.wasNull()) {
+                porCategoria.computeIfAbsent(categoriaId, id -> new MapaBits.Constructor()).agregar(posicion);
+                nombresCategorias.putIfAbsent(categoriaId, rs.getString("categoria"));
+            }
+            int anio = rs.getInt("anio_publicacion");
+            if (!rs.wasNull()) {
+                porAnio.computeIfAbsent(anio, a -> new MapaBits.Constructor()).agregar(posicion);
+                porDecada.computeIfAbsent(Math.floorDiv(anio, 10) * 10, d -> new MapaBits.Constructor())
+                        .agregar(posicion);
+            }
+        });
+
+        int tamano = ids.size();
+        long[] arregloIds = new long[tamano];
+        Map<Long, Integer> posiciones = new HashMap<>(tamano * 2);
+        for (int i = 0; i < tamano; i++) {
+            arregloIds[i] = ids.get(i);
+            posiciones.put(arregloIds[i], i);
+        }
+
+        Indice nuevo = new Indice(arregloIds, posiciones,
+                construir(porAutor, tamano, new HashMap<>()), nombresAutores,
+                construir(porCategoria, tamano, new HashMap<>()), nombresCategorias,
+                construir(porNacionalidad, tamano, new HashMap<>()),
+                construir(porAnio, tamano, new TreeMap<>()), construir(porDecada, tamano, new TreeMap<>()));
+        log.info("Índice de facetas de libros construido en {} ms: {} libros, {} autores",
+                System.currentTimeMillis() - inicio, tamano, porAutor.size());
+        return nuevo;
+    }
+
+    private static <K, M extends Map<K, MapaBits>> M construir(Map<K, MapaBits.Constructor> constructores,
+                                                               int tamano, M destino) {
+        constructores.forEach((clave, constructor) -> destino.put(clave, constructor.construir(tamano)));
+        return destino;
+    }
+}
@@ -0,0 +1,172 @@
+package com.biblioteca.bibliotech.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Servicio para limitar intentos de login fallidos.
+ * Mantiene en memoria un contador de fallos por ventana deslizante para cada
+ * username y cada IP, de modo que las ráfagas abusivas se rechazan antes de
+ * consultar la base de datos o calcular el hash de la contraseña.
+ * 
+ * Implementación: dos tablas fijas de franjas (stripes) indexadas por hash de la
+ * clave, una para usernames y otra para IPs, así una ráfaga de usernames distintos
+ * no llena las franjas de las IPs (ni al revés). Cada franja tiene N cubetas de
+ * tiempo; cada cubeta es un long que empaqueta (número de cubeta << 16 | contador)
+ * y se actualiza con CAS, sin bloqueos. La memoria es constante aunque un
+ * atacante use miles de usernames distintos.
+ * 
+ * Cada franja de usernames guarda además la huella (hash de 64 bits) del username
+ * que falló en ella, o COMPARTIDA si en la ventana fallaron dos usernames que
+ * caen en la misma franja. Un login correcto solo reinicia la franja si la huella
+ * es la suya; una franja compartida no se reinicia y decae con la ventana, así el
+ * éxito de un usuario no borra los fallos de otro.
+ */
+@Service
+public class IntentosLoginService {
+    
+    private static final int FRANJAS = 8192;
+    private static final int CUBETAS = 10;
+    private static final int BITS_CONTADOR = 16;
+    private static final long MASCARA_CONTADOR = (1L << BITS_CONTADOR) - 1;
+    private static final long SIN_HUELLA = 0L;
+    private static final long COMPARTIDA = -1L;
+    
+    private final AtomicLongArray usuarios = new AtomicLongArray(FRANJAS * CUBETAS);
+    private final AtomicLongArray ips = new AtomicLongArray(FRANJAS * CUBETAS);
+    private final AtomicLongArray huellas = new AtomicLongArray(FRANJAS);
+    private final long duracionCubetaMillis;
+    private final int maxPorUsuario;
+    private final int maxPorIp;
+    
+    public IntentosLoginService(@Value("${bibliotech.auth.intentos.ventana:5m}") Duration ventana,
+                                @Value("${bibliotech.auth.intentos.max-por-usuario:5}") int maxPorUsuario,
+                                @Value("${bibliotech.auth.intentos.max-por-ip:20}") int maxPorIp) {
+        this.duracionCubetaMillis = Math.max(1, ventana.toMillis() / CUBETAS);
+        this.maxPorUsuario = maxPorUsuario;
+        this.maxPorIp = maxPorIp;
+    }
+    
+    /**
+     * Verifica si el username o la IP superaron el límite de fallos en la ventana.
+     */
+    public boolean estaBloqueado(String username, String ip) {
+        long cubetaActual = cubetaActual();
+        return contar(usuarios, franja(claveUsuario(username)), cubetaActual) >= maxPorUsuario
+                || contar(ips, franja(claveIp(ip)), cubetaActual) >= maxPorIp;
+    }
+    
+    /**
+     * Registra un intento fallido para el username y la IP.
+     */
+    public void registrarFallo(String username, String ip) {
+        long cubetaActual = cubetaActual();
+        String clave = claveUsuario(username);
+        int franja = franja(clave);
+        marcarHuella(franja, huella(clave), cubetaActual);
+        incrementar(usuarios, franja, cubetaActual);
+        incrementar(ips, franja(claveIp(ip)), cubetaActual);
+    }
+    
+    /**
+     * Reinicia el contador del username tras un login correcto, solo si su
+     * franja no tiene fallos de otro username; si los tiene, decae con la ventana.
+     * El contador de la IP se mantiene y decae con la ventana.
+     */
+    public void registrarExito(String username) {
+        String clave = claveUsuario(username);
+        int franja = franja(clave);
+        if (!huellas.compareAndSet(franja, huella(clave), SIN_HUELLA)) {
+            return;
+        }
+        int base = franja * CUBETAS;
+        for (int i = 0; i < CUBETAS; i++) {
+            usuarios.set(base + i, 0L);
+        }
+    }
+    
+    /**
+     * Anota la huella del username que falla en su franja. Si la franja ya tiene
+     * fallos vigentes de otro username, queda marcada como compartida.
+     */
+    private void marcarHuella(int franja, long huella, long cubetaActual) {
+        while (true) {
+            long actual = huellas.get(franja);
+            if (actual == huella || actual == COMPARTIDA && contar(usuarios, franja, cubetaActual) > 0) {
+                return;
+            }
+            long nueva = actual == SIN_HUELLA || contar(usuarios, franja, cubetaActual) == 0
+                    ? huella : COMPARTIDA;
+            if (huellas.compareAndSet(franja, actual, nueva)) {
+                return;
+            }
+        }
+    }
+    
+    private static void incrementar(AtomicLongArray tabla, int franja, long cubetaActual) {
+        int indice = franja * CUBETAS + (int) (cubetaActual % CUBETAS);
+        while (true) {
+            long actual = tabla.get(indice);
+            long nuevo;
+            if ((actual >>> BITS_CONTADOR) != cubetaActual) {
+                nuevo = (cubetaActual << BITS_CONTADOR) | 1L;
+            } else if ((actual & MASCARA_CONTADOR) < MASCARA_CONTADOR) {
+                nuevo = actual + 1;
+            } else {
+                return; // Contador saturado
+            }
+            if (tabla.compareAndSet(indice, actual, nuevo)) {
+                return;
+            }
+        }
+    }
+    
+    private static int contar(AtomicLongArray tabla, int franja, long cubetaActual) {
+        int base = franja * CUBETAS;
+        int total = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            long valor = tabla.get(base + i);
+            long cubeta = valor >>> BITS_CONTADOR;
+            // Solo cuentan las cubetas dentro de la ventana deslizante
+            if (cubetaActual - cubeta < CUBETAS) {
+                total += (int) (valor & MASCARA_CONTADOR);
+            }
+        }
+        return total;
+    }
+    
+    private long cubetaActual() {
+        return System.currentTimeMillis() / duracionCubetaMillis;
+    }
+    
+    private static int franja(String clave) {
+        int h = clave.hashCode();
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        return h & (FRANJAS - 1);
+    }
+    
+    /**
+     * Hash FNV-1a de 64 bits, independiente del hashCode que elige la franja.
+     */
+    private static long huella(String clave) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < clave.length(); i++) {
+            h ^= clave.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h == SIN_HUELLA || h == COMPARTIDA ? 1L : h;
+    }
+    
+    private static String claveUsuario(String username) {
+        return username == null ? "" : username.trim().toLowerCase();
+    }
+    
+    private static String claveIp(String ip) {
+        return ip == null ? "" : ip;
+    }
+}
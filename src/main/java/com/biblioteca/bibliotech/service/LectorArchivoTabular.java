@@ -0,0 +1,413 @@
+package com.biblioteca.bibliotech.service;
+
+import com.biblioteca.bibliotech.exception.BusinessException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Lector en streaming de archivos tabulares (CSV o XLSX) para importaciones masivas.
+ * Nunca carga el archivo completo en memoria: los CSV se leen línea a línea y los
+ * Excel con el lector SAX de POI (sin construir el XSSFWorkbook).
+ *
+ * La primera fila no vacía se toma como encabezado. Los nombres de columna se
+ * normalizan (minúsculas, sin tildes ni espacios) y se traducen con el mapa de alias.
+ */
+public final class LectorArchivoTabular {
+
+    private LectorArchivoTabular() {
+    }
+
+    /**
+     * Fila de datos del archivo con acceso por nombre de columna.
+     */
+    public static final class Fila {
+
+        private final int numero;
+        private final String[] valores;
+        private final BitSet numericas;
+        private final Map<String, Integer> columnas;
+
+        private Fila(int numero, String[] valores, BitSet numericas, Map<String, Integer> columnas) {
+            this.numero = numero;
+            this.valores = valores;
+            this.numericas = numericas;
+            this.columnas = columnas;
+        }
+
+        /**
+         * Número de fila en el archivo (1 = encabezado).
+         */
+        public int getNumero() {
+            return numero;
+        }
+
+        /**
+         * Valor de la columna sin espacios alrededor, o null si está vacío.
+         */
+        public String get(String columna) {
+            Integer indice = columnas.get(columna);
+            if (indice == null || indice >= valores.length || valores[indice] == null) {
+                return null;
+            }
+            String valor = valores[indice].trim();
+            return valor.isEmpty() ? null : valor;
+        }
+
+        /**
+         * Si la celda de la columna está guardada como número en el Excel
+         * (en un CSV todas son texto).
+         */
+        public boolean esNumerica(String columna) {
+            Integer indice = columnas.get(columna);
+            return numericas != null && indice != null && numericas.get(indice);
+        }
+    }
+
+    /**
+     * Lee el archivo y entrega cada fila de datos al consumidor, en orden.
+     *
+     * @param archivo      Archivo subido (.csv o .xlsx)
+     * @param alias        Encabezado normalizado -> nombre de columna
+     * @param obligatorias Columnas que deben estar presentes en el encabezado
+     * @param consumidor   Recibe cada fila de datos
+     */
+    public static void leer(MultipartFile archivo,
+                            Map<String, String> alias,
+                            Set<String> obligatorias,
+                            Consumer<Fila> consumidor) throws IOException {
+        if (archivo == null || archivo.isEmpty()) {
+            throw new BusinessException(BusinessException.ARCHIVO_INVALIDO, "Debe seleccionar un archivo");
+        }
+
+        String nombre = archivo.getOriginalFilename() != null
+                ? archivo.getOriginalFilename().toLowerCase(Locale.ROOT) : "";
+        ProcesadorFilas procesador = new ProcesadorFilas(alias, obligatorias, consumidor);
+
+        if (nombre.endsWith(".xlsx")) {
+            leerXlsx(archivo, procesador);
+        } else if (nombre.endsWith(".csv") || nombre.endsWith(".txt")) {
+            leerCsv(archivo, procesador);
+        } else {
+            throw new BusinessException(BusinessException.ARCHIVO_INVALIDO,
+                    "Formato no soportado. Use un archivo .csv o .xlsx");
+        }
+
+        if (!procesador.tieneEncabezado()) {
+            throw new BusinessException(BusinessException.ARCHIVO_INVALIDO, "El archivo está vacío");
+        }
+    }
+
+    /**
+     * Normaliza un encabezado: minúsculas, sin tildes y solo letras y dígitos.
+     * Por ejemplo "Año de Publicación" -> "anodepublicacion".
+     */
+    public static String normalizarEncabezado(String encabezado) {
+        String sinTildes = Normalizer.normalize(encabezado, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(sinTildes.length());
+        for (int i = 0; i < sinTildes.length(); i++) {
+            char c = Character.toLowerCase(sinTildes.charAt(i));
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    // ==================== CSV ====================
+
+    private static void leerCsv(MultipartFile archivo, ProcesadorFilas procesador) throws IOException {
+        try (BufferedReader lector = new BufferedReader(
+                new InputStreamReader(archivo.getInputStream(), StandardCharsets.UTF_8))) {
+
+            char separador = detectarSeparador(lector);
+            int numero = 0;
+            List<String> campos;
+            while ((campos = leerRegistroCsv(lector, separador)) != null) {
+                numero++;
+                procesador.procesar(numero, campos.toArray(new String[0]), null);
+            }
+        }
+    }
+
+    /**
+     * Detecta el separador (';' o ',') mirando la primera línea sin consumirla.
+     * Excel en configuración regional española exporta CSV con ';'.
+     */
+    private static char detectarSeparador(BufferedReader lector) throws IOException {
+        lector.mark(8192);
+        String primera = lector.readLine();
+        lector.reset();
+
+        if (primera != null && !primera.isEmpty() && primera.charAt(0) == '\uFEFF') {
+            // Saltar el BOM que agrega Excel al guardar como "CSV UTF-8"
+            lector.skip(1);
+        }
+        if (primera == null) {
+            return ',';
+        }
+
+        int comas = 0;
+        int puntoYComa = 0;
+        for (int i = 0; i < primera.length(); i++) {
+            char c = primera.charAt(i);
+            if (c == ',') {
+                comas++;
+            } else if (c == ';') {
+                puntoYComa++;
+            }
+        }
+        return puntoYComa > comas ? ';' : ',';
+    }
+
+    /**
+     * Lee un registro CSV (RFC 4180): admite campos entre comillas con
+     * separadores, comillas dobles escapadas y saltos de línea.
+     *
+     * @return Campos del registro, o null al final del archivo
+     */
+    private static List<String> leerRegistroCsv(BufferedReader lector, char separador) throws IOException {
+        String linea = lector.readLine();
+        if (linea == null) {
+            return null;
+        }
+
+        List<String> campos = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+
+        while (true) {
+            for (int i = 0; i < linea.length(); i++) {
+                char c = linea.charAt(i);
+                if (entreComillas) {
+                    if (c == '"') {
+                        if (i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                            actual.append('"');
+                            i++;
+                        } else {
+                            entreComillas = false;
+                        }
+                    } else {
+                        actual.append(c);
+                    }
+                } else if (c == '"') {
+                    entreComillas = true;
+                } else if (c == separador) {
+                    campos.add(actual.toString());
+                    actual.setLength(0);
+                } else {
+                    actual.append(c);
+                }
+            }
+
+            if (!entreComillas) {
+                break;
+            }
+            // Campo entre comillas que continúa en la siguiente línea
+            linea = lector.readLine();
+            if (linea == null) {
+                break;
+            }
+            actual.append('\n');
+        }
+
+        campos.add(actual.toString());
+        return campos;
+    }
+
+    // ==================== XLSX ====================
+
+    private static void leerXlsx(MultipartFile archivo, ProcesadorFilas procesador) throws IOException {
+        // OPCPackage necesita acceso aleatorio al zip: se trabaja sobre un archivo temporal
+        Path temporal = Files.createTempFile("bibliotech-importacion-", ".xlsx");
+        try {
+            archivo.transferTo(temporal);
+
+            try (OPCPackage paquete = OPCPackage.open(temporal.toFile(), PackageAccess.READ)) {
+                XSSFReader lectorXssf = new XSSFReader(paquete);
+                ReadOnlySharedStringsTable cadenas = new ReadOnlySharedStringsTable(paquete);
+                StylesTable estilos = lectorXssf.getStylesTable();
+
+                Iterator<InputStream> hojas = lectorXssf.getSheetsData();
+                if (!hojas.hasNext()) {
+                    return;
+                }
+
+                // Solo se importa la primera hoja
+                try (InputStream hoja = hojas.next()) {
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new ParserHoja(estilos, cadenas, new ManejadorHoja(procesador)));
+                    parser.parse(new InputSource(hoja));
+                }
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new BusinessException(BusinessException.ARCHIVO_INVALIDO,
+                    "No se pudo leer el archivo Excel: " + e.getMessage());
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    /**
+     * Parser SAX de la hoja que además anota el tipo de cada celda: el valor
+     * formateado de una celda numérica no se distingue del de una de texto.
+     */
+    private static final class ParserHoja extends XSSFSheetXMLHandler {
+
+        private final ManejadorHoja manejador;
+
+        private ParserHoja(StylesTable estilos, ReadOnlySharedStringsTable cadenas, ManejadorHoja manejador) {
+            super(estilos, cadenas, manejador, new DataFormatter(), false);
+            this.manejador = manejador;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atributos)
+                throws SAXException {
+            if ("c".equals(localName)) {
+                // Sin atributo t (o t="n") la celda guarda un número
+                String tipo = atributos.getValue("t");
+                manejador.celdaNumerica = tipo == null || "n".equals(tipo);
+            }
+            super.startElement(uri, localName, qName, atributos);
+        }
+    }
+
+    /**
+     * Recibe las celdas del parser SAX y arma las filas.
+     * Las celdas vacías no generan eventos, por eso se ubican por su referencia (A1, B1...).
+     */
+    private static final class ManejadorHoja implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final ProcesadorFilas procesador;
+        private final List<String> valores = new ArrayList<>();
+        private final BitSet numericas = new BitSet();
+        // Tipo de la celda en curso, lo fija ParserHoja al abrir la celda
+        private boolean celdaNumerica;
+
+        private ManejadorHoja(ProcesadorFilas procesador) {
+            this.procesador = procesador;
+        }
+
+        @Override
+        public void startRow(int numeroFila) {
+            valores.clear();
+            numericas.clear();
+        }
+
+        @Override
+        public void endRow(int numeroFila) {
+            procesador.procesar(numeroFila + 1, valores.toArray(new String[0]), (BitSet) numericas.clone());
+        }
+
+        @Override
+        public void cell(String referencia, String valor, XSSFComment comentario) {
+            int columna = referencia != null ? new CellReference(referencia).getCol() : valores.size();
+            while (valores.size() < columna) {
+                valores.add(null);
+            }
+            if (columna < valores.size()) {
+                valores.set(columna, valor);
+            } else {
+                valores.add(valor);
+            }
+            numericas.set(columna, celdaNumerica);
+        }
+    }
+
+    // ==================== Común ====================
+
+    /**
+     * Interpreta el encabezado y convierte el resto de registros en filas.
+     */
+    private static final class ProcesadorFilas {
+
+        private final Map<String, String> alias;
+        private final Set<String> obligatorias;
+        private final Consumer<Fila> consumidor;
+        private Map<String, Integer> columnas;
+
+        private ProcesadorFilas(Map<String, String> alias, Set<String> obligatorias, Consumer<Fila> consumidor) {
+            this.alias = alias;
+            this.obligatorias = obligatorias;
+            this.consumidor = consumidor;
+        }
+
+        boolean tieneEncabezado() {
+            return columnas != null;
+        }
+
+        void procesar(int numero, String[] valores, BitSet numericas) {
+            if (esVacia(valores)) {
+                return;
+            }
+
+            if (columnas == null) {
+                columnas = leerEncabezado(valores);
+                return;
+            }
+
+            consumidor.accept(new Fila(numero, valores, numericas, columnas));
+        }
+
+        private Map<String, Integer> leerEncabezado(String[] valores) {
+            Map<String, Integer> resultado = new HashMap<>();
+            for (int i = 0; i < valores.length; i++) {
+                if (valores[i] == null) {
+                    continue;
+                }
+                String columna = alias.get(normalizarEncabezado(valores[i]));
+                if (columna != null) {
+                    resultado.putIfAbsent(columna, i);
+                }
+            }
+
+            List<String> faltantes = new ArrayList<>();
+            for (String obligatoria : obligatorias) {
+                if (!resultado.containsKey(obligatoria)) {
+                    faltantes.add(obligatoria);
+                }
+            }
+            if (!faltantes.isEmpty()) {
+                Collections.sort(faltantes);
+                throw new BusinessException(BusinessException.ARCHIVO_INVALIDO,
+                        "Faltan columnas obligatorias en el encabezado: " + String.join(", ", faltantes));
+            }
+            return resultado;
+        }
+
+        private static boolean esVacia(String[] valores) {
+            for (String valor : valores) {
+                if (valor != null && !valor.isBlank()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
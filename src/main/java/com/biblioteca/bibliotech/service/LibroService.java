@@ -1,24 +1,38 @@
 package com.biblioteca.bibliotech.service;
 
+import com.biblioteca.bibliotech.dto.request.FiltroLibrosRequest;
 import com.biblioteca.bibliotech.dto.request.LibroRequest;
+import com.biblioteca.bibliotech.dto.response.BusquedaLibrosResponse;
 import com.biblioteca.bibliotech.dto.response.LibroResponse;
 import com.biblioteca.bibliotech.entity.Autor;
 import com.biblioteca.bibliotech.entity.Categoria;
 import com.biblioteca.bibliotech.entity.Libro;
+import com.biblioteca.bibliotech.enums.EstadoEjemplar;
 import com.biblioteca.bibliotech.exception.BusinessException;
 import com.biblioteca.bibliotech.exception.ResourceNotFoundException;
 import com.biblioteca.bibliotech.mapper.LibroMapper;
 import com.biblioteca.bibliotech.repository.AutorRepository;
 import com.biblioteca.bibliotech.repository.CategoriaRepository;
+import com.biblioteca.bibliotech.repository.EjemplarRepository;
 import com.biblioteca.bibliotech.repository.LibroRepository;
+import com.biblioteca.bibliotech.repository.PrestamoHistoricoRepository;
+import com.biblioteca.bibliotech.repository.ReservaRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * Servicio para gestión de libros.
- * Incluye control de stock y validaciones.
+ * Incluye control de stock y validaciones. El stock se lleva por ejemplar
+ * (ver EjemplarService); los contadores del libro se derivan de los ejemplares.
+ * La disponibilidad que se muestra y los filtros por stock salen de la tabla
+ * en memoria de DisponibilidadService; el listado con filtros combinables,
+ * del índice de facetas de IndiceFacetasService.
  * Accesible por ADMIN y EMPLEADO.
  */
 @Service
@@ -28,15 +42,36 @@ public class LibroService {
     private final LibroRepository libroRepository;
     private final AutorRepository autorRepository;
     private final CategoriaRepository categoriaRepository;
+    private final PrestamoHistoricoRepository prestamoHistoricoRepository;
+    private final ReservaRepository reservaRepository;
+    private final EjemplarRepository ejemplarRepository;
+    private final EjemplarService ejemplarService;
+    private final DisponibilidadService disponibilidadService;
+    private final IndiceFacetasService indiceFacetasService;
+    private final BusquedaDifusaService busquedaDifusaService;
     private final LibroMapper libroMapper;
     
     public LibroService(LibroRepository libroRepository,
                         AutorRepository autorRepository,
                         CategoriaRepository categoriaRepository,
+                        PrestamoHistoricoRepository prestamoHistoricoRepository,
+                        ReservaRepository reservaRepository,
+                        EjemplarRepository ejemplarRepository,
+                        EjemplarService ejemplarService,
+                        DisponibilidadService disponibilidadService,
+                        IndiceFacetasService indiceFacetasService,
+                        BusquedaDifusaService busquedaDifusaService,
                         LibroMapper libroMapper) {
         this.libroRepository = libroRepository;
         this.autorRepository = autorRepository;
         this.categoriaRepository = categoriaRepository;
+        this.prestamoHistoricoRepository = prestamoHistoricoRepository;
+        this.reservaRepository = reservaRepository;
+        this.ejemplarRepository = ejemplarRepository;
+        this.ejemplarService = ejemplarService;
+        this.disponibilidadService = disponibilidadService;
+        this.indiceFacetasService = indiceFacetasService;
+        this.busquedaDifusaService = busquedaDifusaService;
         this.libroMapper = libroMapper;
     }
     
@@ -46,7 +81,7 @@ public class LibroService {
     @Transactional(readOnly = true)
     public List<LibroResponse> listarTodos() {
         List<Libro> libros = libroRepository.findAllByOrderByTituloAsc();
-        return libroMapper.toResponseList(libros);
+        return disponibilidadService.aplicar(libroMapper.toResponseList(libros));
     }
     
     /**
@@ -54,8 +89,9 @@ public class LibroService {
      */
     @Transactional(readOnly = true)
     public List<LibroResponse> listarDisponibles() {
-        List<Libro> libros = libroRepository.findLibrosDisponibles();
-        return libroMapper.toResponseList(libros);
+        List<Long> ids = disponibilidadService.ids(true);
+        List<Libro> libros = ids != null ? buscarPorIds(ids) : libroRepository.findLibrosDisponibles();
+        return disponibilidadService.aplicar(libroMapper.toResponseList(libros));
     }
     
     /**
@@ -63,8 +99,13 @@ public class LibroService {
      */
     @Transactional(readOnly = true)
     public List<LibroResponse> listarSinStock() {
-        List<Libro> libros = libroRepository.findLibrosSinStock();
-        return libroMapper.toResponseList(libros);
+        List<Long> ids = disponibilidadService.ids(false);
+        List<Libro> libros = ids != null ? buscarPorIds(ids) : libroRepository.findLibrosSinStock();
+        return disponibilidadService.aplicar(libroMapper.toResponseList(libros));
+    }
+    
+    private List<Libro> buscarPorIds(List<Long> ids) {
+        return ids.isEmpty() ? List.of() : libroRepository.findByIdInOrderByTitulo(ids);
     }
     
     /**
@@ -74,7 +115,7 @@ public class LibroService {
     public LibroResponse buscarPorId(Long id) {
         Libro libro = libroRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Libro", "id", id));
-        return libroMapper.toResponse(libro);
+        return disponibilidadService.aplicar(libroMapper.toResponse(libro));
     }
     
     /**
@@ -84,25 +125,33 @@ public class LibroService {
     public LibroResponse buscarPorIsbn(String isbn) {
         Libro libro = libroRepository.findByIsbn(isbn)
                 .orElseThrow(() -> new ResourceNotFoundException("Libro", "ISBN", isbn));
-        return libroMapper.toResponse(libro);
+        return disponibilidadService.aplicar(libroMapper.toResponse(libro));
     }
     
     /**
-     * Busca libros por título (búsqueda parcial).
+     * Busca libros por título (búsqueda parcial). Si no hay coincidencias exactas
+     * devuelve las aproximadas, de la más parecida a la menos parecida.
      */
     @Transactional(readOnly = true)
     public List<LibroResponse> buscarPorTitulo(String titulo) {
         List<Libro> libros = libroRepository.findByTituloContainingIgnoreCase(titulo);
-        return libroMapper.toResponseList(libros);
+        if (libros.isEmpty()) {
+            libros = buscarEnOrden(busquedaDifusaService.buscarLibros(titulo));
+        }
+        return disponibilidadService.aplicar(libroMapper.toResponseList(libros));
     }
     
     /**
-     * Busca libros por término (título, autor o ISBN).
+     * Busca libros por término (título, autor o ISBN). Si no hay coincidencias
+     * exactas devuelve las aproximadas por título o autor.
      */
     @Transactional(readOnly = true)
     public List<LibroResponse> buscarPorTermino(String termino) {
         List<Libro> libros = libroRepository.buscarPorTermino(termino);
-        return libroMapper.toResponseList(libros);
+        if (libros.isEmpty()) {
+            libros = buscarEnOrden(busquedaDifusaService.buscarLibros(termino));
+        }
+        return disponibilidadService.aplicar(libroMapper.toResponseList(libros));
     }
     
     /**
@@ -111,7 +160,7 @@ public class LibroService {
     @Transactional(readOnly = true)
     public List<LibroResponse> buscarPorAutor(Long autorId) {
         List<Libro> libros = libroRepository.findByAutorId(autorId);
-        return libroMapper.toResponseList(libros);
+        return disponibilidadService.aplicar(libroMapper.toResponseList(libros));
     }
     
     /**
@@ -120,7 +169,98 @@ public class LibroService {
     @Transactional(readOnly = true)
     public List<LibroResponse> buscarPorCategoria(Long categoriaId) {
         List<Libro> libros = libroRepository.findByCategoriaId(categoriaId);
-        return libroMapper.toResponseList(libros);
+        return disponibilidadService.aplicar(libroMapper.toResponseList(libros));
+    }
+    
+    /**
+     * Listado con filtros combinables, paginado y con los conteos de cada faceta.
+     * Filtra sobre el índice de IndiceFacetasService; solo la búsqueda por texto
+     * y la lectura de la página de resultados van a la base. Una búsqueda sin
+     * coincidencias exactas se reemplaza por la aproximada.
+     */
+    @Transactional(readOnly = true)
+    public BusquedaLibrosResponse buscarConFiltros(FiltroLibrosRequest filtro) {
+        List<Long> idsTexto = null;
+        boolean aproximada = false;
+        if (filtro.tieneBusqueda()) {
+            idsTexto = libroRepository.buscarIdsPorTermino(filtro.getBusqueda().trim());
+            List<Long> aproximados = idsTexto.isEmpty() ? busquedaDifusaService.buscarLibros(filtro.getBusqueda()) : null;
+            if (aproximados != null && !aproximados.isEmpty()) {
+                idsTexto = aproximados;
+                aproximada = true;
+            }
+        }
+        // Los resultados aproximados se muestran del más al menos parecido
+        IndiceFacetasService.Resultado resultado = indiceFacetasService.buscar(filtro, idsTexto, aproximada);
+        if (resultado == null) {
+            BusquedaLibrosResponse respuesta = buscarConFiltrosSinIndice(filtro, idsTexto);
+            respuesta.setAproximada(aproximada);
+            return respuesta;
+        }
+
+        return BusquedaLibrosResponse.builder()
+                .libros(disponibilidadService.aplicar(libroMapper.toResponseList(buscarEnOrden(resultado.ids()))))
+                .total(resultado.total())
+                .pagina(resultado.pagina())
+                .totalPaginas(resultado.totalPaginas())
+                .facetas(resultado.facetas())
+                .aproximada(aproximada)
+                .build();
+    }
+    
+    /**
+     * Libros con los IDs indicados, en el mismo orden; los que ya no existen se omiten.
+     */
+    private List<Libro> buscarEnOrden(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Libro> porId = new HashMap<>();
+        libroRepository.findAllById(ids).forEach(libro -> porId.put(libro.getId(), libro));
+        List<Libro> libros = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Libro libro = porId.get(id);
+            if (libro != null) {
+                libros.add(libro);
+            }
+        }
+        return libros;
+    }
+    
+    /**
+     * Mismos filtros leyendo los libros de la base, sin conteos de facetas
+     * (mientras el índice no está cargado).
+     */
+    private BusquedaLibrosResponse buscarConFiltrosSinIndice(FiltroLibrosRequest filtro, List<Long> idsTexto) {
+        List<Libro> candidatos = idsTexto != null
+                ? buscarEnOrden(idsTexto)
+                : libroRepository.findAllByOrderByTituloAsc();
+        String nacionalidad = filtro.getNacionalidad() != null ? filtro.getNacionalidad().trim() : "";
+
+        List<Libro> filtrados = candidatos.stream()
+                .filter(l -> filtro.getAutorId() == null || filtro.getAutorId().equals(l.getAutor().getId()))
+                .filter(l -> filtro.getCategoriaId() == null || filtro.getCategoriaId().equals(l.getCategoria().getId()))
+                .filter(l -> nacionalidad.isEmpty()
+                        || nacionalidad.equals(Objects.toString(l.getAutor().getNacionalidad(), "").trim()))
+                .filter(l -> filtro.getAnioDesde() == null
+                        || (l.getAnioPublicacion() != null && l.getAnioPublicacion() >= filtro.getAnioDesde()))
+                .filter(l -> filtro.getAnioHasta() == null
+                        || (l.getAnioPublicacion() != null && l.getAnioPublicacion() <= filtro.getAnioHasta()))
+                .toList();
+        List<LibroResponse> libros = disponibilidadService.aplicar(libroMapper.toResponseList(filtrados)).stream()
+                .filter(l -> !filtro.soloDisponibles() || Boolean.TRUE.equals(l.getDisponible()))
+                .filter(l -> !filtro.soloSinStock() || !Boolean.TRUE.equals(l.getDisponible()))
+                .toList();
+
+        int tamano = IndiceFacetasService.TAMANO_PAGINA;
+        int totalPaginas = (libros.size() + tamano - 1) / tamano;
+        int pagina = Math.max(0, Math.min(filtro.getPage(), totalPaginas - 1));
+        return BusquedaLibrosResponse.builder()
+                .libros(new ArrayList<>(libros.subList(pagina * tamano, Math.min(libros.size(), (pagina + 1) * tamano))))
+                .total(libros.size())
+                .pagina(pagina)
+                .totalPaginas(totalPaginas)
+                .build();
     }
     
     /**
@@ -148,7 +288,13 @@ public class LibroService {
         libro.setCategoria(categoria);
         libro.setCantidadDisponible(request.getCantidadTotal()); // Al crear, todo está disponible
         
-        libro = libroRepository.save(libro);
+        // saveAndFlush: los ejemplares se insertan por JDBC y referencian al libro
+        libro = libroRepository.saveAndFlush(libro);
+        if (request.getCantidadTotal() > 0) {
+            ejemplarService.agregar(libro.getId(), request.getCantidadTotal(), null);
+        } else {
+            disponibilidadService.actualizarAlConfirmar(libro.getId());
+        }
         
         return libroMapper.toResponse(libro);
     }
@@ -176,28 +322,19 @@ public class LibroService {
         Categoria categoria = categoriaRepository.findById(request.getIdCategoria())
                 .orElseThrow(() -> new ResourceNotFoundException("Categoría", "id", request.getIdCategoria()));
         
-        // Calcular diferencia de stock
-        int diferencia = request.getCantidadTotal() - libro.getCantidadTotal();
-        int nuevaCantidadDisponible = libro.getCantidadDisponible() + diferencia;
-        
-        // Validar que no quede stock negativo
-        if (nuevaCantidadDisponible < 0) {
-            throw new BusinessException(
-                    BusinessException.OPERACION_NO_PERMITIDA,
-                    "No se puede reducir el stock total porque hay " + 
-                    (libro.getCantidadTotal() - libro.getCantidadDisponible()) + 
-                    " ejemplar(es) prestado(s)"
-            );
-        }
+        // Dar de alta o retirar ejemplares disponibles hasta el nuevo total
+        // (falla si habría que retirar ejemplares prestados o apartados)
+        ejemplarService.ajustarTotal(id, request.getCantidadTotal());
         
         // Actualizar libro
         libroMapper.updateEntityFromRequest(request, libro);
         libro.setAutor(autor);
         libro.setCategoria(categoria);
-        libro.setCantidadDisponible(nuevaCantidadDisponible);
         
         libro = libroRepository.save(libro);
         
+        // Los contadores se recalculan al confirmar; la respuesta ya los refleja
+        libro.setCantidadDisponible((int) ejemplarRepository.countByLibroIdAndEstado(id, EstadoEjemplar.DISPONIBLE));
         return libroMapper.toResponse(libro);
     }
     
@@ -209,7 +346,8 @@ public class LibroService {
                 .orElseThrow(() -> new ResourceNotFoundException("Libro", "id", id));
         
         // Verificar que no tenga préstamos activos
-        int prestados = libro.getCantidadTotal() - libro.getCantidadDisponible();
+        long prestados = ejemplarRepository.countByLibroIdAndEstado(id, EstadoEjemplar.PRESTADO)
+                + ejemplarRepository.countByLibroIdAndEstado(id, EstadoEjemplar.APARTADO);
         if (prestados > 0) {
             throw new BusinessException(
                     BusinessException.OPERACION_NO_PERMITIDA,
@@ -217,15 +355,18 @@ public class LibroService {
             );
         }
         
-        // Verificar que no tenga historial de préstamos
-        if (!libro.getPrestamos().isEmpty()) {
+        // Verificar que no tenga historial de préstamos (vigente o archivado) ni reservas
+        if (!libro.getPrestamos().isEmpty() || prestamoHistoricoRepository.existsByLibroId(id)
+                || reservaRepository.existsByLibroId(id)) {
             throw new BusinessException(
                     BusinessException.OPERACION_NO_PERMITIDA,
-                    "No se puede eliminar el libro porque tiene historial de préstamos"
+                    "No se puede eliminar el libro porque tiene historial de préstamos o reservas"
             );
         }
         
+        ejemplarService.eliminarPorLibro(id);
         libroRepository.delete(libro);
+        disponibilidadService.actualizarAlConfirmar(id);
     }
     
     /**
@@ -233,27 +374,10 @@ public class LibroService {
      */
     @Transactional(readOnly = true)
     public boolean tieneDisponibilidad(Long libroId) {
-        Libro libro = libroRepository.findById(libroId)
-                .orElseThrow(() -> new ResourceNotFoundException("Libro", "id", libroId));
-        return libro.getCantidadDisponible() > 0;
-    }
-    
-    /**
-     * Reduce el stock disponible (usado al prestar).
-     * Retorna true si se pudo reducir.
-     */
-    public boolean reducirStock(Long libroId) {
-        int filasAfectadas = libroRepository.reducirStock(libroId);
-        return filasAfectadas > 0;
-    }
-    
-    /**
-     * Aumenta el stock disponible (usado al devolver).
-     * Retorna true si se pudo aumentar.
-     */
-    public boolean aumentarStock(Long libroId) {
-        int filasAfectadas = libroRepository.aumentarStock(libroId);
-        return filasAfectadas > 0;
+        if (!libroRepository.existsById(libroId)) {
+            throw new ResourceNotFoundException("Libro", "id", libroId);
+        }
+        return ejemplarRepository.existsByLibroIdAndEstado(libroId, EstadoEjemplar.DISPONIBLE);
     }
     
     /**
@@ -0,0 +1,262 @@
+package com.biblioteca.bibliotech.service;
+
+import java.util.Arrays;
+
+/**
+ * Conjunto inmutable de posiciones 0..tamano-1, comprimido según su densidad:
+ * los conjuntos chicos se guardan como arreglo ordenado de posiciones y los
+ * grandes como mapa de bits (un long por cada 64 posiciones). El corte está
+ * donde las dos formas ocupan lo mismo: un arreglo de N enteros pesa 4N bytes
+ * y el mapa de bits tamano/8, así que se usa el arreglo por debajo de tamano/32.
+ *
+ * Las operaciones devuelven conjuntos nuevos ya comprimidos; los dos operandos
+ * tienen que tener el mismo tamano (el mismo índice de IndiceFacetasService).
+ */
+final class MapaBits {
+
+    private final int tamano;
+    // Exactamente uno de los dos es distinto de null
+    private final int[] posiciones;
+    private final long[] palabras;
+    private final int cardinalidad;
+
+    private MapaBits(int tamano, int[] posiciones, long[] palabras, int cardinalidad) {
+        this.tamano = tamano;
+        this.posiciones = posiciones;
+        this.palabras = palabras;
+        this.cardinalidad = cardinalidad;
+    }
+
+    static MapaBits vacio(int tamano) {
+        return new MapaBits(tamano, new int[0], null, 0);
+    }
+
+    /**
+     * Todas las posiciones de 0 a tamano-1.
+     */
+    static MapaBits completo(int tamano) {
+        if (tamano == 0) {
+            return vacio(0);
+        }
+        long[] palabras = new long[(tamano + 63) >>> 6];
+        Arrays.fill(palabras, -1L);
+        if ((tamano & 63) != 0) {
+            palabras[palabras.length - 1] = (1L << (tamano & 63)) - 1;
+        }
+        return new MapaBits(tamano, null, palabras, tamano);
+    }
+
+    /**
+     * Conjunto con las posiciones indicadas, en cualquier orden y con repetidas.
+     */
+    static MapaBits de(int[] posiciones, int tamano) {
+        int[] ordenadas = posiciones.clone();
+        Arrays.sort(ordenadas);
+        int cantidad = 0;
+        for (int i = 0; i < ordenadas.length; i++) {
+            if (i == 0 || ordenadas[i] != ordenadas[i - 1]) {
+                ordenadas[cantidad++] = ordenadas[i];
+            }
+        }
+        return disperso(tamano, ordenadas, cantidad);
+    }
+
+    int cardinalidad() {
+        return cardinalidad;
+    }
+
+    boolean contiene(int posicion) {
+        if (palabras != null) {
+            return (palabras[posicion >>> 6] & (1L << posicion)) != 0;
+        }
+        return Arrays.binarySearch(posiciones, posicion) >= 0;
+    }
+
+    /**
+     * Posiciones que están en los dos conjuntos.
+     */
+    MapaBits interseccion(MapaBits otro) {
+        if (cardinalidad == tamano) {
+            return otro;
+        }
+        if (otro.cardinalidad == otro.tamano) {
+            return this;
+        }
+        if (palabras != null && otro.palabras != null) {
+            long[] resultado = new long[palabras.length];
+            for (int i = 0; i < resultado.length; i++) {
+                resultado[i] = palabras[i] & otro.palabras[i];
+            }
+            return denso(tamano, resultado);
+        }
+        // Al menos uno es un arreglo: se recorre el más chico y se busca en el otro
+        MapaBits menor = cardinalidad <= otro.cardinalidad ? this : otro;
+        MapaBits mayor = menor == this ? otro : this;
+        int[] recorrer = menor.posiciones != null ? menor.posiciones : menor.posiciones(0, menor.cardinalidad);
+        int[] resultado = new int[recorrer.length];
+        int cantidad = 0;
+        for (int posicion : recorrer) {
+            if (mayor.contiene(posicion)) {
+                resultado[cantidad++] = posicion;
+            }
+        }
+        return disperso(tamano, resultado, cantidad);
+    }
+
+    /**
+     * Posiciones que están en alguno de los dos conjuntos.
+     */
+    MapaBits union(MapaBits otro) {
+        if (otro.cardinalidad == 0) {
+            return this;
+        }
+        if (cardinalidad == 0) {
+            return otro;
+        }
+        if (posiciones != null && otro.posiciones != null) {
+            int[] resultado = new int[cardinalidad + otro.cardinalidad];
+            int i = 0;
+            int j = 0;
+            int cantidad = 0;
+            while (i < cardinalidad || j < otro.cardinalidad) {
+                if (j == otro.cardinalidad || (i < cardinalidad && posiciones[i] < otro.posiciones[j])) {
+                    resultado[cantidad++] = posiciones[i++];
+                } else if (i == cardinalidad || otro.posiciones[j] < posiciones[i]) {
+                    resultado[cantidad++] = otro.posiciones[j++];
+                } else {
+                    resultado[cantidad++] = posiciones[i++];
+                    j++;
+                }
+            }
+            return disperso(tamano, resultado, cantidad);
+        }
+        long[] resultado = palabras != null ? palabras.clone() : otro.palabras.clone();
+        MapaBits resto = palabras != null ? otro : this;
+        if (resto.palabras != null) {
+            for (int i = 0; i < resultado.length; i++) {
+                resultado[i] |= resto.palabras[i];
+            }
+        } else {
+            for (int posicion : resto.posiciones) {
+                resultado[posicion >>> 6] |= 1L << posicion;
+            }
+        }
+        return denso(tamano, resultado);
+    }
+
+    /**
+     * Cantidad de posiciones en común, sin construir la intersección.
+     */
+    int cardinalidadInterseccion(MapaBits otro) {
+        if (cardinalidad == tamano) {
+            return otro.cardinalidad;
+        }
+        if (otro.cardinalidad == otro.tamano) {
+            return cardinalidad;
+        }
+        int cantidad = 0;
+        if (palabras != null && otro.palabras != null) {
+            for (int i = 0; i < palabras.length; i++) {
+                cantidad += Long.bitCount(palabras[i] & otro.palabras[i]);
+            }
+            return cantidad;
+        }
+        MapaBits menor = posiciones != null && (otro.posiciones == null || cardinalidad <= otro.cardinalidad)
+                ? this : otro;
+        MapaBits mayor = menor == this ? otro : this;
+        for (int posicion : menor.posiciones) {
+            if (mayor.contiene(posicion)) {
+                cantidad++;
+            }
+        }
+        return cantidad;
+    }
+
+    /**
+     * Posiciones en orden ascendente, salteando las primeras {@code desde}
+     * (para paginar sin recorrer los bits de las páginas anteriores).
+     */
+    int[] posiciones(int desde, int cantidad) {
+        int inicio = Math.min(Math.max(0, desde), cardinalidad);
+        int fin = (int) Math.min((long) inicio + Math.max(0, cantidad), cardinalidad);
+        if (posiciones != null) {
+            return Arrays.copyOfRange(posiciones, inicio, fin);
+        }
+        int[] resultado = new int[fin - inicio];
+        int saltar = inicio;
+        int n = 0;
+        for (int i = 0; i < palabras.length && n < resultado.length; i++) {
+            long palabra = palabras[i];
+            int bits = Long.bitCount(palabra);
+            if (saltar >= bits) {
+                saltar -= bits;
+                continue;
+            }
+            while (palabra != 0 && n < resultado.length) {
+                int bit = Long.numberOfTrailingZeros(palabra);
+                palabra &= palabra - 1;
+                if (saltar > 0) {
+                    saltar--;
+                } else {
+                    resultado[n++] = (i << 6) + bit;
+                }
+            }
+        }
+        return resultado;
+    }
+
+    private static MapaBits disperso(int tamano, int[] posiciones, int cantidad) {
+        if (esDisperso(cantidad, tamano)) {
+            return new MapaBits(tamano, cantidad == posiciones.length ? posiciones : Arrays.copyOf(posiciones, cantidad),
+                    null, cantidad);
+        }
+        long[] palabras = new long[(tamano + 63) >>> 6];
+        for (int i = 0; i < cantidad; i++) {
+            palabras[posiciones[i] >>> 6] |= 1L << posiciones[i];
+        }
+        return new MapaBits(tamano, null, palabras, cantidad);
+    }
+
+    private static MapaBits denso(int tamano, long[] palabras) {
+        int cantidad = 0;
+        for (long palabra : palabras) {
+            cantidad += Long.bitCount(palabra);
+        }
+        if (!esDisperso(cantidad, tamano)) {
+            return new MapaBits(tamano, null, palabras, cantidad);
+        }
+        int[] posiciones = new int[cantidad];
+        int n = 0;
+        for (int i = 0; i < palabras.length; i++) {
+            for (long palabra = palabras[i]; palabra != 0; palabra &= palabra - 1) {
+                posiciones[n++] = (i << 6) + Long.numberOfTrailingZeros(palabra);
+            }
+        }
+        return new MapaBits(tamano, posiciones, null, cantidad);
+    }
+
+    private static boolean esDisperso(int cantidad, int tamano) {
+        return (long) cantidad * 32 < tamano;
+    }
+
+    /**
+     * Acumula posiciones en orden ascendente (el índice se arma recorriendo los
+     * libros en orden) y construye el conjunto al final.
+     */
+    static final class Constructor {
+
+        private int[] posiciones = new int[8];
+        private int cantidad;
+
+        void agregar(int posicion) {
+            if (cantidad == posiciones.length) {
+                posiciones = Arrays.copyOf(posiciones, cantidad * 2);
+            }
+            posiciones[cantidad++] = posicion;
+        }
+
+        MapaBits construir(int tamano) {
+            return disperso(tamano, posiciones, cantidad);
+        }
+    }
+}
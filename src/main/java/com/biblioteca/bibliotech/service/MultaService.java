@@ -0,0 +1,300 @@
+package com.biblioteca.bibliotech.service;
+
+import com.biblioteca.bibliotech.dto.response.MultaResponse;
+import com.biblioteca.bibliotech.entity.Cliente;
+import com.biblioteca.bibliotech.entity.Multa;
+import com.biblioteca.bibliotech.enums.EstadoMulta;
+import com.biblioteca.bibliotech.exception.BusinessException;
+import com.biblioteca.bibliotech.exception.ResourceNotFoundException;
+import com.biblioteca.bibliotech.mapper.MultaMapper;
+import com.biblioteca.bibliotech.repository.ClienteRepository;
+import com.biblioteca.bibliotech.repository.MultaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Servicio de multas por devolución tardía (tabla multas, ver V9).
+ *
+ * Cada préstamo vencido tiene como máximo una multa: días de retraso por la tarifa
+ * diaria de la categoría del libro, hasta el tope de la categoría (si la categoría
+ * no los define se usan bibliotech.multas.*). El devengo nocturno calcula todas las
+ * multas en una sola sentencia INSERT ... SELECT sobre los préstamos vencidos y los
+ * devueltos con retraso en los últimos días, y recalcula la deuda de los clientes
+ * con otra sentencia por conjuntos. Al devolver un préstamo se liquida solo su multa,
+ * con la misma consulta, para poder cobrarla en el momento.
+ *
+ * Extender el plazo de un préstamo vencido no borra su multa: se congelan los días
+ * y el monto a la fecha de la extensión (dias_congelados, monto_congelado, ver V15)
+ * y el devengo suma a eso solo el retraso respecto de la nueva fecha.
+ *
+ * La deuda PENDIENTE de cada cliente se guarda desnormalizada en clientes.deuda_multas:
+ * el control al prestar lee la fila del cliente que el préstamo ya carga por PK.
+ */
+@Service
+public class MultaService {
+
+    private static final Logger log = LoggerFactory.getLogger(MultaService.class);
+
+    /*
+     * Préstamos sin devolver ya vencidos (idx_estado_vencimiento) y devueltos con
+     * retraso desde :desde (idx_fecha_devolucion_real). Las multas pagadas o
+     * condonadas no cambian; las pendientes toman los días y el monto del día,
+     * sumados a lo congelado por extensiones de plazo (sin bajar de lo congelado).
+     * %s agrega el filtro por préstamo de la liquidación individual.
+     */
+    private static final String SQL_DEVENGAR =
+            "INSERT INTO multas (id_prestamo, id_cliente, id_libro, dias_retraso, monto, prestamo_devuelto) " +
+            "SELECT calc.id_prestamo, calc.id_cliente, calc.id_libro, calc.dias, calc.monto, calc.devuelto " +
+            "FROM (" +
+            "  SELECT v.id_prestamo, v.id_cliente, v.id_libro, v.devuelto, " +
+            "         v.dias + COALESCE(m.dias_congelados, 0) AS dias, " +
+            "         GREATEST(COALESCE(m.monto_congelado, 0), LEAST(COALESCE(m.monto_congelado, 0) " +
+            "             + v.dias * COALESCE(c.multa_diaria, :diaria), COALESCE(c.multa_tope, :tope))) AS monto " +
+            "  FROM (" +
+            "    SELECT id_prestamo, id_cliente, id_libro, " +
+            "           DATEDIFF(CURDATE(), fecha_devolucion_esperada) AS dias, FALSE AS devuelto " +
+            "    FROM prestamos WHERE estado IN ('ACTIVO', 'VENCIDO') " +
+            "    AND fecha_devolucion_esperada < CURDATE()%s " +
+            "    UNION ALL " +
+            "    SELECT id_prestamo, id_cliente, id_libro, " +
+            "           DATEDIFF(fecha_devolucion_real, fecha_devolucion_esperada), TRUE " +
+            "    FROM prestamos WHERE fecha_devolucion_real >= :desde AND estado = 'DEVUELTO' " +
+            "    AND fecha_devolucion_real > fecha_devolucion_esperada%s" +
+            "  ) v " +
+            "  JOIN libros l ON l.id_libro = v.id_libro " +
+            "  LEFT JOIN categorias c ON c.id_categoria = l.id_categoria " +
+            "  LEFT JOIN multas m ON m.id_prestamo = v.id_prestamo AND m.estado = 'PENDIENTE'" +
+            ") calc " +
+            "WHERE calc.monto > 0 " +
+            "ON DUPLICATE KEY UPDATE " +
+            "fecha_actualizacion = IF(multas.estado = 'PENDIENTE' AND (multas.monto <> VALUES(monto) " +
+            "    OR multas.prestamo_devuelto <> VALUES(prestamo_devuelto)), NOW(), multas.fecha_actualizacion), " +
+            "dias_retraso = IF(multas.estado = 'PENDIENTE', VALUES(dias_retraso), multas.dias_retraso), " +
+            "prestamo_devuelto = IF(multas.estado = 'PENDIENTE', VALUES(prestamo_devuelto), multas.prestamo_devuelto), " +
+            "monto = IF(multas.estado = 'PENDIENTE', VALUES(monto), multas.monto)";
+
+    private static final String SQL_DEVENGAR_TODOS = String.format(SQL_DEVENGAR, "", "");
+
+    private static final String SQL_DEVENGAR_PRESTAMO = String.format(SQL_DEVENGAR,
+            " AND id_prestamo = :prestamoId", " AND id_prestamo = :prestamoId");
+
+    /*
+     * Fija lo devengado hasta hoy (SQL_DEVENGAR_PRESTAMO ya corrió contra la fecha
+     * anterior): el devengo suma a esto solo el retraso respecto de la nueva fecha.
+     */
+    private static final String SQL_CONGELAR =
+            "UPDATE multas SET dias_congelados = dias_retraso, monto_congelado = monto " +
+            "WHERE id_prestamo = :prestamoId AND estado = 'PENDIENTE'";
+
+    /*
+     * Una multa congelada queda aunque el préstamo se devuelva a tiempo respecto de
+     * la nueva fecha (el devengo no la vuelve a tocar): se marca para poder cobrarla.
+     */
+    private static final String SQL_MARCAR_DEVUELTO =
+            "UPDATE multas SET prestamo_devuelto = TRUE, fecha_actualizacion = NOW() " +
+            "WHERE id_prestamo = :prestamoId AND estado = 'PENDIENTE' AND prestamo_devuelto = FALSE";
+
+    private final MultaRepository multaRepository;
+    private final ClienteRepository clienteRepository;
+    private final MultaMapper multaMapper;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final BigDecimal montoDiario;
+    private final BigDecimal tope;
+    private final BigDecimal umbralBloqueo;
+    private final int diasRevision;
+
+    public MultaService(MultaRepository multaRepository,
+                        ClienteRepository clienteRepository,
+                        MultaMapper multaMapper,
+                        NamedParameterJdbcTemplate namedJdbcTemplate,
+                        @Value("${bibliotech.multas.monto-diario:1.00}") BigDecimal montoDiario,
+                        @Value("${bibliotech.multas.tope:30.00}") BigDecimal tope,
+                        @Value("${bibliotech.multas.umbral-bloqueo:10.00}") BigDecimal umbralBloqueo,
+                        @Value("${bibliotech.multas.dias-revision:7}") int diasRevision) {
+        this.multaRepository = multaRepository;
+        this.clienteRepository = clienteRepository;
+        this.multaMapper = multaMapper;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.montoDiario = montoDiario;
+        this.tope = tope;
+        this.umbralBloqueo = umbralBloqueo;
+        this.diasRevision = diasRevision;
+    }
+
+    // ==================== OPERACIONES DE CONSULTA ====================
+
+    /**
+     * Obtiene las multas de un estado.
+     */
+    @Transactional(readOnly = true)
+    public List<MultaResponse> listarPorEstado(EstadoMulta estado) {
+        return multaMapper.toResponseList(multaRepository.findByEstadoConDetalles(estado));
+    }
+
+    /**
+     * Obtiene las multas de un cliente.
+     */
+    @Transactional(readOnly = true)
+    public List<MultaResponse> listarPorCliente(Long clienteId) {
+        return multaMapper.toResponseList(multaRepository.findByClienteId(clienteId));
+    }
+
+    /**
+     * Cuenta multas por estado.
+     */
+    @Transactional(readOnly = true)
+    public long contarPorEstado(EstadoMulta estado) {
+        return multaRepository.countByEstado(estado);
+    }
+
+    /**
+     * Suma los montos de las multas de un estado.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal totalPorEstado(EstadoMulta estado) {
+        return multaRepository.sumMontoByEstado(estado);
+    }
+
+    // ==================== CONTROL AL PRESTAR ====================
+
+    /**
+     * Verifica que la deuda del cliente no alcance el umbral de bloqueo.
+     * Usa el saldo desnormalizado de la fila del cliente, sin consultar las multas.
+     *
+     * @throws BusinessException si la deuda pendiente alcanza el umbral
+     */
+    public void validarSinDeuda(Cliente cliente) {
+        if (umbralBloqueo.signum() <= 0) {
+            return;
+        }
+        BigDecimal deuda = cliente.getDeudaMultas();
+        if (deuda != null && deuda.compareTo(umbralBloqueo) >= 0) {
+            throw new BusinessException(
+                    BusinessException.MULTAS_PENDIENTES,
+                    "El cliente " + cliente.getNombreCompleto() + " adeuda $" + deuda +
+                    " en multas. Debe regularizar la deuda (límite $" + umbralBloqueo + ") para pedir préstamos"
+            );
+        }
+    }
+
+    // ==================== DEVENGO ====================
+
+    /**
+     * Calcula o actualiza las multas de todos los préstamos con retraso y recalcula
+     * las deudas. Se ejecuta cada noche, después de marcar los préstamos vencidos,
+     * y bajo demanda desde la lista de multas.
+     * READ COMMITTED: el INSERT ... SELECT no bloquea las filas leídas de prestamos.
+     *
+     * @return Filas de multas afectadas (MySQL cuenta 1 por alta y 2 por actualización)
+     */
+    @Scheduled(cron = "${bibliotech.multas.cron:0 20 0 * * *}")
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public int devengar() {
+        long inicio = System.currentTimeMillis();
+        int afectadas = namedJdbcTemplate.update(SQL_DEVENGAR_TODOS, parametros());
+        int deudas = clienteRepository.recalcularDeudas();
+        log.info("Devengo de multas: {} filas de multas afectadas, {} deudas de clientes actualizadas en {} ms",
+                afectadas, deudas, System.currentTimeMillis() - inicio);
+        return afectadas;
+    }
+
+    /**
+     * Liquida la multa de un préstamo recién devuelto, para poder cobrarla en el
+     * mostrador: la del retraso respecto de la fecha esperada más lo congelado por
+     * extensiones. El préstamo ya debe estar escrito en la base (saveAndFlush).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void liquidar(Long prestamoId, Long clienteId) {
+        int afectadas = namedJdbcTemplate.update(SQL_DEVENGAR_PRESTAMO,
+                parametros().addValue("prestamoId", prestamoId));
+        afectadas += namedJdbcTemplate.update(SQL_MARCAR_DEVUELTO,
+                new MapSqlParameterSource("prestamoId", prestamoId));
+        if (afectadas > 0) {
+            clienteRepository.recalcularDeuda(clienteId);
+        }
+    }
+
+    /**
+     * Congela la multa de un préstamo antes de extender su plazo: se devenga hasta
+     * hoy contra la fecha anterior y se guardan esos días y ese monto, que el devengo
+     * conserva y a los que suma solo el retraso respecto de la nueva fecha. Extender
+     * no perdona multas; eso es una condonación y la hacen solo los administradores.
+     * Se llama con el préstamo bloqueado y todavía con la fecha anterior en la base.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void congelarPorExtension(Long prestamoId, Long clienteId) {
+        namedJdbcTemplate.update(SQL_DEVENGAR_PRESTAMO, parametros().addValue("prestamoId", prestamoId));
+        int congeladas = namedJdbcTemplate.update(SQL_CONGELAR,
+                new MapSqlParameterSource("prestamoId", prestamoId));
+        if (congeladas > 0) {
+            clienteRepository.recalcularDeuda(clienteId);
+        }
+    }
+
+    private MapSqlParameterSource parametros() {
+        return new MapSqlParameterSource()
+                .addValue("diaria", montoDiario)
+                .addValue("tope", tope)
+                .addValue("desde", Date.valueOf(LocalDate.now().minusDays(diasRevision)));
+    }
+
+    // ==================== COBRO ====================
+
+    /**
+     * Registra el pago de una multa. Solo se cobran multas de préstamos ya devueltos
+     * (mientras el libro no vuelve, el monto sigue creciendo).
+     */
+    @Transactional
+    public MultaResponse pagar(Long id) {
+        Multa multa = bloquearPendiente(id);
+        if (!Boolean.TRUE.equals(multa.getPrestamoDevuelto())) {
+            throw new BusinessException(
+                    BusinessException.OPERACION_NO_PERMITIDA,
+                    "El préstamo aún no fue devuelto: la multa se cobra al registrar la devolución"
+            );
+        }
+        multa.cerrar(EstadoMulta.PAGADA, null);
+        return cerrar(multa);
+    }
+
+    /**
+     * Condona una multa (solo administradores).
+     */
+    @Transactional
+    public MultaResponse condonar(Long id, String motivo) {
+        Multa multa = bloquearPendiente(id);
+        multa.cerrar(EstadoMulta.CONDONADA, motivo);
+        return cerrar(multa);
+    }
+
+    private Multa bloquearPendiente(Long id) {
+        Multa multa = multaRepository.bloquearPorId(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Multa", "id", id));
+        if (multa.getEstado() != EstadoMulta.PENDIENTE) {
+            throw new BusinessException(
+                    BusinessException.MULTA_NO_PENDIENTE,
+                    "La multa ya está " + multa.getEstado().getDescripcion().toLowerCase()
+            );
+        }
+        return multa;
+    }
+
+    private MultaResponse cerrar(Multa multa) {
+        multa = multaRepository.saveAndFlush(multa);
+        clienteRepository.recalcularDeuda(multa.getCliente().getId());
+        return multaMapper.toResponse(multa);
+    }
+}
@@ -0,0 +1,413 @@
+package com.biblioteca.bibliotech.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * Servicio de avisos a clientes por préstamos por vencer y vencidos (tablas
+ * notificaciones y notificaciones_prestamos, ver V10).
+ *
+ * La generación corre una vez al día, después de que el barrido nocturno marca los
+ * vencidos: toma los préstamos que vencen en los próximos días y los que vencieron
+ * hace poco, sin aviso previo del mismo tipo, y arma un único resumen por cliente.
+ * Cada resumen queda en la bandeja de salida (notificaciones) en la misma
+ * transacción que registra los avisos, así un préstamo no se avisa dos veces.
+ *
+ * El envío toma lotes de la bandeja con SKIP LOCKED (varios nodos no se pisan), los
+ * marca ENVIANDO antes de entregarlos y respeta un máximo de correos por minuto con
+ * un balde de fichas: cada ejecución toma solo los que el balde permite y termina,
+ * sin dormir el hilo del planificador que comparten todas las tareas. Los
+ * fallos se reintentan con espera exponencial. Un envío que quedó ENVIANDO (el nodo
+ * se detuvo a mitad) pasa a ERROR en lugar de reintentarse: puede haber llegado.
+ */
+@Service
+public class NotificacionService {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificacionService.class);
+
+    private static final String PLANTILLA = "recordatorio";
+    private static final String ASUNTO = "BiblioTech - Recordatorio de préstamos";
+    private static final int LARGO_ERROR = 500;
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    /*
+     * Préstamos por vencer (ACTIVO, vencen entre hoy y :diasAviso) y vencidos hace
+     * a lo sumo :diasRevision días, de clientes activos con email y sin aviso previo
+     * del mismo tipo. Ambas ramas recorren idx_estado_vencimiento.
+     */
+    private static final String SQL_CANDIDATOS =
+            "SELECT p.id_prestamo, p.id_cliente, 'POR_VENCER' AS tipo, p.fecha_devolucion_esperada, " +
+            "       l.titulo, c.nombre, c.email " +
+            "FROM prestamos p " +
+            "JOIN clientes c ON c.id_cliente = p.id_cliente " +
+            "JOIN libros l ON l.id_libro = p.id_libro " +
+            "WHERE p.estado = 'ACTIVO' " +
+            "AND p.fecha_devolucion_esperada BETWEEN CURDATE() AND CURDATE() + INTERVAL :diasAviso DAY " +
+            "AND c.activo = TRUE AND c.email IS NOT NULL AND c.email <> '' " +
+            "AND NOT EXISTS (SELECT 1 FROM notificaciones_prestamos n " +
+            "                WHERE n.id_prestamo = p.id_prestamo AND n.tipo = 'POR_VENCER') " +
+            "UNION ALL " +
+            "SELECT p.id_prestamo, p.id_cliente, 'VENCIDO', p.fecha_devolucion_esperada, " +
+            "       l.titulo, c.nombre, c.email " +
+            "FROM prestamos p " +
+            "JOIN clientes c ON c.id_cliente = p.id_cliente " +
+            "JOIN libros l ON l.id_libro = p.id_libro " +
+            "WHERE p.estado = 'VENCIDO' " +
+            "AND p.fecha_devolucion_esperada >= CURDATE() - INTERVAL :diasRevision DAY " +
+            "AND c.activo = TRUE AND c.email IS NOT NULL AND c.email <> '' " +
+            "AND NOT EXISTS (SELECT 1 FROM notificaciones_prestamos n " +
+            "                WHERE n.id_prestamo = p.id_prestamo AND n.tipo = 'VENCIDO') " +
+            "ORDER BY id_cliente, fecha_devolucion_esperada";
+
+    // Serializa la generación de los mismos clientes entre nodos
+    private static final String SQL_BLOQUEAR_CLIENTES =
+            "SELECT id_cliente FROM clientes WHERE id_cliente IN (:ids) ORDER BY id_cliente FOR UPDATE";
+
+    private static final String SQL_AVISOS_REGISTRADOS =
+            "SELECT id_prestamo, tipo FROM notificaciones_prestamos WHERE id_prestamo IN (:ids)";
+
+    private static final String SQL_REGISTRAR_AVISO =
+            "INSERT INTO notificaciones_prestamos (id_prestamo, tipo) VALUES (?, ?)";
+
+    private static final String SQL_ENCOLAR =
+            "INSERT INTO notificaciones (id_cliente, destinatario, asunto, cuerpo) VALUES (?, ?, ?, ?)";
+
+    private static final String SQL_TOMAR_LOTE =
+            "SELECT id_notificacion, destinatario, asunto, cuerpo, intentos FROM notificaciones " +
+            "WHERE estado = 'PENDIENTE' AND proximo_intento <= NOW() " +
+            "ORDER BY proximo_intento LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String SQL_MARCAR_ENVIANDO =
+            "UPDATE notificaciones SET estado = 'ENVIANDO', intentos = intentos + 1, " +
+            "fecha_actualizacion = NOW() WHERE id_notificacion IN (:ids)";
+
+    private static final String SQL_MARCAR_ENVIADA =
+            "UPDATE notificaciones SET estado = 'ENVIADA', fecha_envio = NOW(), fecha_actualizacion = NOW(), " +
+            "ultimo_error = NULL WHERE id_notificacion = ?";
+
+    private static final String SQL_REPROGRAMAR =
+            "UPDATE notificaciones SET estado = 'PENDIENTE', ultimo_error = ?, fecha_actualizacion = NOW(), " +
+            "proximo_intento = NOW() + INTERVAL ? MINUTE WHERE id_notificacion = ?";
+
+    private static final String SQL_MARCAR_ERROR =
+            "UPDATE notificaciones SET estado = 'ERROR', ultimo_error = ?, fecha_actualizacion = NOW() " +
+            "WHERE id_notificacion = ?";
+
+    private static final String SQL_ENVIOS_INTERRUMPIDOS =
+            "UPDATE notificaciones SET estado = 'ERROR', fecha_actualizacion = NOW(), " +
+            "ultimo_error = 'Envío interrumpido: verificar si llegó antes de reintentar' " +
+            "WHERE estado = 'ENVIANDO' AND fecha_actualizacion < NOW() - INTERVAL ? MINUTE";
+
+    private static final String SQL_PURGAR_ENVIADAS =
+            "DELETE FROM notificaciones WHERE estado = 'ENVIADA' AND fecha_envio < NOW() - INTERVAL ? DAY";
+
+    private static final String SQL_PURGAR_AVISOS =
+            "DELETE FROM notificaciones_prestamos WHERE fecha_registro < NOW() - INTERVAL ? DAY";
+
+    private final EnviadorNotificaciones enviador;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SpringTemplateEngine plantillas;
+    private final int diasAviso;
+    private final int diasRevision;
+    private final int clientesPorLote;
+    private final int loteEnvio;
+    private final int porMinuto;
+    private final int maximoIntentos;
+    private final int esperaReintentoMinutos;
+    private final int minutosEnvioInterrumpido;
+    private final int retencionDias;
+
+    // Balde de fichas del envío: se recarga porMinuto fichas por minuto hasta porMinuto
+    private double fichas;
+    private long ultimaRecarga = System.nanoTime();
+
+    /**
+     * Préstamo a incluir en el resumen de un cliente.
+     */
+    private record Aviso(long prestamoId, long clienteId, String tipo, LocalDate fecha,
+                         String titulo, String nombre, String email) {
+    }
+
+    /**
+     * Notificación tomada de la bandeja para enviar.
+     */
+    private record Envio(long id, String destinatario, String asunto, String cuerpo, int intentos) {
+    }
+
+    public NotificacionService(EnviadorNotificaciones enviador,
+                               JdbcTemplate jdbcTemplate,
+                               NamedParameterJdbcTemplate namedJdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${bibliotech.notificaciones.dias-aviso:3}") int diasAviso,
+                               @Value("${bibliotech.notificaciones.dias-revision:7}") int diasRevision,
+                               @Value("${bibliotech.notificaciones.clientes-por-lote:200}") int clientesPorLote,
+                               @Value("${bibliotech.notificaciones.lote-envio:50}") int loteEnvio,
+                               @Value("${bibliotech.notificaciones.por-minuto:60}") int porMinuto,
+                               @Value("${bibliotech.notificaciones.maximo-intentos:5}") int maximoIntentos,
+                               @Value("${bibliotech.notificaciones.espera-reintento-minutos:5}") int esperaReintentoMinutos,
+                               @Value("${bibliotech.notificaciones.minutos-envio-interrumpido:15}") int minutosEnvioInterrumpido,
+                               @Value("${bibliotech.notificaciones.retencion-dias:90}") int retencionDias) {
+        this.enviador = enviador;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        // READ COMMITTED: después de bloquear los clientes se ven los avisos que otro nodo confirmó
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.plantillas = crearMotorPlantillas();
+        this.diasAviso = diasAviso;
+        this.diasRevision = diasRevision;
+        this.clientesPorLote = clientesPorLote;
+        this.loteEnvio = loteEnvio;
+        this.porMinuto = porMinuto;
+        this.fichas = porMinuto;
+        this.maximoIntentos = maximoIntentos;
+        this.esperaReintentoMinutos = esperaReintentoMinutos;
+        this.minutosEnvioInterrumpido = minutosEnvioInterrumpido;
+        this.retencionDias = retencionDias;
+    }
+
+    /**
+     * Motor de plantillas de texto propio (el de la web resuelve HTML). Las plantillas
+     * se analizan una sola vez y quedan en caché, independiente de spring.thymeleaf.cache.
+     */
+    private static SpringTemplateEngine crearMotorPlantillas() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/notificaciones/");
+        resolver.setSuffix(".txt");
+        resolver.setTemplateMode(TemplateMode.TEXT);
+        resolver.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resolver.setCacheable(true);
+        SpringTemplateEngine motor = new SpringTemplateEngine();
+        motor.setTemplateResolver(resolver);
+        return motor;
+    }
+
+    /**
+     * Analiza la plantilla al iniciar: queda en caché y un error se ve en el arranque.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        renderizar("", List.of());
+    }
+
+    // ==================== GENERACIÓN ====================
+
+    /**
+     * Genera los resúmenes de avisos pendientes y los deja en la bandeja de salida.
+     * Se ejecuta cada mañana, después del barrido de vencidos.
+     *
+     * @return Cantidad de resúmenes encolados
+     */
+    @Scheduled(cron = "${bibliotech.notificaciones.generacion-cron:0 0 8 * * *}")
+    public synchronized int generar() {
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("diasAviso", diasAviso)
+                .addValue("diasRevision", diasRevision);
+        Map<Long, List<Aviso>> porCliente = new LinkedHashMap<>();
+        namedJdbcTemplate.query(SQL_CANDIDATOS, parametros, rs -> {
+            Aviso aviso = new Aviso(rs.getLong("id_prestamo"), rs.getLong("id_cliente"), rs.getString("tipo"),
+                    rs.getDate("fecha_devolucion_esperada").toLocalDate(), rs.getString("titulo"),
+                    rs.getString("nombre"), rs.getString("email"));
+            porCliente.computeIfAbsent(aviso.clienteId(), id -> new ArrayList<>()).add(aviso);
+        });
+
+        int encolados = 0;
+        List<List<Aviso>> lote = new ArrayList<>(clientesPorLote);
+        for (List<Aviso> avisos : porCliente.values()) {
+            lote.add(avisos);
+            if (lote.size() == clientesPorLote) {
+                encolados += encolarLote(lote);
+                lote.clear();
+            }
+        }
+        if (!lote.isEmpty()) {
+            encolados += encolarLote(lote);
+        }
+
+        jdbcTemplate.update(SQL_PURGAR_ENVIADAS, retencionDias);
+        jdbcTemplate.update(SQL_PURGAR_AVISOS, retencionDias);
+
+        log.info("Notificaciones generadas: {} resúmenes para {} clientes con avisos", encolados, porCliente.size());
+        return encolados;
+    }
+
+    /**
+     * Registra los avisos y encola un resumen por cliente, en una transacción por lote.
+     * Con los clientes bloqueados se descartan los avisos que otro nodo ya registró.
+     */
+    private int encolarLote(List<List<Aviso>> lote) {
+        Integer encolados = transactionTemplate.execute(status -> {
+            List<Long> clientes = new ArrayList<>(lote.size());
+            List<Long> prestamos = new ArrayList<>();
+            for (List<Aviso> avisos : lote) {
+                clientes.add(avisos.get(0).clienteId());
+                avisos.forEach(aviso -> prestamos.add(aviso.prestamoId()));
+            }
+            namedJdbcTemplate.queryForList(SQL_BLOQUEAR_CLIENTES, Map.of("ids", clientes), Long.class);
+
+            Set<String> registrados = new HashSet<>();
+            namedJdbcTemplate.query(SQL_AVISOS_REGISTRADOS, Map.of("ids", prestamos),
+                    rs -> { registrados.add(rs.getLong(1) + ":" + rs.getString(2)); });
+
+            List<Aviso> nuevos = new ArrayList<>();
+            List<Object[]> resumenes = new ArrayList<>();
+            for (List<Aviso> avisos : lote) {
+                List<Aviso> pendientes = avisos.stream()
+                        .filter(aviso -> !registrados.contains(aviso.prestamoId() + ":" + aviso.tipo()))
+                        .toList();
+                if (pendientes.isEmpty()) {
+                    continue;
+                }
+                Aviso primero = pendientes.get(0);
+                nuevos.addAll(pendientes);
+                resumenes.add(new Object[]{primero.clienteId(), primero.email(), ASUNTO,
+                        renderizar(primero.nombre(), pendientes)});
+            }
+
+            if (!nuevos.isEmpty()) {
+                jdbcTemplate.batchUpdate(SQL_REGISTRAR_AVISO, nuevos, nuevos.size(), (ps, aviso) -> {
+                    ps.setLong(1, aviso.prestamoId());
+                    ps.setString(2, aviso.tipo());
+                });
+                jdbcTemplate.batchUpdate(SQL_ENCOLAR, resumenes);
+            }
+            return resumenes.size();
+        });
+        return encolados != null ? encolados : 0;
+    }
+
+    /**
+     * Arma el texto del resumen de un cliente con la plantilla en caché.
+     */
+    private String renderizar(String nombre, List<Aviso> avisos) {
+        List<Map<String, String>> vencidos = new ArrayList<>();
+        List<Map<String, String>> porVencer = new ArrayList<>();
+        for (Aviso aviso : avisos) {
+            Map<String, String> item = Map.of("titulo", aviso.titulo(), "fecha", aviso.fecha().format(FORMATO_FECHA));
+            ("VENCIDO".equals(aviso.tipo()) ? vencidos : porVencer).add(item);
+        }
+        Context contexto = new Context(Locale.forLanguageTag("es"));
+        contexto.setVariable("nombre", nombre);
+        contexto.setVariable("vencidos", vencidos);
+        contexto.setVariable("porVencer", porVencer);
+        return plantillas.process(PLANTILLA, contexto);
+    }
+
+    // ==================== ENVÍO ====================
+
+    /**
+     * Envía un lote de la bandeja de salida respetando el máximo por minuto: el
+     * lote se limita a las fichas disponibles y lo que no entra queda PENDIENTE
+     * para la próxima ejecución.
+     *
+     * @return Cantidad de notificaciones enviadas
+     */
+    @Scheduled(fixedDelayString = "${bibliotech.notificaciones.envio-ms:10000}")
+    public synchronized int enviarPendientes() {
+        int interrumpidos = jdbcTemplate.update(SQL_ENVIOS_INTERRUMPIDOS, minutosEnvioInterrumpido);
+        if (interrumpidos > 0) {
+            log.warn("{} notificaciones quedaron a mitad de envío y se marcaron con error", interrumpidos);
+        }
+
+        int permitidos = fichasDisponibles();
+        if (permitidos == 0) {
+            return 0;
+        }
+        List<Envio> envios = tomarLote(permitidos);
+        // Los intentos fallidos también cuentan: llegan igual al servidor de correo
+        fichas -= envios.size();
+        int enviados = 0;
+        for (Envio envio : envios) {
+            if (entregar(envio)) {
+                enviados++;
+            }
+        }
+
+        if (!envios.isEmpty()) {
+            log.info("Notificaciones enviadas: {} de {}", enviados, envios.size());
+        }
+        return enviados;
+    }
+
+    /**
+     * Recarga el balde según el tiempo transcurrido y devuelve cuántos envíos
+     * entran ahora, hasta un lote. Sin límite por minuto siempre es un lote entero.
+     */
+    private int fichasDisponibles() {
+        if (porMinuto <= 0) {
+            return loteEnvio;
+        }
+        long ahora = System.nanoTime();
+        fichas = Math.min(porMinuto, fichas + (ahora - ultimaRecarga) * porMinuto / 60_000_000_000.0);
+        ultimaRecarga = ahora;
+        return (int) Math.min(loteEnvio, Math.floor(fichas));
+    }
+
+    /**
+     * Toma hasta {@code cantidad} notificaciones PENDIENTE y las marca ENVIANDO
+     * en una transacción corta.
+     */
+    private List<Envio> tomarLote(int cantidad) {
+        List<Envio> envios = transactionTemplate.execute(status -> {
+            List<Envio> lote = jdbcTemplate.query(SQL_TOMAR_LOTE, (rs, i) -> new Envio(
+                    rs.getLong("id_notificacion"), rs.getString("destinatario"), rs.getString("asunto"),
+                    rs.getString("cuerpo"), rs.getInt("intentos") + 1), cantidad);
+            if (!lote.isEmpty()) {
+                namedJdbcTemplate.update(SQL_MARCAR_ENVIANDO,
+                        Map.of("ids", lote.stream().map(Envio::id).toList()));
+            }
+            return lote;
+        });
+        return envios != null ? envios : List.of();
+    }
+
+    /**
+     * Entrega una notificación y registra el resultado. Si falla se reprograma con
+     * espera exponencial hasta agotar los intentos.
+     */
+    private boolean entregar(Envio envio) {
+        try {
+            enviador.enviar(envio.destinatario(), envio.asunto(), envio.cuerpo());
+            jdbcTemplate.update(SQL_MARCAR_ENVIADA, envio.id());
+            return true;
+        } catch (RuntimeException e) {
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            if (error.length() > LARGO_ERROR) {
+                error = error.substring(0, LARGO_ERROR);
+            }
+            if (envio.intentos() >= maximoIntentos) {
+                jdbcTemplate.update(SQL_MARCAR_ERROR, error, envio.id());
+                log.error("Notificación {} a {} descartada tras {} intentos: {}",
+                        envio.id(), envio.destinatario(), envio.intentos(), error);
+            } else {
+                long espera = (long) esperaReintentoMinutos << Math.min(envio.intentos() - 1, 10);
+                jdbcTemplate.update(SQL_REPROGRAMAR, error, espera, envio.id());
+                log.warn("Notificación {} a {} falló (intento {}), se reintenta en {} min: {}",
+                        envio.id(), envio.destinatario(), envio.intentos(), espera, error);
+            }
+            return false;
+        }
+    }
+}
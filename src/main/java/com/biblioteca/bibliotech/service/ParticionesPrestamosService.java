@@ -0,0 +1,157 @@
+package com.biblioteca.bibliotech.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Mantenimiento de las particiones mensuales de la tabla prestamos (ver V4).
+ *
+ * Estructura: p_anterior (todo lo previo a la retención), una partición por mes
+ * (pAAAAMM) y p_futuro (MAXVALUE). Cada ejecución:
+ *   - divide p_futuro para que existan las particiones hasta N meses adelante
+ *     (p_futuro está vacía, así que la división no mueve filas; solo la primera
+ *     ejecución tras la migración reparte los préstamos existentes);
+ *   - fusiona en p_anterior los meses que superan la retención. No se eliminan
+ *     particiones: los devueltos ya los retira ArchivoPrestamosService, lo que
+ *     queda en los meses viejos son préstamos sin devolver.
+ */
+@Service
+public class ParticionesPrestamosService {
+
+    private static final Logger log = LoggerFactory.getLogger(ParticionesPrestamosService.class);
+
+    private static final String ANTERIOR = "p_anterior";
+    private static final String FUTURO = "p_futuro";
+    private static final DateTimeFormatter FORMATO_NOMBRE = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private static final String SQL_PARTICIONES =
+            "SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'prestamos' " +
+            "AND PARTITION_NAME IS NOT NULL " +
+            "ORDER BY PARTITION_ORDINAL_POSITION";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int mesesAdelante;
+    private final int mesesRetencion;
+
+    public ParticionesPrestamosService(JdbcTemplate jdbcTemplate,
+                                       @Value("${bibliotech.prestamos.particiones.meses-adelante:3}") int mesesAdelante,
+                                       @Value("${bibliotech.prestamos.particiones.meses-retencion:24}") int mesesRetencion) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.mesesAdelante = mesesAdelante;
+        this.mesesRetencion = mesesRetencion;
+    }
+
+    /**
+     * Partición de prestamos: nombre y límite superior (null para MAXVALUE).
+     */
+    private record Particion(String nombre, LocalDate limite) {
+    }
+
+    /**
+     * Al iniciar se asegura que exista la partición del mes en curso.
+     * Un error aquí no debe impedir el arranque: la tarea mensual lo reintenta.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        try {
+            mantener();
+        } catch (DataAccessException e) {
+            log.error("No se pudieron mantener las particiones de prestamos", e);
+        }
+    }
+
+    /**
+     * Crea las particiones de los próximos meses y fusiona las antiguas.
+     */
+    @Scheduled(cron = "${bibliotech.prestamos.particiones.cron:0 0 2 1 * *}")
+    public synchronized void mantener() {
+        List<Particion> particiones = jdbcTemplate.query(SQL_PARTICIONES, (rs, i) -> new Particion(
+                rs.getString("PARTITION_NAME"), leerLimite(rs.getString("PARTITION_DESCRIPTION"))));
+
+        if (particiones.isEmpty()) {
+            log.warn("La tabla prestamos no está particionada; se omite el mantenimiento");
+            return;
+        }
+        if (!particiones.get(0).nombre().equals(ANTERIOR)
+                || !particiones.get(particiones.size() - 1).nombre().equals(FUTURO)) {
+            log.warn("Particiones de prestamos con estructura inesperada {}; se omite el mantenimiento", particiones);
+            return;
+        }
+
+        YearMonth actual = YearMonth.now();
+        crearSiguientes(particiones, actual.plusMonths(mesesAdelante));
+        fusionarAntiguas(particiones, actual.minusMonths(mesesRetencion));
+    }
+
+    /**
+     * Divide p_futuro en particiones mensuales hasta el mes indicado (inclusive).
+     */
+    private void crearSiguientes(List<Particion> particiones, YearMonth hasta) {
+        // p_futuro empieza donde termina la penúltima partición
+        YearMonth desde = YearMonth.from(particiones.get(particiones.size() - 2).limite());
+        if (desde.isAfter(hasta)) {
+            return;
+        }
+
+        StringJoiner nuevas = new StringJoiner(", ");
+        for (YearMonth mes = desde; !mes.isAfter(hasta); mes = mes.plusMonths(1)) {
+            nuevas.add(definicion(mes.format(FORMATO_NOMBRE), mes.plusMonths(1).atDay(1)));
+        }
+        nuevas.add("PARTITION " + FUTURO + " VALUES LESS THAN (MAXVALUE)");
+
+        jdbcTemplate.execute("ALTER TABLE prestamos REORGANIZE PARTITION " + FUTURO + " INTO (" + nuevas + ")");
+        log.info("Particiones de prestamos creadas desde {} hasta {}", desde, hasta);
+    }
+
+    /**
+     * Fusiona en p_anterior las particiones mensuales anteriores al mes límite.
+     * Son siempre las que siguen a p_anterior, por estar ordenadas.
+     */
+    private void fusionarAntiguas(List<Particion> particiones, YearMonth limite) {
+        List<String> antiguas = new ArrayList<>();
+        LocalDate nuevoLimite = null;
+        for (Particion particion : particiones.subList(1, particiones.size() - 1)) {
+            if (particion.limite() == null || particion.limite().isAfter(limite.atDay(1))) {
+                break;
+            }
+            antiguas.add(particion.nombre());
+            nuevoLimite = particion.limite();
+        }
+        if (antiguas.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.execute("ALTER TABLE prestamos REORGANIZE PARTITION " + ANTERIOR + ", "
+                + String.join(", ", antiguas) + " INTO (" + definicion(ANTERIOR, nuevoLimite) + ")");
+        log.info("Particiones de prestamos fusionadas en {}: {}", ANTERIOR, antiguas);
+    }
+
+    private static String definicion(String nombre, LocalDate limite) {
+        return "PARTITION " + nombre + " VALUES LESS THAN ('" + limite + "')";
+    }
+
+    /**
+     * Interpreta PARTITION_DESCRIPTION de RANGE COLUMNS: '2025-01-01' o MAXVALUE.
+     */
+    private static LocalDate leerLimite(String descripcion) {
+        if (descripcion == null || descripcion.equalsIgnoreCase("MAXVALUE")) {
+            return null;
+        }
+        return LocalDate.parse(descripcion.replace("'", "").trim());
+    }
+}
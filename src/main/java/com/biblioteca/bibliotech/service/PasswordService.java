@@ -0,0 +1,71 @@
+package com.biblioteca.bibliotech.service;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Servicio para hash y verificación de contraseñas de usuarios del sistema.
+ * Soporta contraseñas heredadas en texto plano para permitir su migración
+ * automática a BCrypt en el siguiente login correcto.
+ */
+@Service
+public class PasswordService {
+    
+    private final BCryptPasswordEncoder passwordEncoder;
+    
+    // Hash de referencia para igualar el tiempo de respuesta cuando el usuario no existe
+    private final String hashFicticio;
+    
+    public PasswordService(BCryptPasswordEncoder passwordEncoder) {
+        this.passwordEncoder = passwordEncoder;
+        this.hashFicticio = passwordEncoder.encode("bibliotech-usuario-inexistente");
+    }
+    
+    /**
+     * Genera el hash BCrypt de una contraseña.
+     */
+    public String hashear(String password) {
+        return passwordEncoder.encode(password);
+    }
+    
+    /**
+     * Verifica una contraseña contra el valor almacenado (hash BCrypt o texto plano heredado).
+     */
+    public boolean verificar(String password, String almacenado) {
+        if (password == null || almacenado == null) {
+            return false;
+        }
+        if (esHashBcrypt(almacenado)) {
+            return passwordEncoder.matches(password, almacenado);
+        }
+        // Contraseña heredada en texto plano: comparación en tiempo constante
+        return MessageDigest.isEqual(
+                password.getBytes(StandardCharsets.UTF_8),
+                almacenado.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Indica si el valor almacenado debe volver a hashearse
+     * (texto plano heredado o costo menor al configurado).
+     */
+    public boolean requiereRehash(String almacenado) {
+        return !esHashBcrypt(almacenado) || passwordEncoder.upgradeEncoding(almacenado);
+    }
+    
+    /**
+     * Consume el mismo tiempo que una verificación real (usuario inexistente).
+     */
+    public void simularVerificacion(String password) {
+        passwordEncoder.matches(password == null ? "" : password, hashFicticio);
+    }
+    
+    private static boolean esHashBcrypt(String valor) {
+        return valor.length() == 60
+                && valor.charAt(0) == '$'
+                && valor.charAt(1) == '2'
+                && valor.charAt(3) == '$';
+    }
+}
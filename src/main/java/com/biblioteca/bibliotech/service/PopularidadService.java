@@ -0,0 +1,309 @@
+package com.biblioteca.bibliotech.service;
+
+import com.biblioteca.bibliotech.dto.response.LibroPopularResponse;
+import com.biblioteca.bibliotech.entity.Libro;
+import com.biblioteca.bibliotech.enums.VentanaPopularidad;
+import com.biblioteca.bibliotech.evento.EventoPrestamo;
+import com.biblioteca.bibliotech.evento.SuscriptorEventos;
+import com.biblioteca.bibliotech.repository.LibroRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Ranking de libros más prestados por ventana de tiempo (7, 30 y 365 días).
+ *
+ * Los préstamos se acumulan por libro y día en prestamos_libro_diario (ver V6).
+ * En memoria se mantiene, por libro, el conteo de cada ventana y, por ventana y
+ * categoría (más el ranking general), un min-heap acotado a los K primeros:
+ * cada préstamo nuevo actualiza los conteos y reubica el libro en sus heaps.
+ *
+ * Los préstamos nuevos llegan como eventos PrestamoCreado (BusEventos), también
+ * los registrados por otros nodos del cluster. Cada noche (y al iniciar) todo se
+ * reconstruye desde la tabla diaria: así salen de la ventana los días viejos y se
+ * corrige cualquier evento perdido o repetido.
+ */
+@Service
+public class PopularidadService implements SuscriptorEventos {
+
+    private static final Logger log = LoggerFactory.getLogger(PopularidadService.class);
+
+    private static final VentanaPopularidad[] VENTANAS = VentanaPopularidad.values();
+
+    // Clave del ranking general (todas las categorías)
+    private static final long TODAS = 0L;
+
+    private static final String SQL_REGISTRAR =
+            "INSERT INTO prestamos_libro_diario (id_libro, fecha, cantidad) VALUES (?, ?, 1) " +
+            "ON DUPLICATE KEY UPDATE cantidad = cantidad + 1";
+
+    private static final String SQL_CONTEOS =
+            "SELECT d.id_libro, l.id_categoria, " +
+            "       SUM(CASE WHEN d.fecha >= :desdeSemana THEN d.cantidad ELSE 0 END) AS semana, " +
+            "       SUM(CASE WHEN d.fecha >= :desdeMes THEN d.cantidad ELSE 0 END) AS mes, " +
+            "       SUM(d.cantidad) AS anio " +
+            "FROM prestamos_libro_diario d JOIN libros l ON l.id_libro = d.id_libro " +
+            "WHERE d.fecha >= :desdeAnio " +
+            "GROUP BY d.id_libro, l.id_categoria";
+
+    private static final String SQL_PURGAR =
+            "DELETE FROM prestamos_libro_diario WHERE fecha < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final LibroRepository libroRepository;
+    private final int tamanoRanking;
+
+    // Estado en memoria, protegido por el monitor del servicio
+    private Map<Long, Contador> contadores = new HashMap<>();
+    private Map<Long, Ranking[]> rankings = new HashMap<>();
+
+    public PopularidadService(JdbcTemplate jdbcTemplate,
+                              NamedParameterJdbcTemplate namedJdbcTemplate,
+                              LibroRepository libroRepository,
+                              @Value("${bibliotech.popularidad.tamano-ranking:10}") int tamanoRanking) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.libroRepository = libroRepository;
+        this.tamanoRanking = tamanoRanking;
+    }
+
+    /**
+     * Préstamos de un libro en cada ventana (índice = ordinal de VentanaPopularidad).
+     */
+    private static final class Contador {
+
+        private final long libroId;
+        private final Long categoriaId;
+        private final int[] cantidades = new int[VENTANAS.length];
+
+        private Contador(long libroId, Long categoriaId) {
+            this.libroId = libroId;
+            this.categoriaId = categoriaId;
+        }
+    }
+
+    /**
+     * Los K libros con más préstamos de una ventana: min-heap acotado, la raíz
+     * es el candidato a salir cuando llega uno con más préstamos.
+     */
+    private static final class Ranking {
+
+        private final int ventana;
+        private final int capacidad;
+        private final PriorityQueue<Contador> heap;
+
+        private Ranking(int ventana, int capacidad) {
+            this.ventana = ventana;
+            this.capacidad = capacidad;
+            this.heap = new PriorityQueue<>(capacidad, this::comparar);
+        }
+
+        private int comparar(Contador a, Contador b) {
+            int porCantidad = Integer.compare(a.cantidades[ventana], b.cantidades[ventana]);
+            // A igual cantidad queda antes el de menor ID (desempate estable)
+            return porCantidad != 0 ? porCantidad : Long.compare(b.libroId, a.libroId);
+        }
+
+        void ofrecer(Contador contador) {
+            if (contador.cantidades[ventana] == 0) {
+                return;
+            }
+            if (heap.size() < capacidad) {
+                heap.add(contador);
+            } else if (comparar(contador, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(contador);
+            }
+        }
+
+        /**
+         * Quita el libro antes de cambiar su conteo (el heap no admite claves mutables).
+         */
+        boolean quitar(Contador contador) {
+            return heap.remove(contador);
+        }
+
+        List<Contador> ordenados() {
+            List<Contador> resultado = new ArrayList<>(heap);
+            resultado.sort(((Comparator<Contador>) this::comparar).reversed());
+            return resultado;
+        }
+    }
+
+    // ==================== REGISTRO ====================
+
+    /**
+     * Suma un préstamo del libro al conteo diario, en la transacción actual.
+     * La memoria se actualiza con el evento PrestamoCreado.
+     */
+    public void registrarPrestamo(Libro libro) {
+        jdbcTemplate.update(SQL_REGISTRAR, libro.getId(), Date.valueOf(LocalDate.now()));
+    }
+
+    /**
+     * Incorpora a los rankings los préstamos nuevos.
+     */
+    @Override
+    public void procesar(List<EventoPrestamo> eventos) {
+        for (EventoPrestamo evento : eventos) {
+            if (evento instanceof EventoPrestamo.PrestamoCreado) {
+                incrementar(evento.libroId());
+            }
+        }
+    }
+
+    private void incrementar(long libroId) {
+        synchronized (this) {
+            Contador existente = contadores.get(libroId);
+            if (existente != null) {
+                incrementar(libroId, existente.categoriaId);
+                return;
+            }
+        }
+        // Primer préstamo del libro desde la última reconstrucción: buscar su categoría
+        Long categoriaId = libroRepository.findById(libroId)
+                .map(libro -> libro.getCategoria() != null ? libro.getCategoria().getId() : null)
+                .orElse(null);
+        incrementar(libroId, categoriaId);
+    }
+
+    private synchronized void incrementar(long libroId, Long categoriaId) {
+        Contador contador = contadores.computeIfAbsent(libroId, id -> new Contador(id, categoriaId));
+        Ranking[] generales = rankingsDe(TODAS);
+        Ranking[] deCategoria = contador.categoriaId != null ? rankingsDe(contador.categoriaId) : null;
+
+        for (int v = 0; v < VENTANAS.length; v++) {
+            generales[v].quitar(contador);
+            if (deCategoria != null) {
+                deCategoria[v].quitar(contador);
+            }
+        }
+        for (int v = 0; v < VENTANAS.length; v++) {
+            contador.cantidades[v]++;
+            generales[v].ofrecer(contador);
+            if (deCategoria != null) {
+                deCategoria[v].ofrecer(contador);
+            }
+        }
+    }
+
+    private Ranking[] rankingsDe(long clave) {
+        return rankings.computeIfAbsent(clave, k -> {
+            Ranking[] nuevos = new Ranking[VENTANAS.length];
+            for (int v = 0; v < VENTANAS.length; v++) {
+                nuevos[v] = new Ranking(v, tamanoRanking);
+            }
+            return nuevos;
+        });
+    }
+
+    // ==================== RECONSTRUCCIÓN ====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        reconstruir();
+    }
+
+    /**
+     * Descarta los días que salieron de la ventana anual y recalcula conteos y
+     * rankings desde la tabla diaria.
+     */
+    @Scheduled(cron = "${bibliotech.popularidad.cron:0 1 0 * * *}")
+    public synchronized void reconstruir() {
+        LocalDate hoy = LocalDate.now();
+        jdbcTemplate.update(SQL_PURGAR, Date.valueOf(desde(hoy, VentanaPopularidad.ANIO)));
+
+        Map<String, Object> parametros = new HashMap<>();
+        parametros.put("desdeSemana", desde(hoy, VentanaPopularidad.SEMANA));
+        parametros.put("desdeMes", desde(hoy, VentanaPopularidad.MES));
+        parametros.put("desdeAnio", desde(hoy, VentanaPopularidad.ANIO));
+
+        // Se lee bajo el monitor para no perder préstamos confirmados mientras tanto
+        Map<Long, Contador> nuevosContadores = new HashMap<>();
+        namedJdbcTemplate.query(SQL_CONTEOS, parametros, rs -> {
+            long categoria = rs.getLong("id_categoria");
+            Long categoriaId = rs.wasNull() ? null : categoria;
+            Contador contador = new Contador(rs.getLong("id_libro"), categoriaId);
+            contador.cantidades[VentanaPopularidad.SEMANA.ordinal()] = rs.getInt("semana");
+            contador.cantidades[VentanaPopularidad.MES.ordinal()] = rs.getInt("mes");
+            contador.cantidades[VentanaPopularidad.ANIO.ordinal()] = rs.getInt("anio");
+            nuevosContadores.put(contador.libroId, contador);
+        });
+
+        contadores = nuevosContadores;
+        rankings = new HashMap<>();
+        for (Contador contador : contadores.values()) {
+            Ranking[] generales = rankingsDe(TODAS);
+            Ranking[] deCategoria = contador.categoriaId != null ? rankingsDe(contador.categoriaId) : null;
+            for (int v = 0; v < VENTANAS.length; v++) {
+                generales[v].ofrecer(contador);
+                if (deCategoria != null) {
+                    deCategoria[v].ofrecer(contador);
+                }
+            }
+        }
+        log.info("Ranking de popularidad reconstruido: {} libros con préstamos en el último año",
+                nuevosContadores.size());
+    }
+
+    private static LocalDate desde(LocalDate hoy, VentanaPopularidad ventana) {
+        return hoy.minusDays(ventana.getDias() - 1L);
+    }
+
+    // ==================== CONSULTA ====================
+
+    /**
+     * Obtiene los libros más prestados de la ventana.
+     *
+     * @param ventana     Ventana de tiempo
+     * @param categoriaId Categoría, o null para el ranking general
+     */
+    @Transactional(readOnly = true)
+    public List<LibroPopularResponse> obtenerRanking(VentanaPopularidad ventana, Long categoriaId) {
+        // Copia de los conteos bajo el monitor; los libros se leen fuera de él
+        Map<Long, Integer> cantidades = new LinkedHashMap<>();
+        synchronized (this) {
+            Ranking[] porVentana = rankings.get(categoriaId != null ? categoriaId : TODAS);
+            if (porVentana == null) {
+                return List.of();
+            }
+            for (Contador contador : porVentana[ventana.ordinal()].ordenados()) {
+                cantidades.put(contador.libroId, contador.cantidades[ventana.ordinal()]);
+            }
+        }
+
+        Map<Long, Libro> libros = libroRepository.findAllById(cantidades.keySet()).stream()
+                .collect(Collectors.toMap(Libro::getId, Function.identity()));
+
+        List<LibroPopularResponse> resultado = new ArrayList<>(cantidades.size());
+        for (Map.Entry<Long, Integer> entrada : cantidades.entrySet()) {
+            Libro libro = libros.get(entrada.getKey());
+            if (libro == null) {
+                continue;
+            }
+            resultado.add(LibroPopularResponse.builder()
+                    .posicion(resultado.size() + 1)
+                    .libroId(libro.getId())
+                    .titulo(libro.getTitulo())
+                    .autor(libro.getAutor() != null ? libro.getAutor().getNombre() : null)
+                    .categoria(libro.getCategoria() != null ? libro.getCategoria().getNombre() : null)
+                    .prestamos(entrada.getValue())
+                    .build());
+        }
+        return resultado;
+    }
+}
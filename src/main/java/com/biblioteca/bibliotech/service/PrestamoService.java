@@ -1,21 +1,32 @@
 package com.biblioteca.bibliotech.service;
 
 import com.biblioteca.bibliotech.dto.request.PrestamoRequest;
+import com.biblioteca.bibliotech.dto.response.EjemplarResponse;
 import com.biblioteca.bibliotech.dto.response.PrestamoResponse;
 import com.biblioteca.bibliotech.entity.Cliente;
+import com.biblioteca.bibliotech.entity.Ejemplar;
 import com.biblioteca.bibliotech.entity.Libro;
 import com.biblioteca.bibliotech.entity.Prestamo;
+import com.biblioteca.bibliotech.entity.PrestamoHistorico;
+import com.biblioteca.bibliotech.enums.EstadoEjemplar;
 import com.biblioteca.bibliotech.enums.EstadoPrestamo;
+import com.biblioteca.bibliotech.enums.TipoEventoPrestamo;
+import com.biblioteca.bibliotech.evento.BusEventos;
 import com.biblioteca.bibliotech.exception.BusinessException;
 import com.biblioteca.bibliotech.exception.ResourceNotFoundException;
 import com.biblioteca.bibliotech.mapper.PrestamoMapper;
 import com.biblioteca.bibliotech.repository.ClienteRepository;
+import com.biblioteca.bibliotech.repository.EjemplarRepository;
 import com.biblioteca.bibliotech.repository.LibroRepository;
+import com.biblioteca.bibliotech.repository.PrestamoHistoricoRepository;
 import com.biblioteca.bibliotech.repository.PrestamoRepository;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -31,18 +42,39 @@ public class PrestamoService {
     private static final int DIAS_PRESTAMO_DEFAULT = 14;
     
     private final PrestamoRepository prestamoRepository;
+    private final PrestamoHistoricoRepository prestamoHistoricoRepository;
     private final LibroRepository libroRepository;
     private final ClienteRepository clienteRepository;
+    private final EjemplarRepository ejemplarRepository;
     private final PrestamoMapper prestamoMapper;
+    private final PopularidadService popularidadService;
+    private final ReservaService reservaService;
+    private final EjemplarService ejemplarService;
+    private final MultaService multaService;
+    private final BusEventos busEventos;
     
     public PrestamoService(PrestamoRepository prestamoRepository,
+                           PrestamoHistoricoRepository prestamoHistoricoRepository,
                            LibroRepository libroRepository,
                            ClienteRepository clienteRepository,
-                           PrestamoMapper prestamoMapper) {
+                           EjemplarRepository ejemplarRepository,
+                           PrestamoMapper prestamoMapper,
+                           PopularidadService popularidadService,
+                           ReservaService reservaService,
+                           EjemplarService ejemplarService,
+                           MultaService multaService,
+                           BusEventos busEventos) {
         this.prestamoRepository = prestamoRepository;
+        this.prestamoHistoricoRepository = prestamoHistoricoRepository;
         this.libroRepository = libroRepository;
         this.clienteRepository = clienteRepository;
+        this.ejemplarRepository = ejemplarRepository;
         this.prestamoMapper = prestamoMapper;
+        this.popularidadService = popularidadService;
+        this.reservaService = reservaService;
+        this.ejemplarService = ejemplarService;
+        this.multaService = multaService;
+        this.busEventos = busEventos;
     }
     
     // ==================== OPERACIONES DE CONSULTA ====================
@@ -94,22 +126,36 @@ public class PrestamoService {
     }
     
     /**
-     * Busca un préstamo por su ID.
+     * Busca un préstamo por su ID (también entre los archivados).
      */
     @Transactional(readOnly = true)
     public PrestamoResponse buscarPorId(Long id) {
         Prestamo prestamo = prestamoRepository.findById(id)
+                .or(() -> prestamoHistoricoRepository.findById(id).map(PrestamoHistorico::aPrestamo))
                 .orElseThrow(() -> new ResourceNotFoundException("Préstamo", "id", id));
         return prestamoMapper.toResponse(prestamo);
     }
     
     /**
-     * Obtiene préstamos de un cliente.
+     * Busca el préstamo sin devolver del ejemplar leído con el lector de códigos.
+     */
+    @Transactional(readOnly = true)
+    public PrestamoResponse buscarActivoPorCodigo(String codigoBarras) {
+        EjemplarResponse ejemplar = ejemplarService.buscarPorCodigo(codigoBarras);
+        Prestamo prestamo = prestamoRepository.findPrestamoActivoByEjemplarId(ejemplar.getId())
+                .orElseThrow(() -> new BusinessException(
+                        BusinessException.PRESTAMO_NO_ACTIVO,
+                        "El ejemplar " + ejemplar.getCodigoBarras() + " no está prestado"
+                ));
+        return prestamoMapper.toResponse(prestamo);
+    }
+    
+    /**
+     * Obtiene préstamos de un cliente (incluye los archivados).
      */
     @Transactional(readOnly = true)
     public List<PrestamoResponse> buscarPorCliente(Long clienteId) {
-        List<Prestamo> prestamos = prestamoRepository.findByClienteId(clienteId);
-        return prestamoMapper.toResponseList(prestamos);
+        return obtenerHistorialCliente(clienteId);
     }
     
     /**
@@ -122,23 +168,43 @@ public class PrestamoService {
     }
     
     /**
-     * Obtiene historial de préstamos de un cliente.
+     * Obtiene historial de préstamos de un cliente (préstamos vigentes y archivados).
      */
     @Transactional(readOnly = true)
     public List<PrestamoResponse> obtenerHistorialCliente(Long clienteId) {
-        List<Prestamo> prestamos = prestamoRepository.findHistorialByClienteId(clienteId);
+        List<Prestamo> prestamos = unirConArchivados(
+                prestamoRepository.findHistorialByClienteId(clienteId),
+                prestamoHistoricoRepository.findHistorialByClienteId(clienteId));
         return prestamoMapper.toResponseList(prestamos);
     }
     
     /**
-     * Obtiene préstamos de un libro.
+     * Obtiene préstamos de un libro (préstamos vigentes y archivados).
      */
     @Transactional(readOnly = true)
     public List<PrestamoResponse> buscarPorLibro(Long libroId) {
-        List<Prestamo> prestamos = prestamoRepository.findByLibroId(libroId);
+        List<Prestamo> prestamos = unirConArchivados(
+                prestamoRepository.findByLibroId(libroId),
+                prestamoHistoricoRepository.findHistorialByLibroId(libroId));
         return prestamoMapper.toResponseList(prestamos);
     }
     
+    /**
+     * Une préstamos de la tabla operativa y de la histórica, del más reciente al más antiguo.
+     */
+    private List<Prestamo> unirConArchivados(List<Prestamo> vigentes, List<PrestamoHistorico> archivados) {
+        if (archivados.isEmpty()) {
+            return vigentes;
+        }
+        List<Prestamo> todos = new ArrayList<>(vigentes.size() + archivados.size());
+        todos.addAll(vigentes);
+        for (PrestamoHistorico archivado : archivados) {
+            todos.add(archivado.aPrestamo());
+        }
+        todos.sort(Comparator.comparing(Prestamo::getFechaPrestamo).reversed());
+        return todos;
+    }
+    
     /**
      * Obtiene préstamos vencidos con detalles completos (para reportes).
      */
@@ -174,17 +240,22 @@ public class PrestamoService {
             );
         }
         
-        // 3. VALIDACIÓN: Verificar límite de 3 préstamos por cliente
-        Long prestamosActivos = prestamoRepository.countPrestamosActivosByClienteId(cliente.getId());
-        if (prestamosActivos >= LIMITE_PRESTAMOS_POR_CLIENTE) {
+        // 3. VALIDACIÓN: La deuda por multas no debe alcanzar el umbral de bloqueo
+        // (saldo desnormalizado en la fila del cliente, ya leída por PK)
+        multaService.validarSinDeuda(cliente);
+        
+        // 4. VALIDACIÓN: Verificar límite de 3 préstamos por cliente
+        // El UPDATE condicional sobre el contador reserva el cupo de forma atómica;
+        // si alguna validación posterior falla, el rollback lo libera.
+        if (clienteRepository.registrarPrestamo(cliente.getId(), LIMITE_PRESTAMOS_POR_CLIENTE) == 0) {
             throw new BusinessException(
                     BusinessException.LIMITE_PRESTAMOS,
                     "El cliente " + cliente.getNombreCompleto() + " ya tiene " + 
-                    prestamosActivos + " préstamos activos. El límite es " + LIMITE_PRESTAMOS_POR_CLIENTE
+                    cliente.getPrestamosActivos() + " préstamos activos. El límite es " + LIMITE_PRESTAMOS_POR_CLIENTE
             );
         }
         
-        // 4. VALIDACIÓN: Verificar que el cliente no tenga ya este libro prestado
+        // 5. VALIDACIÓN: Verificar que el cliente no tenga ya este libro prestado
         if (prestamoRepository.existsPrestamoActivoByClienteIdAndLibroId(cliente.getId(), libro.getId())) {
             throw new BusinessException(
                     BusinessException.LIBRO_YA_PRESTADO,
@@ -192,30 +263,53 @@ public class PrestamoService {
             );
         }
         
-        // 5. VALIDACIÓN: Verificar stock disponible
-        if (!libro.tieneDisponibilidad()) {
+        // 6. Tomar el ejemplar: el que el cliente tenía apartado por una reserva,
+        // el leído con el lector o cualquiera disponible
+        String codigoBarras = request.getCodigoBarras();
+        boolean conCodigo = codigoBarras != null && !codigoBarras.isBlank();
+        Ejemplar ejemplar = reservaService.retirarReserva(cliente.getId(), libro.getId());
+        if (ejemplar != null) {
+            if (conCodigo && !ejemplar.getCodigoBarras().equalsIgnoreCase(codigoBarras.trim())) {
+                throw new BusinessException(
+                        BusinessException.OPERACION_NO_PERMITIDA,
+                        "El cliente tiene apartado el ejemplar " + ejemplar.getCodigoBarras() +
+                        ". Entregue ese ejemplar"
+                );
+            }
+        } else if (conCodigo) {
+            ejemplar = ejemplarService.prestarPorCodigo(codigoBarras, libro.getId());
+        } else {
+            ejemplar = ejemplarService.prestarDisponible(libro.getId());
+        }
+        
+        // 7. VALIDACIÓN: Verificar stock disponible
+        if (ejemplar == null) {
             throw new BusinessException(
                     BusinessException.SIN_STOCK,
-                    "El libro '" + libro.getTitulo() + "' no tiene ejemplares disponibles"
+                    "El libro '" + libro.getTitulo() + "' no tiene ejemplares disponibles. " +
+                    "Puede registrar una reserva para el cliente"
             );
         }
         
-        // 6. Crear préstamo
+        // 8. Crear préstamo (los contadores del libro se recalculan al confirmar)
         Prestamo prestamo = new Prestamo();
         prestamo.setCliente(cliente);
         prestamo.setLibro(libro);
+        prestamo.setEjemplar(ejemplar);
         prestamo.setFechaPrestamo(LocalDate.now());
         prestamo.setFechaDevolucionEsperada(request.getFechaDevolucionEsperada());
         prestamo.setObservaciones(request.getObservaciones());
         prestamo.setEstado(EstadoPrestamo.ACTIVO);
         
-        // 7. Reducir stock del libro
-        libro.reducirStock();
-        libroRepository.save(libro);
-        
-        // 8. Guardar préstamo
+        // 9. Guardar préstamo
         prestamo = prestamoRepository.save(prestamo);
         
+        // 10. Sumar al ranking de más prestados (conteo diario)
+        popularidadService.registrarPrestamo(libro);
+        
+        // 11. Registrar el evento: rankings en memoria y recomendaciones se actualizan al confirmar
+        busEventos.publicar(TipoEventoPrestamo.PRESTAMO_CREADO, prestamo);
+        
         return prestamoMapper.toResponse(prestamo);
     }
     
@@ -235,14 +329,15 @@ public class PrestamoService {
     
     /**
      * Procesa la devolución de un préstamo.
+     * Si el libro tiene reservas en cola, el ejemplar queda apartado para la primera.
      * 
      * @param prestamoId ID del préstamo a devolver
      * @param observaciones Observaciones adicionales (opcional)
      * @return PrestamoResponse con el préstamo actualizado
      */
     public PrestamoResponse devolver(Long prestamoId, String observaciones) {
-        // 1. Obtener préstamo
-        Prestamo prestamo = prestamoRepository.findById(prestamoId)
+        // 1. Obtener el préstamo bloqueado: el estado leído decide qué contador se descuenta
+        Prestamo prestamo = prestamoRepository.bloquearPorId(prestamoId)
                 .orElseThrow(() -> new ResourceNotFoundException("Préstamo", "id", prestamoId));
         
         // 2. VALIDACIÓN: Verificar que esté activo o vencido (no ya devuelto)
@@ -254,6 +349,7 @@ public class PrestamoService {
         }
         
         // 3. Marcar como devuelto
+        boolean estabaVencido = EstadoPrestamo.VENCIDO.equals(prestamo.getEstado());
         prestamo.marcarComoDevuelto();
         
         // 4. Agregar observaciones si las hay
@@ -266,24 +362,56 @@ public class PrestamoService {
             }
         }
         
-        // 5. Aumentar stock del libro
-        Libro libro = prestamo.getLibro();
-        libro.aumentarStock();
-        libroRepository.save(libro);
+        // 5. Apartar el ejemplar para la primera reserva en cola o devolverlo a la estantería
+        // (los préstamos anteriores a los ejemplares no tienen uno asignado: se toma uno PRESTADO)
+        Ejemplar ejemplar = prestamo.getEjemplar();
+        if (ejemplar == null) {
+            ejemplar = ejemplarRepository.findFirstByLibroIdAndEstadoOrderByIdAsc(
+                    prestamo.getLibro().getId(), EstadoEjemplar.PRESTADO).orElse(null);
+        }
+        if (ejemplar != null) {
+            reservaService.reingresarEjemplar(ejemplar);
+        }
         
-        // 6. Guardar préstamo
-        prestamo = prestamoRepository.save(prestamo);
+        // 6. Descontar de los contadores del cliente
+        clienteRepository.ajustarContadores(prestamo.getCliente().getId(),
+                estabaVencido ? 0 : -1, estabaVencido ? -1 : 0);
+        
+        // 7. Guardar préstamo (escrito ya, para que la liquidación de la multa lo lea)
+        prestamo = prestamoRepository.saveAndFlush(prestamo);
+        
+        // 8. Liquidar la multa: la del retraso y la congelada si se extendió estando vencido
+        multaService.liquidar(prestamo.getId(), prestamo.getCliente().getId());
+        
+        // 9. Registrar el evento de devolución
+        busEventos.publicar(TipoEventoPrestamo.PRESTAMO_DEVUELTO, prestamo);
         
         return prestamoMapper.toResponse(prestamo);
     }
     
     /**
      * Actualiza los estados de préstamos vencidos.
-     * Debe ejecutarse periódicamente (ej: al iniciar la aplicación o mediante scheduler).
+     * Se ejecuta cada noche después de medianoche (cuando cambia CURRENT_DATE)
+     * y además bajo demanda desde el dashboard y los reportes.
      * 
      * @return Cantidad de préstamos actualizados
      */
+    @Scheduled(cron = "${bibliotech.prestamos.vencidos-cron:0 5 0 * * *}")
     public int actualizarPrestamosVencidos() {
+        // Bloquear los préstamos a vencer y moverlos de activos a vencidos en los contadores
+        List<Object[]> porCliente = prestamoRepository.bloquearPorVencerPorCliente();
+        if (porCliente.isEmpty()) {
+            return 0;
+        }
+        
+        for (Object[] fila : porCliente) {
+            int cantidad = ((Number) fila[1]).intValue();
+            clienteRepository.ajustarContadores(((Number) fila[0]).longValue(), -cantidad, cantidad);
+        }
+        
+        // Un evento por préstamo, antes de cambiarles el estado
+        busEventos.publicarVencidos();
+        
         return prestamoRepository.actualizarPrestamosVencidos();
     }
     
@@ -295,7 +423,8 @@ public class PrestamoService {
      * @return PrestamoResponse actualizado
      */
     public PrestamoResponse extenderPlazo(Long prestamoId, LocalDate nuevaFecha) {
-        Prestamo prestamo = prestamoRepository.findById(prestamoId)
+        // Bloqueado, como en la devolución: el estado leído decide el ajuste de contadores
+        Prestamo prestamo = prestamoRepository.bloquearPorId(prestamoId)
                 .orElseThrow(() -> new ResourceNotFoundException("Préstamo", "id", prestamoId));
         
         // Validar que esté activo
@@ -315,11 +444,15 @@ public class PrestamoService {
             );
         }
         
+        // La multa en curso se congela antes de cambiar la fecha: extender no perdona el retraso
+        multaService.congelarPorExtension(prestamo.getId(), prestamo.getCliente().getId());
+        
         prestamo.setFechaDevolucionEsperada(nuevaFecha);
         
         // Si estaba vencido, volver a activo
         if (EstadoPrestamo.VENCIDO.equals(prestamo.getEstado())) {
             prestamo.setEstado(EstadoPrestamo.ACTIVO);
+            clienteRepository.ajustarContadores(prestamo.getCliente().getId(), 1, -1);
         }
         
         String obsActuales = prestamo.getObservaciones();
@@ -331,6 +464,7 @@ public class PrestamoService {
         }
         
         prestamo = prestamoRepository.save(prestamo);
+        busEventos.publicar(TipoEventoPrestamo.PLAZO_EXTENDIDO, prestamo);
         
         return prestamoMapper.toResponse(prestamo);
     }
@@ -366,7 +500,7 @@ public class PrestamoService {
      */
     @Transactional(readOnly = true)
     public long contarPrestamosHoy() {
-        return prestamoRepository.countPrestamosHoy();
+        return prestamoRepository.countPrestamosDelDia(LocalDate.now());
     }
     
     /**
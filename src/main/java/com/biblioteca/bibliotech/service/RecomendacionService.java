@@ -0,0 +1,561 @@
+package com.biblioteca.bibliotech.service;
+
+import com.biblioteca.bibliotech.dto.response.LibroResponse;
+import com.biblioteca.bibliotech.entity.Libro;
+import com.biblioteca.bibliotech.evento.EventoPrestamo;
+import com.biblioteca.bibliotech.evento.SuscriptorEventos;
+import com.biblioteca.bibliotech.mapper.LibroMapper;
+import com.biblioteca.bibliotech.repository.LibroRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Recomendaciones "los lectores también pidieron" por coocurrencia de préstamos.
+ *
+ * Dos libros coocurren cuando un mismo cliente pidió ambos (alguna vez, en
+ * prestamos o prestamos_historico). La similitud es el coseno:
+ * coocurrencias(a, b) / raíz(clientes(a) * clientes(b)).
+ *
+ * El modelo vive en memoria en estructuras primitivas indexadas por ID de libro:
+ * un mapa disperso int -> float de coocurrencias por libro y la lista de los N
+ * vecinos más similares, ya ordenada, que es lo único que se consulta al servir.
+ *
+ * Se reconstruye completo al iniciar y cada noche; entre reconstrucciones cada
+ * préstamo nuevo (primera vez que el cliente pide ese libro) se incorpora de
+ * forma incremental al recibir su evento PrestamoCreado (BusEventos). Si las coocurrencias superan la memoria configurada se
+ * descartan los pares menos frecuentes.
+ */
+@Service
+public class RecomendacionService implements SuscriptorEventos {
+
+    private static final Logger log = LoggerFactory.getLogger(RecomendacionService.class);
+
+    // Clave int + valor float, con la tabla ocupada como máximo a la mitad
+    private static final int BYTES_POR_ENTRADA = 16;
+
+    // El modelo se indexa por ID: libros con IDs mayores no se consideran
+    private static final int MAX_ID_LIBRO = 50_000_000;
+
+    private static final String SQL_PARES =
+            "SELECT id_cliente, id_libro FROM prestamos " +
+            "UNION " +
+            "SELECT id_cliente, id_libro FROM prestamos_historico " +
+            "ORDER BY id_cliente";
+
+    private static final String SQL_LIBROS_CLIENTE =
+            "SELECT id_libro, COUNT(*) AS veces FROM (" +
+            "  SELECT id_libro FROM prestamos WHERE id_cliente = ? " +
+            "  UNION ALL " +
+            "  SELECT id_libro FROM prestamos_historico WHERE id_cliente = ?" +
+            ") t GROUP BY id_libro";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate jdbcTemplateStreaming;
+    private final LibroRepository libroRepository;
+    private final LibroMapper libroMapper;
+    private final DisponibilidadService disponibilidadService;
+    private final int cantidadVecinos;
+    private final int maxLibrosPorCliente;
+    private final int minimoCoocurrencias;
+    private final long memoriaMaxima;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Modelo modelo = new Modelo(0);
+
+    public RecomendacionService(JdbcTemplate jdbcTemplate,
+                                DataSource dataSource,
+                                LibroRepository libroRepository,
+                                LibroMapper libroMapper,
+                                DisponibilidadService disponibilidadService,
+                                @Value("${bibliotech.recomendaciones.vecinos:10}") int cantidadVecinos,
+                                @Value("${bibliotech.recomendaciones.max-libros-por-cliente:200}") int maxLibrosPorCliente,
+                                @Value("${bibliotech.recomendaciones.minimo-coocurrencias:1}") int minimoCoocurrencias,
+                                @Value("${bibliotech.recomendaciones.memoria-max-mb:64}") int memoriaMaximaMb) {
+        this.jdbcTemplate = jdbcTemplate;
+        // MySQL entrega las filas en streaming solo con fetchSize = Integer.MIN_VALUE
+        this.jdbcTemplateStreaming = new JdbcTemplate(dataSource);
+        this.jdbcTemplateStreaming.setFetchSize(Integer.MIN_VALUE);
+        this.libroRepository = libroRepository;
+        this.libroMapper = libroMapper;
+        this.disponibilidadService = disponibilidadService;
+        this.cantidadVecinos = cantidadVecinos;
+        this.maxLibrosPorCliente = maxLibrosPorCliente;
+        this.minimoCoocurrencias = minimoCoocurrencias;
+        this.memoriaMaxima = memoriaMaximaMb * 1024L * 1024L;
+    }
+
+    // ==================== CONSULTA ====================
+
+    /**
+     * Obtiene los libros que más coocurren con el indicado, del más al menos similar.
+     */
+    @Transactional(readOnly = true)
+    public List<LibroResponse> recomendar(Long libroId) {
+        int[] ids;
+        lock.readLock().lock();
+        try {
+            ids = modelo.vecinos(libroId);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (ids.length == 0) {
+            return List.of();
+        }
+
+        List<Long> claves = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            claves.add((long) id);
+        }
+        Map<Long, Libro> libros = libroRepository.findAllById(claves).stream()
+                .collect(Collectors.toMap(Libro::getId, Function.identity()));
+
+        List<LibroResponse> resultado = new ArrayList<>(ids.length);
+        for (Long clave : claves) {
+            Libro libro = libros.get(clave);
+            if (libro != null) {
+                resultado.add(disponibilidadService.aplicar(libroMapper.toResponse(libro)));
+            }
+        }
+        return resultado;
+    }
+
+    // ==================== ACTUALIZACIÓN INCREMENTAL ====================
+
+    /**
+     * Incorpora al modelo los préstamos nuevos.
+     */
+    @Override
+    public void procesar(List<EventoPrestamo> eventos) {
+        for (EventoPrestamo evento : eventos) {
+            if (evento instanceof EventoPrestamo.PrestamoCreado) {
+                incorporar(evento.clienteId(), evento.libroId());
+            }
+        }
+    }
+
+    private void incorporar(long clienteId, long libroId) {
+        if (libroId > MAX_ID_LIBRO) {
+            return;
+        }
+        try {
+            int[] otros = new int[maxLibrosPorCliente];
+            int[] cantidadOtros = {0};
+            boolean[] esNuevo = {false};
+            jdbcTemplate.query(SQL_LIBROS_CLIENTE, (ResultSet rs) -> {
+                long id = rs.getLong("id_libro");
+                if (id == libroId) {
+                    // Si el cliente ya lo había pedido, sus pares ya están contados
+                    esNuevo[0] = rs.getInt("veces") == 1;
+                } else if (id <= MAX_ID_LIBRO && cantidadOtros[0] < otros.length) {
+                    otros[cantidadOtros[0]++] = (int) id;
+                }
+            }, clienteId, clienteId);
+
+            if (!esNuevo[0]) {
+                return;
+            }
+
+            lock.writeLock().lock();
+            try {
+                modelo.incorporar((int) libroId, otros, cantidadOtros[0], cantidadVecinos, minimoCoocurrencias);
+                if (modelo.memoriaEstimada() > memoriaMaxima) {
+                    modelo.podar(memoriaMaxima);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (DataAccessException e) {
+            // El préstamo ya está confirmado: el modelo se corrige en la próxima reconstrucción
+            log.warn("No se pudo actualizar el modelo de recomendaciones para el libro {}", libroId, e);
+        }
+    }
+
+    // ==================== RECONSTRUCCIÓN ====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        try {
+            reconstruir();
+        } catch (DataAccessException e) {
+            log.error("No se pudo construir el modelo de recomendaciones", e);
+        }
+    }
+
+    /**
+     * Reconstruye el modelo leyendo los pares cliente-libro ordenados por cliente.
+     */
+    @Scheduled(cron = "${bibliotech.recomendaciones.cron:0 30 4 * * *}")
+    public void reconstruir() {
+        long inicio = System.currentTimeMillis();
+
+        AcumuladorPares acumulador = new AcumuladorPares(new Modelo(1024));
+        jdbcTemplateStreaming.query(SQL_PARES, acumulador);
+        acumulador.terminarCliente();
+
+        Modelo nuevo = acumulador.modelo;
+        nuevo.calcularTodos(cantidadVecinos, minimoCoocurrencias);
+
+        lock.writeLock().lock();
+        try {
+            modelo = nuevo;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Modelo de recomendaciones construido en {} ms: {} clientes, {} pares, ~{} KB{}",
+                System.currentTimeMillis() - inicio, acumulador.clientes, nuevo.entradas,
+                nuevo.memoriaEstimada() / 1024,
+                nuevo.umbralPoda > 0 ? " (podados pares con <= " + nuevo.umbralPoda + " coocurrencias)" : "");
+    }
+
+    /**
+     * Agrupa las filas por cliente y suma los pares de cada uno al modelo.
+     */
+    private final class AcumuladorPares implements RowCallbackHandler {
+
+        private final Modelo modelo;
+        private final int[] libros = new int[maxLibrosPorCliente];
+        private int cantidad;
+        private long clienteActual = -1;
+        private int clientes;
+
+        private AcumuladorPares(Modelo modelo) {
+            this.modelo = modelo;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long cliente = rs.getLong(1);
+            long libro = rs.getLong(2);
+            if (cliente != clienteActual) {
+                terminarCliente();
+                clienteActual = cliente;
+            }
+            // Los clientes con muchísimos libros aportan pares poco informativos:
+            // se toman solo los primeros para acotar el costo cuadrático
+            if (libro <= MAX_ID_LIBRO && cantidad < libros.length) {
+                libros[cantidad++] = (int) libro;
+            }
+        }
+
+        void terminarCliente() {
+            if (cantidad > 0) {
+                modelo.registrarCliente(libros, cantidad);
+                clientes++;
+                if (modelo.memoriaEstimada() > memoriaMaxima) {
+                    modelo.podar(memoriaMaxima);
+                }
+            }
+            cantidad = 0;
+        }
+    }
+
+    // ==================== ESTRUCTURAS ====================
+
+    /**
+     * Modelo de coocurrencias indexado por ID de libro.
+     */
+    private static final class Modelo {
+
+        private int[] clientesPorLibro;
+        private MapaEnteroFlotante[] coocurrencias;
+        private int[][] vecinos;
+        private float[][] puntajes;
+        private long entradas;
+        private int umbralPoda;
+
+        Modelo(int capacidad) {
+            clientesPorLibro = new int[capacidad];
+            coocurrencias = new MapaEnteroFlotante[capacidad];
+            vecinos = new int[capacidad][];
+            puntajes = new float[capacidad][];
+        }
+
+        int[] vecinos(long libroId) {
+            if (libroId < 0 || libroId >= vecinos.length || vecinos[(int) libroId] == null) {
+                return new int[0];
+            }
+            return vecinos[(int) libroId].clone();
+        }
+
+        long memoriaEstimada() {
+            return entradas * BYTES_POR_ENTRADA;
+        }
+
+        void registrarCliente(int[] libros, int cantidad) {
+            for (int i = 0; i < cantidad; i++) {
+                asegurarCapacidad(libros[i]);
+                clientesPorLibro[libros[i]]++;
+            }
+            for (int i = 0; i < cantidad; i++) {
+                for (int j = i + 1; j < cantidad; j++) {
+                    sumarPar(libros[i], libros[j]);
+                    sumarPar(libros[j], libros[i]);
+                }
+            }
+        }
+
+        /**
+         * Suma el primer préstamo de un libro por parte de un cliente que ya
+         * había pedido los otros, y actualiza los vecinos afectados.
+         */
+        void incorporar(int libro, int[] otros, int cantidadOtros, int n, int minimo) {
+            asegurarCapacidad(libro);
+            clientesPorLibro[libro]++;
+            for (int i = 0; i < cantidadOtros; i++) {
+                asegurarCapacidad(otros[i]);
+                sumarPar(libro, otros[i]);
+                sumarPar(otros[i], libro);
+            }
+            calcularVecinos(libro, n, minimo);
+            for (int i = 0; i < cantidadOtros; i++) {
+                actualizarVecino(otros[i], libro, n, minimo);
+            }
+        }
+
+        private void sumarPar(int a, int b) {
+            MapaEnteroFlotante mapa = coocurrencias[a];
+            if (mapa == null) {
+                mapa = new MapaEnteroFlotante(4);
+                coocurrencias[a] = mapa;
+            }
+            if (mapa.sumar(b, 1f)) {
+                entradas++;
+            }
+        }
+
+        /**
+         * Descarta los pares menos frecuentes hasta entrar en la memoria indicada.
+         * Los pares descartados vuelven a contar desde cero si reaparecen.
+         */
+        void podar(long memoriaMaxima) {
+            while (memoriaEstimada() > memoriaMaxima / 2 && entradas > 0) {
+                umbralPoda++;
+                entradas = 0;
+                for (MapaEnteroFlotante mapa : coocurrencias) {
+                    if (mapa != null) {
+                        mapa.eliminarHasta(umbralPoda);
+                        entradas += mapa.tamano();
+                    }
+                }
+            }
+        }
+
+        void calcularTodos(int n, int minimo) {
+            for (int libro = 0; libro < coocurrencias.length; libro++) {
+                if (coocurrencias[libro] != null) {
+                    calcularVecinos(libro, n, minimo);
+                }
+            }
+        }
+
+        /**
+         * Recalcula los N vecinos de un libro desde sus coocurrencias.
+         */
+        private void calcularVecinos(int libro, int n, int minimo) {
+            MapaEnteroFlotante mapa = coocurrencias[libro];
+            int[] ids = new int[0];
+            float[] valores = new float[0];
+            if (mapa != null) {
+                ids = new int[Math.min(n, mapa.tamano())];
+                valores = new float[ids.length];
+                int cantidad = 0;
+                for (int i = 0; i < mapa.capacidad(); i++) {
+                    int otro = mapa.claveEn(i);
+                    if (otro != 0 && mapa.valorEn(i) >= minimo) {
+                        cantidad = insertarOrdenado(ids, valores, cantidad, otro, puntaje(libro, otro, mapa.valorEn(i)));
+                    }
+                }
+                ids = Arrays.copyOf(ids, cantidad);
+                valores = Arrays.copyOf(valores, cantidad);
+            }
+            vecinos[libro] = ids;
+            puntajes[libro] = valores;
+        }
+
+        /**
+         * Actualiza el puntaje de un candidato en la lista de vecinos de un libro
+         * sin recorrer todas sus coocurrencias.
+         */
+        private void actualizarVecino(int libro, int candidato, int n, int minimo) {
+            float coocurrencia = coocurrencias[libro] != null ? coocurrencias[libro].get(candidato) : 0f;
+            int[] ids = vecinos[libro] != null ? vecinos[libro] : new int[0];
+            float[] valores = puntajes[libro] != null ? puntajes[libro] : new float[0];
+
+            // Se quita el candidato si ya estaba y se vuelve a insertar con su puntaje nuevo
+            int[] nuevosIds = new int[Math.min(n, ids.length + 1)];
+            float[] nuevosValores = new float[nuevosIds.length];
+            int cantidad = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] != candidato) {
+                    cantidad = insertarOrdenado(nuevosIds, nuevosValores, cantidad, ids[i], valores[i]);
+                }
+            }
+            if (coocurrencia >= minimo) {
+                cantidad = insertarOrdenado(nuevosIds, nuevosValores, cantidad, candidato,
+                        puntaje(libro, candidato, coocurrencia));
+            }
+            vecinos[libro] = Arrays.copyOf(nuevosIds, cantidad);
+            puntajes[libro] = Arrays.copyOf(nuevosValores, cantidad);
+        }
+
+        private float puntaje(int a, int b, float coocurrencia) {
+            return (float) (coocurrencia / Math.sqrt((double) clientesPorLibro[a] * clientesPorLibro[b]));
+        }
+
+        /**
+         * Inserta en arreglos ordenados de mayor a menor puntaje, con capacidad fija.
+         *
+         * @return Nueva cantidad de elementos
+         */
+        private static int insertarOrdenado(int[] ids, float[] valores, int cantidad, int id, float valor) {
+            if (ids.length == 0 || (cantidad == ids.length && valor <= valores[cantidad - 1])) {
+                return cantidad;
+            }
+            int posicion = cantidad < ids.length ? cantidad : cantidad - 1;
+            while (posicion > 0 && valores[posicion - 1] < valor) {
+                ids[posicion] = ids[posicion - 1];
+                valores[posicion] = valores[posicion - 1];
+                posicion--;
+            }
+            ids[posicion] = id;
+            valores[posicion] = valor;
+            return Math.min(cantidad + 1, ids.length);
+        }
+
+        private void asegurarCapacidad(int libro) {
+            if (libro < clientesPorLibro.length) {
+                return;
+            }
+            int capacidad = Math.max(libro + 1, clientesPorLibro.length + (clientesPorLibro.length >> 1));
+            clientesPorLibro = Arrays.copyOf(clientesPorLibro, capacidad);
+            coocurrencias = Arrays.copyOf(coocurrencias, capacidad);
+            vecinos = Arrays.copyOf(vecinos, capacidad);
+            puntajes = Arrays.copyOf(puntajes, capacidad);
+        }
+    }
+
+    /**
+     * Mapa int -> float de direccionamiento abierto (sondeo lineal).
+     * La clave 0 marca posición libre: los IDs de libro empiezan en 1.
+     */
+    private static final class MapaEnteroFlotante {
+
+        private int[] claves;
+        private float[] valores;
+        private int tamano;
+
+        MapaEnteroFlotante(int capacidadEsperada) {
+            int capacidad = Integer.highestOneBit(Math.max(4, capacidadEsperada * 2 - 1)) << 1;
+            claves = new int[capacidad];
+            valores = new float[capacidad];
+        }
+
+        int tamano() {
+            return tamano;
+        }
+
+        int capacidad() {
+            return claves.length;
+        }
+
+        int claveEn(int posicion) {
+            return claves[posicion];
+        }
+
+        float valorEn(int posicion) {
+            return valores[posicion];
+        }
+
+        float get(int clave) {
+            int mascara = claves.length - 1;
+            for (int i = mezclar(clave) & mascara; claves[i] != 0; i = (i + 1) & mascara) {
+                if (claves[i] == clave) {
+                    return valores[i];
+                }
+            }
+            return 0f;
+        }
+
+        /**
+         * @return true si la clave no estaba en el mapa
+         */
+        boolean sumar(int clave, float delta) {
+            if ((tamano + 1) * 2 > claves.length) {
+                redimensionar(claves.length * 2);
+            }
+            int mascara = claves.length - 1;
+            int i = mezclar(clave) & mascara;
+            while (claves[i] != 0) {
+                if (claves[i] == clave) {
+                    valores[i] += delta;
+                    return false;
+                }
+                i = (i + 1) & mascara;
+            }
+            claves[i] = clave;
+            valores[i] = delta;
+            tamano++;
+            return true;
+        }
+
+        /**
+         * Elimina las entradas con valor menor o igual al umbral.
+         */
+        void eliminarHasta(float umbral) {
+            int[] clavesAnteriores = claves;
+            float[] valoresAnteriores = valores;
+            int quedan = 0;
+            for (int i = 0; i < clavesAnteriores.length; i++) {
+                if (clavesAnteriores[i] != 0 && valoresAnteriores[i] > umbral) {
+                    quedan++;
+                }
+            }
+            int capacidad = Integer.highestOneBit(Math.max(4, quedan * 2 - 1)) << 1;
+            claves = new int[capacidad];
+            valores = new float[capacidad];
+            tamano = 0;
+            for (int i = 0; i < clavesAnteriores.length; i++) {
+                if (clavesAnteriores[i] != 0 && valoresAnteriores[i] > umbral) {
+                    sumar(clavesAnteriores[i], valoresAnteriores[i]);
+                }
+            }
+        }
+
+        private void redimensionar(int capacidad) {
+            int[] clavesAnteriores = claves;
+            float[] valoresAnteriores = valores;
+            claves = new int[capacidad];
+            valores = new float[capacidad];
+            tamano = 0;
+            for (int i = 0; i < clavesAnteriores.length; i++) {
+                if (clavesAnteriores[i] != 0) {
+                    sumar(clavesAnteriores[i], valoresAnteriores[i]);
+                }
+            }
+        }
+
+        private static int mezclar(int valor) {
+            int h = valor * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.biblioteca.bibliotech.service;
+
+import com.biblioteca.bibliotech.exception.ResourceNotFoundException;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reporte de errores de una importación masiva.
+ * Las filas rechazadas se escriben a un CSV temporal a medida que aparecen
+ * (desde el hilo lector o desde los hilos que guardan los lotes), para no
+ * acumular los errores en memoria. Si no hubo errores el archivo se elimina.
+ */
+public class ReporteImportacion implements Closeable {
+
+    private static final Path DIRECTORIO =
+            Path.of(System.getProperty("java.io.tmpdir"), "bibliotech-importaciones");
+    private static final Duration RETENCION = Duration.ofDays(1);
+    private static final int MAX_ERRORES_EN_PANTALLA = 20;
+
+    private final String id;
+    private final Path archivo;
+    private final BufferedWriter escritor;
+    private final List<String> primerosErrores = new ArrayList<>();
+    private int errores;
+
+    private ReporteImportacion(String id, Path archivo, BufferedWriter escritor) {
+        this.id = id;
+        this.archivo = archivo;
+        this.escritor = escritor;
+    }
+
+    /**
+     * Crea un reporte vacío (y purga los reportes de más de un día).
+     */
+    public static ReporteImportacion crear() throws IOException {
+        Files.createDirectories(DIRECTORIO);
+        purgarAntiguos();
+
+        String id = UUID.randomUUID().toString();
+        Path archivo = DIRECTORIO.resolve(id + ".csv");
+        BufferedWriter escritor = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8);
+        // BOM para que Excel abra el CSV con tildes correctas
+        escritor.write('\uFEFF');
+        escritor.write("fila;clave;error");
+        escritor.newLine();
+        return new ReporteImportacion(id, archivo, escritor);
+    }
+
+    /**
+     * Obtiene el archivo de un reporte generado previamente.
+     */
+    public static Path buscar(String id) {
+        try {
+            UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            throw new ResourceNotFoundException("Reporte de importación", "id", id);
+        }
+        Path archivo = DIRECTORIO.resolve(id + ".csv");
+        if (!Files.isRegularFile(archivo)) {
+            throw new ResourceNotFoundException("Reporte de importación", "id", id);
+        }
+        return archivo;
+    }
+
+    /**
+     * Registra una fila rechazada.
+     *
+     * @param fila    Número de fila en el archivo de origen
+     * @param clave   Valor que identifica la fila (ISBN, DNI...), puede ser null
+     * @param mensaje Motivo del rechazo
+     */
+    public synchronized void registrar(int fila, String clave, String mensaje) {
+        errores++;
+        if (primerosErrores.size() < MAX_ERRORES_EN_PANTALLA) {
+            primerosErrores.add("Fila " + fila + (clave != null ? " (" + clave + ")" : "") + ": " + mensaje);
+        }
+        try {
+            escritor.write(fila + ";" + escaparCsv(clave) + ";" + escaparCsv(mensaje));
+            escritor.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized int getErrores() {
+        return errores;
+    }
+
+    public synchronized List<String> getPrimerosErrores() {
+        return new ArrayList<>(primerosErrores);
+    }
+
+    /**
+     * Identificador para descargar el reporte, o null si no hubo errores.
+     */
+    public synchronized String getId() {
+        return errores > 0 ? id : null;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        escritor.close();
+        if (errores == 0) {
+            Files.deleteIfExists(archivo);
+        }
+    }
+
+    private static String escaparCsv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(';') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0) {
+            return valor;
+        }
+        return "\"" + valor.replace("\"", "\"\"") + "\"";
+    }
+
+    private static void purgarAntiguos() {
+        Instant limite = Instant.now().minus(RETENCION);
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(DIRECTORIO, "*.csv")) {
+            for (Path archivo : archivos) {
+                if (Files.getLastModifiedTime(archivo).toInstant().isBefore(limite)) {
+                    Files.deleteIfExists(archivo);
+                }
+            }
+        } catch (IOException e) {
+            // La purga es best-effort: no debe impedir la importación
+        }
+    }
+}
@@ -0,0 +1,507 @@
+package com.biblioteca.bibliotech.service;
+
+import com.biblioteca.bibliotech.dto.request.ReservaRequest;
+import com.biblioteca.bibliotech.dto.response.ReservaResponse;
+import com.biblioteca.bibliotech.entity.Cliente;
+import com.biblioteca.bibliotech.entity.Ejemplar;
+import com.biblioteca.bibliotech.entity.Libro;
+import com.biblioteca.bibliotech.entity.Reserva;
+import com.biblioteca.bibliotech.enums.EstadoEjemplar;
+import com.biblioteca.bibliotech.enums.EstadoReserva;
+import com.biblioteca.bibliotech.exception.BusinessException;
+import com.biblioteca.bibliotech.exception.ResourceNotFoundException;
+import com.biblioteca.bibliotech.mapper.ReservaMapper;
+import com.biblioteca.bibliotech.repository.ClienteRepository;
+import com.biblioteca.bibliotech.repository.EjemplarRepository;
+import com.biblioteca.bibliotech.repository.LibroRepository;
+import com.biblioteca.bibliotech.repository.PrestamoRepository;
+import com.biblioteca.bibliotech.repository.ReservaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Servicio de reservas de libros sin ejemplares disponibles.
+ *
+ * Las reservas de cada libro forman una cola FIFO (por id_reserva). Al devolverse
+ * un ejemplar, PrestamoService llama a {@link #reingresarEjemplar(Ejemplar)}: con la
+ * fila del libro bloqueada, ese ejemplar queda APARTADO para la primera reserva
+ * PENDIENTE (que pasa a DISPONIBLE por unos días) o, si no hay cola, vuelve a la
+ * estantería. Dar de alta una reserva también bloquea el libro, así que ninguna
+ * devolución puede liberar un ejemplar mientras alguien entra en la cola.
+ *
+ * En memoria se mantienen, bajo el monitor del servicio, la cola de cada libro
+ * (posición y cantidad en espera sin consultar la base) y una rueda de tiempo con
+ * los vencimientos de las reservas DISPONIBLE: cada minuto se avanza la rueda y
+ * solo se procesan las reservas que vencieron, sin recorrer la tabla. Los cambios
+ * se aplican después del commit.
+ *
+ * Cada hora un barrido por el índice (estado, fecha_expiracion) expira lo que la
+ * rueda no haya visto (reservas asignadas en otro nodo, fallos) y recarga la memoria.
+ */
+@Service
+public class ReservaService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservaService.class);
+
+    // Ranuras de la rueda: con ticks de un minuto, una vuelta dura unas 17 horas
+    private static final int RANURAS_RUEDA = 1024;
+
+    private final ReservaRepository reservaRepository;
+    private final LibroRepository libroRepository;
+    private final ClienteRepository clienteRepository;
+    private final PrestamoRepository prestamoRepository;
+    private final EjemplarRepository ejemplarRepository;
+    private final EjemplarService ejemplarService;
+    private final ReservaMapper reservaMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int diasRetiro;
+    private final int maximoPorCliente;
+    private final long duracionTickMs;
+
+    // Estado en memoria, protegido por el monitor del servicio
+    private Map<Long, TreeSet<Long>> colas = new HashMap<>();
+    private RuedaExpiraciones rueda;
+
+    public ReservaService(ReservaRepository reservaRepository,
+                          LibroRepository libroRepository,
+                          ClienteRepository clienteRepository,
+                          PrestamoRepository prestamoRepository,
+                          EjemplarRepository ejemplarRepository,
+                          EjemplarService ejemplarService,
+                          ReservaMapper reservaMapper,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${bibliotech.reservas.dias-retiro:3}") int diasRetiro,
+                          @Value("${bibliotech.reservas.maximo-por-cliente:3}") int maximoPorCliente,
+                          @Value("${bibliotech.reservas.tick-ms:60000}") long duracionTickMs) {
+        this.reservaRepository = reservaRepository;
+        this.libroRepository = libroRepository;
+        this.clienteRepository = clienteRepository;
+        this.prestamoRepository = prestamoRepository;
+        this.ejemplarRepository = ejemplarRepository;
+        this.ejemplarService = ejemplarService;
+        this.reservaMapper = reservaMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.diasRetiro = diasRetiro;
+        this.maximoPorCliente = maximoPorCliente;
+        this.duracionTickMs = duracionTickMs;
+        this.rueda = new RuedaExpiraciones(RANURAS_RUEDA, duracionTickMs, System.currentTimeMillis());
+    }
+
+    // ==================== OPERACIONES DE CONSULTA ====================
+
+    /**
+     * Obtiene las reservas vigentes (en cola o listas para retirar).
+     */
+    @Transactional(readOnly = true)
+    public List<ReservaResponse> listarActivas() {
+        return conPosiciones(reservaRepository.findReservasActivas());
+    }
+
+    /**
+     * Obtiene reservas por estado.
+     */
+    @Transactional(readOnly = true)
+    public List<ReservaResponse> listarPorEstado(EstadoReserva estado) {
+        return conPosiciones(reservaRepository.findByEstadoConDetalles(estado));
+    }
+
+    /**
+     * Busca una reserva por su ID.
+     */
+    @Transactional(readOnly = true)
+    public ReservaResponse buscarPorId(Long id) {
+        Reserva reserva = reservaRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Reserva", "id", id));
+        return conPosiciones(List.of(reserva)).get(0);
+    }
+
+    /**
+     * Obtiene las reservas de un cliente.
+     */
+    @Transactional(readOnly = true)
+    public List<ReservaResponse> buscarPorCliente(Long clienteId) {
+        return conPosiciones(reservaRepository.findByClienteId(clienteId));
+    }
+
+    /**
+     * Cantidad de reservas en espera para un libro.
+     */
+    public synchronized int contarEnCola(Long libroId) {
+        TreeSet<Long> cola = colas.get(libroId);
+        return cola != null ? cola.size() : 0;
+    }
+
+    /**
+     * Cuenta reservas por estado.
+     */
+    @Transactional(readOnly = true)
+    public long contarPorEstado(EstadoReserva estado) {
+        return reservaRepository.countByEstado(estado);
+    }
+
+    private List<ReservaResponse> conPosiciones(List<Reserva> reservas) {
+        List<ReservaResponse> respuestas = reservaMapper.toResponseList(reservas);
+        synchronized (this) {
+            for (ReservaResponse respuesta : respuestas) {
+                if (EstadoReserva.PENDIENTE.equals(respuesta.getEstado())) {
+                    respuesta.setPosicion(posicionEnCola(respuesta.getIdLibro(), respuesta.getId()));
+                }
+            }
+        }
+        return respuestas;
+    }
+
+    private Integer posicionEnCola(long libroId, long reservaId) {
+        TreeSet<Long> cola = colas.get(libroId);
+        if (cola == null || !cola.contains(reservaId)) {
+            return null;
+        }
+        return cola.headSet(reservaId).size() + 1;
+    }
+
+    // ==================== OPERACIONES TRANSACCIONALES ====================
+
+    /**
+     * Registra una reserva para un libro sin ejemplares disponibles.
+     *
+     * @param request Datos de la reserva
+     * @return ReservaResponse con la reserva creada
+     * @throws BusinessException si no se cumplen las reglas de negocio
+     */
+    @Transactional
+    public ReservaResponse crear(ReservaRequest request) {
+        // 1. Bloquear el libro: serializa con las devoluciones que asignan ejemplares
+        Libro libro = libroRepository.bloquearPorId(request.getIdLibro())
+                .orElseThrow(() -> new ResourceNotFoundException("Libro", "id", request.getIdLibro()));
+
+        Cliente cliente = clienteRepository.findById(request.getIdCliente())
+                .orElseThrow(() -> new ResourceNotFoundException("Cliente", "id", request.getIdCliente()));
+
+        // 2. VALIDACIÓN: Cliente debe estar activo
+        if (!cliente.getActivo()) {
+            throw new BusinessException(
+                    BusinessException.CLIENTE_INACTIVO,
+                    "El cliente " + cliente.getNombreCompleto() + " está inactivo y no puede reservar libros"
+            );
+        }
+
+        // 3. VALIDACIÓN: Solo se reservan libros sin stock
+        if (ejemplarRepository.existsByLibroIdAndEstado(libro.getId(), EstadoEjemplar.DISPONIBLE)) {
+            throw new BusinessException(
+                    BusinessException.OPERACION_NO_PERMITIDA,
+                    "El libro '" + libro.getTitulo() + "' tiene ejemplares disponibles. Registre el préstamo directamente"
+            );
+        }
+
+        // 4. VALIDACIÓN: El cliente no debe tener el libro prestado ni reservado
+        if (prestamoRepository.existsPrestamoActivoByClienteIdAndLibroId(cliente.getId(), libro.getId())) {
+            throw new BusinessException(
+                    BusinessException.LIBRO_YA_PRESTADO,
+                    "El cliente " + cliente.getNombreCompleto() + " ya tiene prestado el libro '" + libro.getTitulo() + "'"
+            );
+        }
+        if (reservaRepository.existsReservaActiva(cliente.getId(), libro.getId())) {
+            throw new BusinessException(
+                    BusinessException.DUPLICADO,
+                    "El cliente " + cliente.getNombreCompleto() + " ya tiene una reserva del libro '" + libro.getTitulo() + "'"
+            );
+        }
+
+        // 5. VALIDACIÓN: Límite de reservas vigentes por cliente
+        if (reservaRepository.countReservasActivasByClienteId(cliente.getId()) >= maximoPorCliente) {
+            throw new BusinessException(
+                    BusinessException.LIMITE_RESERVAS,
+                    "El cliente " + cliente.getNombreCompleto() + " ya tiene " + maximoPorCliente +
+                    " reservas vigentes. El límite es " + maximoPorCliente
+            );
+        }
+
+        // 6. Guardar y sumar a la cola en memoria al confirmar
+        Reserva reserva = Reserva.builder()
+                .libro(libro)
+                .cliente(cliente)
+                .observaciones(request.getObservaciones())
+                .build();
+        reserva = reservaRepository.save(reserva);
+
+        long libroId = libro.getId();
+        long reservaId = reserva.getId();
+        alConfirmar(() -> encolar(libroId, reservaId));
+
+        ReservaResponse respuesta = reservaMapper.toResponse(reserva);
+        respuesta.setPosicion(contarEnCola(libroId) + 1);
+        return respuesta;
+    }
+
+    /**
+     * Cancela una reserva vigente. Si tenía un ejemplar apartado,
+     * pasa a la siguiente reserva de la cola o vuelve a la estantería.
+     */
+    @Transactional
+    public ReservaResponse cancelar(Long id) {
+        Long libroId = reservaRepository.findLibroIdById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Reserva", "id", id));
+        libroRepository.bloquearPorId(libroId);
+        Reserva reserva = reservaRepository.bloquearPorId(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Reserva", "id", id));
+
+        EstadoReserva estadoAnterior = reserva.getEstado();
+        if (!estadoAnterior.esActiva()) {
+            throw new BusinessException(
+                    BusinessException.RESERVA_NO_ACTIVA,
+                    "La reserva ya está " + estadoAnterior.getDescripcion().toLowerCase()
+            );
+        }
+
+        reserva.setEstado(EstadoReserva.CANCELADA);
+        reserva = reservaRepository.save(reserva);
+
+        if (EstadoReserva.PENDIENTE.equals(estadoAnterior)) {
+            alConfirmar(() -> desencolar(libroId, id));
+        } else {
+            asignarEjemplar(libroId, reserva.getEjemplar());
+        }
+        return reservaMapper.toResponse(reserva);
+    }
+
+    /**
+     * Reingresa un ejemplar devuelto: lo aparta para la primera reserva en cola
+     * o, si no hay, vuelve a la estantería. Se ejecuta en la transacción de la devolución.
+     *
+     * @return true si el ejemplar quedó apartado para una reserva
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean reingresarEjemplar(Ejemplar ejemplar) {
+        Long libroId = ejemplar.getLibro().getId();
+        libroRepository.bloquearPorId(libroId);
+        return asignarEjemplar(libroId, ejemplar);
+    }
+
+    /**
+     * Aparta ejemplares DISPONIBLE del libro para las reservas en cola, uno por
+     * reserva y por orden de llegada, hasta que se acaben unos u otras. Se llama al
+     * dar de alta ejemplares, en esa transacción y con el libro ya bloqueado.
+     *
+     * @return Cantidad de reservas que quedaron listas para retirar
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int asignarEjemplaresNuevos(Long libroId) {
+        int asignadas = 0;
+        while (true) {
+            Optional<Ejemplar> ejemplar = ejemplarRepository.bloquearDisponible(libroId);
+            if (ejemplar.isEmpty() || !asignarEjemplar(libroId, ejemplar.get())) {
+                return asignadas;
+            }
+            // La consulta nativa siguiente tiene que ver este ejemplar ya APARTADO
+            ejemplarRepository.flush();
+            asignadas++;
+        }
+    }
+
+    /**
+     * Marca como cumplida la reserva DISPONIBLE del cliente para el libro, si la
+     * tiene, y presta el ejemplar que estaba apartado para ella.
+     * Se ejecuta en la transacción del préstamo.
+     *
+     * @return El ejemplar apartado, o null si el préstamo no corresponde al retiro de una reserva
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Ejemplar retirarReserva(Long clienteId, Long libroId) {
+        Optional<Reserva> disponible = reservaRepository.bloquearDisponible(clienteId, libroId);
+        if (disponible.isEmpty()) {
+            return null;
+        }
+        // La entrada en la rueda se descarta al vencer (la reserva ya no está DISPONIBLE)
+        Reserva reserva = disponible.get();
+        reserva.setEstado(EstadoReserva.CUMPLIDA);
+        reservaRepository.save(reserva);
+
+        Ejemplar ejemplar = reserva.getEjemplar();
+        if (ejemplar != null) {
+            ejemplarService.cambiarEstado(ejemplar, EstadoEjemplar.PRESTADO);
+        }
+        return ejemplar;
+    }
+
+    /**
+     * Asigna el ejemplar del libro (bloqueado por quien llama) a la siguiente reserva.
+     * Las reservas anteriores a los ejemplares pueden no tener uno asignado (null).
+     */
+    private boolean asignarEjemplar(Long libroId, Ejemplar ejemplar) {
+        List<Reserva> siguiente = reservaRepository.bloquearSiguientePendiente(libroId, PageRequest.of(0, 1));
+        if (siguiente.isEmpty()) {
+            if (ejemplar != null) {
+                ejemplarService.cambiarEstado(ejemplar, EstadoEjemplar.DISPONIBLE);
+            }
+            return false;
+        }
+
+        Reserva reserva = siguiente.get(0);
+        reserva.asignar(LocalDateTime.now().plusDays(diasRetiro));
+        reserva.setEjemplar(ejemplar);
+        reservaRepository.save(reserva);
+        if (ejemplar != null) {
+            ejemplarService.cambiarEstado(ejemplar, EstadoEjemplar.APARTADO);
+        }
+
+        long reservaId = reserva.getId();
+        long vencimientoMs = aMilisegundos(reserva.getFechaExpiracion());
+        alConfirmar(() -> registrarAsignacion(libroId, reservaId, vencimientoMs));
+        return true;
+    }
+
+    // ==================== VENCIMIENTOS ====================
+
+    /**
+     * Avanza la rueda y expira las reservas DISPONIBLE que vencieron desde el último tick.
+     */
+    @Scheduled(fixedDelayString = "${bibliotech.reservas.tick-ms:60000}")
+    public void procesarVencimientos() {
+        List<Long> vencidas;
+        synchronized (this) {
+            vencidas = rueda.avanzar(System.currentTimeMillis());
+        }
+        if (!vencidas.isEmpty()) {
+            expirar(vencidas);
+        }
+    }
+
+    /**
+     * Barrido de respaldo por índice: expira las vencidas que la rueda no conocía
+     * y recarga colas y rueda desde la base.
+     */
+    @Scheduled(cron = "${bibliotech.reservas.barrido-cron:0 0 * * * *}")
+    public void barrerVencidas() {
+        List<Long> vencidas = reservaRepository.findIdsDisponiblesVencidas(LocalDateTime.now());
+        if (!vencidas.isEmpty()) {
+            expirar(vencidas);
+        }
+        recargar();
+    }
+
+    /**
+     * Expira cada reserva en su propia transacción; una que falle se reintenta en el próximo barrido.
+     */
+    private void expirar(List<Long> reservaIds) {
+        int expiradas = 0;
+        for (Long reservaId : reservaIds) {
+            try {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> expirarReserva(reservaId)))) {
+                    expiradas++;
+                }
+            } catch (RuntimeException e) {
+                log.warn("No se pudo expirar la reserva {}: {}", reservaId, e.getMessage());
+            }
+        }
+        if (expiradas > 0) {
+            log.info("Expiradas {} reservas no retiradas a tiempo", expiradas);
+        }
+    }
+
+    /**
+     * Expira la reserva si sigue DISPONIBLE y vencida (la rueda no admite bajas,
+     * así que puede traer reservas ya retiradas o canceladas).
+     */
+    private boolean expirarReserva(Long reservaId) {
+        Optional<Long> libroId = reservaRepository.findLibroIdById(reservaId);
+        if (libroId.isEmpty()) {
+            return false;
+        }
+        libroRepository.bloquearPorId(libroId.get());
+        Reserva reserva = reservaRepository.bloquearPorId(reservaId).orElse(null);
+        if (reserva == null || !reserva.estaVencida(LocalDateTime.now())) {
+            return false;
+        }
+
+        reserva.setEstado(EstadoReserva.EXPIRADA);
+        reservaRepository.save(reserva);
+        asignarEjemplar(libroId.get(), reserva.getEjemplar());
+        return true;
+    }
+
+    // ==================== ESTADO EN MEMORIA ====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        recargar();
+    }
+
+    /**
+     * Reconstruye las colas y la rueda desde la base. Se lee bajo el monitor:
+     * las confirmaciones que lleguen mientras tanto se aplican sobre lo nuevo
+     * (encolar y programar son idempotentes respecto del resultado).
+     */
+    public synchronized void recargar() {
+        Map<Long, TreeSet<Long>> nuevasColas = new HashMap<>();
+        for (Object[] fila : reservaRepository.findColasPendientes()) {
+            nuevasColas.computeIfAbsent((Long) fila[1], k -> new TreeSet<>()).add((Long) fila[0]);
+        }
+
+        long ahora = System.currentTimeMillis();
+        RuedaExpiraciones nuevaRueda = new RuedaExpiraciones(RANURAS_RUEDA, duracionTickMs, ahora);
+        for (Object[] fila : reservaRepository.findExpiracionesDisponibles()) {
+            LocalDateTime expiracion = (LocalDateTime) fila[1];
+            nuevaRueda.programar((Long) fila[0], expiracion != null ? aMilisegundos(expiracion) : ahora);
+        }
+
+        colas = nuevasColas;
+        rueda = nuevaRueda;
+        log.debug("Reservas cargadas: {} libros con cola, {} ejemplares apartados",
+                nuevasColas.size(), nuevaRueda.tamano());
+    }
+
+    private synchronized void encolar(long libroId, long reservaId) {
+        colas.computeIfAbsent(libroId, k -> new TreeSet<>()).add(reservaId);
+    }
+
+    private synchronized void desencolar(long libroId, long reservaId) {
+        TreeSet<Long> cola = colas.get(libroId);
+        if (cola != null) {
+            cola.remove(reservaId);
+            if (cola.isEmpty()) {
+                colas.remove(libroId);
+            }
+        }
+    }
+
+    private synchronized void registrarAsignacion(long libroId, long reservaId, long vencimientoMs) {
+        desencolar(libroId, reservaId);
+        rueda.programar(reservaId, vencimientoMs);
+    }
+
+    /**
+     * Ejecuta la acción cuando la transacción actual se confirma (o en el acto, si no hay transacción).
+     */
+    private static void alConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    private static long aMilisegundos(LocalDateTime fecha) {
+        return fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,87 @@
+package com.biblioteca.bibliotech.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rueda de tiempo (hashed timing wheel) con los vencimientos de las reservas.
+ *
+ * Cada ranura cubre un tick; un vencimiento se guarda en la ranura de su tick
+ * módulo la cantidad de ranuras, junto con el tick absoluto. Al avanzar solo se
+ * revisan las ranuras de los ticks transcurridos, y de cada una salen las
+ * entradas cuyo tick ya llegó (las demás pertenecen a una vuelta posterior).
+ *
+ * No admite bajas: quien procesa los vencimientos debe comprobar el estado
+ * actual de la reserva. No es thread-safe; ReservaService la usa bajo su monitor.
+ */
+final class RuedaExpiraciones {
+
+    private final long duracionTickMs;
+    private final List<Entrada>[] ranuras;
+    private long tickActual;
+    private int tamano;
+
+    private record Entrada(long reservaId, long tick) {
+    }
+
+    @SuppressWarnings("unchecked")
+    RuedaExpiraciones(int cantidadRanuras, long duracionTickMs, long ahoraMs) {
+        this.duracionTickMs = duracionTickMs;
+        this.ranuras = new List[cantidadRanuras];
+        for (int i = 0; i < cantidadRanuras; i++) {
+            ranuras[i] = new ArrayList<>();
+        }
+        this.tickActual = ahoraMs / duracionTickMs;
+    }
+
+    /**
+     * Programa el vencimiento de una reserva. Si ya pasó, sale en el próximo avance.
+     */
+    void programar(long reservaId, long vencimientoMs) {
+        // Redondeo hacia arriba: nunca se informa antes del vencimiento
+        long tick = Math.max(Math.floorDiv(vencimientoMs + duracionTickMs - 1, duracionTickMs), tickActual + 1);
+        ranuras[ranura(tick)].add(new Entrada(reservaId, tick));
+        tamano++;
+    }
+
+    /**
+     * Avanza la rueda hasta el instante dado.
+     *
+     * @return IDs de las reservas vencidas desde el último avance
+     */
+    List<Long> avanzar(long ahoraMs) {
+        long tickObjetivo = ahoraMs / duracionTickMs;
+        List<Long> vencidas = new ArrayList<>();
+        if (tickObjetivo <= tickActual || tamano == 0) {
+            tickActual = Math.max(tickActual, tickObjetivo);
+            return vencidas;
+        }
+
+        // Tras una pausa de más de una vuelta basta con revisar cada ranura una vez
+        long desde = Math.max(tickActual + 1, tickObjetivo - ranuras.length + 1);
+        for (long tick = desde; tick <= tickObjetivo; tick++) {
+            List<Entrada> ranura = ranuras[ranura(tick)];
+            if (ranura.isEmpty()) {
+                continue;
+            }
+            ranura.removeIf(entrada -> {
+                if (entrada.tick() > tickObjetivo) {
+                    return false;
+                }
+                vencidas.add(entrada.reservaId());
+                return true;
+            });
+        }
+        tamano -= vencidas.size();
+        tickActual = tickObjetivo;
+        return vencidas;
+    }
+
+    int tamano() {
+        return tamano;
+    }
+
+    private int ranura(long tick) {
+        return (int) Math.floorMod(tick, (long) ranuras.length);
+    }
+}
@@ -0,0 +1,45 @@
+package com.biblioteca.bibliotech.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Servicio para reservar bloques de IDs de la tabla secuencias.
+ * Usado por las importaciones masivas que insertan con JDBC directo, de forma
+ * compatible con el generador pooled-lo de Hibernate: ambos toman el valor
+ * actual como primer ID del bloque y dejan guardado el siguiente libre.
+ */
+@Service
+public class SecuenciaService {
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public SecuenciaService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    /**
+     * Reserva un bloque consecutivo de IDs.
+     * Se ejecuta en su propia transacción para liberar el bloqueo de la fila de
+     * inmediato; si el llamador hace rollback, el bloque simplemente queda sin usar.
+     *
+     * @param nombre   Nombre de la secuencia (libros, clientes, prestamos)
+     * @param cantidad Cantidad de IDs a reservar
+     * @return Primer ID del bloque [primero, primero + cantidad)
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public long reservar(String nombre, int cantidad) {
+        Long siguiente = jdbcTemplate.queryForObject(
+                "SELECT siguiente_valor FROM secuencias WHERE nombre = ? FOR UPDATE",
+                Long.class, nombre);
+        if (siguiente == null) {
+            throw new IllegalStateException("Secuencia sin valor: " + nombre);
+        }
+        jdbcTemplate.update(
+                "UPDATE secuencias SET siguiente_valor = ? WHERE nombre = ?",
+                siguiente + cantidad, nombre);
+        return siguiente;
+    }
+}
@@ -0,0 +1,135 @@
+package com.biblioteca.bibliotech.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Tabla ID de libro -> ejemplares disponibles, con direccionamiento abierto
+ * sobre arreglos primitivos (12 bytes por entrada, sin objetos por libro).
+ *
+ * La clave 0 marca ranura libre (los IDs de libro empiezan en 1). Un libro
+ * eliminado queda con valor -1, que se trata igual que ausente: la tabla se
+ * reconstruye entera cuando la verificación contra la base encuentra diferencias.
+ *
+ * No es thread-safe; DisponibilidadService la protege con un ReadWriteLock.
+ */
+final class TablaDisponibilidad {
+
+    static final int AUSENTE = -1;
+
+    private long[] claves;
+    private int[] valores;
+    private int tamano;
+
+    TablaDisponibilidad(int capacidadEsperada) {
+        int capacidad = Integer.highestOneBit(Math.max(4, capacidadEsperada * 2 - 1)) << 1;
+        claves = new long[capacidad];
+        valores = new int[capacidad];
+    }
+
+    /**
+     * @return Ejemplares disponibles del libro, o AUSENTE si no está en la tabla
+     */
+    int obtener(long libroId) {
+        int mascara = claves.length - 1;
+        for (int i = mezclar(libroId) & mascara; claves[i] != 0; i = (i + 1) & mascara) {
+            if (claves[i] == libroId) {
+                return valores[i];
+            }
+        }
+        return AUSENTE;
+    }
+
+    /**
+     * Registra (o reemplaza) los disponibles de un libro; AUSENTE lo da por eliminado.
+     */
+    void registrar(long libroId, int disponibles) {
+        if ((tamano + 1) * 2 > claves.length) {
+            redimensionar(claves.length * 2);
+        }
+        if (insertar(claves, valores, libroId, disponibles)) {
+            tamano++;
+        }
+    }
+
+    /**
+     * IDs de los libros con (o sin) ejemplares disponibles, sin orden.
+     */
+    long[] ids(boolean conDisponibles) {
+        long[] ids = new long[tamano];
+        int cantidad = 0;
+        for (int i = 0; i < claves.length; i++) {
+            if (claves[i] != 0 && valores[i] != AUSENTE && (valores[i] > 0) == conDisponibles) {
+                ids[cantidad++] = claves[i];
+            }
+        }
+        return Arrays.copyOf(ids, cantidad);
+    }
+
+    /**
+     * Firma del contenido, comparable con la que calcula DisponibilidadService en SQL.
+     */
+    Firma firma() {
+        long libros = 0;
+        long disponibles = 0;
+        long suma = 0;
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < claves.length; i++) {
+            if (claves[i] != 0 && valores[i] != AUSENTE) {
+                libros++;
+                disponibles += valores[i];
+                crc.reset();
+                crc.update((claves[i] + ":" + valores[i]).getBytes(StandardCharsets.US_ASCII));
+                suma += crc.getValue();
+            }
+        }
+        return new Firma(libros, disponibles, suma);
+    }
+
+    /**
+     * Cantidad de libros, total de disponibles y suma de CRC32("id:disponibles") por libro.
+     */
+    record Firma(long libros, long disponibles, long suma) {
+    }
+
+    private static boolean insertar(long[] claves, int[] valores, long clave, int valor) {
+        int mascara = claves.length - 1;
+        int i = mezclar(clave) & mascara;
+        while (claves[i] != 0) {
+            if (claves[i] == clave) {
+                valores[i] = valor;
+                return false;
+            }
+            i = (i + 1) & mascara;
+        }
+        claves[i] = clave;
+        valores[i] = valor;
+        return true;
+    }
+
+    private void redimensionar(int capacidad) {
+        long[] nuevasClaves = new long[capacidad];
+        int[] nuevosValores = new int[capacidad];
+        for (int i = 0; i < claves.length; i++) {
+            if (claves[i] != 0) {
+                insertar(nuevasClaves, nuevosValores, claves[i], valores[i]);
+            }
+        }
+        claves = nuevasClaves;
+        valores = nuevosValores;
+    }
+
+    /**
+     * Mezcla final de MurmurHash3 (fmix64): los IDs consecutivos no caen en ranuras contiguas.
+     */
+    private static int mezclar(long clave) {
+        long h = clave;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
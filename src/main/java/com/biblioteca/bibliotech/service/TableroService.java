@@ -0,0 +1,366 @@
+package com.biblioteca.bibliotech.service;
+
+import com.biblioteca.bibliotech.evento.EventoPrestamo;
+import com.biblioteca.bibliotech.evento.SuscriptorEventos;
+import com.biblioteca.bibliotech.repository.LibroRepository;
+import com.biblioteca.bibliotech.repository.PrestamoRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Indicadores del dashboard en vivo (Server-Sent Events).
+ *
+ * Los indicadores se mantienen en memoria a partir de los eventos de préstamos
+ * (BusEventos) y se recalculan desde la base al iniciar, al cambiar el día,
+ * ante una extensión de plazo (no se sabe si el préstamo estaba vencido) y cada
+ * bibliotech.tablero.recalculo-ms, lo que corrige también los cambios que no
+ * generan eventos (altas de ejemplares, reservas que retienen una devolución).
+ *
+ * Una vez por intervalo se envía a cada cliente solo lo que cambió desde su
+ * último envío: varios préstamos en el mismo segundo llegan como un único
+ * mensaje. El intervalo lo marca un hilo propio, no el planificador de Spring:
+ * las tareas largas (archivo, multas, particiones, envío de correos) no
+ * demoran el tablero ni el tablero les quita un hilo cada segundo. Los envíos los hace un pool chico con un envío pendiente por
+ * cliente como máximo; el cliente que sigue ocupado durante varios intervalos
+ * se desconecta (el navegador reconecta solo) en lugar de acumularle mensajes.
+ */
+@Service
+public class TableroService implements SuscriptorEventos {
+
+    private static final Logger log = LoggerFactory.getLogger(TableroService.class);
+
+    private static final String SQL_ABIERTOS =
+            "SELECT COALESCE(SUM(estado = 'ACTIVO' AND fecha_devolucion_esperada >= CURRENT_DATE), 0) AS activos, " +
+            "       COALESCE(SUM(estado = 'VENCIDO' OR fecha_devolucion_esperada < CURRENT_DATE), 0) AS vencidos " +
+            "FROM prestamos WHERE estado IN ('ACTIVO', 'VENCIDO')";
+
+    // Intervalos entre comentarios de keep-alive a los clientes sin cambios
+    private static final int INTERVALOS_LATIDO = 15;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PrestamoRepository prestamoRepository;
+    private final LibroRepository libroRepository;
+    private final int maximoClientes;
+    private final int maximoOmitidos;
+    private final long timeoutMs;
+    private final long recalculoMs;
+    private final long intervaloMs;
+
+    private final ScheduledExecutorService reloj;
+    private final ThreadPoolExecutor enviador;
+    private final Map<Long, Cliente> clientes = new ConcurrentHashMap<>();
+    private final AtomicLong secuenciaClientes = new AtomicLong();
+
+    // Estado de los contadores (protegido por this)
+    private LocalDate dia;
+    private long prestamosHoy;
+    private long devolucionesHoy;
+    private long prestamosActivos;
+    private long prestamosVencidos;
+    private long ejemplaresDisponibles;
+    private long ultimoRecalculo;
+    private boolean recalcularPendiente = true;
+
+    private int intervalosDesdeLatido;
+
+    public TableroService(JdbcTemplate jdbcTemplate,
+                          PrestamoRepository prestamoRepository,
+                          LibroRepository libroRepository,
+                          @Value("${bibliotech.tablero.hilos-envio:2}") int hilosEnvio,
+                          @Value("${bibliotech.tablero.maximo-clientes:200}") int maximoClientes,
+                          @Value("${bibliotech.tablero.maximo-omitidos:5}") int maximoOmitidos,
+                          @Value("${bibliotech.tablero.timeout-ms:1800000}") long timeoutMs,
+                          @Value("${bibliotech.tablero.recalculo-ms:300000}") long recalculoMs,
+                          @Value("${bibliotech.tablero.intervalo-ms:1000}") long intervaloMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.prestamoRepository = prestamoRepository;
+        this.libroRepository = libroRepository;
+        this.maximoClientes = maximoClientes;
+        this.maximoOmitidos = maximoOmitidos;
+        this.timeoutMs = timeoutMs;
+        this.recalculoMs = recalculoMs;
+        this.intervaloMs = intervaloMs;
+        this.reloj = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread hilo = new Thread(runnable, "tablero-difusion");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        // Como mucho un envío por cliente en la cola: nunca se llena
+        this.enviador = new ThreadPoolExecutor(hilosEnvio, hilosEnvio, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maximoClientes), runnable -> {
+                    Thread hilo = new Thread(runnable, "tablero-envio");
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+    }
+
+    /**
+     * Valores de los indicadores en un momento dado.
+     */
+    public record Indicadores(long prestamosHoy, long devolucionesHoy, long prestamosActivos,
+                              long prestamosVencidos, long ejemplaresDisponibles) {
+
+        /**
+         * Indicadores que difieren de los anteriores (todos si no hay anteriores).
+         */
+        Map<String, Long> cambios(Indicadores anteriores) {
+            Map<String, Long> cambios = new LinkedHashMap<>();
+            if (anteriores == null || anteriores.prestamosHoy != prestamosHoy) {
+                cambios.put("prestamosHoy", prestamosHoy);
+            }
+            if (anteriores == null || anteriores.devolucionesHoy != devolucionesHoy) {
+                cambios.put("devolucionesHoy", devolucionesHoy);
+            }
+            if (anteriores == null || anteriores.prestamosActivos != prestamosActivos) {
+                cambios.put("prestamosActivos", prestamosActivos);
+            }
+            if (anteriores == null || anteriores.prestamosVencidos != prestamosVencidos) {
+                cambios.put("prestamosVencidos", prestamosVencidos);
+            }
+            if (anteriores == null || anteriores.ejemplaresDisponibles != ejemplaresDisponibles) {
+                cambios.put("ejemplaresDisponibles", ejemplaresDisponibles);
+            }
+            return cambios;
+        }
+    }
+
+    /**
+     * Conexión SSE de un navegador y lo último que se le envió.
+     */
+    private static final class Cliente {
+        private final long id;
+        private final SseEmitter emitter;
+        private final AtomicBoolean enviando = new AtomicBoolean();
+        private volatile Indicadores enviados;
+        private int omitidos;
+
+        private Cliente(long id, SseEmitter emitter) {
+            this.id = id;
+            this.emitter = emitter;
+        }
+    }
+
+    // ==================== CONSULTA ====================
+
+    /**
+     * Indicadores actuales, recalculados si están desactualizados.
+     */
+    public Indicadores obtener() {
+        recalcularSiCorresponde();
+        return instantanea();
+    }
+
+    private synchronized Indicadores instantanea() {
+        return new Indicadores(prestamosHoy, devolucionesHoy, prestamosActivos,
+                prestamosVencidos, ejemplaresDisponibles);
+    }
+
+    /**
+     * Registra un navegador. El primer envío lleva todos los indicadores.
+     *
+     * @return El emisor, o null si se alcanzó bibliotech.tablero.maximo-clientes
+     */
+    public SseEmitter suscribir() {
+        if (clientes.size() >= maximoClientes) {
+            return null;
+        }
+        Indicadores actuales = obtener();
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Cliente cliente = new Cliente(secuenciaClientes.incrementAndGet(), emitter);
+        emitter.onCompletion(() -> clientes.remove(cliente.id));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> clientes.remove(cliente.id));
+        clientes.put(cliente.id, cliente);
+
+        enviar(cliente, actuales);
+        return emitter;
+    }
+
+    // ==================== EVENTOS ====================
+
+    /**
+     * Aplica los préstamos, devoluciones y extensiones a los contadores.
+     * Los vencimientos se reflejan al recalcular con el cambio de día: aquí
+     * un préstamo cuenta como vencido cuando su fecha esperada ya pasó.
+     */
+    @Override
+    public synchronized void procesar(List<EventoPrestamo> eventos) {
+        for (EventoPrestamo evento : eventos) {
+            LocalDate fecha = evento.fechaRegistro().toLocalDate();
+            if (!fecha.equals(dia)) {
+                // Evento de otro día (anterior al último recálculo o posterior al cambio de día)
+                recalcularPendiente = true;
+                continue;
+            }
+            if (evento instanceof EventoPrestamo.PrestamoCreado) {
+                prestamosHoy++;
+                prestamosActivos++;
+                ejemplaresDisponibles--;
+            } else if (evento instanceof EventoPrestamo.PrestamoDevuelto) {
+                devolucionesHoy++;
+                if (evento.fechaDevolucionEsperada().isBefore(fecha)) {
+                    prestamosVencidos--;
+                } else {
+                    prestamosActivos--;
+                }
+                ejemplaresDisponibles++;
+            } else if (evento instanceof EventoPrestamo.PlazoExtendido) {
+                recalcularPendiente = true;
+            }
+        }
+    }
+
+    // ==================== DIFUSIÓN ====================
+
+    /**
+     * Inicia la difusión periódica en el hilo del tablero.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        reloj.scheduleWithFixedDelay(() -> {
+            try {
+                difundir();
+            } catch (RuntimeException e) {
+                // Una excepción cancelaría las ejecuciones siguientes
+                log.error("Error al difundir los indicadores del tablero", e);
+            }
+        }, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Envía a cada cliente los indicadores que cambiaron desde su último envío,
+     * como mucho una vez por intervalo.
+     */
+    void difundir() {
+        if (clientes.isEmpty()) {
+            return;
+        }
+        Indicadores actuales = obtener();
+        boolean latido = ++intervalosDesdeLatido >= INTERVALOS_LATIDO;
+
+        for (Cliente cliente : clientes.values()) {
+            boolean cambio = !actuales.equals(cliente.enviados);
+            if (!cambio && !latido) {
+                continue;
+            }
+            if (cliente.enviando.get()) {
+                // El envío anterior no terminó: no se encola otro
+                if (++cliente.omitidos > maximoOmitidos) {
+                    log.debug("Cliente {} del tablero desconectado por lento", cliente.id);
+                    desconectar(cliente);
+                }
+                continue;
+            }
+            cliente.omitidos = 0;
+            enviar(cliente, cambio ? actuales : null);
+        }
+        if (latido) {
+            intervalosDesdeLatido = 0;
+        }
+    }
+
+    /**
+     * Encola un envío al cliente: los cambios respecto de lo último enviado o,
+     * con indicadores null, un comentario para mantener viva la conexión.
+     */
+    private void enviar(Cliente cliente, Indicadores indicadores) {
+        if (!cliente.enviando.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            enviador.execute(() -> {
+                try {
+                    if (indicadores == null) {
+                        cliente.emitter.send(SseEmitter.event().comment("latido"));
+                    } else {
+                        cliente.emitter.send(SseEmitter.event().name("indicadores")
+                                .data(indicadores.cambios(cliente.enviados)));
+                        cliente.enviados = indicadores;
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // Navegador cerrado o emisor ya completado
+                    desconectar(cliente);
+                } finally {
+                    cliente.enviando.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            cliente.enviando.set(false);
+            desconectar(cliente);
+        }
+    }
+
+    private void desconectar(Cliente cliente) {
+        if (clientes.remove(cliente.id) != null) {
+            cliente.emitter.complete();
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        reloj.shutdownNow();
+        clientes.values().forEach(this::desconectar);
+        enviador.shutdownNow();
+    }
+
+    // ==================== RECÁLCULO ====================
+
+    private void recalcularSiCorresponde() {
+        boolean recalcular;
+        synchronized (this) {
+            recalcular = recalcularPendiente
+                    || !LocalDate.now().equals(dia)
+                    || System.currentTimeMillis() - ultimoRecalculo >= recalculoMs;
+            recalcularPendiente = false;
+        }
+        if (recalcular) {
+            recalcular();
+        }
+    }
+
+    /**
+     * Vuelve a contar los indicadores en la base (las mismas consultas del dashboard).
+     * Los eventos que lleguen mientras tanto pueden quedar contados de más o de
+     * menos hasta el próximo recálculo.
+     */
+    private void recalcular() {
+        LocalDate hoy = LocalDate.now();
+        long hoyPrestamos = prestamoRepository.countPrestamosDelDia(hoy);
+        long hoyDevoluciones = prestamoRepository.countDevolucionesHoy();
+        long disponibles = libroRepository.countEjemplaresDisponibles();
+        long[] abiertos = jdbcTemplate.queryForObject(SQL_ABIERTOS,
+                (rs, i) -> new long[]{rs.getLong("activos"), rs.getLong("vencidos")});
+
+        synchronized (this) {
+            dia = hoy;
+            prestamosHoy = hoyPrestamos;
+            devolucionesHoy = hoyDevoluciones;
+            prestamosActivos = abiertos[0];
+            prestamosVencidos = abiertos[1];
+            ejemplaresDisponibles = disponibles;
+            ultimoRecalculo = System.currentTimeMillis();
+        }
+    }
+}
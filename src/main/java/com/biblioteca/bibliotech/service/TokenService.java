@@ -0,0 +1,280 @@
+package com.biblioteca.bibliotech.service;
+
+import com.biblioteca.bibliotech.dto.response.UsuarioSistemaResponse;
+import com.biblioteca.bibliotech.enums.Rol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Servicio para emisión y verificación de tokens de sesión firmados (HMAC-SHA256).
+ * Permite autenticación sin estado en el servidor: cualquier nodo con el mismo
+ * secreto puede validar el token sin consultar la sesión HTTP ni la base de datos.
+ *
+ * Formato del token: base64url(payload) + "." + base64url(firma)
+ * Payload: id|rol|expiracion|nonce|username|nombre
+ */
+@Service
+public class TokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenService.class);
+
+    private static final String ALGORITMO = "HmacSHA256";
+    private static final char SEPARADOR = '|';
+    private static final int MAX_REVOCADOS_ANTES_DE_PURGA = 1024;
+    // Con la lista de revocados llena los tokens nuevos duran a lo sumo DURACION_REDUCIDA
+    private static final int MAX_REVOCADOS = 10_000;
+    private static final long DURACION_REDUCIDA_MILLIS = Duration.ofMinutes(5).toMillis();
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec clave;
+    private final long duracionMillis;
+    private final SecureRandom random = new SecureRandom();
+
+    // Un Mac por hilo: evita sincronización y re-inicialización en cada verificación
+    private final ThreadLocal<Mac> macPorHilo;
+
+    // Lista de tokens revocados (firma -> expiración en millis)
+    private final Map<String, Long> revocados = new ConcurrentHashMap<>();
+    private volatile boolean listaLlena;
+
+    public TokenService(@Value("${bibliotech.auth.token.secreto:}") String secreto,
+                        @Value("${bibliotech.auth.token.duracion:30m}") Duration duracion) {
+        byte[] bytesClave;
+        if (secreto == null || secreto.isBlank()) {
+            // Sin secreto compartido los tokens solo son válidos en este nodo
+            bytesClave = new byte[32];
+            random.nextBytes(bytesClave);
+            log.warn("bibliotech.auth.token.secreto no configurado: se usará una clave aleatoria local");
+        } else if (secreto.length() < 32) {
+            throw new IllegalStateException(
+                    "bibliotech.auth.token.secreto debe tener al menos 32 caracteres");
+        } else {
+            bytesClave = secreto.getBytes(StandardCharsets.UTF_8);
+        }
+        this.clave = new SecretKeySpec(bytesClave, ALGORITMO);
+        this.duracionMillis = duracion.toMillis();
+        this.macPorHilo = ThreadLocal.withInitial(this::crearMac);
+    }
+
+    /**
+     * Genera un token firmado para el usuario.
+     *
+     * @param usuario Usuario autenticado
+     * @return Token compacto listo para guardar en cookie
+     */
+    public String generar(UsuarioSistemaResponse usuario) {
+        long expiracion = System.currentTimeMillis() + duracionNuevoToken();
+
+        StringBuilder payload = new StringBuilder(96)
+                .append(usuario.getId()).append(SEPARADOR)
+                .append(usuario.getRol().name()).append(SEPARADOR)
+                .append(expiracion).append(SEPARADOR)
+                .append(Long.toHexString(random.nextLong())).append(SEPARADOR)
+                .append(usuario.getUsername()).append(SEPARADOR)
+                .append(usuario.getNombre());
+
+        byte[] payloadBytes = payload.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] firma = macPorHilo.get().doFinal(payloadBytes);
+
+        return ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(firma);
+    }
+
+    /**
+     * Verifica un token y obtiene el usuario que contiene.
+     *
+     * @param token Token recibido en la cookie
+     * @return Usuario del token, o null si es inválido, expiró o fue revocado
+     */
+    public UsuarioSistemaResponse verificar(String token) {
+        if (token == null) {
+            return null;
+        }
+
+        int punto = token.indexOf('.');
+        if (punto <= 0 || punto == token.length() - 1) {
+            return null;
+        }
+
+        if (revocados.containsKey(token.substring(punto + 1))) {
+            return null;
+        }
+
+        String payload = payloadFirmado(token, punto);
+        return payload != null ? leerPayload(payload) : null;
+    }
+
+    /**
+     * Revoca un token (logout). El token queda en la lista de revocados
+     * hasta su expiración natural: nunca se descarta una revocación vigente,
+     * aunque la lista supere MAX_REVOCADOS (ver {@link #duracionNuevoToken()}).
+     *
+     * Solo se revocan tokens con firma válida y vigentes: /logout es público y
+     * un token inventado no tiene nada que revocar. La expiración guardada se
+     * acota a la duración de un token por si el reloj de otro nodo está adelantado.
+     */
+    public void revocar(String token) {
+        if (token == null) {
+            return;
+        }
+
+        int punto = token.indexOf('.');
+        if (punto <= 0 || punto == token.length() - 1) {
+            return;
+        }
+
+        String payload = payloadFirmado(token, punto);
+        if (payload == null) {
+            return;
+        }
+        long ahora = System.currentTimeMillis();
+        long expiracion;
+        try {
+            expiracion = Long.parseLong(campo(payload, 2));
+        } catch (NumberFormatException e) {
+            return;
+        }
+        if (expiracion < ahora) {
+            return;
+        }
+
+        if (revocados.size() >= MAX_REVOCADOS_ANTES_DE_PURGA) {
+            purgarRevocadosExpirados();
+        }
+        revocados.put(token.substring(punto + 1), Math.min(expiracion, ahora + duracionMillis));
+    }
+
+    /**
+     * Payload del token si la firma es válida, o null si está malformado o la firma no coincide.
+     */
+    private String payloadFirmado(String token, int punto) {
+        byte[] payloadBytes;
+        byte[] firma;
+        try {
+            payloadBytes = DECODER.decode(token.substring(0, punto));
+            firma = DECODER.decode(token.substring(punto + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        byte[] firmaEsperada = macPorHilo.get().doFinal(payloadBytes);
+        if (!MessageDigest.isEqual(firma, firmaEsperada)) {
+            return null;
+        }
+        return new String(payloadBytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Cantidad de tokens en la lista de revocados.
+     */
+    int cantidadRevocados() {
+        return revocados.size();
+    }
+
+    /**
+     * Duración del token en segundos (para el Max-Age de la cookie).
+     */
+    public int getDuracionSegundos() {
+        return (int) (duracionMillis / 1000);
+    }
+
+    /**
+     * Elimina de la lista de revocados los tokens que ya expiraron.
+     */
+    private void purgarRevocadosExpirados() {
+        long ahora = System.currentTimeMillis();
+        Iterator<Map.Entry<String, Long>> it = revocados.entrySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().getValue() < ahora) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Duración de un token nuevo. Con la lista de revocados llena de tokens
+     * vigentes se acorta a DURACION_REDUCIDA: cada revocación exige un token
+     * vigente, así lo que entra a la lista mientras está llena sale a los pocos
+     * minutos, sin descartar revocaciones (que volverían a habilitar el token).
+     */
+    private long duracionNuevoToken() {
+        if (revocados.size() >= MAX_REVOCADOS) {
+            purgarRevocadosExpirados();
+        }
+        boolean llena = revocados.size() >= MAX_REVOCADOS;
+        if (llena != listaLlena) {
+            listaLlena = llena;
+            if (llena) {
+                log.warn("Lista de tokens revocados llena ({}): los tokens nuevos duran {} min",
+                        revocados.size(), DURACION_REDUCIDA_MILLIS / 60_000);
+            } else {
+                log.info("Lista de tokens revocados por debajo del tope: los tokens nuevos vuelven a su duración");
+            }
+        }
+        return llena ? Math.min(duracionMillis, DURACION_REDUCIDA_MILLIS) : duracionMillis;
+    }
+
+    private UsuarioSistemaResponse leerPayload(String payload) {
+        try {
+            int i1 = payload.indexOf(SEPARADOR);
+            int i2 = payload.indexOf(SEPARADOR, i1 + 1);
+            int i3 = payload.indexOf(SEPARADOR, i2 + 1);
+            int i4 = payload.indexOf(SEPARADOR, i3 + 1);
+            int i5 = payload.indexOf(SEPARADOR, i4 + 1);
+            if (i5 < 0) {
+                return null;
+            }
+
+            long expiracion = Long.parseLong(payload, i2 + 1, i3, 10);
+            if (expiracion < System.currentTimeMillis()) {
+                return null;
+            }
+
+            Rol rol = Rol.valueOf(payload.substring(i1 + 1, i2));
+
+            UsuarioSistemaResponse usuario = new UsuarioSistemaResponse();
+            usuario.setId(Long.parseLong(payload, 0, i1, 10));
+            usuario.setRol(rol);
+            usuario.setRolDescripcion(rol.getDescripcion());
+            usuario.setUsername(payload.substring(i4 + 1, i5));
+            usuario.setNombre(payload.substring(i5 + 1));
+            return usuario;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String campo(String payload, int indice) {
+        int inicio = 0;
+        for (int i = 0; i < indice; i++) {
+            inicio = payload.indexOf(SEPARADOR, inicio) + 1;
+        }
+        int fin = payload.indexOf(SEPARADOR, inicio);
+        return fin < 0 ? payload.substring(inicio) : payload.substring(inicio, fin);
+    }
+
+    private Mac crearMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITMO);
+            mac.init(clave);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo inicializar " + ALGORITMO, e);
+        }
+    }
+}
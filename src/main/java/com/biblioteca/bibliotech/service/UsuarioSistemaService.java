@@ -23,11 +23,14 @@ public class UsuarioSistemaService {
     
     private final UsuarioSistemaRepository usuarioRepository;
     private final UsuarioSistemaMapper usuarioMapper;
+    private final PasswordService passwordService;
     
     public UsuarioSistemaService(UsuarioSistemaRepository usuarioRepository,
-                                  UsuarioSistemaMapper usuarioMapper) {
+                                  UsuarioSistemaMapper usuarioMapper,
+                                  PasswordService passwordService) {
         this.usuarioRepository = usuarioRepository;
         this.usuarioMapper = usuarioMapper;
+        this.passwordService = passwordService;
     }
     
     /**
@@ -90,6 +93,7 @@ public class UsuarioSistemaService {
         }
         
         UsuarioSistema usuario = usuarioMapper.toEntity(request);
+        usuario.setPassword(passwordService.hashear(request.getPassword()));
         usuario = usuarioRepository.save(usuario);
         
         return usuarioMapper.toResponse(usuario);
@@ -111,7 +115,13 @@ public class UsuarioSistemaService {
             );
         }
         
+        String passwordAnterior = usuario.getPassword();
         usuarioMapper.updateEntityFromRequest(request, usuario);
+        if (request.getPassword() != null && !request.getPassword().isBlank()) {
+            usuario.setPassword(passwordService.hashear(request.getPassword()));
+        } else {
+            usuario.setPassword(passwordAnterior);
+        }
         usuario = usuarioRepository.save(usuario);
         
         return usuarioMapper.toResponse(usuario);
@@ -124,7 +134,7 @@ public class UsuarioSistemaService {
         UsuarioSistema usuario = usuarioRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario", "id", id));
         
-        usuario.setPassword(nuevaPassword);
+        usuario.setPassword(passwordService.hashear(nuevaPassword));
         usuarioRepository.save(usuario);
     }
     
@@ -0,0 +1,35 @@
+-- ==========================================================
+-- V10: Notificaciones a clientes (bandeja de salida)
+-- ==========================================================
+-- Cada fila es un correo a enviar. La generación (NotificacionService) agrupa
+-- los avisos de un cliente en un solo resumen; el envío toma las filas PENDIENTE
+-- cuyo proximo_intento ya pasó y las marca ENVIANDO antes de entregarlas al
+-- servidor de correo, así un mismo correo nunca se envía dos veces.
+CREATE TABLE notificaciones (
+    id_notificacion BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id_cliente BIGINT NOT NULL,
+    destinatario VARCHAR(100) NOT NULL,
+    asunto VARCHAR(200) NOT NULL,
+    cuerpo TEXT NOT NULL,
+    estado ENUM('PENDIENTE', 'ENVIANDO', 'ENVIADA', 'ERROR') NOT NULL DEFAULT 'PENDIENTE',
+    intentos INT NOT NULL DEFAULT 0,
+    proximo_intento TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    ultimo_error VARCHAR(500),
+    fecha_creacion TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    fecha_actualizacion TIMESTAMP NULL,
+    fecha_envio TIMESTAMP NULL,
+    -- Cola de envío y envíos interrumpidos
+    INDEX idx_notificaciones_estado (estado, proximo_intento),
+    INDEX idx_notificaciones_cliente (id_cliente, fecha_creacion),
+    CONSTRAINT fk_notificacion_cliente FOREIGN KEY (id_cliente) REFERENCES clientes(id_cliente)
+);
+
+-- Avisos ya generados por préstamo: un préstamo recibe a lo sumo un aviso
+-- "por vencer" y uno "vencido". Sin FK a prestamos: la tabla está particionada.
+CREATE TABLE notificaciones_prestamos (
+    id_prestamo BIGINT NOT NULL,
+    tipo ENUM('POR_VENCER', 'VENCIDO') NOT NULL,
+    fecha_registro TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id_prestamo, tipo),
+    INDEX idx_notificaciones_prestamos_fecha (fecha_registro)
+);
@@ -0,0 +1,19 @@
+-- ==========================================================
+-- V11: Eventos del ciclo de vida de los préstamos (outbox)
+-- ==========================================================
+-- PrestamoService escribe un evento por préstamo creado, devuelto, extendido
+-- o vencido en la misma transacción que el cambio. Cada nodo lee la tabla en
+-- orden de id_evento (BusEventos) y reparte los eventos a sus suscriptores
+-- (rankings, recomendaciones, cachés). Se purga pasados unos días.
+-- Sin FK a prestamos: la tabla está particionada y los eventos son históricos.
+CREATE TABLE eventos_prestamos (
+    id_evento BIGINT AUTO_INCREMENT PRIMARY KEY,
+    tipo ENUM('PRESTAMO_CREADO', 'PRESTAMO_DEVUELTO', 'PLAZO_EXTENDIDO', 'PRESTAMO_VENCIDO') NOT NULL,
+    id_prestamo BIGINT NOT NULL,
+    id_cliente BIGINT NOT NULL,
+    id_libro BIGINT NOT NULL,
+    id_ejemplar BIGINT NULL,
+    fecha_devolucion_esperada DATE NOT NULL,
+    fecha_registro TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    INDEX idx_eventos_prestamos_fecha (fecha_registro)
+);
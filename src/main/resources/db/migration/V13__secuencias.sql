@@ -0,0 +1,24 @@
+-- ==========================================================
+-- V13: Secuencias para generar IDs por bloques
+-- ==========================================================
+-- Libro, Cliente y Prestamo usan un @TableGenerator pooled-lo sobre esta tabla:
+-- Hibernate reserva bloques de 50 IDs y así puede insertar en lotes JDBC.
+-- SecuenciaService reserva bloques de la misma tabla para las importaciones.
+-- siguiente_valor debe ser siempre mayor que el MAX(id) de la tabla
+-- correspondiente: los INSERT manuales deben reservar sus IDs en esta tabla
+-- (un AUTO_INCREMENT toma MAX(id) + 1, que puede estar dentro de un bloque ya
+-- reservado; V18 lo quita).
+CREATE TABLE secuencias (
+    nombre VARCHAR(50) PRIMARY KEY,
+    siguiente_valor BIGINT NOT NULL
+);
+
+-- Los préstamos archivados conservan su id_prestamo: también cuentan
+INSERT INTO secuencias (nombre, siguiente_valor)
+SELECT 'libros', COALESCE(MAX(id_libro), 0) + 1 FROM libros
+UNION ALL
+SELECT 'clientes', COALESCE(MAX(id_cliente), 0) + 1 FROM clientes
+UNION ALL
+SELECT 'prestamos', GREATEST(
+        (SELECT COALESCE(MAX(id_prestamo), 0) FROM prestamos),
+        (SELECT COALESCE(MAX(id_prestamo), 0) FROM prestamos_historico)) + 1;
@@ -0,0 +1,24 @@
+-- ==========================================================
+-- V14: Contadores desnormalizados de préstamos por cliente
+-- ==========================================================
+-- PrestamoService los mantiene en la misma transacción que cada préstamo,
+-- devolución o vencimiento, y ClienteService los lee en lugar de contar
+-- préstamos. ClienteService.reconciliarContadores los corrige cada noche.
+ALTER TABLE clientes
+    ADD COLUMN prestamos_activos INT NOT NULL DEFAULT 0,
+    ADD COLUMN prestamos_vencidos INT NOT NULL DEFAULT 0,
+    ADD COLUMN prestamos_total INT NOT NULL DEFAULT 0;
+
+-- Valores iniciales (misma cuenta que ClienteRepository.reconciliarContadores):
+-- el total incluye los préstamos archivados en prestamos_historico
+UPDATE clientes c
+LEFT JOIN (SELECT id_cliente,
+                  SUM(estado = 'ACTIVO') AS activos,
+                  SUM(estado = 'VENCIDO') AS vencidos,
+                  COUNT(*) AS total
+           FROM prestamos GROUP BY id_cliente) p ON p.id_cliente = c.id_cliente
+LEFT JOIN (SELECT id_cliente, COUNT(*) AS total
+           FROM prestamos_historico GROUP BY id_cliente) h ON h.id_cliente = c.id_cliente
+SET c.prestamos_activos = COALESCE(p.activos, 0),
+    c.prestamos_vencidos = COALESCE(p.vencidos, 0),
+    c.prestamos_total = COALESCE(p.total, 0) + COALESCE(h.total, 0);
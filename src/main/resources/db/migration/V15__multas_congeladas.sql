@@ -0,0 +1,10 @@
+-- ==========================================================
+-- V15: Multas congeladas al extender el plazo
+-- ==========================================================
+-- Extender un préstamo vencido no perdona el retraso acumulado: MultaService
+-- guarda los días y el monto de la multa a la fecha de la extensión, y el
+-- devengo solo suma los días de retraso respecto de la nueva fecha (con el
+-- mismo tope por préstamo). La multa nunca se borra.
+ALTER TABLE multas
+    ADD COLUMN dias_congelados INT NOT NULL DEFAULT 0,
+    ADD COLUMN monto_congelado DECIMAL(10,2) NOT NULL DEFAULT 0;
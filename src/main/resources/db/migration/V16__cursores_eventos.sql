@@ -0,0 +1,14 @@
+-- ==========================================================
+-- V16: Posición de cada suscriptor de eventos
+-- ==========================================================
+-- BusEventos guarda, por nodo y suscriptor, el ID hasta el que ese suscriptor
+-- ya procesó todos los eventos (los que llegaron tarde por transacciones lentas
+-- incluidos). Al iniciar retoma desde ahí: los eventos confirmados antes de una
+-- caída o un reinicio y todavía no procesados se entregan igual.
+CREATE TABLE cursores_eventos (
+    nodo VARCHAR(100) NOT NULL,
+    suscriptor VARCHAR(100) NOT NULL,
+    id_evento BIGINT NOT NULL,
+    fecha_actualizacion TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+    PRIMARY KEY (nodo, suscriptor)
+);
@@ -0,0 +1,40 @@
+-- ==========================================================
+-- V17: Unicidad de id_prestamo y claves foráneas de prestamos
+-- ==========================================================
+-- Al particionar prestamos (V4) la PK pasó a ser (id_prestamo, fecha_prestamo)
+-- y se quitaron las FK a libros y clientes: la base ya no impedía dos préstamos
+-- con el mismo id_prestamo (findById falla por resultado no único y el archivo
+-- choca para siempre con la PK de prestamos_historico) ni préstamos huérfanos.
+--
+-- prestamos_claves no está particionada y guarda una fila por préstamo, con su
+-- libro y su cliente. Un trigger la completa en cada INSERT sobre prestamos, así
+-- que en la misma sentencia:
+--   * un id_prestamo repetido falla por la PK, también si el préstamo con ese ID
+--     ya se archivó (la fila se conserva al mover el préstamo al histórico);
+--   * un libro o un cliente inexistente falla por la FK, y no se puede borrar un
+--     libro o un cliente con préstamos (igual que con las FK originales y con
+--     las de prestamos_historico).
+-- id_libro e id_cliente de un préstamo no se modifican nunca.
+--
+-- La carga inicial es también la verificación de los datos existentes: si la
+-- migración falla hay IDs repetidos entre prestamos y prestamos_historico o
+-- préstamos de libros o clientes que no existen, y hay que corregirlos antes.
+-- El usuario de Flyway necesita el privilegio TRIGGER (y SUPER, o
+-- log_bin_trust_function_creators=1, si el log binario está activo).
+CREATE TABLE prestamos_claves (
+    id_prestamo BIGINT PRIMARY KEY,
+    id_libro BIGINT NOT NULL,
+    id_cliente BIGINT NOT NULL,
+    CONSTRAINT fk_prestamo_clave_libro FOREIGN KEY (id_libro) REFERENCES libros(id_libro),
+    CONSTRAINT fk_prestamo_clave_cliente FOREIGN KEY (id_cliente) REFERENCES clientes(id_cliente)
+);
+
+INSERT INTO prestamos_claves (id_prestamo, id_libro, id_cliente)
+SELECT id_prestamo, id_libro, id_cliente FROM prestamos
+UNION ALL
+SELECT id_prestamo, id_libro, id_cliente FROM prestamos_historico;
+
+CREATE TRIGGER trg_prestamos_claves BEFORE INSERT ON prestamos
+FOR EACH ROW
+    INSERT INTO prestamos_claves (id_prestamo, id_libro, id_cliente)
+    VALUES (NEW.id_prestamo, NEW.id_libro, NEW.id_cliente);
@@ -0,0 +1,25 @@
+-- ==========================================================
+-- V18: IDs de libros, clientes y prestamos solo desde secuencias
+-- ==========================================================
+-- Desde V13 los IDs se reservan por bloques en la tabla secuencias, pero las
+-- columnas seguían con AUTO_INCREMENT: un INSERT sin ID toma MAX(id) + 1, que
+-- puede caer dentro de un bloque ya reservado por Hibernate o por una
+-- importación, y el INSERT que lo use después falla por clave duplicada.
+--
+-- Sin AUTO_INCREMENT un INSERT sin ID falla (columna NOT NULL sin valor por
+-- defecto). Los INSERT manuales deben reservar los IDs con
+--   SELECT siguiente_valor FROM secuencias WHERE nombre = 'clientes' FOR UPDATE;
+--   UPDATE secuencias SET siguiente_valor = siguiente_valor + <cantidad> WHERE nombre = 'clientes';
+-- (lo mismo que hace SecuenciaService) y usar [siguiente_valor, siguiente_valor + cantidad).
+--
+-- id_libro e id_cliente están referenciados por claves foráneas: MySQL no
+-- permite modificarlos con la verificación activa aunque el tipo no cambie.
+-- Cambiar el atributo reconstruye las tablas (prestamos entera, con todas sus
+-- particiones): conviene aplicarla fuera del horario de atención.
+SET FOREIGN_KEY_CHECKS = 0;
+
+ALTER TABLE libros MODIFY id_libro BIGINT NOT NULL;
+ALTER TABLE clientes MODIFY id_cliente BIGINT NOT NULL;
+ALTER TABLE prestamos MODIFY id_prestamo BIGINT NOT NULL;
+
+SET FOREIGN_KEY_CHECKS = 1;
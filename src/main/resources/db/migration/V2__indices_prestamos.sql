@@ -0,0 +1,39 @@
+-- ==========================================================
+-- V2: Índices compuestos para los patrones de acceso a préstamos
+-- ==========================================================
+-- Cada índice indica las consultas de PrestamoRepository / ClienteRepository
+-- que resuelve. InnoDB agrega la PK (id_prestamo) a todo índice secundario,
+-- por eso los conteos y las búsquedas de IDs no necesitan leer la fila.
+
+-- Límite por cliente y libro ya prestado:
+--   countPrestamosActivosByClienteId, findPrestamosActivosByClienteId,
+--   existsPrestamoActivoByClienteIdAndLibroId (igualdad en las tres columnas)
+CREATE INDEX idx_cliente_estado_libro ON prestamos (id_cliente, estado, id_libro);
+
+-- Historial del cliente ordenado por fecha sin filesort:
+--   findByClienteId, findHistorialByClienteId
+CREATE INDEX idx_cliente_fecha_prestamo ON prestamos (id_cliente, fecha_prestamo);
+
+-- Préstamos de un libro:
+--   findByLibroId, findPrestamosActivosByLibroId
+CREATE INDEX idx_libro_estado ON prestamos (id_libro, estado);
+
+-- Vencimientos (reemplaza a idx_estado e idx_fecha_devolucion):
+--   findPrestamosActivos, findPrestamosVencidos, findPrestamosVencidosConDetalles,
+--   findPrestamosPorVencer, findByFechaDevolucionEsperadaAndEstado, countByEstado,
+--   actualizarPrestamosVencidos, bloquearPorVencerPorCliente (cubierto, agrupa por id_cliente),
+--   findClientesConPrestamosVencidos
+CREATE INDEX idx_estado_vencimiento ON prestamos (estado, fecha_devolucion_esperada, id_cliente);
+
+-- Préstamos por fecha: countPrestamosHoy, findByFechaPrestamoBetween
+CREATE INDEX idx_fecha_prestamo ON prestamos (fecha_prestamo);
+
+-- Devoluciones del día (cubierto): countDevolucionesHoy
+CREATE INDEX idx_fecha_devolucion_real ON prestamos (fecha_devolucion_real, estado);
+
+-- Últimos préstamos sin filesort: findPrestamosRecientes
+CREATE INDEX idx_fecha_registro ON prestamos (fecha_registro);
+
+-- Índices reemplazados (son prefijo o caso particular de idx_estado_vencimiento)
+DROP INDEX idx_estado ON prestamos;
+DROP INDEX idx_fecha_devolucion ON prestamos;
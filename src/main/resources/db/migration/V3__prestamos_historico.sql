@@ -0,0 +1,22 @@
+-- ==========================================================
+-- V3: Tabla fría de préstamos devueltos (archivo histórico)
+-- ==========================================================
+-- ArchivoPrestamosService mueve aquí los préstamos DEVUELTO con más antigüedad
+-- que la configurada, para que prestamos (y sus índices) solo contenga los
+-- préstamos en curso y los devueltos recientes. Conserva el mismo id_prestamo.
+CREATE TABLE prestamos_historico (
+    id_prestamo BIGINT PRIMARY KEY,
+    id_libro BIGINT NOT NULL,
+    id_cliente BIGINT NOT NULL,
+    fecha_prestamo DATE NOT NULL,
+    fecha_devolucion_esperada DATE NOT NULL,
+    fecha_devolucion_real DATE,
+    estado ENUM('ACTIVO', 'DEVUELTO', 'VENCIDO') DEFAULT 'DEVUELTO',
+    observaciones TEXT,
+    fecha_registro TIMESTAMP NULL,
+    fecha_archivado TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_historico_libro FOREIGN KEY (id_libro) REFERENCES libros(id_libro),
+    CONSTRAINT fk_historico_cliente FOREIGN KEY (id_cliente) REFERENCES clientes(id_cliente),
+    INDEX idx_historico_cliente_fecha (id_cliente, fecha_prestamo),
+    INDEX idx_historico_libro_fecha (id_libro, fecha_prestamo)
+);
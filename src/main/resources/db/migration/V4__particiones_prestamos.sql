@@ -0,0 +1,27 @@
+-- ==========================================================
+-- V4: Particionado de prestamos por mes de fecha_prestamo
+-- ==========================================================
+-- Las consultas por fecha de préstamo (préstamos del día, rangos de reportes,
+-- archivo) solo leen las particiones del rango pedido.
+--
+-- Restricciones de MySQL para tablas particionadas:
+--   * Toda clave única debe incluir la columna de particionado: la PK pasa a
+--     ser (id_prestamo, fecha_prestamo).
+--   * InnoDB no admite claves foráneas en tablas particionadas.
+--   La unicidad de id_prestamo y las claves foráneas a libros y clientes las
+--   vuelve a imponer la tabla prestamos_claves (V17).
+--
+-- Solo se crean la partición de datos antiguos y la de "futuro".
+-- ParticionesPrestamosService divide p_futuro en meses al iniciar la aplicación
+-- y cada mes crea las siguientes y fusiona en p_anterior las que superan la
+-- retención configurada.
+
+ALTER TABLE prestamos DROP FOREIGN KEY fk_prestamo_libro;
+ALTER TABLE prestamos DROP FOREIGN KEY fk_prestamo_cliente;
+
+ALTER TABLE prestamos DROP PRIMARY KEY, ADD PRIMARY KEY (id_prestamo, fecha_prestamo);
+
+ALTER TABLE prestamos PARTITION BY RANGE COLUMNS (fecha_prestamo) (
+    PARTITION p_anterior VALUES LESS THAN ('2025-01-01'),
+    PARTITION p_futuro VALUES LESS THAN (MAXVALUE)
+);
@@ -0,0 +1,21 @@
+-- ==========================================================
+-- V5: Estadísticas diarias precalculadas (tendencias)
+-- ==========================================================
+-- EstadisticasService agrega cada noche los días completos desde la última
+-- fecha calculada. /reportes/tendencias lee solo esta tabla.
+--
+-- Una fila por día y categoría más una fila de totales con id_categoria = 0
+-- (que existe aunque el día no tenga movimientos y sirve de marca de avance).
+-- Los libros sin categoría solo cuentan en el total. clientes_activos son los
+-- clientes distintos que prestaron o devolvieron ese día, por eso el total no
+-- es la suma de las categorías.
+CREATE TABLE estadisticas_diarias (
+    fecha DATE NOT NULL,
+    id_categoria BIGINT NOT NULL,
+    prestamos INT NOT NULL DEFAULT 0,
+    devoluciones INT NOT NULL DEFAULT 0,
+    nuevos_vencidos INT NOT NULL DEFAULT 0,
+    clientes_activos INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (fecha, id_categoria),
+    INDEX idx_estadisticas_categoria_fecha (id_categoria, fecha)
+);
@@ -0,0 +1,26 @@
+-- ==========================================================
+-- V6: Préstamos por libro y día (ranking de más prestados)
+-- ==========================================================
+-- PopularidadService suma aquí cada préstamo nuevo y reconstruye desde esta
+-- tabla los conteos de 7/30/365 días al iniciar y cada noche, sin recorrer
+-- prestamos. Se conservan solo los últimos 365 días.
+CREATE TABLE prestamos_libro_diario (
+    id_libro BIGINT NOT NULL,
+    fecha DATE NOT NULL,
+    cantidad INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (id_libro, fecha),
+    INDEX idx_libro_diario_fecha (fecha),
+    CONSTRAINT fk_libro_diario_libro FOREIGN KEY (id_libro) REFERENCES libros(id_libro)
+);
+
+-- Carga inicial con el último año de préstamos (vigentes y archivados)
+INSERT INTO prestamos_libro_diario (id_libro, fecha, cantidad)
+SELECT id_libro, fecha_prestamo, COUNT(*)
+FROM (
+    SELECT id_libro, fecha_prestamo FROM prestamos
+    WHERE fecha_prestamo > CURRENT_DATE - INTERVAL 365 DAY
+    UNION ALL
+    SELECT id_libro, fecha_prestamo FROM prestamos_historico
+    WHERE fecha_prestamo > CURRENT_DATE - INTERVAL 365 DAY
+) p
+GROUP BY id_libro, fecha_prestamo;
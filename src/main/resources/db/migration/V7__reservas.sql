@@ -0,0 +1,25 @@
+-- ==========================================================
+-- V7: Reservas de libros sin stock (cola FIFO por libro)
+-- ==========================================================
+-- Al devolver un ejemplar, PrestamoService lo aparta para la reserva PENDIENTE
+-- más antigua del libro (pasa a DISPONIBLE con fecha de expiración) en lugar
+-- de sumarlo al stock. ReservaService mantiene en memoria la cola de cada libro
+-- y una rueda de tiempo con los vencimientos de las reservas DISPONIBLE.
+CREATE TABLE reservas (
+    id_reserva BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id_libro BIGINT NOT NULL,
+    id_cliente BIGINT NOT NULL,
+    fecha_reserva TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    estado ENUM('PENDIENTE', 'DISPONIBLE', 'CUMPLIDA', 'CANCELADA', 'EXPIRADA') NOT NULL DEFAULT 'PENDIENTE',
+    fecha_asignacion TIMESTAMP NULL,
+    fecha_expiracion TIMESTAMP NULL,
+    observaciones TEXT,
+    -- La cola de un libro se recorre por este índice; InnoDB agrega la PK al
+    -- final, así que el orden por id_reserva (orden de llegada) sale del índice
+    INDEX idx_reservas_libro_estado (id_libro, estado),
+    INDEX idx_reservas_cliente_estado (id_cliente, estado),
+    -- Barrido de respaldo de reservas DISPONIBLE vencidas
+    INDEX idx_reservas_estado_expiracion (estado, fecha_expiracion),
+    CONSTRAINT fk_reserva_libro FOREIGN KEY (id_libro) REFERENCES libros(id_libro),
+    CONSTRAINT fk_reserva_cliente FOREIGN KEY (id_cliente) REFERENCES clientes(id_cliente)
+);
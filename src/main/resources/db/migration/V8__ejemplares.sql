@@ -0,0 +1,113 @@
+-- ==========================================================
+-- V8: Ejemplares (copias físicas) con código de barras
+-- ==========================================================
+-- Cada préstamo y cada reserva con ejemplar apartado apuntan a una copia concreta.
+-- cantidad_total y cantidad_disponible de libros pasan a ser contadores derivados
+-- del estado de los ejemplares: EjemplarService los recalcula después de cada
+-- préstamo o devolución (fuera de la transacción que toma el ejemplar) y cada noche.
+CREATE TABLE ejemplares (
+    id_ejemplar BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id_libro BIGINT NOT NULL,
+    codigo_barras VARCHAR(32) NOT NULL,
+    estado ENUM('DISPONIBLE', 'PRESTADO', 'APARTADO', 'BAJA') NOT NULL DEFAULT 'DISPONIBLE',
+    ubicacion VARCHAR(100),
+    fecha_alta TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    ultima_actualizacion TIMESTAMP NULL,
+    UNIQUE KEY uk_ejemplares_codigo (codigo_barras),
+    -- Elegir un ejemplar libre y recalcular los contadores de un libro
+    INDEX idx_ejemplares_libro_estado (id_libro, estado),
+    CONSTRAINT fk_ejemplar_libro FOREIGN KEY (id_libro) REFERENCES libros(id_libro)
+);
+
+-- prestamos está particionada (V4) y no admite claves foráneas
+ALTER TABLE prestamos
+    ADD COLUMN id_ejemplar BIGINT NULL AFTER id_cliente,
+    ADD INDEX idx_prestamos_ejemplar (id_ejemplar);
+
+ALTER TABLE prestamos_historico
+    ADD COLUMN id_ejemplar BIGINT NULL AFTER id_cliente,
+    ADD CONSTRAINT fk_historico_ejemplar FOREIGN KEY (id_ejemplar) REFERENCES ejemplares(id_ejemplar);
+
+ALTER TABLE reservas
+    ADD COLUMN id_ejemplar BIGINT NULL AFTER id_cliente,
+    ADD CONSTRAINT fk_reserva_ejemplar FOREIGN KEY (id_ejemplar) REFERENCES ejemplares(id_ejemplar);
+
+-- ----------------------------------------------------------
+-- Carga inicial desde los contadores
+-- ----------------------------------------------------------
+-- Ejemplares fuera de la estantería por libro: préstamos en curso y reservas
+-- con ejemplar apartado. Si superan cantidad_total se crean ejemplares de más.
+CREATE TABLE migracion_ejemplares_ocupados AS
+SELECT id_libro, SUM(prestado) AS prestados, SUM(apartado) AS apartados
+FROM (
+    SELECT id_libro, 1 AS prestado, 0 AS apartado FROM prestamos WHERE estado IN ('ACTIVO', 'VENCIDO')
+    UNION ALL
+    SELECT id_libro, 0, 1 FROM reservas WHERE estado = 'DISPONIBLE'
+) o
+GROUP BY id_libro;
+
+SET @maximo = (
+    SELECT COALESCE(MAX(GREATEST(l.cantidad_total, COALESCE(o.prestados + o.apartados, 0))), 0)
+    FROM libros l LEFT JOIN migracion_ejemplares_ocupados o ON o.id_libro = l.id_libro
+);
+SET SESSION cte_max_recursion_depth = GREATEST(@maximo, 1000);
+
+-- Código BT + id de libro (8 dígitos) + número de ejemplar (3 o más dígitos), el
+-- mismo formato que genera EjemplarService. Los primeros números de cada libro
+-- quedan PRESTADO, los siguientes APARTADO y el resto DISPONIBLE.
+INSERT INTO ejemplares (id_libro, codigo_barras, estado)
+WITH RECURSIVE numeros (n) AS (
+    SELECT 1
+    UNION ALL
+    SELECT n + 1 FROM numeros WHERE n < @maximo
+)
+SELECT l.id_libro,
+       CONCAT('BT', LPAD(l.id_libro, 8, '0'), '-', LPAD(numeros.n, GREATEST(3, CHAR_LENGTH(numeros.n)), '0')),
+       CASE
+           WHEN numeros.n <= COALESCE(o.prestados, 0) THEN 'PRESTADO'
+           WHEN numeros.n <= COALESCE(o.prestados + o.apartados, 0) THEN 'APARTADO'
+           ELSE 'DISPONIBLE'
+       END
+FROM libros l
+LEFT JOIN migracion_ejemplares_ocupados o ON o.id_libro = l.id_libro
+JOIN numeros ON numeros.n <= GREATEST(l.cantidad_total, COALESCE(o.prestados + o.apartados, 0))
+ORDER BY l.id_libro, numeros.n;
+
+-- El préstamo en curso número k de cada libro se queda con el ejemplar k
+UPDATE prestamos p
+JOIN (
+    SELECT id_prestamo, id_libro,
+           ROW_NUMBER() OVER (PARTITION BY id_libro ORDER BY id_prestamo) AS n
+    FROM prestamos
+    WHERE estado IN ('ACTIVO', 'VENCIDO')
+) a ON a.id_prestamo = p.id_prestamo
+JOIN ejemplares e
+    ON e.codigo_barras = CONCAT('BT', LPAD(a.id_libro, 8, '0'), '-', LPAD(a.n, GREATEST(3, CHAR_LENGTH(a.n)), '0'))
+SET p.id_ejemplar = e.id_ejemplar;
+
+-- ... y la reserva DISPONIBLE número k, con el ejemplar (préstamos en curso + k)
+UPDATE reservas r
+JOIN (
+    SELECT id_reserva, id_libro,
+           ROW_NUMBER() OVER (PARTITION BY id_libro ORDER BY id_reserva) AS n
+    FROM reservas
+    WHERE estado = 'DISPONIBLE'
+) a ON a.id_reserva = r.id_reserva
+LEFT JOIN migracion_ejemplares_ocupados o ON o.id_libro = a.id_libro
+JOIN ejemplares e
+    ON e.codigo_barras = CONCAT('BT', LPAD(a.id_libro, 8, '0'), '-',
+                                LPAD(COALESCE(o.prestados, 0) + a.n,
+                                     GREATEST(3, CHAR_LENGTH(COALESCE(o.prestados, 0) + a.n)), '0'))
+SET r.id_ejemplar = e.id_ejemplar;
+
+DROP TABLE migracion_ejemplares_ocupados;
+
+-- Contadores derivados de los ejemplares
+UPDATE libros l
+LEFT JOIN (
+    SELECT id_libro, SUM(estado <> 'BAJA') AS total, SUM(estado = 'DISPONIBLE') AS disponibles
+    FROM ejemplares
+    GROUP BY id_libro
+) e ON e.id_libro = l.id_libro
+SET l.cantidad_total = COALESCE(e.total, 0),
+    l.cantidad_disponible = COALESCE(e.disponibles, 0);
@@ -0,0 +1,39 @@
+-- ==========================================================
+-- V9: Multas por devolución tardía
+-- ==========================================================
+-- Tarifa diaria y tope por categoría. NULL = usar los valores por defecto
+-- de bibliotech.multas.* (application.properties).
+ALTER TABLE categorias
+    ADD COLUMN multa_diaria DECIMAL(8,2) NULL,
+    ADD COLUMN multa_tope DECIMAL(10,2) NULL;
+
+-- Deuda pendiente desnormalizada: el control en el mostrador lee la fila del
+-- cliente (que el préstamo ya carga por PK) en lugar de sumar sus multas.
+ALTER TABLE clientes
+    ADD COLUMN deuda_multas DECIMAL(10,2) NOT NULL DEFAULT 0;
+
+-- Una multa por préstamo. El devengo nocturno (MultaService) recalcula con un
+-- INSERT ... SELECT ... ON DUPLICATE KEY UPDATE los días y el monto de las
+-- multas PENDIENTE; las pagadas o condonadas ya no cambian.
+-- Sin FK a prestamos: la tabla está particionada.
+CREATE TABLE multas (
+    id_multa BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id_prestamo BIGINT NOT NULL,
+    id_cliente BIGINT NOT NULL,
+    id_libro BIGINT NOT NULL,
+    dias_retraso INT NOT NULL,
+    monto DECIMAL(10,2) NOT NULL,
+    estado ENUM('PENDIENTE', 'PAGADA', 'CONDONADA') NOT NULL DEFAULT 'PENDIENTE',
+    -- TRUE cuando el préstamo ya se devolvió: el monto es definitivo y se puede cobrar
+    prestamo_devuelto BOOLEAN NOT NULL DEFAULT FALSE,
+    fecha_generacion TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    fecha_actualizacion TIMESTAMP NULL,
+    fecha_cierre TIMESTAMP NULL,
+    observaciones VARCHAR(255),
+    UNIQUE KEY uk_multas_prestamo (id_prestamo),
+    -- Multas de un cliente y recálculo de deudas (SUM de montos PENDIENTE)
+    INDEX idx_multas_cliente_estado (id_cliente, estado, monto),
+    INDEX idx_multas_estado_fecha (estado, fecha_generacion),
+    CONSTRAINT fk_multa_cliente FOREIGN KEY (id_cliente) REFERENCES clientes(id_cliente),
+    CONSTRAINT fk_multa_libro FOREIGN KEY (id_libro) REFERENCES libros(id_libro)
+);
@@ -0,0 +1,124 @@
+package com.biblioteca.bibliotech;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MySQL en Docker con el esquema de producción: el script base
+ * (sql/bibliotech_db_final.sql, versión 1) y las migraciones de Flyway.
+ *
+ * Para las pruebas que necesitan el motor real (planes de consulta, particiones,
+ * triggers) y para generar los datasets de millones de filas de las pruebas de
+ * rendimiento. Los datos generados usan IDs desde {@link #PRIMER_ID}, después de
+ * los datos de prueba del script base.
+ */
+public final class BaseDatosMysql {
+
+    public static final long PRIMER_ID = 1000;
+
+    private static final int NUMEROS = 1_000_000;
+
+    private BaseDatosMysql() {
+    }
+
+    /**
+     * Contenedor de MySQL 8 (usar con @Container). Sin log binario y con un buffer
+     * pool grande para que la carga de los datasets no domine la prueba.
+     */
+    public static MySQLContainer<?> contenedor() {
+        return new MySQLContainer<>(DockerImageName.parse("mysql:8.0"))
+                .withDatabaseName("bibliotech_db")
+                .withUsername("root")
+                .withPassword("bibliotech")
+                .withUrlParam("rewriteBatchedStatements", "true")
+                .withCommand("--skip-log-bin", "--innodb-buffer-pool-size=1G",
+                        "--innodb-flush-log-at-trx-commit=2");
+    }
+
+    /**
+     * Crea el esquema (script base y migraciones, como en producción con
+     * baseline-on-migrate) y devuelve un JdbcTemplate sobre una sola conexión.
+     */
+    public static JdbcTemplate migrar(MySQLContainer<?> mysql) {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+                mysql.getJdbcUrl(), mysql.getUsername(), mysql.getPassword(), true);
+        try (Connection conexion = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(conexion,
+                    new EncodedResource(new ClassPathResource("sql/bibliotech_db_final.sql"), StandardCharsets.UTF_8));
+        } catch (SQLException e) {
+            throw new IllegalStateException("No se pudo crear el esquema base", e);
+        }
+        Flyway.configure()
+                .dataSource(mysql.getJdbcUrl(), mysql.getUsername(), mysql.getPassword())
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE numeros (n INT PRIMARY KEY)");
+        // 0..999999, base de todas las cargas masivas (INSERT ... SELECT sobre numeros)
+        jdbcTemplate.execute("INSERT INTO numeros " +
+                "WITH digitos AS (SELECT 0 AS d UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 " +
+                "    UNION ALL SELECT 4 UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 " +
+                "    UNION ALL SELECT 8 UNION ALL SELECT 9) " +
+                "SELECT a.d + 10 * b.d + 100 * c.d + 1000 * d.d + 10000 * e.d + 100000 * f.d " +
+                "FROM digitos a, digitos b, digitos c, digitos d, digitos e, digitos f");
+        return jdbcTemplate;
+    }
+
+    /**
+     * Genera libros y clientes con IDs consecutivos desde {@link #PRIMER_ID}.
+     */
+    public static void cargarCatalogo(JdbcTemplate jdbcTemplate, int libros, int clientes) {
+        jdbcTemplate.update("INSERT INTO libros (id_libro, titulo, isbn, anio_publicacion, cantidad_total, " +
+                "cantidad_disponible, id_autor, id_categoria) " +
+                "SELECT ? + n, CONCAT('Libro de prueba ', n), CONCAT('978', LPAD(n, 10, '0')), 1950 + n % 75, " +
+                "3, 3, 1 + n % 5, 1 + n % 5 FROM numeros WHERE n < ?", PRIMER_ID, libros);
+        jdbcTemplate.update("INSERT INTO clientes (id_cliente, dni, nombre, apellido, email, activo) " +
+                "SELECT ? + n, LPAD(n, 8, '0'), CONCAT('Nombre', n), CONCAT('Apellido', n), " +
+                "CONCAT('cliente', n, '@prueba.local'), TRUE FROM numeros WHERE n < ?", PRIMER_ID, clientes);
+    }
+
+    /**
+     * Genera préstamos repartidos en los últimos {@code dias} días, de a un millón
+     * por sentencia. Los de los últimos 14 días están ACTIVO, uno de cada 97 de
+     * los anteriores VENCIDO y el resto DEVUELTO.
+     */
+    public static void cargarPrestamos(JdbcTemplate jdbcTemplate, int cantidad, int libros, int clientes, int dias) {
+        for (int desde = 0; desde < cantidad; desde += NUMEROS) {
+            jdbcTemplate.update("INSERT INTO prestamos (id_prestamo, id_libro, id_cliente, fecha_prestamo, " +
+                    "fecha_devolucion_esperada, fecha_devolucion_real, estado) " +
+                    "SELECT ? + g.i, ? + g.i * 104729 % ?, ? + g.i * 7919 % ?, g.fecha, g.fecha + INTERVAL 14 DAY, " +
+                    "       IF(g.estado = 'DEVUELTO', LEAST(g.fecha + INTERVAL g.i % 20 DAY, CURDATE()), NULL), " +
+                    "       g.estado " +
+                    "FROM (SELECT n + ? AS i, CURDATE() - INTERVAL (n + ?) % ? DAY AS fecha, " +
+                    "             CASE WHEN (n + ?) % ? < 14 THEN 'ACTIVO' " +
+                    "                  WHEN (n + ?) % 97 = 0 THEN 'VENCIDO' ELSE 'DEVUELTO' END AS estado " +
+                    "      FROM numeros WHERE n < ?) g",
+                    PRIMER_ID, PRIMER_ID, libros, PRIMER_ID, clientes,
+                    desde, desde, dias, desde, dias, desde, Math.min(NUMEROS, cantidad - desde));
+        }
+        jdbcTemplate.execute("ANALYZE TABLE prestamos, prestamos_claves, libros, clientes");
+    }
+
+    /**
+     * Filas de EXPLAIN de la consulta (columnas table, partitions, type, key, ...).
+     */
+    public static List<Map<String, Object>> explicar(JdbcTemplate jdbcTemplate, String sql, Object... parametros) {
+        return jdbcTemplate.queryForList("EXPLAIN " + sql, parametros);
+    }
+}
@@ -0,0 +1,120 @@
+package com.biblioteca.bibliotech.config;
+
+import com.biblioteca.bibliotech.enums.Rol;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RegistroRutasTest {
+
+    @RequiereRol(Rol.ADMIN)
+    static class ControladorUsuarios {
+        public void listar() {
+        }
+    }
+
+    static class ControladorLibros {
+        public void listar() {
+        }
+
+        @RequiereRol(Rol.ADMIN)
+        public void eliminar() {
+        }
+    }
+
+    @RutaPublica
+    static class ControladorCatalogo {
+        public void buscar() {
+        }
+    }
+
+    private final RegistroRutas registroRutas = new RegistroRutas();
+
+    private HandlerMethod usuarios;
+    private HandlerMethod libros;
+    private HandlerMethod eliminarLibro;
+    private HandlerMethod catalogo;
+
+    @BeforeEach
+    void registrar() throws Exception {
+        usuarios = new HandlerMethod(new ControladorUsuarios(), "listar");
+        libros = new HandlerMethod(new ControladorLibros(), "listar");
+        eliminarLibro = new HandlerMethod(new ControladorLibros(), "eliminar");
+        catalogo = new HandlerMethod(new ControladorCatalogo(), "buscar");
+
+        Map<RequestMappingInfo, HandlerMethod> metodos = new HashMap<>();
+        metodos.put(RequestMappingInfo.paths("/usuarios").build(), usuarios);
+        metodos.put(RequestMappingInfo.paths("/libros").build(), libros);
+        metodos.put(RequestMappingInfo.paths("/libros/eliminar/{id}").build(), eliminarLibro);
+        metodos.put(RequestMappingInfo.paths("/catalogo").build(), catalogo);
+        registroRutas.registrar(metodos);
+    }
+
+    private static MockHttpServletRequest peticion(String uri) {
+        return new MockHttpServletRequest("GET", uri);
+    }
+
+    @Test
+    void elRolSaleDeLaAnotacionDeLaClase() {
+        RegistroRutas.InfoRuta ruta = registroRutas.buscar(peticion("/usuarios"), usuarios);
+
+        assertThat(ruta.isPublica()).isFalse();
+        assertThat(ruta.permite(Rol.ADMIN)).isTrue();
+        assertThat(ruta.permite(Rol.EMPLEADO)).isFalse();
+        assertThat(ruta.getSeccion()).isEqualTo("usuarios");
+    }
+
+    @Test
+    void laAnotacionDelMetodoSeSumaALaDeLaClase() {
+        assertThat(registroRutas.buscar(peticion("/libros"), libros).permite(Rol.EMPLEADO)).isTrue();
+        assertThat(registroRutas.buscar(peticion("/libros/eliminar/3"), eliminarLibro).permite(Rol.EMPLEADO)).isFalse();
+    }
+
+    @Test
+    void conHandlerMethodLaUrlNoCambiaLaAutorizacion() {
+        // Spring atiende estas URLs con el mismo método que /usuarios
+        assertThat(registroRutas.buscar(peticion("/usuarios;x=1"), usuarios).permite(Rol.EMPLEADO)).isFalse();
+        assertThat(registroRutas.buscar(peticion("/%75suarios"), usuarios).permite(Rol.EMPLEADO)).isFalse();
+        assertThat(registroRutas.buscar(peticion("/USUARIOS"), usuarios).permite(Rol.EMPLEADO)).isFalse();
+    }
+
+    @Test
+    void sinHandlerMethodNormalizaParametrosDeMatrizYCodificacion() {
+        Object otroHandler = new Object();
+
+        assertThat(registroRutas.buscar(peticion("/usuarios;x=1"), otroHandler).permite(Rol.EMPLEADO)).isFalse();
+        assertThat(registroRutas.buscar(peticion("/%75suarios"), otroHandler).permite(Rol.EMPLEADO)).isFalse();
+        assertThat(registroRutas.buscar(peticion("/usuarios;x=1"), otroHandler).permite(Rol.ADMIN)).isTrue();
+    }
+
+    @Test
+    void lasRutasDesconocidasSeDeniegan() {
+        RegistroRutas.InfoRuta ruta = registroRutas.buscar(peticion("/desconocida/algo"), new Object());
+
+        assertThat(ruta.isPublica()).isFalse();
+        assertThat(ruta.permite(Rol.ADMIN)).isFalse();
+        assertThat(ruta.permite(Rol.EMPLEADO)).isFalse();
+    }
+
+    @Test
+    void rutasPublicas() {
+        assertThat(registroRutas.buscar(peticion("/catalogo"), catalogo).isPublica()).isTrue();
+        assertThat(registroRutas.buscar(peticion("/css/styles.css"), new ResourceHttpRequestHandler()).isPublica()).isTrue();
+        assertThat(registroRutas.buscar("/").isPublica()).isTrue();
+        assertThat(registroRutas.buscar("/css/styles.css").isPublica()).isTrue();
+    }
+
+    @Test
+    void laSeccionEsElPrimerSegmentoRegistrado() {
+        assertThat(registroRutas.buscar("/libros/eliminar/3").getSeccion()).isEqualTo("libros");
+        assertThat(registroRutas.buscar("/libros/eliminar/3").permite(Rol.EMPLEADO)).isFalse();
+    }
+}
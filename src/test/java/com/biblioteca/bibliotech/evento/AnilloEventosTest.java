@@ -0,0 +1,118 @@
+package com.biblioteca.bibliotech.evento;
+
+import com.biblioteca.bibliotech.enums.TipoEventoPrestamo;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AnilloEventosTest {
+
+    private static EventoPrestamo evento(long id) {
+        return EventoPrestamo.de(TipoEventoPrestamo.PRESTAMO_CREADO, id, id, 1L, 1L, null,
+                LocalDate.of(2025, 1, 15), LocalDateTime.of(2025, 1, 1, 10, 0));
+    }
+
+    private static List<Long> ids(List<EventoPrestamo> eventos) {
+        return eventos.stream().map(EventoPrestamo::id).toList();
+    }
+
+    @Test
+    void rechazaCapacidadQueNoEsPotenciaDeDos() {
+        assertThatThrownBy(() -> new AnilloEventos(100, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void entregaLosEventosEnOrdenYPorLotes() throws InterruptedException {
+        AnilloEventos anillo = new AnilloEventos(8, 1);
+        for (long id = 1; id <= 5; id++) {
+            anillo.publicar(evento(id), id);
+        }
+
+        List<EventoPrestamo> primero = anillo.tomar(0, 3, 0);
+        anillo.confirmar(0, primero.size());
+        List<EventoPrestamo> segundo = anillo.tomar(0, 3, 0);
+
+        assertThat(ids(primero)).containsExactly(1L, 2L, 3L);
+        assertThat(ids(segundo)).containsExactly(4L, 5L);
+    }
+
+    @Test
+    void sinConfirmarDevuelveElMismoLote() throws InterruptedException {
+        AnilloEventos anillo = new AnilloEventos(8, 1);
+        anillo.publicar(evento(1), 1);
+        anillo.publicar(evento(2), 2);
+
+        List<EventoPrestamo> primero = anillo.tomar(0, 10, 0);
+        List<EventoPrestamo> reintento = anillo.tomar(0, 10, 0);
+
+        assertThat(ids(reintento)).isEqualTo(ids(primero));
+    }
+
+    @Test
+    void cadaLectorAvanzaConSuPropioCursor() throws InterruptedException {
+        AnilloEventos anillo = new AnilloEventos(8, 2);
+        anillo.publicar(evento(1), 1);
+        anillo.publicar(evento(2), 2);
+
+        anillo.confirmar(0, anillo.tomar(0, 10, 0).size());
+
+        assertThat(anillo.tomar(0, 10, 0)).isEmpty();
+        assertThat(ids(anillo.tomar(1, 10, 0))).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void confirmarDevuelveLaMarcaDelUltimoEventoConfirmado() throws InterruptedException {
+        AnilloEventos anillo = new AnilloEventos(8, 1);
+        anillo.publicar(evento(5), 3);
+        anillo.publicar(evento(4), 5);
+        anillo.publicar(evento(6), 6);
+
+        assertThat(anillo.confirmar(0, 2)).isEqualTo(5L);
+        assertThat(anillo.confirmar(0, 1)).isEqualTo(6L);
+    }
+
+    @Test
+    void sinEventosDevuelveVacioAlTerminarLaEspera() throws InterruptedException {
+        AnilloEventos anillo = new AnilloEventos(8, 1);
+
+        assertThat(anillo.tomar(0, 10, 20)).isEmpty();
+    }
+
+    @Test
+    void elEscritorEsperaAlLectorMasLentoCuandoElBufferEstaLleno() throws InterruptedException {
+        AnilloEventos anillo = new AnilloEventos(2, 2);
+        anillo.publicar(evento(1), 1);
+        anillo.publicar(evento(2), 2);
+        anillo.confirmar(0, 2);
+
+        AtomicBoolean publicado = new AtomicBoolean();
+        CountDownLatch termino = new CountDownLatch(1);
+        Thread escritor = new Thread(() -> {
+            try {
+                anillo.publicar(evento(3), 3);
+                publicado.set(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            termino.countDown();
+        });
+        escritor.start();
+
+        assertThat(termino.await(100, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(publicado.get()).isFalse();
+
+        anillo.confirmar(1, 1);
+
+        assertThat(termino.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(publicado.get()).isTrue();
+        assertThat(ids(anillo.tomar(1, 10, 0))).containsExactly(2L, 3L);
+    }
+}
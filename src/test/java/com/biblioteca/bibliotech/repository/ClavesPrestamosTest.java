@@ -0,0 +1,82 @@
+package com.biblioteca.bibliotech.repository;
+
+import com.biblioteca.bibliotech.BaseDatosMysql;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * prestamos_claves (V17) vuelve a imponer sobre la tabla particionada la unicidad
+ * de id_prestamo y las claves foráneas a libros y clientes.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ClavesPrestamosTest {
+
+    private static final String SQL_INSERTAR =
+            "INSERT INTO prestamos (id_prestamo, id_libro, id_cliente, fecha_prestamo, fecha_devolucion_esperada, estado) " +
+            "VALUES (?, ?, ?, ?, ?, 'ACTIVO')";
+
+    private static final long LIBRO = BaseDatosMysql.PRIMER_ID;
+    private static final long CLIENTE = BaseDatosMysql.PRIMER_ID;
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = BaseDatosMysql.contenedor();
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void cargar() {
+        jdbcTemplate = BaseDatosMysql.migrar(MYSQL);
+        BaseDatosMysql.cargarCatalogo(jdbcTemplate, 1, 1);
+    }
+
+    private static void insertar(long id, long libro, long cliente, LocalDate fecha) {
+        jdbcTemplate.update(SQL_INSERTAR, id, libro, cliente, fecha, fecha.plusDays(14));
+    }
+
+    @Test
+    void laCargaInicialIncluyeLosPrestamosExistentes() {
+        Long sinClave = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM prestamos p " +
+                "LEFT JOIN prestamos_claves c ON c.id_prestamo = p.id_prestamo WHERE c.id_prestamo IS NULL",
+                Long.class);
+
+        assertThat(sinClave).isZero();
+    }
+
+    @Test
+    void rechazaUnIdRepetidoAunqueCambieLaFecha() {
+        insertar(5000, LIBRO, CLIENTE, LocalDate.now());
+
+        // Con otra fecha cae en otra partición: la PK (id_prestamo, fecha_prestamo) no lo impide
+        assertThatThrownBy(() -> insertar(5000, LIBRO, CLIENTE, LocalDate.now().minusMonths(2)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM prestamos WHERE id_prestamo = 5000", Long.class)).isEqualTo(1);
+    }
+
+    @Test
+    void rechazaPrestamosDeLibrosOClientesInexistentes() {
+        assertThatThrownBy(() -> insertar(5001, 999_999, CLIENTE, LocalDate.now()))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThatThrownBy(() -> insertar(5002, LIBRO, 999_999, LocalDate.now()))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void impideBorrarUnClienteConPrestamos() {
+        insertar(5003, LIBRO, CLIENTE, LocalDate.now());
+
+        assertThatThrownBy(() -> jdbcTemplate.update("DELETE FROM clientes WHERE id_cliente = ?", CLIENTE))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+}
@@ -0,0 +1,166 @@
+package com.biblioteca.bibliotech.repository;
+
+import com.biblioteca.bibliotech.BaseDatosMysql;
+import com.biblioteca.bibliotech.service.ParticionesPrestamosService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+/**
+ * Planes de las consultas de PrestamoRepository (y de ClienteRepository sobre
+ * prestamos) con un millón de préstamos de dos años: 97% DEVUELTO, 2% ACTIVO y
+ * 1% VENCIDO, como en producción.
+ *
+ * Cada consulta es el SQL equivalente al que genera Hibernate, con prestamos
+ * como alias p. El plan debe leer prestamos con el índice de V2 que le
+ * corresponde; un recorrido completo solo se acepta si quedó limitado a parte
+ * de las particiones.
+ *
+ * No se incluye findPrestamosRecientes: devuelve la tabla entera por diseño.
+ * findByEstado y countByEstado se prueban con estados poco frecuentes; con
+ * DEVUELTO leer la tabla completa es el plan correcto.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class IndicesPrestamosTest {
+
+    private static final int PRESTAMOS = 1_000_000;
+    private static final int LIBROS = 20_000;
+    private static final int CLIENTES = 50_000;
+    private static final int DIAS = 2 * 365;
+
+    private static final long CLIENTE = BaseDatosMysql.PRIMER_ID + 123;
+    private static final long LIBRO = BaseDatosMysql.PRIMER_ID + 45;
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = BaseDatosMysql.contenedor();
+
+    private static JdbcTemplate jdbcTemplate;
+    private static int particiones;
+
+    @BeforeAll
+    static void cargar() {
+        jdbcTemplate = BaseDatosMysql.migrar(MYSQL);
+        new ParticionesPrestamosService(jdbcTemplate, 3, 24).mantener();
+        BaseDatosMysql.cargarCatalogo(jdbcTemplate, LIBROS, CLIENTES);
+        BaseDatosMysql.cargarPrestamos(jdbcTemplate, PRESTAMOS, LIBROS, CLIENTES, DIAS);
+        particiones = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.PARTITIONS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'prestamos'", Integer.class);
+    }
+
+    static Stream<Arguments> consultas() {
+        LocalDate hoy = LocalDate.now();
+        YearMonth mes = YearMonth.now().minusMonths(2);
+        return Stream.of(
+                // ==================== POR ESTADO ====================
+                arguments("findByEstado", Set.of("idx_estado_vencimiento"),
+                        "SELECT * FROM prestamos p WHERE p.estado = ?", List.of("VENCIDO")),
+                arguments("findPrestamosActivos", Set.of("idx_estado_vencimiento"),
+                        "SELECT * FROM prestamos p WHERE p.estado = 'ACTIVO' " +
+                        "ORDER BY p.fecha_devolucion_esperada", List.of()),
+                arguments("findPrestamosVencidos", Set.of("idx_estado_vencimiento"),
+                        "SELECT * FROM prestamos p WHERE p.estado = 'VENCIDO' " +
+                        "OR (p.estado = 'ACTIVO' AND p.fecha_devolucion_esperada < CURDATE()) " +
+                        "ORDER BY p.fecha_devolucion_esperada", List.of()),
+                arguments("countByEstado", Set.of("idx_estado_vencimiento"),
+                        "SELECT COUNT(*) FROM prestamos p WHERE p.estado = ?", List.of("ACTIVO")),
+
+                // ==================== POR CLIENTE ====================
+                arguments("findByClienteId", Set.of("idx_cliente_estado_libro", "idx_cliente_fecha_prestamo"),
+                        "SELECT * FROM prestamos p WHERE p.id_cliente = ?", List.of(CLIENTE)),
+                arguments("findPrestamosActivosByClienteId", Set.of("idx_cliente_estado_libro"),
+                        "SELECT * FROM prestamos p WHERE p.id_cliente = ? AND p.estado = 'ACTIVO'",
+                        List.of(CLIENTE)),
+                arguments("countPrestamosActivosByClienteId", Set.of("idx_cliente_estado_libro"),
+                        "SELECT COUNT(*) FROM prestamos p WHERE p.id_cliente = ? AND p.estado = 'ACTIVO'",
+                        List.of(CLIENTE)),
+                arguments("existsPrestamoActivoByClienteIdAndLibroId", Set.of("idx_cliente_estado_libro"),
+                        "SELECT COUNT(*) > 0 FROM prestamos p " +
+                        "WHERE p.id_cliente = ? AND p.id_libro = ? AND p.estado = 'ACTIVO'",
+                        List.of(CLIENTE, LIBRO)),
+                arguments("findHistorialByClienteId", Set.of("idx_cliente_fecha_prestamo"),
+                        "SELECT * FROM prestamos p JOIN libros l ON l.id_libro = p.id_libro " +
+                        "WHERE p.id_cliente = ? ORDER BY p.fecha_prestamo DESC", List.of(CLIENTE)),
+
+                // ==================== POR LIBRO Y EJEMPLAR ====================
+                arguments("findByLibroId", Set.of("idx_libro_estado"),
+                        "SELECT * FROM prestamos p WHERE p.id_libro = ?", List.of(LIBRO)),
+                arguments("findPrestamosActivosByLibroId", Set.of("idx_libro_estado"),
+                        "SELECT * FROM prestamos p WHERE p.id_libro = ? AND p.estado = 'ACTIVO'", List.of(LIBRO)),
+                arguments("findPrestamoActivoByEjemplarId", Set.of("idx_prestamos_ejemplar"),
+                        "SELECT * FROM prestamos p WHERE p.id_ejemplar = ? AND p.estado IN ('ACTIVO', 'VENCIDO')",
+                        List.of(7L)),
+                arguments("bloquearPorId", Set.of("PRIMARY"),
+                        "SELECT * FROM prestamos p WHERE p.id_prestamo = ? FOR UPDATE",
+                        List.of(BaseDatosMysql.PRIMER_ID + 4242)),
+
+                // ==================== POR FECHA ====================
+                arguments("findByFechaPrestamoBetween", Set.of("idx_fecha_prestamo"),
+                        "SELECT * FROM prestamos p WHERE p.fecha_prestamo BETWEEN ? AND ? " +
+                        "ORDER BY p.fecha_prestamo DESC", List.of(mes.atDay(1), mes.atEndOfMonth())),
+                arguments("findByFechaDevolucionEsperadaAndEstado", Set.of("idx_estado_vencimiento"),
+                        "SELECT * FROM prestamos p WHERE p.fecha_devolucion_esperada = ? AND p.estado = ?",
+                        List.of(hoy.plusDays(3), "ACTIVO")),
+                arguments("findPrestamosPorVencer", Set.of("idx_estado_vencimiento"),
+                        "SELECT * FROM prestamos p WHERE p.estado = 'ACTIVO' " +
+                        "AND p.fecha_devolucion_esperada BETWEEN CURDATE() AND ? " +
+                        "ORDER BY p.fecha_devolucion_esperada", List.of(hoy.plusDays(7))),
+                arguments("countPrestamosDelDia", Set.of("idx_fecha_prestamo"),
+                        "SELECT COUNT(*) FROM prestamos p WHERE p.fecha_prestamo = ?", List.of(hoy)),
+                arguments("countDevolucionesHoy", Set.of("idx_fecha_devolucion_real"),
+                        "SELECT COUNT(*) FROM prestamos p " +
+                        "WHERE p.fecha_devolucion_real = CURDATE() AND p.estado = 'DEVUELTO'", List.of()),
+
+                // ==================== VENCIMIENTOS ====================
+                arguments("bloquearPorVencerPorCliente", Set.of("idx_estado_vencimiento"),
+                        "SELECT p.id_cliente, COUNT(*) FROM prestamos p " +
+                        "WHERE p.estado = 'ACTIVO' AND p.fecha_devolucion_esperada < CURDATE() " +
+                        "GROUP BY p.id_cliente FOR UPDATE", List.of()),
+                arguments("actualizarPrestamosVencidos", Set.of("idx_estado_vencimiento"),
+                        "UPDATE prestamos p SET p.estado = 'VENCIDO' " +
+                        "WHERE p.estado = 'ACTIVO' AND p.fecha_devolucion_esperada < CURDATE()", List.of()),
+                arguments("findPrestamosVencidosConDetalles", Set.of("idx_estado_vencimiento"),
+                        "SELECT * FROM prestamos p " +
+                        "JOIN libros l ON l.id_libro = p.id_libro " +
+                        "JOIN clientes c ON c.id_cliente = p.id_cliente " +
+                        "WHERE p.estado = 'VENCIDO' " +
+                        "OR (p.estado = 'ACTIVO' AND p.fecha_devolucion_esperada < CURDATE()) " +
+                        "ORDER BY p.fecha_devolucion_esperada", List.of()),
+                arguments("findClientesConPrestamosVencidos (ClienteRepository)", Set.of("idx_estado_vencimiento"),
+                        "SELECT DISTINCT c.* FROM clientes c JOIN prestamos p ON p.id_cliente = c.id_cliente " +
+                        "WHERE p.estado = 'VENCIDO'", List.of()));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("consultas")
+    void leePrestamosConSuIndice(String consulta, Set<String> indices, String sql, List<Object> parametros) {
+        List<Map<String, Object>> plan = BaseDatosMysql.explicar(jdbcTemplate, sql, parametros.toArray());
+
+        List<Map<String, Object>> prestamos = plan.stream().filter(fila -> "p".equals(fila.get("table"))).toList();
+        assertThat(prestamos).as("%s: plan %s", consulta, plan).hasSize(1);
+        Map<String, Object> fila = prestamos.get(0);
+
+        if ("ALL".equals(fila.get("type"))) {
+            String leidas = (String) fila.get("partitions");
+            assertThat(leidas.split(",").length)
+                    .as("%s recorre prestamos completa: %s", consulta, fila)
+                    .isLessThan(particiones);
+        } else {
+            assertThat((String) fila.get("key")).as("%s: %s", consulta, fila).isIn(indices);
+        }
+    }
+}
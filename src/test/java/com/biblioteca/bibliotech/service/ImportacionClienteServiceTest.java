@@ -0,0 +1,44 @@
+package com.biblioteca.bibliotech.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImportacionClienteServiceTest {
+
+    @Test
+    void quitaSoloEspaciosPuntosYGuiones() {
+        assertThat(ImportacionClienteService.normalizarDni("12345678", false)).isEqualTo("12345678");
+        assertThat(ImportacionClienteService.normalizarDni("12.345.678", false)).isEqualTo("12345678");
+        assertThat(ImportacionClienteService.normalizarDni("12 345 678", false)).isEqualTo("12345678");
+        assertThat(ImportacionClienteService.normalizarDni("1234567-8", false)).isEqualTo("12345678");
+        assertThat(ImportacionClienteService.normalizarDni("01234567", false)).isEqualTo("01234567");
+    }
+
+    @Test
+    void rechazaOtrosCaracteres() {
+        assertThat(ImportacionClienteService.normalizarDni("1234567X", false)).isNull();
+        assertThat(ImportacionClienteService.normalizarDni("A1", false)).isNull();
+        assertThat(ImportacionClienteService.normalizarDni("12345678/", false)).isNull();
+        assertThat(ImportacionClienteService.normalizarDni("1234567X", true)).isNull();
+    }
+
+    @Test
+    void completaCerosSoloEnCeldasNumericas() {
+        assertThat(ImportacionClienteService.normalizarDni("1234567", true)).isEqualTo("01234567");
+        assertThat(ImportacionClienteService.normalizarDni("1234567.0", true)).isEqualTo("01234567");
+        assertThat(ImportacionClienteService.normalizarDni("1,234,567", true)).isEqualTo("01234567");
+
+        assertThat(ImportacionClienteService.normalizarDni("1234567", false)).isNull();
+        assertThat(ImportacionClienteService.normalizarDni("1", false)).isNull();
+        assertThat(ImportacionClienteService.normalizarDni("1,234,567", false)).isNull();
+    }
+
+    @Test
+    void rechazaVaciosYDemasiadoLargos() {
+        assertThat(ImportacionClienteService.normalizarDni(null, false)).isNull();
+        assertThat(ImportacionClienteService.normalizarDni("--", false)).isNull();
+        assertThat(ImportacionClienteService.normalizarDni("123456789", false)).isNull();
+        assertThat(ImportacionClienteService.normalizarDni("123456789", true)).isNull();
+    }
+}
@@ -0,0 +1,163 @@
+package com.biblioteca.bibliotech.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Presupuesto de latencia de IndiceDifuso sobre un catálogo de 500.000 títulos
+ * (título y autor, como el índice de libros de BusquedaDifusaService).
+ *
+ * El catálogo es sintético pero siempre el mismo (semilla fija): palabras de dos
+ * a cuatro sílabas y 20.000 autores. Las consultas son la palabra más larga del
+ * título y el apellido del autor de un libro al azar, con un error de tipeo en
+ * cada palabra de cinco letras o más. Se mide la construcción y, después de calentar
+ * el JIT, los percentiles 50 y 99 de la búsqueda.
+ *
+ * Solo se ejecuta con -Prendimiento.
+ */
+@Tag("rendimiento")
+class IndiceDifusoRendimientoTest {
+
+    private static final int TITULOS = 500_000;
+    private static final int AUTORES = 20_000;
+    private static final int CALENTAMIENTO = 500;
+    private static final int CONSULTAS = 2000;
+
+    private static final Duration PRESUPUESTO_CONSTRUCCION = Duration.ofSeconds(10);
+    private static final Duration PRESUPUESTO_P50 = Duration.ofMillis(10);
+    private static final Duration PRESUPUESTO_P99 = Duration.ofMillis(50);
+
+    private static final String[] SILABAS = {
+            "ma", "ra", "la", "ca", "ta", "sa", "na", "pa", "da", "ga", "ba", "va", "fa", "za",
+            "me", "re", "le", "ce", "te", "se", "ne", "pe", "de", "ge", "be", "ve",
+            "mi", "ri", "li", "ci", "ti", "si", "ni", "pi", "di", "gui", "bi", "vi",
+            "mo", "ro", "lo", "co", "to", "so", "no", "po", "do", "go", "bo",
+            "mu", "ru", "lu", "cu", "tu", "su", "nu", "pu", "du", "gu", "bu",
+            "mar", "sol", "tar", "len", "cor", "ber", "gan", "rion", "tes", "dos"
+    };
+
+    private static final String[][] TITULOS_POR_LIBRO = new String[TITULOS][];
+    private static final String[] APELLIDOS = new String[AUTORES];
+    private static final int[] AUTOR_POR_LIBRO = new int[TITULOS];
+    private static final IndiceDifuso INDICE;
+    private static final long NANOS_CONSTRUCCION;
+
+    static {
+        Random random = new Random(42);
+        String[] nombres = new String[AUTORES];
+        for (int i = 0; i < AUTORES; i++) {
+            nombres[i] = palabra(random);
+            APELLIDOS[i] = palabra(random);
+        }
+
+        long[] ids = new long[TITULOS];
+        String[] textos = new String[TITULOS];
+        for (int i = 0; i < TITULOS; i++) {
+            String[] palabras = new String[2 + random.nextInt(4)];
+            for (int j = 0; j < palabras.length; j++) {
+                palabras[j] = palabra(random);
+            }
+            int autor = random.nextInt(AUTORES);
+            ids[i] = i + 1;
+            TITULOS_POR_LIBRO[i] = palabras;
+            AUTOR_POR_LIBRO[i] = autor;
+            textos[i] = String.join(" ", palabras) + " " + nombres[autor] + " " + APELLIDOS[autor];
+        }
+
+        long inicio = System.nanoTime();
+        INDICE = IndiceDifuso.construir(ids, textos);
+        NANOS_CONSTRUCCION = System.nanoTime() - inicio;
+    }
+
+    private static String palabra(Random random) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 2 + random.nextInt(3); i > 0; i--) {
+            sb.append(SILABAS[random.nextInt(SILABAS.length)]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Un error de tipeo: transposición, sustitución o borrado de una letra interior.
+     */
+    private static String conError(String palabra, Random random) {
+        if (palabra.length() < 5) {
+            // Un borrado dejaría una palabra de 3 letras, que se busca sin errores
+            return palabra;
+        }
+        int i = 1 + random.nextInt(palabra.length() - 2);
+        char[] letras = palabra.toCharArray();
+        switch (random.nextInt(3)) {
+            case 0 -> {
+                char c = letras[i];
+                letras[i] = letras[i + 1];
+                letras[i + 1] = c;
+                return new String(letras);
+            }
+            case 1 -> {
+                letras[i] = letras[i] == 'x' ? 'y' : 'x';
+                return new String(letras);
+            }
+            default -> {
+                return palabra.substring(0, i) + palabra.substring(i + 1);
+            }
+        }
+    }
+
+    /**
+     * Consulta con error para el libro: la palabra más larga del título y el apellido.
+     */
+    private static String consulta(int libro, Random random) {
+        String titulo = Arrays.stream(TITULOS_POR_LIBRO[libro])
+                .reduce((a, b) -> b.length() > a.length() ? b : a).orElseThrow();
+        return conError(titulo, random) + " " + conError(APELLIDOS[AUTOR_POR_LIBRO[libro]], random);
+    }
+
+    @Test
+    void construccionDentroDelPresupuesto() {
+        System.out.printf("IndiceDifuso: %d títulos construidos en %d ms%n",
+                INDICE.tamano(), NANOS_CONSTRUCCION / 1_000_000);
+
+        assertThat(INDICE.tamano()).isEqualTo(TITULOS);
+        assertThat(NANOS_CONSTRUCCION).isLessThanOrEqualTo(PRESUPUESTO_CONSTRUCCION.toNanos());
+    }
+
+    @Test
+    void busquedaConErroresDentroDelPresupuesto() {
+        Random random = new Random(7);
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            INDICE.buscar(consulta(random.nextInt(TITULOS), random), BusquedaDifusaService.MAXIMO_RESULTADOS);
+        }
+
+        long[] nanos = new long[CONSULTAS];
+        int encontrados = 0;
+        for (int i = 0; i < CONSULTAS; i++) {
+            int libro = random.nextInt(TITULOS);
+            String texto = consulta(libro, random);
+
+            long inicio = System.nanoTime();
+            long[] ids = INDICE.buscar(texto, BusquedaDifusaService.MAXIMO_RESULTADOS);
+            nanos[i] = System.nanoTime() - inicio;
+
+            if (Arrays.stream(ids).anyMatch(id -> id == libro + 1)) {
+                encontrados++;
+            }
+        }
+        Arrays.sort(nanos);
+        long p50 = nanos[CONSULTAS / 2];
+        long p99 = nanos[CONSULTAS * 99 / 100];
+        System.out.printf("IndiceDifuso: p50 %.2f ms, p99 %.2f ms, máximo %.2f ms, encontrados %d de %d%n",
+                p50 / 1e6, p99 / 1e6, nanos[CONSULTAS - 1] / 1e6, encontrados, CONSULTAS);
+
+        assertThat(p50).isLessThanOrEqualTo(PRESUPUESTO_P50.toNanos());
+        assertThat(p99).isLessThanOrEqualTo(PRESUPUESTO_P99.toNanos());
+        // El libro buscado aparece entre los resultados salvo que el error lo acerque a otro
+        assertThat(encontrados).isGreaterThanOrEqualTo(CONSULTAS * 95 / 100);
+    }
+}
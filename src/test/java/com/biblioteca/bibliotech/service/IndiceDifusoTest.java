@@ -0,0 +1,122 @@
+package com.biblioteca.bibliotech.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndiceDifusoTest {
+
+    private static final IndiceDifuso INDICE = IndiceDifuso.construir(
+            new long[]{1, 2, 3, 4, 5},
+            new String[]{
+                    "Cien años de soledad Gabriel García Márquez",
+                    "El amor en los tiempos del cólera Gabriel García Márquez",
+                    "Rayuela Julio Cortázar",
+                    "Ficciones Jorge Luis Borges",
+                    "La casa de los espíritus Isabel Allende"
+            });
+
+    /**
+     * Mismo código que IndiceDifuso: 6 bits por carácter, 0 para el espacio.
+     */
+    private static int trigrama(String texto) {
+        int codigo = 0;
+        for (char c : texto.toCharArray()) {
+            codigo = (codigo << 6) | (c == ' ' ? 0 : c - 'a' + 1);
+        }
+        return codigo;
+    }
+
+    // ==================== DISTANCIA ====================
+
+    @Test
+    void distanciaCeroEntreTextosIguales() {
+        assertThat(IndiceDifuso.distancia("marquez", "marquez", 2)).isZero();
+    }
+
+    @Test
+    void distanciaCuentaSustitucionesInsercionesYBorrados() {
+        assertThat(IndiceDifuso.distancia("marques", "marquez", 2)).isEqualTo(1);
+        assertThat(IndiceDifuso.distancia("cortazr", "cortazar", 2)).isEqualTo(1);
+        assertThat(IndiceDifuso.distancia("borgess", "borges", 2)).isEqualTo(1);
+        assertThat(IndiceDifuso.distancia("marqes", "marquez", 3)).isEqualTo(2);
+    }
+
+    @Test
+    void distanciaCuentaUnaTransposicionComoUnError() {
+        assertThat(IndiceDifuso.distancia("mraquez", "marquez", 2)).isEqualTo(1);
+        assertThat(IndiceDifuso.distancia("rayulea", "rayuela", 2)).isEqualTo(1);
+    }
+
+    @Test
+    void distanciaSeCortaAlSuperarElLimite() {
+        assertThat(IndiceDifuso.distancia("borges", "cortazar", 2)).isEqualTo(3);
+        // La diferencia de largo ya supera el límite
+        assertThat(IndiceDifuso.distancia("sol", "soledad", 2)).isEqualTo(3);
+        assertThat(IndiceDifuso.distancia("marquez", "marquez", 0)).isZero();
+        assertThat(IndiceDifuso.distancia("marques", "marquez", 0)).isEqualTo(1);
+    }
+
+    // ==================== TRIGRAMAS Y NORMALIZACIÓN ====================
+
+    @Test
+    void trigramasConEspacioAlComienzoYAlFinalDeCadaPalabra() {
+        int[] trigramas = IndiceDifuso.trigramas(new String[]{"gar"});
+
+        assertThat(trigramas).containsExactly(trigrama(" ga"), trigrama("ar "), trigrama("gar"));
+    }
+
+    @Test
+    void trigramasSinRepetidosYOrdenados() {
+        int[] trigramas = IndiceDifuso.trigramas(new String[]{"aaaa", "aa"});
+
+        assertThat(trigramas).containsExactly(trigrama(" aa"), trigrama("aa "), trigrama("aaa"));
+    }
+
+    @Test
+    void normalizarQuitaAcentosMayusculasYPuntuacion() {
+        assertThat(IndiceDifuso.normalizar("Márquez, G.")).isEqualTo("marquez g");
+        assertThat(IndiceDifuso.normalizar("  Cortázar ")).isEqualTo("cortazar");
+    }
+
+    // ==================== BÚSQUEDA ====================
+
+    @Test
+    void encuentraGarciaMarquezSinAcentosYConErrores() {
+        long[] ids = INDICE.buscar("Garcia Marques", 10);
+
+        assertThat(ids).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void encuentraConUnaTransposicionYUnaLetraDeMenos() {
+        assertThat(INDICE.buscar("Cortazr", 10)).containsExactly(3L);
+        assertThat(INDICE.buscar("rayulea", 10)).containsExactly(3L);
+    }
+
+    @Test
+    void unaPalabraIncompletaCuentaComoComienzo() {
+        assertThat(INDICE.buscar("espiri", 10)).containsExactly(5L);
+    }
+
+    @Test
+    void todasLasPalabrasDeLaConsultaTienenQueCoincidir() {
+        assertThat(INDICE.buscar("Borges Cortazar", 10)).isEmpty();
+    }
+
+    @Test
+    void ordenaDelMasAlMenosParecido() {
+        IndiceDifuso indice = IndiceDifuso.construir(new long[]{10, 11, 12},
+                new String[]{"Marquez", "Marques", "Marquesa"});
+
+        assertThat(indice.buscar("marques", 10)).containsExactly(11L, 12L, 10L);
+        assertThat(indice.buscar("marques", 1)).containsExactly(11L);
+    }
+
+    @Test
+    void consultaVaciaOSinIndiceNoDevuelveNada() {
+        assertThat(INDICE.buscar("", 10)).isEmpty();
+        assertThat(INDICE.buscar(null, 10)).isEmpty();
+        assertThat(IndiceDifuso.construir(new long[0], new String[0]).buscar("borges", 10)).isEmpty();
+    }
+}
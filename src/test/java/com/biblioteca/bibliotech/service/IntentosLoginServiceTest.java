@@ -0,0 +1,116 @@
+package com.biblioteca.bibliotech.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IntentosLoginServiceTest {
+
+    private final IntentosLoginService intentos = new IntentosLoginService(Duration.ofMinutes(5), 5, 20);
+
+    @Test
+    void bloqueaElUsuarioAlLlegarAlMaximoDeFallos() {
+        for (int i = 0; i < 4; i++) {
+            intentos.registrarFallo("mlopez", "10.0.0." + i);
+        }
+        assertThat(intentos.estaBloqueado("mlopez", "10.0.1.1")).isFalse();
+
+        intentos.registrarFallo("mlopez", "10.0.0.4");
+
+        assertThat(intentos.estaBloqueado("mlopez", "10.0.1.1")).isTrue();
+        assertThat(intentos.estaBloqueado("MLopez ", "10.0.1.1")).isTrue();
+        assertThat(intentos.estaBloqueado("jperez", "10.0.1.1")).isFalse();
+    }
+
+    @Test
+    void bloqueaLaIpAlLlegarAlMaximoDeFallos() {
+        for (int i = 0; i < 20; i++) {
+            intentos.registrarFallo("usuario" + i, "203.0.113.7");
+        }
+
+        assertThat(intentos.estaBloqueado("otro", "203.0.113.7")).isTrue();
+        assertThat(intentos.estaBloqueado("otro", "203.0.113.8")).isFalse();
+    }
+
+    @Test
+    void elLoginCorrectoReiniciaElUsuarioPeroNoLaIp() {
+        for (int i = 0; i < 20; i++) {
+            intentos.registrarFallo("mlopez", "203.0.113.7");
+        }
+
+        intentos.registrarExito("mlopez");
+
+        assertThat(intentos.estaBloqueado("mlopez", "203.0.113.8")).isFalse();
+        assertThat(intentos.estaBloqueado("mlopez", "203.0.113.7")).isTrue();
+    }
+
+    @Test
+    void elLoginCorrectoDeOtroUsuarioDeLaMismaFranjaNoReiniciaLosFallos() {
+        for (int i = 0; i < 5; i++) {
+            intentos.registrarFallo("mlopez", "10.0.0." + i);
+        }
+        String vecino = usuarioDeLaMismaFranja("mlopez");
+
+        intentos.registrarExito(vecino);
+
+        assertThat(intentos.estaBloqueado("mlopez", "10.0.1.1")).isTrue();
+    }
+
+    @Test
+    void unaFranjaCompartidaNoSeReiniciaYDecaeConLaVentana() throws InterruptedException {
+        IntentosLoginService ventanaCorta = new IntentosLoginService(Duration.ofMillis(200), 5, 20);
+        String vecino = usuarioDeLaMismaFranja("mlopez");
+        for (int i = 0; i < 4; i++) {
+            ventanaCorta.registrarFallo("mlopez", "10.0.0.1");
+        }
+        ventanaCorta.registrarFallo(vecino, "10.0.0.2");
+
+        // Ninguno de los dos puede borrar los fallos del otro
+        ventanaCorta.registrarExito("mlopez");
+        ventanaCorta.registrarExito(vecino);
+        assertThat(ventanaCorta.estaBloqueado("mlopez", "10.0.1.1")).isTrue();
+
+        Thread.sleep(300);
+
+        assertThat(ventanaCorta.estaBloqueado("mlopez", "10.0.1.1")).isFalse();
+    }
+
+    /**
+     * Busca un username que comparte franja con el dado: con la franja de este
+     * bloqueada en un servicio aparte (las franjas no dependen de la instancia), el otro aparece bloqueado sin haber fallado.
+     */
+    private static String usuarioDeLaMismaFranja(String username) {
+        IntentosLoginService sonda = new IntentosLoginService(Duration.ofMinutes(5), 1, 1000);
+        sonda.registrarFallo(username, "10.0.0.1");
+        for (int i = 0; ; i++) {
+            if (sonda.estaBloqueado("usuario" + i, "10.0.9.9")) {
+                return "usuario" + i;
+            }
+        }
+    }
+
+    @Test
+    void losFallosDeUsuariosNoCuentanParaLasIps() {
+        // Un username igual a una IP usa otra tabla: no suma a esa IP
+        for (int i = 0; i < 20; i++) {
+            intentos.registrarFallo("203.0.113.7", "10.0.0." + i);
+        }
+
+        assertThat(intentos.estaBloqueado("jperez", "203.0.113.7")).isFalse();
+    }
+
+    @Test
+    void losFallosVencenConLaVentana() throws InterruptedException {
+        IntentosLoginService ventanaCorta = new IntentosLoginService(Duration.ofMillis(100), 5, 20);
+        for (int i = 0; i < 5; i++) {
+            ventanaCorta.registrarFallo("mlopez", "10.0.0.1");
+        }
+        assertThat(ventanaCorta.estaBloqueado("mlopez", "10.0.0.2")).isTrue();
+
+        Thread.sleep(150);
+
+        assertThat(ventanaCorta.estaBloqueado("mlopez", "10.0.0.2")).isFalse();
+    }
+}
@@ -0,0 +1,150 @@
+package com.biblioteca.bibliotech.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MapaBitsTest {
+
+    private static final int TAMANO = 1000;
+
+    // Por debajo de TAMANO/32 posiciones queda como arreglo, por encima como mapa de bits
+    private static final MapaBits DISPERSO = MapaBits.de(new int[]{3, 64, 130, 500, 999}, TAMANO);
+    private static final MapaBits PARES = MapaBits.de(IntStream.range(0, TAMANO / 2).map(i -> i * 2).toArray(), TAMANO);
+    private static final MapaBits MULTIPLOS_DE_TRES =
+            MapaBits.de(IntStream.range(0, (TAMANO + 2) / 3).map(i -> i * 3).toArray(), TAMANO);
+
+    private static int[] todas(MapaBits mapa) {
+        return mapa.posiciones(0, mapa.cardinalidad());
+    }
+
+    // ==================== CONSTRUCCIÓN ====================
+
+    @Test
+    void vacioYCompleto() {
+        assertThat(MapaBits.vacio(TAMANO).cardinalidad()).isZero();
+        assertThat(MapaBits.vacio(TAMANO).contiene(0)).isFalse();
+
+        MapaBits completo = MapaBits.completo(70);
+        assertThat(completo.cardinalidad()).isEqualTo(70);
+        assertThat(completo.contiene(0)).isTrue();
+        assertThat(completo.contiene(69)).isTrue();
+        assertThat(completo.posiciones(62, 10)).containsExactly(62, 63, 64, 65, 66, 67, 68, 69);
+        assertThat(MapaBits.completo(0).cardinalidad()).isZero();
+    }
+
+    @Test
+    void deOrdenaYQuitaRepetidas() {
+        MapaBits mapa = MapaBits.de(new int[]{500, 3, 64, 3, 500}, TAMANO);
+
+        assertThat(mapa.cardinalidad()).isEqualTo(3);
+        assertThat(todas(mapa)).containsExactly(3, 64, 500);
+        assertThat(mapa.contiene(64)).isTrue();
+        assertThat(mapa.contiene(65)).isFalse();
+    }
+
+    @Test
+    void constructorAcumulaEnOrden() {
+        MapaBits.Constructor constructor = new MapaBits.Constructor();
+        for (int posicion = 0; posicion < TAMANO; posicion += 7) {
+            constructor.agregar(posicion);
+        }
+
+        MapaBits mapa = constructor.construir(TAMANO);
+
+        assertThat(mapa.cardinalidad()).isEqualTo(143);
+        assertThat(mapa.contiene(994)).isTrue();
+        assertThat(mapa.contiene(995)).isFalse();
+        assertThat(new MapaBits.Constructor().construir(TAMANO).cardinalidad()).isZero();
+    }
+
+    // ==================== INTERSECCIÓN ====================
+
+    @Test
+    void interseccionEntreDispersos() {
+        MapaBits otro = MapaBits.de(new int[]{64, 65, 500}, TAMANO);
+
+        assertThat(todas(DISPERSO.interseccion(otro))).containsExactly(64, 500);
+        assertThat(DISPERSO.cardinalidadInterseccion(otro)).isEqualTo(2);
+    }
+
+    @Test
+    void interseccionEntreDensos() {
+        MapaBits multiplosDeSeis = PARES.interseccion(MULTIPLOS_DE_TRES);
+
+        assertThat(multiplosDeSeis.cardinalidad()).isEqualTo(167);
+        assertThat(multiplosDeSeis.contiene(996)).isTrue();
+        assertThat(multiplosDeSeis.contiene(994)).isFalse();
+        assertThat(PARES.cardinalidadInterseccion(MULTIPLOS_DE_TRES)).isEqualTo(167);
+    }
+
+    @Test
+    void interseccionEntreDispersoYDenso() {
+        assertThat(todas(DISPERSO.interseccion(PARES))).containsExactly(64, 130, 500);
+        assertThat(todas(PARES.interseccion(DISPERSO))).containsExactly(64, 130, 500);
+        assertThat(DISPERSO.cardinalidadInterseccion(PARES)).isEqualTo(3);
+        assertThat(PARES.cardinalidadInterseccion(DISPERSO)).isEqualTo(3);
+    }
+
+    @Test
+    void interseccionConCompletoYVacio() {
+        MapaBits completo = MapaBits.completo(TAMANO);
+
+        assertThat(todas(completo.interseccion(DISPERSO))).containsExactly(3, 64, 130, 500, 999);
+        assertThat(PARES.interseccion(completo).cardinalidad()).isEqualTo(500);
+        assertThat(completo.cardinalidadInterseccion(PARES)).isEqualTo(500);
+        assertThat(PARES.interseccion(MapaBits.vacio(TAMANO)).cardinalidad()).isZero();
+        assertThat(PARES.cardinalidadInterseccion(MapaBits.vacio(TAMANO))).isZero();
+    }
+
+    // ==================== UNIÓN ====================
+
+    @Test
+    void unionEntreDispersos() {
+        MapaBits otro = MapaBits.de(new int[]{0, 64, 998}, TAMANO);
+
+        assertThat(todas(DISPERSO.union(otro))).containsExactly(0, 3, 64, 130, 500, 998, 999);
+    }
+
+    @Test
+    void unionEntreDensosYMixta() {
+        MapaBits union = PARES.union(MULTIPLOS_DE_TRES);
+        // 500 pares + 334 múltiplos de tres - 167 múltiplos de seis
+        assertThat(union.cardinalidad()).isEqualTo(667);
+        assertThat(union.contiene(9)).isTrue();
+        assertThat(union.contiene(7)).isFalse();
+
+        MapaBits mixta = DISPERSO.union(PARES);
+        assertThat(mixta.cardinalidad()).isEqualTo(502);
+        assertThat(mixta.contiene(3)).isTrue();
+        assertThat(mixta.contiene(999)).isTrue();
+        assertThat(PARES.union(DISPERSO).cardinalidad()).isEqualTo(502);
+    }
+
+    @Test
+    void unionConVacioDevuelveElOtro() {
+        assertThat(todas(MapaBits.vacio(TAMANO).union(DISPERSO))).containsExactly(3, 64, 130, 500, 999);
+        assertThat(PARES.union(MapaBits.vacio(TAMANO)).cardinalidad()).isEqualTo(500);
+    }
+
+    // ==================== PAGINACIÓN ====================
+
+    @Test
+    void posicionesPaginaSobreElMapaDeBits() {
+        assertThat(PARES.posiciones(0, 3)).containsExactly(0, 2, 4);
+        // Saltea palabras enteras de 64 bits
+        assertThat(PARES.posiciones(40, 3)).containsExactly(80, 82, 84);
+        assertThat(PARES.posiciones(498, 10)).containsExactly(996, 998);
+        assertThat(PARES.posiciones(500, 10)).isEmpty();
+    }
+
+    @Test
+    void posicionesPaginaSobreElArreglo() {
+        assertThat(DISPERSO.posiciones(1, 2)).containsExactly(64, 130);
+        assertThat(DISPERSO.posiciones(4, 10)).containsExactly(999);
+        assertThat(DISPERSO.posiciones(-1, 1)).containsExactly(3);
+        assertThat(DISPERSO.posiciones(10, 1)).isEmpty();
+    }
+}
@@ -0,0 +1,130 @@
+package com.biblioteca.bibliotech.service;
+
+import com.biblioteca.bibliotech.BaseDatosMysql;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Envío de la bandeja de salida con EnviadorSmtp contra un servidor SMTP en
+ * memoria (GreenMail) y la tabla notificaciones en MySQL.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class NotificacionServiceTest {
+
+    private static final int MAXIMO_INTENTOS = 3;
+    private static final int ESPERA_REINTENTO_MINUTOS = 5;
+
+    private static final String SQL_ENCOLAR =
+            "INSERT INTO notificaciones (id_cliente, destinatario, asunto, cuerpo, intentos) " +
+            "VALUES (1, 'carlos@mail.com', 'Recordatorio', 'Tiene un préstamo por vencer', ?)";
+
+    // Estado, intentos y segundos hasta el próximo intento de la notificación
+    private static final String SQL_ESTADO =
+            "SELECT estado, intentos, ultimo_error, fecha_envio, " +
+            "TIMESTAMPDIFF(SECOND, NOW(), proximo_intento) AS segundos_espera FROM notificaciones";
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = BaseDatosMysql.contenedor();
+
+    @RegisterExtension
+    static final GreenMailExtension SMTP = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void migrar() {
+        jdbcTemplate = BaseDatosMysql.migrar(MYSQL);
+    }
+
+    @BeforeEach
+    void vaciarBandeja() {
+        jdbcTemplate.update("DELETE FROM notificaciones");
+    }
+
+    private static NotificacionService servicio(int puertoSmtp) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(puertoSmtp);
+        return new NotificacionService(new EnviadorSmtp(mailSender, "biblioteca@bibliotech.local"),
+                jdbcTemplate, new NamedParameterJdbcTemplate(jdbcTemplate),
+                new DataSourceTransactionManager(jdbcTemplate.getDataSource()),
+                3, 7, 200, 50, 0, MAXIMO_INTENTOS, ESPERA_REINTENTO_MINUTOS, 15, 90);
+    }
+
+    // Puerto sin servidor: la conexión SMTP se rechaza
+    private static int puertoCerrado() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Test
+    void envioExitosoMarcaEnviada() throws Exception {
+        jdbcTemplate.update(SQL_ENCOLAR, 0);
+
+        int enviados = servicio(SMTP.getSmtp().getPort()).enviarPendientes();
+
+        assertThat(enviados).isEqualTo(1);
+        MimeMessage[] recibidos = SMTP.getReceivedMessages();
+        assertThat(recibidos).hasSize(1);
+        assertThat(recibidos[0].getSubject()).isEqualTo("Recordatorio");
+        assertThat(recibidos[0].getAllRecipients()[0].toString()).isEqualTo("carlos@mail.com");
+
+        Map<String, Object> fila = jdbcTemplate.queryForMap(SQL_ESTADO);
+        assertThat(fila.get("estado")).isEqualTo("ENVIADA");
+        assertThat(fila.get("intentos")).isEqualTo(1);
+        assertThat(fila.get("fecha_envio")).isNotNull();
+        assertThat(fila.get("ultimo_error")).isNull();
+    }
+
+    @Test
+    void falloReprogramaConEsperaExponencial() throws Exception {
+        // Segundo intento: espera ESPERA_REINTENTO_MINUTOS << 1 = 10 minutos
+        jdbcTemplate.update(SQL_ENCOLAR, 1);
+
+        int enviados = servicio(puertoCerrado()).enviarPendientes();
+
+        assertThat(enviados).isZero();
+        Map<String, Object> fila = jdbcTemplate.queryForMap(SQL_ESTADO);
+        assertThat(fila.get("estado")).isEqualTo("PENDIENTE");
+        assertThat(fila.get("intentos")).isEqualTo(2);
+        assertThat(fila.get("ultimo_error")).isNotNull();
+        assertThat(((Number) fila.get("segundos_espera")).longValue()).isBetween(9 * 60L, 10 * 60L);
+
+        // No se vuelve a tomar antes de que pase la espera
+        assertThat(servicio(SMTP.getSmtp().getPort()).enviarPendientes()).isZero();
+        assertThat(SMTP.getReceivedMessages()).isEmpty();
+    }
+
+    @Test
+    void agotarLosIntentosMarcaError() throws Exception {
+        jdbcTemplate.update(SQL_ENCOLAR, MAXIMO_INTENTOS - 1);
+
+        int enviados = servicio(puertoCerrado()).enviarPendientes();
+
+        assertThat(enviados).isZero();
+        Map<String, Object> fila = jdbcTemplate.queryForMap(SQL_ESTADO);
+        assertThat(fila.get("estado")).isEqualTo("ERROR");
+        assertThat(fila.get("intentos")).isEqualTo(MAXIMO_INTENTOS);
+        assertThat(fila.get("ultimo_error")).isNotNull();
+        assertThat(fila.get("fecha_envio")).isNull();
+    }
+}
@@ -0,0 +1,141 @@
+package com.biblioteca.bibliotech.service;
+
+import com.biblioteca.bibliotech.BaseDatosMysql;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Poda de particiones de prestamos (V4) sobre 10 millones de préstamos de los
+ * últimos cuatro años, comparada con una copia sin particionar de la misma tabla.
+ * Comprueba con EXPLAIN que cada consulta por fecha_prestamo lee solo las
+ * particiones de su rango e imprime la mediana de tiempos de ambas tablas.
+ *
+ * Solo se ejecuta con -Prendimiento (la carga tarda varios minutos).
+ */
+@Tag("rendimiento")
+@Testcontainers(disabledWithoutDocker = true)
+class ParticionesPrestamosRendimientoTest {
+
+    private static final int PRESTAMOS = 10_000_000;
+    private static final int LIBROS = 20_000;
+    private static final int CLIENTES = 50_000;
+    private static final int DIAS = 4 * 365;
+    private static final int REPETICIONES = 5;
+
+    private static final DateTimeFormatter FORMATO_NOMBRE = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    // Equivalentes SQL de countPrestamosDelDia, findByFechaPrestamoBetween y del
+    // resumen diario de EstadisticasService; %s es la tabla a consultar
+    private static final String SQL_DEL_DIA = "SELECT COUNT(*) FROM %s WHERE fecha_prestamo = ?";
+    private static final String SQL_RANGO =
+            "SELECT * FROM %s WHERE fecha_prestamo BETWEEN ? AND ? ORDER BY fecha_prestamo DESC";
+    private static final String SQL_RESUMEN =
+            "SELECT fecha_prestamo, COUNT(*), COUNT(DISTINCT id_libro), COUNT(DISTINCT id_cliente) " +
+            "FROM %s WHERE fecha_prestamo BETWEEN ? AND ? GROUP BY fecha_prestamo";
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = BaseDatosMysql.contenedor();
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void cargar() {
+        jdbcTemplate = BaseDatosMysql.migrar(MYSQL);
+        new ParticionesPrestamosService(jdbcTemplate, 3, 24).mantener();
+        BaseDatosMysql.cargarCatalogo(jdbcTemplate, LIBROS, CLIENTES);
+        BaseDatosMysql.cargarPrestamos(jdbcTemplate, PRESTAMOS, LIBROS, CLIENTES, DIAS);
+
+        jdbcTemplate.execute("CREATE TABLE prestamos_sin_particiones LIKE prestamos");
+        jdbcTemplate.execute("ALTER TABLE prestamos_sin_particiones REMOVE PARTITIONING");
+        for (long desde = 0; desde < PRESTAMOS; desde += 1_000_000) {
+            jdbcTemplate.update("INSERT INTO prestamos_sin_particiones SELECT * FROM prestamos " +
+                    "WHERE id_prestamo >= ? AND id_prestamo < ?",
+                    BaseDatosMysql.PRIMER_ID + desde, BaseDatosMysql.PRIMER_ID + desde + 1_000_000);
+        }
+        jdbcTemplate.execute("ANALYZE TABLE prestamos_sin_particiones");
+    }
+
+    @Test
+    void prestamosDelDiaLeeSoloLaParticionDelMes() {
+        LocalDate hoy = LocalDate.now();
+
+        assertThat(particiones(SQL_DEL_DIA, hoy)).containsExactly(hoy.format(FORMATO_NOMBRE));
+        medir("countPrestamosDelDia", SQL_DEL_DIA, hoy);
+    }
+
+    @Test
+    void rangoDeUnMesLeeSoloSuParticion() {
+        YearMonth mes = YearMonth.now().minusMonths(2);
+
+        assertThat(particiones(SQL_RANGO, mes.atDay(1), mes.atEndOfMonth()))
+                .containsExactly(mes.format(FORMATO_NOMBRE));
+        medir("findByFechaPrestamoBetween (un mes)", SQL_RANGO, mes.atDay(1), mes.atEndOfMonth());
+    }
+
+    @Test
+    void resumenTrimestralLeeSoloLasParticionesDelTrimestre() {
+        YearMonth primero = YearMonth.now().minusMonths(5);
+        YearMonth ultimo = primero.plusMonths(2);
+
+        assertThat(particiones(SQL_RESUMEN, primero.atDay(1), ultimo.atEndOfMonth())).containsExactly(
+                primero.format(FORMATO_NOMBRE),
+                primero.plusMonths(1).format(FORMATO_NOMBRE),
+                ultimo.format(FORMATO_NOMBRE));
+        medir("resumen de EstadisticasService (trimestre)", SQL_RESUMEN, primero.atDay(1), ultimo.atEndOfMonth());
+    }
+
+    @Test
+    void rangoAnteriorALaRetencionLeeSoloParticionAnterior() {
+        LocalDate desde = LocalDate.of(2023, 3, 1);
+        LocalDate hasta = LocalDate.of(2023, 3, 31);
+
+        assertThat(particiones(SQL_RESUMEN, desde, hasta)).containsExactly("p_anterior");
+        medir("resumen de un mes en p_anterior", SQL_RESUMEN, desde, hasta);
+    }
+
+    /**
+     * Particiones que EXPLAIN reporta para la consulta sobre prestamos.
+     */
+    private static List<String> particiones(String sql, Object... parametros) {
+        List<Map<String, Object>> plan = BaseDatosMysql.explicar(jdbcTemplate, sql.formatted("prestamos"), parametros);
+        assertThat(plan).hasSize(1);
+        return Arrays.asList(((String) plan.get(0).get("partitions")).split(","));
+    }
+
+    /**
+     * Imprime la mediana de REPETICIONES ejecuciones con y sin particiones.
+     */
+    private static void medir(String nombre, String sql, Object... parametros) {
+        double conParticiones = mediana(sql.formatted("prestamos"), parametros);
+        double sinParticiones = mediana(sql.formatted("prestamos_sin_particiones"), parametros);
+        System.out.printf("%-45s particionada %9.1f ms   sin particionar %9.1f ms%n",
+                nombre, conParticiones, sinParticiones);
+    }
+
+    private static double mediana(String sql, Object... parametros) {
+        // Una ejecución previa para que ambas tablas partan con el buffer pool caliente
+        jdbcTemplate.queryForList(sql, parametros);
+        double[] tiempos = new double[REPETICIONES];
+        for (int i = 0; i < REPETICIONES; i++) {
+            long inicio = System.nanoTime();
+            jdbcTemplate.queryForList(sql, parametros);
+            tiempos[i] = (System.nanoTime() - inicio) / 1_000_000.0;
+        }
+        Arrays.sort(tiempos);
+        return tiempos[REPETICIONES / 2];
+    }
+}
@@ -0,0 +1,119 @@
+package com.biblioteca.bibliotech.service;
+
+import com.biblioteca.bibliotech.BaseDatosMysql;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Inserción de clientes con IDs por bloques (secuencias, V13) frente a IDENTITY.
+ *
+ * Con IDENTITY Hibernate necesita el ID generado de cada fila, así que envía un
+ * INSERT por fila; con pooled-lo los IDs ya están reservados y los INSERT van en
+ * lotes JDBC de 50. Las dos variantes confirman cada 1000 filas, igual que un
+ * servicio que guarda en lotes.
+ *
+ * Solo se ejecuta con -Prendimiento.
+ */
+@Tag("rendimiento")
+@Testcontainers(disabledWithoutDocker = true)
+class SecuenciaServiceRendimientoTest {
+
+    private static final int FILAS = 100_000;
+    private static final int LOTE_JDBC = 50;
+    private static final int FILAS_POR_TRANSACCION = 1000;
+
+    private static final String SQL_INSERTAR_IDENTIDAD =
+            "INSERT INTO clientes_identidad (dni, nombre, apellido, email, activo) VALUES (?, ?, ?, ?, TRUE)";
+    private static final String SQL_INSERTAR =
+            "INSERT INTO clientes (id_cliente, dni, nombre, apellido, email, activo) VALUES (?, ?, ?, ?, ?, TRUE)";
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = BaseDatosMysql.contenedor();
+
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transaccion;
+
+    @BeforeAll
+    static void preparar() {
+        jdbcTemplate = BaseDatosMysql.migrar(MYSQL);
+        transaccion = new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+
+        // Misma tabla, con el AUTO_INCREMENT que quitó V18
+        jdbcTemplate.execute("CREATE TABLE clientes_identidad LIKE clientes");
+        jdbcTemplate.execute("ALTER TABLE clientes_identidad MODIFY id_cliente BIGINT NOT NULL AUTO_INCREMENT");
+    }
+
+    @Test
+    void idsPorBloquesInsertanMasFilasPorSegundoQueIdentity() {
+        double identidad = filasPorSegundo(this::insertarConIdentidad);
+        double porBloques = filasPorSegundo(this::insertarConSecuencia);
+
+        System.out.printf("IDENTITY (un INSERT por fila) %10.0f filas/s%n", identidad);
+        System.out.printf("secuencias (lotes de %d)      %10.0f filas/s%n", LOTE_JDBC, porBloques);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM clientes_identidad", Long.class))
+                .isEqualTo(FILAS);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM clientes WHERE email LIKE 'bloque%'", Long.class)).isEqualTo(FILAS);
+        assertThat(porBloques).isGreaterThan(identidad);
+    }
+
+    private static double filasPorSegundo(Runnable insercion) {
+        long inicio = System.nanoTime();
+        insercion.run();
+        return FILAS / ((System.nanoTime() - inicio) / 1_000_000_000.0);
+    }
+
+    private void insertarConIdentidad() {
+        for (int desde = 0; desde < FILAS; desde += FILAS_POR_TRANSACCION) {
+            int primero = desde;
+            transaccion.executeWithoutResult(estado -> {
+                for (int i = primero; i < primero + FILAS_POR_TRANSACCION; i++) {
+                    int n = i;
+                    jdbcTemplate.update(conexion -> {
+                        PreparedStatement ps = conexion.prepareStatement(SQL_INSERTAR_IDENTIDAD,
+                                Statement.RETURN_GENERATED_KEYS);
+                        ps.setString(1, String.format("%08d", n));
+                        ps.setString(2, "Nombre" + n);
+                        ps.setString(3, "Apellido" + n);
+                        ps.setString(4, "identidad" + n + "@prueba.local");
+                        return ps;
+                    }, new GeneratedKeyHolder());
+                }
+            });
+        }
+    }
+
+    private void insertarConSecuencia() {
+        SecuenciaService secuenciaService = new SecuenciaService(jdbcTemplate);
+        for (int desde = 0; desde < FILAS; desde += FILAS_POR_TRANSACCION) {
+            int primero = desde;
+            transaccion.executeWithoutResult(estado -> {
+                for (int lote = primero; lote < primero + FILAS_POR_TRANSACCION; lote += LOTE_JDBC) {
+                    long id = secuenciaService.reservar("clientes", LOTE_JDBC);
+                    List<Object[]> filas = new ArrayList<>(LOTE_JDBC);
+                    for (int n = lote; n < lote + LOTE_JDBC; n++) {
+                        filas.add(new Object[]{id++, String.format("9%07d", n), "Nombre" + n, "Apellido" + n,
+                                "bloque" + n + "@prueba.local"});
+                    }
+                    jdbcTemplate.batchUpdate(SQL_INSERTAR, filas);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.biblioteca.bibliotech.service;
+
+import com.biblioteca.bibliotech.dto.response.UsuarioSistemaResponse;
+import com.biblioteca.bibliotech.enums.Rol;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenServiceTest {
+
+    private static final String SECRETO = "0123456789abcdef0123456789abcdef";
+
+    private final TokenService tokenService = new TokenService(SECRETO, Duration.ofMinutes(30));
+
+    private static UsuarioSistemaResponse usuario() {
+        return UsuarioSistemaResponse.builder()
+                .id(7L)
+                .username("mlopez")
+                .nombre("María López")
+                .rol(Rol.EMPLEADO)
+                .build();
+    }
+
+    @Test
+    void verificaElTokenQueGenera() {
+        UsuarioSistemaResponse usuario = tokenService.verificar(tokenService.generar(usuario()));
+
+        assertThat(usuario).isNotNull();
+        assertThat(usuario.getId()).isEqualTo(7L);
+        assertThat(usuario.getRol()).isEqualTo(Rol.EMPLEADO);
+        assertThat(usuario.getUsername()).isEqualTo("mlopez");
+        assertThat(usuario.getNombre()).isEqualTo("María López");
+    }
+
+    @Test
+    void rechazaUnPayloadModificado() {
+        String token = tokenService.generar(usuario());
+        String firma = token.substring(token.indexOf('.') + 1);
+        String payload = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))),
+                StandardCharsets.UTF_8).replace("EMPLEADO", "ADMIN");
+
+        assertThat(tokenService.verificar(codificar(payload) + "." + firma)).isNull();
+    }
+
+    @Test
+    void rechazaTokensFirmadosConOtraClave() {
+        TokenService otro = new TokenService("fedcba9876543210fedcba9876543210", Duration.ofMinutes(30));
+
+        assertThat(tokenService.verificar(otro.generar(usuario()))).isNull();
+    }
+
+    @Test
+    void rechazaTokensMalformados() {
+        assertThat(tokenService.verificar(null)).isNull();
+        assertThat(tokenService.verificar("")).isNull();
+        assertThat(tokenService.verificar("sinpunto")).isNull();
+        assertThat(tokenService.verificar("abc.")).isNull();
+        assertThat(tokenService.verificar("%%%.%%%")).isNull();
+    }
+
+    @Test
+    void rechazaTokensExpirados() {
+        TokenService vencidos = new TokenService(SECRETO, Duration.ofMinutes(-1));
+
+        assertThat(vencidos.verificar(vencidos.generar(usuario()))).isNull();
+    }
+
+    @Test
+    void unTokenRevocadoDejaDeSerValido() {
+        String token = tokenService.generar(usuario());
+
+        tokenService.revocar(token);
+
+        assertThat(tokenService.verificar(token)).isNull();
+        assertThat(tokenService.cantidadRevocados()).isEqualTo(1);
+    }
+
+    @Test
+    void noRevocaTokensConFirmaInvalida() {
+        String payload = "1|ADMIN|" + Long.MAX_VALUE + "|0|admin|Admin";
+
+        for (int i = 0; i < 100; i++) {
+            tokenService.revocar(codificar(payload) + "." + codificar("firma" + i));
+        }
+
+        assertThat(tokenService.cantidadRevocados()).isZero();
+    }
+
+    @Test
+    void noRevocaTokensExpirados() {
+        TokenService vencidos = new TokenService(SECRETO, Duration.ofMinutes(-1));
+
+        vencidos.revocar(vencidos.generar(usuario()));
+
+        assertThat(vencidos.cantidadRevocados()).isZero();
+    }
+
+    @Test
+    void conLaListaLlenaNoSeDescartanRevocacionesVigentes() {
+        String primero = tokenService.generar(usuario());
+        tokenService.revocar(primero);
+        for (int i = 0; i < 10_000; i++) {
+            tokenService.revocar(tokenService.generar(usuario()));
+        }
+
+        assertThat(tokenService.cantidadRevocados()).isEqualTo(10_001);
+        assertThat(tokenService.verificar(primero)).isNull();
+    }
+
+    @Test
+    void conLaListaLlenaLosTokensNuevosDuranMenos() {
+        for (int i = 0; i < 10_000; i++) {
+            tokenService.revocar(tokenService.generar(usuario()));
+        }
+
+        long limite = System.currentTimeMillis() + Duration.ofMinutes(5).toMillis();
+        String token = tokenService.generar(usuario());
+
+        assertThat(tokenService.verificar(token)).isNotNull();
+        assertThat(expiracion(token)).isLessThanOrEqualTo(limite);
+    }
+
+    private static long expiracion(String token) {
+        String payload = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))),
+                StandardCharsets.UTF_8);
+        return Long.parseLong(payload.split("\\|")[2]);
+    }
+
+    private static String codificar(String texto) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+}